@@ -0,0 +1,96 @@
+-- Benchmark da busca por substring (V10: pg_trgm + unaccent) com 1M de linhas.
+--
+-- Uso (banco descartável, NÃO rodar em produção):
+--   psql -U Guilherme -d bench -v ON_ERROR_STOP=1 -f benchmark/busca-trigram.sql
+--
+-- Rode em um banco já migrado pelo Flyway. O script remove os índices trigram,
+-- mede as consultas (antes), recria os índices e mede de novo (depois).
+-- Compare os "Execution Time" dos EXPLAIN ANALYZE de cada bloco.
+
+\timing on
+
+-- ---------- massa: 1M álbuns e 1M artistas ----------
+TRUNCATE artistas_albuns, imagens_albuns, albuns, artistas RESTART IDENTITY CASCADE;
+
+INSERT INTO albuns (titulo, data_lancamento)
+SELECT 'Álbum ' || md5(g::text) || CASE WHEN g % 1000 = 0 THEN ' Coração Selvagem' ELSE '' END,
+       DATE '1960-01-01' + (g % 20000)
+FROM generate_series(1, 1000000) g;
+
+INSERT INTO artistas (nome, genero)
+SELECT 'Artista ' || md5(g::text) || CASE WHEN g % 1000 = 0 THEN ' João Gilberto' ELSE '' END,
+       (ARRAY['MPB', 'Rock', 'Samba', 'Forró', 'Sertanejo'])[1 + g % 5]
+FROM generate_series(1, 1000000) g;
+
+ANALYZE albuns;
+ANALYZE artistas;
+
+-- ---------- ANTES: sem índices trigram (equivalente a V1/V2 + LOWER LIKE) ----------
+DROP INDEX IF EXISTS ix_albuns_titulo_trgm;
+DROP INDEX IF EXISTS ix_artistas_nome_trgm;
+DROP INDEX IF EXISTS ix_artistas_genero_normalizado;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM albuns WHERE LOWER(titulo) LIKE '%coracao selvagem%';
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM albuns WHERE normalizar_busca(titulo) LIKE '%coracao selvagem%';
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM artistas
+WHERE normalizar_busca(nome) LIKE '%joao gil%' OR normalizar_busca(genero) = 'forro';
+
+-- ---------- DEPOIS: índices da V10 ----------
+CREATE INDEX ix_albuns_titulo_trgm
+    ON albuns USING gin (normalizar_busca(titulo) gin_trgm_ops);
+
+CREATE INDEX ix_artistas_nome_trgm
+    ON artistas USING gin (normalizar_busca(nome) gin_trgm_ops);
+
+CREATE INDEX ix_artistas_genero_normalizado
+    ON artistas(normalizar_busca(genero));
+
+ANALYZE albuns;
+ANALYZE artistas;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM albuns WHERE normalizar_busca(titulo) LIKE '%coracao selvagem%';
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM artistas
+WHERE normalizar_busca(nome) LIKE '%joao gil%' OR normalizar_busca(genero) = 'forro';
+
+-- busca ranqueada do endpoint /api/v1/busca
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, word_similarity('coracao', normalizar_busca(titulo)) AS relevancia
+FROM albuns
+WHERE normalizar_busca(titulo) LIKE '%coracao%'
+   OR 'coracao' <% normalizar_busca(titulo)
+ORDER BY relevancia DESC
+LIMIT 20;
+
+-- listagem de artistas: predicado fixo "(:p IS NULL OR ...)" x predicado montado só com pesquisa.
+-- O plano genérico (que o driver passa a usar após algumas execuções) não sabe o valor de :p,
+-- então o predicado fixo não usa os índices; o montado sob demanda usa.
+SET plan_cache_mode = force_generic_plan;
+
+PREPARE listagem_fixa(text) AS
+SELECT a.id, a.nome, a.genero, a.qtd_albuns FROM artistas a
+WHERE ($1 IS NULL OR $1 = ''
+    OR normalizar_busca(a.nome) LIKE CONCAT('%', normalizar_busca($1), '%')
+    OR normalizar_busca(a.genero) = normalizar_busca($1))
+ORDER BY a.id LIMIT 20;
+
+PREPARE listagem_montada(text) AS
+SELECT a.id, a.nome, a.genero, a.qtd_albuns FROM artistas a
+WHERE 1 = 1
+  AND (normalizar_busca(a.nome) LIKE CONCAT('%', normalizar_busca($1), '%')
+    OR normalizar_busca(a.genero) = normalizar_busca($1))
+ORDER BY a.id LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE listagem_fixa('joao gil');
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE listagem_montada('joao gil');
+
+DEALLOCATE listagem_fixa;
+DEALLOCATE listagem_montada;
+RESET plan_cache_mode;
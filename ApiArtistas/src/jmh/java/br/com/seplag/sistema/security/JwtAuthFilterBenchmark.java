@@ -0,0 +1,83 @@
+package br.com.seplag.sistema.security;
+
+import br.com.seplag.sistema.erp.model.Usuario;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por requisição do {@link JwtAuthFilter}: filtro inteiro com o cache de tokens verificados,
+ * a verificação sem cache com o parser pré-montado e a forma antiga (parser e chave novos a cada chamada).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    private static final String SEGREDO = "segredo-de-benchmark-com-mais-de-32-caracteres";
+    private static final FilterChain CADEIA = (req, res) -> {};
+
+    private JwtService jwtService;
+    private JwtAuthFilter filtro;
+    private String token;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService(new JwtProperties(SEGREDO, "api", 60, 7, "email", 10_000L), new ListaNegraTokens(1 << 20));
+        filtro = new JwtAuthFilter(jwtService);
+
+        Usuario usuario = new Usuario();
+        usuario.setId(42L);
+        usuario.setPapel("USER");
+        token = jwtService.gerarAccessToken(usuario);
+
+        request = new MockHttpServletRequest("GET", "/api/v1/artistas");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Object filtroComCache() throws Exception {
+        filtro.doFilter(request, response, CADEIA);
+        Object autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return autenticacao;
+    }
+
+    @Benchmark
+    public Claims validarParserPreMontado() {
+        return jwtService.validar(token).getBody();
+    }
+
+    @Benchmark
+    public Claims validarParserPorChamada() {
+        return Jwts.parserBuilder()
+                .requireIssuer("api")
+                .setSigningKey(Keys.hmacShaKeyFor(SEGREDO.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
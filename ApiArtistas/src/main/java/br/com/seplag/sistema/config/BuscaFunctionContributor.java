@@ -0,0 +1,23 @@
+package br.com.seplag.sistema.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registra no HQL a função {@code normalizar_busca} (V10: lower + unaccent),
+ * para que as consultas JPQL usem os índices trigram de expressão.
+ */
+public class BuscaFunctionContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(
+                "normalizar_busca",
+                "normalizar_busca(?1)",
+                functionContributions.getTypeConfiguration()
+                        .getBasicTypeRegistry()
+                        .resolve(StandardBasicTypes.STRING)
+        );
+    }
+}
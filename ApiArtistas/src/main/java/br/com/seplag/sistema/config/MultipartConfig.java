@@ -0,0 +1,29 @@
+package br.com.seplag.sistema.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+
+/**
+ * Substitui o resolver padrão do Boot (mesmos limites de spring.servlet.multipart.*) para deixar
+ * /imagens/upload-stream fora dele: o DispatcherServlet não embrulha a requisição nem pede as partes ao
+ * Tomcat, e o corpo chega intacto à leitura em fluxo (MultipartStreaming). As demais rotas continuam
+ * com o parse imediato.
+ */
+@Configuration
+public class MultipartConfig {
+
+    private static final String SUFIXO_STREAMING = "/imagens/upload-stream";
+
+    @Bean
+    public MultipartResolver multipartResolver() {
+        return new StandardServletMultipartResolver() {
+            @Override
+            public boolean isMultipart(HttpServletRequest request) {
+                return super.isMultipart(request) && !request.getRequestURI().endsWith(SUFIXO_STREAMING);
+            }
+        };
+    }
+}
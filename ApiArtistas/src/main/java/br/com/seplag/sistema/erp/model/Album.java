@@ -11,7 +11,8 @@ import java.util.List;
 public class Album {
 
 	@Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "albuns_seq")
+    @SequenceGenerator(name = "albuns_seq", sequenceName = "albuns_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToMany
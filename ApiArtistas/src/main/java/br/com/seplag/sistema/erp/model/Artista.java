@@ -11,7 +11,8 @@ import java.util.List;
 public class Artista {
 	
 	@Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "artistas_seq")
+    @SequenceGenerator(name = "artistas_seq", sequenceName = "artistas_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "nome", nullable = false, length = 255)
@@ -20,6 +21,10 @@ public class Artista {
     @Column(name = "genero", length = 100)
     private String genero;
 
+    // mantido pela trigger de artistas_albuns (V11)
+    @Column(name = "qtd_albuns", nullable = false, insertable = false, updatable = false)
+    private long qtdAlbuns;
+
     @Column(name = "criado_em", nullable = false)
     private LocalDateTime criadoEm;
 
@@ -50,6 +55,9 @@ public class Artista {
     public String getGenero() { return genero; }
     public void setGenero(String genero) { this.genero = genero; }
 
+    public long getQtdAlbuns() { return qtdAlbuns; }
+    public void setQtdAlbuns(long qtdAlbuns) { this.qtdAlbuns = qtdAlbuns; }
+
     public LocalDateTime getCriadoEm() { return criadoEm; }
     public void setCriadoEm(LocalDateTime criadoEm) { this.criadoEm = criadoEm; }
 
@@ -0,0 +1,58 @@
+package br.com.seplag.sistema.erp.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "derivados_imagens")
+public class DerivadoImagem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "derivados_imagens_seq")
+    @SequenceGenerator(name = "derivados_imagens_seq", sequenceName = "derivados_imagens_id_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "imagem_id", nullable = false)
+    private ImagemAlbum imagem;
+
+    @Column(name = "largura", nullable = false)
+    private int largura;
+
+    @Column(name = "chave_objeto", nullable = false, length = 500)
+    private String chaveObjeto;
+
+    @Column(name = "tipo_conteudo", nullable = false, length = 100)
+    private String tipoConteudo;
+
+    @Column(name = "tamanho_bytes", nullable = false)
+    private long tamanhoBytes;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+
+    @PrePersist
+    void prePersist() {
+        this.criadoEm = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public ImagemAlbum getImagem() { return imagem; }
+    public void setImagem(ImagemAlbum imagem) { this.imagem = imagem; }
+
+    public int getLargura() { return largura; }
+    public void setLargura(int largura) { this.largura = largura; }
+
+    public String getChaveObjeto() { return chaveObjeto; }
+    public void setChaveObjeto(String chaveObjeto) { this.chaveObjeto = chaveObjeto; }
+
+    public String getTipoConteudo() { return tipoConteudo; }
+    public void setTipoConteudo(String tipoConteudo) { this.tipoConteudo = tipoConteudo; }
+
+    public long getTamanhoBytes() { return tamanhoBytes; }
+    public void setTamanhoBytes(long tamanhoBytes) { this.tamanhoBytes = tamanhoBytes; }
+
+    public LocalDateTime getCriadoEm() { return criadoEm; }
+}
@@ -9,7 +9,8 @@ import java.time.LocalDateTime;
 public class ImagemAlbum {
 
 	@Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "imagens_albuns_seq")
+    @SequenceGenerator(name = "imagens_albuns_seq", sequenceName = "imagens_albuns_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -25,6 +26,18 @@ public class ImagemAlbum {
     @Column(name = "tamanho_bytes")
     private Long tamanhoBytes;
 
+    @Column(name = "largura")
+    private Integer largura;
+
+    @Column(name = "altura")
+    private Integer altura;
+
+    @Column(name = "cor_dominante", length = 7)
+    private String corDominante;
+
+    @Column(name = "blurhash", length = 100)
+    private String blurhash;
+
     @Column(name = "eh_capa", nullable = false)
     private boolean ehCapa = false;
 
@@ -52,6 +65,18 @@ public class ImagemAlbum {
     public Long getTamanhoBytes() { return tamanhoBytes; }
     public void setTamanhoBytes(Long tamanhoBytes) { this.tamanhoBytes = tamanhoBytes; }
 
+    public Integer getLargura() { return largura; }
+    public void setLargura(Integer largura) { this.largura = largura; }
+
+    public Integer getAltura() { return altura; }
+    public void setAltura(Integer altura) { this.altura = altura; }
+
+    public String getCorDominante() { return corDominante; }
+    public void setCorDominante(String corDominante) { this.corDominante = corDominante; }
+
+    public String getBlurhash() { return blurhash; }
+    public void setBlurhash(String blurhash) { this.blurhash = blurhash; }
+
     public boolean isEhCapa() { return ehCapa; }
     public void setEhCapa(boolean ehCapa) { this.ehCapa = ehCapa; }
 
@@ -0,0 +1,27 @@
+package br.com.seplag.sistema.erp.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Objeto endereçado por conteúdo e quantas imagens o referenciam (V16; contador mantido por trigger).
+ * Gravado e removido por SQL nativo em {@code ObjetoConteudoRepository}.
+ */
+@Entity
+@Table(name = "objetos_conteudo")
+public class ObjetoConteudo {
+
+    @Id
+    @Column(name = "chave_objeto", length = 500)
+    private String chaveObjeto;
+
+    @Column(name = "referencias", nullable = false, insertable = false, updatable = false)
+    private int referencias;
+
+    @Column(name = "atualizado_em", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime atualizadoEm;
+
+    public String getChaveObjeto() { return chaveObjeto; }
+    public int getReferencias() { return referencias; }
+    public LocalDateTime getAtualizadoEm() { return atualizadoEm; }
+}
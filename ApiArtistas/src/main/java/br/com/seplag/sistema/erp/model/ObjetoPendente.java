@@ -0,0 +1,28 @@
+package br.com.seplag.sistema.erp.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entrada do diário de objetos do MinIO ainda sem metadado confirmado (V14).
+ * Gravada e removida por SQL nativo em {@code ObjetoPendenteRepository}.
+ */
+@Entity
+@Table(name = "objetos_pendentes")
+public class ObjetoPendente {
+
+    @Id
+    @Column(name = "chave_objeto", length = 500)
+    private String chaveObjeto;
+
+    @Column(name = "criado_em", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime criadoEm;
+
+    // envio direto já reivindicado por uma confirmação (V14)
+    @Column(name = "confirmado_em", insertable = false, updatable = false)
+    private LocalDateTime confirmadoEm;
+
+    public String getChaveObjeto() { return chaveObjeto; }
+    public LocalDateTime getCriadoEm() { return criadoEm; }
+    public LocalDateTime getConfirmadoEm() { return confirmadoEm; }
+}
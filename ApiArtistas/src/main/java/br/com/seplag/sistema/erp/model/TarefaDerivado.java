@@ -0,0 +1,31 @@
+package br.com.seplag.sistema.erp.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Tarefa da fila persistente de geração de derivados (V15). Criada por trigger no INSERT
+ * de imagens_albuns e manipulada por SQL nativo em {@code TarefaDerivadoRepository}.
+ */
+@Entity
+@Table(name = "tarefas_derivados")
+public class TarefaDerivado {
+
+    @Id
+    @Column(name = "imagem_id")
+    private Long imagemId;
+
+    @Column(name = "tentativas", nullable = false)
+    private int tentativas;
+
+    @Column(name = "proxima_tentativa", nullable = false)
+    private LocalDateTime proximaTentativa;
+
+    @Column(name = "ultimo_erro", length = 1000)
+    private String ultimoErro;
+
+    public Long getImagemId() { return imagemId; }
+    public int getTentativas() { return tentativas; }
+    public LocalDateTime getProximaTentativa() { return proximaTentativa; }
+    public String getUltimoErro() { return ultimoErro; }
+}
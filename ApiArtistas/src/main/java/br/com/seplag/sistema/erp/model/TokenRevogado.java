@@ -0,0 +1,28 @@
+package br.com.seplag.sistema.erp.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Access token revogado no logout (V18), pelo jti. Gravado e lido por SQL nativo em
+ * {@code TokenRevogadoRepository}.
+ */
+@Entity
+@Table(name = "tokens_revogados")
+public class TokenRevogado {
+
+    @Id
+    @Column(name = "jti")
+    private UUID jti;
+
+    @Column(name = "expira_em", nullable = false, insertable = false, updatable = false)
+    private Instant expiraEm;
+
+    @Column(name = "revogado_em", nullable = false, insertable = false, updatable = false)
+    private Instant revogadoEm;
+
+    public UUID getJti() { return jti; }
+    public Instant getExpiraEm() { return expiraEm; }
+    public Instant getRevogadoEm() { return revogadoEm; }
+}
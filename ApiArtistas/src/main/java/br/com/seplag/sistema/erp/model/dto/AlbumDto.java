@@ -11,5 +11,5 @@ public record AlbumDto(
         Long id,
         @NotBlank String titulo,
         LocalDate dataLancamento,
-        @NotNull List<Long> artistasIds
+        @NotNull List<@NotNull(message = "id de artista não pode ser nulo") Long> artistasIds
 ) {}
\ No newline at end of file
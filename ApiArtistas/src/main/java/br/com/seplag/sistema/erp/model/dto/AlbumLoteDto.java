@@ -0,0 +1,13 @@
+package br.com.seplag.sistema.erp.model.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record AlbumLoteDto(
+        @NotEmpty(message = "itens é obrigatório")
+        @Size(max = 1000, message = "lote deve ter no máximo 1000 itens")
+        List<@Valid AlbumDto> itens
+) {}
@@ -0,0 +1,15 @@
+package br.com.seplag.sistema.erp.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record ConfirmacaoUploadDto(
+        @NotEmpty(message = "chaves é obrigatório")
+        @Size(max = 20, message = "no máximo 20 arquivos por vez")
+        List<@NotBlank String> chaves,
+
+        Integer indiceCapa
+) {}
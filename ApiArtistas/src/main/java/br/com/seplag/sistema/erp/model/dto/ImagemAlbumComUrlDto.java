@@ -6,5 +6,9 @@ public record ImagemAlbumComUrlDto(
         String tipoConteudo,
         Long tamanhoBytes,
         Boolean ehCapa,
+        Integer largura,
+        Integer altura,
+        String corDominante,
+        String blurhash,
         String url
 ) {}
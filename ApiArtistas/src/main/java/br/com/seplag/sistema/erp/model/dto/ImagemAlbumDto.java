@@ -15,5 +15,11 @@ public record ImagemAlbumDto(
 
         Long tamanhoBytes,
 
-        Boolean ehCapa
+        Boolean ehCapa,
+
+        // preenchidos pelo servidor (cabeçalho no envio, worker de derivados depois); ignorados na entrada
+        Integer largura,
+        Integer altura,
+        String corDominante,
+        String blurhash
 ) {}
\ No newline at end of file
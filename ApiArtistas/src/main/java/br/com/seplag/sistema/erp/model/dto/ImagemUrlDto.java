@@ -0,0 +1,7 @@
+package br.com.seplag.sistema.erp.model.dto;
+
+public record ImagemUrlDto(
+        Long imagemId,
+        Long albumId,
+        String url
+) {}
@@ -0,0 +1,13 @@
+package br.com.seplag.sistema.erp.model.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record ImagemUrlLoteDto(
+        @NotEmpty(message = "ids é obrigatório")
+        @Size(max = 500, message = "lote deve ter no máximo 500 ids")
+        List<@NotNull Long> ids
+) {}
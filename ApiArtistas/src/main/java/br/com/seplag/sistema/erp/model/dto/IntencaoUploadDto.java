@@ -0,0 +1,26 @@
+package br.com.seplag.sistema.erp.model.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record IntencaoUploadDto(
+        @NotEmpty(message = "arquivos é obrigatório")
+        @Size(max = 20, message = "no máximo 20 arquivos por vez")
+        List<@Valid Arquivo> arquivos
+) {
+
+    public record Arquivo(
+            @NotBlank(message = "tipoConteudo é obrigatório")
+            String tipoConteudo,
+
+            @NotNull(message = "tamanhoBytes é obrigatório")
+            @Positive(message = "tamanhoBytes deve ser positivo")
+            Long tamanhoBytes
+    ) {}
+}
@@ -0,0 +1,10 @@
+package br.com.seplag.sistema.erp.model.dto;
+
+import java.util.List;
+
+public record PaginaCursorDto<T>(
+        List<T> conteudo,
+        int tamanho,
+        String proximoCursor,
+        boolean temProximo
+) {}
@@ -0,0 +1,11 @@
+package br.com.seplag.sistema.erp.model.dto;
+
+import java.util.List;
+
+public record PaginaEstimadaDto<T>(
+        List<T> conteudo,
+        int pagina,
+        int tamanho,
+        boolean temProximo,
+        long totalEstimado
+) {}
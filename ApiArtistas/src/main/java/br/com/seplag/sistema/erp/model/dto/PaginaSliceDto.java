@@ -0,0 +1,10 @@
+package br.com.seplag.sistema.erp.model.dto;
+
+import java.util.List;
+
+public record PaginaSliceDto<T>(
+        List<T> conteudo,
+        int pagina,
+        int tamanho,
+        boolean temProximo
+) {}
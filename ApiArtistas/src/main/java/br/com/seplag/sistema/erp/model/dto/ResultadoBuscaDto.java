@@ -0,0 +1,9 @@
+package br.com.seplag.sistema.erp.model.dto;
+
+public record ResultadoBuscaDto(
+        String tipo,
+        Long id,
+        String titulo,
+        String detalhe,
+        double relevancia
+) {}
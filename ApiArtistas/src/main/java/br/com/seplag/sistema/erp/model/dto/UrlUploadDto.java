@@ -0,0 +1,15 @@
+package br.com.seplag.sistema.erp.model.dto;
+
+import java.time.Instant;
+
+/**
+ * Destino de um envio direto ao MinIO: PUT em {@code url} com o corpo do arquivo e o Content-Type
+ * declarado, até {@code expiraEm}; depois a chave é confirmada na API.
+ */
+public record UrlUploadDto(
+        String chaveObjeto,
+        String url,
+        String tipoConteudo,
+        Long tamanhoMaximoBytes,
+        Instant expiraEm
+) {}
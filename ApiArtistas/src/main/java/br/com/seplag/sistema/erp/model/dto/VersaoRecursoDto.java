@@ -0,0 +1,11 @@
+package br.com.seplag.sistema.erp.model.dto;
+
+import java.time.Instant;
+
+/**
+ * Validadores de um recurso para GET condicional: ETag (sem aspas) e Last-Modified.
+ */
+public record VersaoRecursoDto(
+        String etag,
+        Instant ultimaModificacao
+) {}
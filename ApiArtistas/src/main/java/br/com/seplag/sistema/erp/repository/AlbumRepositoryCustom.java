@@ -0,0 +1,40 @@
+package br.com.seplag.sistema.erp.repository;
+
+import br.com.seplag.sistema.erp.model.dto.AlbumDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Leituras de álbum projetadas direto em {@link AlbumDto}: os ids dos artistas são agregados
+ * no próprio SQL, sem carregar entidades nem inicializar a coleção lazy {@code artistas}.
+ */
+public interface AlbumRepositoryCustom {
+
+    Page<AlbumDto> listarProjetado(List<Long> artistaIds, String titulo, Pageable pageable);
+
+    /**
+     * Mesma listagem sem COUNT: busca tamanho + 1 linhas só para saber se há próxima página.
+     */
+    Slice<AlbumDto> listarProjetadoSemContagem(List<Long> artistaIds, String titulo, Pageable pageable);
+
+    long contarComFiltro(List<Long> artistaIds, String titulo);
+
+    Optional<AlbumDto> buscarProjetadoPorId(Long id);
+
+    /**
+     * Paginação por cursor (seek): filtra pela chave (campo, id) a partir de {@code after}
+     * em vez de OFFSET, sem consulta de contagem.
+     */
+    List<AlbumDto> buscarComFiltroPorCursor(
+            List<Long> artistaIds,
+            String titulo,
+            String campo,
+            boolean asc,
+            Keyset after,
+            int limite
+    );
+}
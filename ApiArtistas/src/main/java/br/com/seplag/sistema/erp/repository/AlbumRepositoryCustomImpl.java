@@ -0,0 +1,259 @@
+package br.com.seplag.sistema.erp.repository;
+
+import br.com.seplag.sistema.erp.model.dto.AlbumDto;
+import br.com.seplag.sistema.exception.RequisicaoInvalidaException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class AlbumRepositoryCustomImpl implements AlbumRepositoryCustom {
+
+    // campo exposto na API -> coluna com índice composto (coluna, id) (V9)
+    private static final Map<String, String> COLUNAS = Map.of(
+            "id", "al.id",
+            "titulo", "al.titulo",
+            "dataLancamento", "al.data_lancamento"
+    );
+
+    // modo página (OFFSET): além das colunas do cursor, os demais campos ordenáveis da entidade
+    private static final Map<String, String> COLUNAS_PAGINA = Map.of(
+            "id", "al.id",
+            "titulo", "al.titulo",
+            "dataLancamento", "al.data_lancamento",
+            "criadoEm", "al.criado_em",
+            "atualizadoEm", "al.atualizado_em"
+    );
+
+    // uma linha por álbum; os artistas vêm agregados na subconsulta (índice ix_artistas_albuns_album_id)
+    private static final String SELECT_PROJECAO = """
+            SELECT al.id, al.titulo, al.data_lancamento,
+                   (SELECT string_agg(CAST(aa.artista_id AS TEXT), ',' ORDER BY aa.artista_id)
+                    FROM artistas_albuns aa
+                    WHERE aa.album_id = al.id) AS artistas_ids
+            FROM albuns al""";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Page<AlbumDto> listarProjetado(List<Long> artistaIds, String titulo, Pageable pageable) {
+        List<AlbumDto> conteudo = listarPagina(new Filtro(artistaIds, titulo), pageable, pageable.getPageSize());
+        return PageableExecutionUtils.getPage(conteudo, pageable, () -> contarComFiltro(artistaIds, titulo));
+    }
+
+    @Override
+    public Slice<AlbumDto> listarProjetadoSemContagem(List<Long> artistaIds, String titulo, Pageable pageable) {
+        int tamanho = pageable.getPageSize();
+        List<AlbumDto> linhas = listarPagina(new Filtro(artistaIds, titulo), pageable, tamanho + 1);
+
+        boolean temProximo = linhas.size() > tamanho;
+        return new SliceImpl<>(temProximo ? linhas.subList(0, tamanho) : linhas, pageable, temProximo);
+    }
+
+    @Override
+    public long contarComFiltro(List<Long> artistaIds, String titulo) {
+        Filtro filtro = new Filtro(artistaIds, titulo);
+
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM albuns al WHERE 1 = 1");
+        filtro.appendWhere(sql);
+
+        Query q = em.createNativeQuery(sql.toString());
+        filtro.bind(q);
+        return ((Number) q.getSingleResult()).longValue();
+    }
+
+    private List<AlbumDto> listarPagina(Filtro filtro, Pageable pageable, int limite) {
+        StringBuilder sql = new StringBuilder(SELECT_PROJECAO).append(" WHERE 1 = 1");
+        filtro.appendWhere(sql);
+        sql.append(" ORDER BY ").append(orderBy(pageable.getSort()));
+        sql.append(" LIMIT :limite OFFSET :offset");
+
+        Query q = em.createNativeQuery(sql.toString());
+        filtro.bind(q);
+        q.setParameter("limite", limite);
+        q.setParameter("offset", pageable.getOffset());
+
+        return mapear(q);
+    }
+
+    @Override
+    public Optional<AlbumDto> buscarProjetadoPorId(Long id) {
+        Query q = em.createNativeQuery(SELECT_PROJECAO + " WHERE al.id = :id");
+        q.setParameter("id", id);
+        return mapear(q).stream().findFirst();
+    }
+
+    @Override
+    public List<AlbumDto> buscarComFiltroPorCursor(
+            List<Long> artistaIds,
+            String titulo,
+            String campo,
+            boolean asc,
+            Keyset after,
+            int limite
+    ) {
+        String coluna = COLUNAS.get(campo);
+        if (coluna == null) {
+            throw new RequisicaoInvalidaException("Ordenação não suportada no modo cursor: " + campo);
+        }
+
+        Filtro filtro = new Filtro(artistaIds, titulo);
+
+        StringBuilder sql = new StringBuilder(SELECT_PROJECAO).append(" WHERE 1 = 1");
+        filtro.appendWhere(sql);
+        if (after != null) {
+            sql.append(" AND ").append(predicadoKeyset(campo, coluna, asc, after));
+        }
+
+        String dir = asc ? "ASC" : "DESC";
+        if ("id".equals(campo)) {
+            sql.append(" ORDER BY al.id ").append(dir);
+        } else {
+            sql.append(" ORDER BY ").append(coluna).append(' ').append(dir).append(", al.id ").append(dir);
+        }
+        sql.append(" LIMIT :limite");
+
+        Query q = em.createNativeQuery(sql.toString());
+        filtro.bind(q);
+        if (after != null) {
+            q.setParameter("cursorId", after.id());
+            if (!"id".equals(campo) && after.valor() != null) {
+                q.setParameter("cursorValor", valorTipado(campo, after.valor()));
+            }
+        }
+        q.setParameter("limite", limite);
+
+        return mapear(q);
+    }
+
+    /**
+     * Comparação por row value: (coluna, id) &gt; (valor, id) casa com o índice composto
+     * e o Postgres o percorre em ordem (ou de trás pra frente, no DESC).
+     * data_lancamento é nullable: no ASC os nulos vêm por último e no DESC primeiro
+     * (padrão do Postgres), então o cursor trata a "faixa" de nulos separadamente.
+     */
+    private static String predicadoKeyset(String campo, String coluna, boolean asc, Keyset after) {
+        String op = asc ? ">" : "<";
+
+        if ("id".equals(campo)) {
+            return "al.id " + op + " :cursorId";
+        }
+
+        if (!"dataLancamento".equals(campo)) {
+            if (after.valor() == null) {
+                throw new RequisicaoInvalidaException("Cursor inválido");
+            }
+            return "(" + coluna + ", al.id) " + op + " (:cursorValor, :cursorId)";
+        }
+
+        if (after.valor() == null) {
+            return asc
+                    ? "(" + coluna + " IS NULL AND al.id > :cursorId)"
+                    : "(" + coluna + " IS NOT NULL OR al.id < :cursorId)";
+        }
+
+        return asc
+                ? "((" + coluna + ", al.id) > (:cursorValor, :cursorId) OR " + coluna + " IS NULL)"
+                : "(" + coluna + ", al.id) < (:cursorValor, :cursorId)";
+    }
+
+    private static Object valorTipado(String campo, String valor) {
+        if ("dataLancamento".equals(campo)) {
+            try {
+                return LocalDate.parse(valor);
+            } catch (DateTimeParseException e) {
+                throw new RequisicaoInvalidaException("Cursor inválido");
+            }
+        }
+        return valor;
+    }
+
+    private static String orderBy(Sort sort) {
+        StringBuilder out = new StringBuilder();
+        boolean temId = false;
+
+        for (Sort.Order order : sort) {
+            String coluna = COLUNAS_PAGINA.get(order.getProperty());
+            if (coluna == null) {
+                throw new RequisicaoInvalidaException("Ordenação não suportada: " + order.getProperty());
+            }
+            if (!out.isEmpty()) out.append(", ");
+            out.append(coluna).append(order.isAscending() ? " ASC" : " DESC");
+            temId |= "id".equals(order.getProperty());
+        }
+
+        // id como desempate para o OFFSET ser determinístico
+        if (!temId) {
+            if (!out.isEmpty()) out.append(", ");
+            out.append("al.id ASC");
+        }
+        return out.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<AlbumDto> mapear(Query q) {
+        List<Object[]> linhas = q.getResultList();
+        return linhas.stream()
+                .map(r -> new AlbumDto(
+                        ((Number) r[0]).longValue(),
+                        (String) r[1],
+                        toLocalDate(r[2]),
+                        idsArtistas((String) r[3])
+                ))
+                .toList();
+    }
+
+    private static LocalDate toLocalDate(Object valor) {
+        if (valor == null) return null;
+        if (valor instanceof LocalDate d) return d;
+        return ((java.sql.Date) valor).toLocalDate();
+    }
+
+    private static List<Long> idsArtistas(String agregados) {
+        if (agregados == null || agregados.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(agregados.split(","))
+                .map(Long::valueOf)
+                .toList();
+    }
+
+    private record Filtro(List<Long> artistaIds, String titulo) {
+
+        boolean temTitulo() {
+            return titulo != null && !titulo.isBlank();
+        }
+
+        boolean temArtistas() {
+            return artistaIds != null && !artistaIds.isEmpty();
+        }
+
+        void appendWhere(StringBuilder sql) {
+            if (temTitulo()) {
+                sql.append(" AND normalizar_busca(al.titulo) LIKE CONCAT('%', normalizar_busca(:titulo), '%')");
+            }
+            if (temArtistas()) {
+                sql.append(" AND EXISTS (SELECT 1 FROM artistas_albuns aa")
+                        .append(" WHERE aa.album_id = al.id AND aa.artista_id IN (:artistaIds))");
+            }
+        }
+
+        void bind(Query q) {
+            if (temTitulo()) q.setParameter("titulo", titulo);
+            if (temArtistas()) q.setParameter("artistaIds", artistaIds);
+        }
+    }
+}
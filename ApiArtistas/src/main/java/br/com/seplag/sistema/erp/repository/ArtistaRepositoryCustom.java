@@ -0,0 +1,35 @@
+package br.com.seplag.sistema.erp.repository;
+
+import br.com.seplag.sistema.erp.model.dto.ArtistaListDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+public interface ArtistaRepositoryCustom {
+
+    /**
+     * A ordenação vem do pageable (campo + id como desempate) e casa com os índices (coluna, id):
+     * qtdAlbuns é a coluna mantida por trigger, sem JOIN/GROUP BY.
+     */
+    Page<ArtistaListDto> buscarComFiltroComQtdAlbunsOrdenado(String pesquisa, Pageable pageable);
+
+    /**
+     * Mesma listagem sem COUNT: busca tamanho + 1 linhas para preencher hasNext.
+     */
+    Slice<ArtistaListDto> buscarComFiltroSemContagem(String pesquisa, Pageable pageable);
+
+    long contarComFiltro(String pesquisa);
+
+    /**
+     * Paginação por cursor (seek) da listagem de artistas, sem consulta de contagem.
+     */
+    List<ArtistaListDto> buscarComFiltroPorCursor(
+            String pesquisa,
+            String campo,
+            boolean asc,
+            Keyset after,
+            int limite
+    );
+}
@@ -0,0 +1,185 @@
+package br.com.seplag.sistema.erp.repository;
+
+import br.com.seplag.sistema.erp.model.dto.ArtistaListDto;
+import br.com.seplag.sistema.exception.RequisicaoInvalidaException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+import java.util.Map;
+
+public class ArtistaRepositoryCustomImpl implements ArtistaRepositoryCustom {
+
+    // campo exposto na API -> coluna com índice composto (coluna, id) (V9)
+    private static final Map<String, String> COLUNAS = Map.of(
+            "id", "a.id",
+            "nome", "a.nome"
+    );
+
+    // modo página (OFFSET): os campos aceitos por ArtistaService, qtdAlbuns é a coluna mantida por trigger (V11)
+    private static final Map<String, String> COLUNAS_PAGINA = Map.of(
+            "id", "a.id",
+            "nome", "a.nome",
+            "genero", "a.genero",
+            "qtdAlbuns", "a.qtd_albuns"
+    );
+
+    private static final String SELECT_LISTAGEM = "SELECT a.id, a.nome, a.genero, a.qtd_albuns FROM artistas a";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Page<ArtistaListDto> buscarComFiltroComQtdAlbunsOrdenado(String pesquisa, Pageable pageable) {
+        List<ArtistaListDto> conteudo = listarPagina(new Filtro(pesquisa), pageable, pageable.getPageSize());
+        return PageableExecutionUtils.getPage(conteudo, pageable, () -> contarComFiltro(pesquisa));
+    }
+
+    @Override
+    public Slice<ArtistaListDto> buscarComFiltroSemContagem(String pesquisa, Pageable pageable) {
+        int tamanho = pageable.getPageSize();
+        List<ArtistaListDto> linhas = listarPagina(new Filtro(pesquisa), pageable, tamanho + 1);
+
+        boolean temProximo = linhas.size() > tamanho;
+        return new SliceImpl<>(temProximo ? linhas.subList(0, tamanho) : linhas, pageable, temProximo);
+    }
+
+    @Override
+    public long contarComFiltro(String pesquisa) {
+        Filtro filtro = new Filtro(pesquisa);
+
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM artistas a WHERE 1 = 1");
+        filtro.appendWhere(sql);
+
+        Query q = em.createNativeQuery(sql.toString());
+        filtro.bind(q);
+        return ((Number) q.getSingleResult()).longValue();
+    }
+
+    private List<ArtistaListDto> listarPagina(Filtro filtro, Pageable pageable, int limite) {
+        StringBuilder sql = new StringBuilder(SELECT_LISTAGEM).append(" WHERE 1 = 1");
+        filtro.appendWhere(sql);
+        sql.append(" ORDER BY ").append(orderBy(pageable.getSort()));
+        sql.append(" LIMIT :limite OFFSET :offset");
+
+        Query q = em.createNativeQuery(sql.toString());
+        filtro.bind(q);
+        q.setParameter("limite", limite);
+        q.setParameter("offset", pageable.getOffset());
+
+        return mapear(q);
+    }
+
+    @Override
+    public List<ArtistaListDto> buscarComFiltroPorCursor(
+            String pesquisa,
+            String campo,
+            boolean asc,
+            Keyset after,
+            int limite
+    ) {
+        String coluna = COLUNAS.get(campo);
+        if (coluna == null) {
+            throw new RequisicaoInvalidaException("Ordenação não suportada no modo cursor: " + campo);
+        }
+
+        Filtro filtro = new Filtro(pesquisa);
+        String op = asc ? ">" : "<";
+        String dir = asc ? "ASC" : "DESC";
+
+        StringBuilder sql = new StringBuilder(SELECT_LISTAGEM).append(" WHERE 1 = 1");
+        filtro.appendWhere(sql);
+        if (after != null) {
+            if ("id".equals(campo)) {
+                sql.append(" AND a.id ").append(op).append(" :cursorId");
+            } else {
+                sql.append(" AND (").append(coluna).append(", a.id) ").append(op).append(" (:cursorValor, :cursorId)");
+            }
+        }
+        if ("id".equals(campo)) {
+            sql.append(" ORDER BY a.id ").append(dir);
+        } else {
+            sql.append(" ORDER BY ").append(coluna).append(' ').append(dir).append(", a.id ").append(dir);
+        }
+        sql.append(" LIMIT :limite");
+
+        Query q = em.createNativeQuery(sql.toString());
+        filtro.bind(q);
+        if (after != null) {
+            q.setParameter("cursorId", after.id());
+            if (!"id".equals(campo)) {
+                if (after.valor() == null) {
+                    throw new RequisicaoInvalidaException("Cursor inválido");
+                }
+                q.setParameter("cursorValor", after.valor());
+            }
+        }
+        q.setParameter("limite", limite);
+
+        return mapear(q);
+    }
+
+    private static String orderBy(Sort sort) {
+        StringBuilder out = new StringBuilder();
+        boolean temId = false;
+
+        for (Sort.Order order : sort) {
+            String coluna = COLUNAS_PAGINA.get(order.getProperty());
+            if (coluna == null) {
+                throw new RequisicaoInvalidaException("Ordenação não suportada: " + order.getProperty());
+            }
+            if (!out.isEmpty()) out.append(", ");
+            out.append(coluna).append(order.isAscending() ? " ASC" : " DESC");
+            temId |= "id".equals(order.getProperty());
+        }
+
+        // id como desempate para o OFFSET ser determinístico
+        if (!temId) {
+            if (!out.isEmpty()) out.append(", ");
+            out.append("a.id ASC");
+        }
+        return out.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ArtistaListDto> mapear(Query q) {
+        List<Object[]> linhas = q.getResultList();
+        return linhas.stream()
+                .map(r -> new ArtistaListDto(
+                        ((Number) r[0]).longValue(),
+                        (String) r[1],
+                        (String) r[2],
+                        ((Number) r[3]).longValue()
+                ))
+                .toList();
+    }
+
+    /**
+     * O predicado só entra com pesquisa preenchida: um "(:p IS NULL OR ...)" fixo vira, no plano genérico
+     * do prepared statement, um filtro que não usa o GIN trigram nem o btree de genero (V10).
+     */
+    private record Filtro(String pesquisa) {
+
+        boolean temPesquisa() {
+            return pesquisa != null && !pesquisa.isBlank();
+        }
+
+        void appendWhere(StringBuilder sql) {
+            if (temPesquisa()) {
+                sql.append(" AND (normalizar_busca(a.nome) LIKE CONCAT('%', normalizar_busca(:pesquisa), '%')")
+                        .append(" OR normalizar_busca(a.genero) = normalizar_busca(:pesquisa))");
+            }
+        }
+
+        void bind(Query q) {
+            if (temPesquisa()) q.setParameter("pesquisa", pesquisa);
+        }
+    }
+}
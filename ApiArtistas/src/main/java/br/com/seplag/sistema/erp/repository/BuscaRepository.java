@@ -0,0 +1,64 @@
+package br.com.seplag.sistema.erp.repository;
+
+import br.com.seplag.sistema.erp.model.dto.ResultadoBuscaDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Busca textual em álbuns e artistas sobre os índices trigram (V10).
+ * O filtro combina substring (LIKE) e similaridade por palavra (&lt;%), ambos servidos pelo GIN.
+ */
+@Repository
+public class BuscaRepository {
+
+    private static final String SQL = """
+            SELECT r.tipo, r.id, r.titulo, r.detalhe, r.relevancia
+            FROM (
+                SELECT 'ALBUM' AS tipo, al.id, al.titulo, CAST(al.data_lancamento AS TEXT) AS detalhe,
+                       GREATEST(
+                           similarity(normalizar_busca(al.titulo), normalizar_busca(:q)),
+                           word_similarity(normalizar_busca(:q), normalizar_busca(al.titulo))
+                       ) AS relevancia
+                FROM albuns al
+                WHERE normalizar_busca(al.titulo) LIKE CONCAT('%', normalizar_busca(:q), '%')
+                   OR normalizar_busca(:q) <% normalizar_busca(al.titulo)
+
+                UNION ALL
+
+                SELECT 'ARTISTA' AS tipo, a.id, a.nome AS titulo, a.genero AS detalhe,
+                       GREATEST(
+                           similarity(normalizar_busca(a.nome), normalizar_busca(:q)),
+                           word_similarity(normalizar_busca(:q), normalizar_busca(a.nome))
+                       ) AS relevancia
+                FROM artistas a
+                WHERE normalizar_busca(a.nome) LIKE CONCAT('%', normalizar_busca(:q), '%')
+                   OR normalizar_busca(:q) <% normalizar_busca(a.nome)
+            ) r
+            ORDER BY r.relevancia DESC, r.tipo, r.id
+            LIMIT :limite
+            """;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @SuppressWarnings("unchecked")
+    public List<ResultadoBuscaDto> buscar(String q, int limite) {
+        List<Object[]> linhas = em.createNativeQuery(SQL)
+                .setParameter("q", q)
+                .setParameter("limite", limite)
+                .getResultList();
+
+        return linhas.stream()
+                .map(r -> new ResultadoBuscaDto(
+                        (String) r[0],
+                        ((Number) r[1]).longValue(),
+                        (String) r[2],
+                        (String) r[3],
+                        ((Number) r[4]).doubleValue()
+                ))
+                .toList();
+    }
+}
@@ -0,0 +1,29 @@
+package br.com.seplag.sistema.erp.repository;
+
+import br.com.seplag.sistema.erp.model.DerivadoImagem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface DerivadoImagemRepository extends JpaRepository<DerivadoImagem, Long> {
+
+    List<DerivadoImagem> findByImagemId(Long imagemId);
+
+    List<DerivadoImagem> findByImagemIdIn(Collection<Long> imagemIds);
+
+    boolean existsByChaveObjeto(String chaveObjeto);
+
+    boolean existsByImagemId(Long imagemId);
+
+    /**
+     * Derivados de outras imagens que apontam para o mesmo objeto original (chaves por conteúdo).
+     */
+    @Query("SELECT d FROM DerivadoImagem d WHERE d.imagem.chaveObjeto = :chaveOriginal AND d.imagem.id <> :imagemId")
+    List<DerivadoImagem> findByChaveOriginal(@Param("chaveOriginal") String chaveOriginal, @Param("imagemId") Long imagemId);
+
+    @Query("SELECT d.chaveObjeto FROM DerivadoImagem d WHERE d.imagem.id = :imagemId")
+    List<String> chavesPorImagem(@Param("imagemId") Long imagemId);
+}
@@ -0,0 +1,29 @@
+package br.com.seplag.sistema.erp.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Estatísticas do planner do Postgres (pg_class), atualizadas por ANALYZE/autovacuum.
+ */
+@Repository
+public class EstatisticasRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    /**
+     * Quantidade estimada de linhas da tabela, ou -1 se ela ainda não foi analisada.
+     */
+    public long linhasEstimadas(String tabela) {
+        List<?> r = em.createNativeQuery(
+                        "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = CAST(:tabela AS regclass)")
+                .setParameter("tabela", tabela)
+                .getResultList();
+
+        return r.isEmpty() ? -1 : ((Number) r.get(0)).longValue();
+    }
+}
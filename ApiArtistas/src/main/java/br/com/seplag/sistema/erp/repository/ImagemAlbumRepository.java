@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import br.com.seplag.sistema.erp.model.ImagemAlbum;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,7 +16,42 @@ public interface ImagemAlbumRepository extends JpaRepository<ImagemAlbum, Long>
 
     Optional<ImagemAlbum> findByIdAndAlbumId(Long id, Long albumId);
 
+    boolean existsByChaveObjeto(String chaveObjeto);
+
+    Optional<ImagemAlbum> findByAlbumIdAndChaveObjeto(Long albumId, String chaveObjeto);
+
     @Modifying
     @Query("UPDATE ImagemAlbum i SET i.ehCapa = false WHERE i.album.id = :albumId AND i.ehCapa = true")
     int desmarcarCapasDoAlbum(Long albumId);
+
+    /**
+     * Metadados calculados pelo worker de derivados a partir da imagem decodificada.
+     */
+    @Modifying
+    @Query("""
+            UPDATE ImagemAlbum i
+            SET i.largura = :largura, i.altura = :altura, i.corDominante = :corDominante, i.blurhash = :blurhash
+            WHERE i.id = :id""")
+    int atualizarMetadados(@Param("id") Long id,
+                           @Param("largura") int largura,
+                           @Param("altura") int altura,
+                           @Param("corDominante") String corDominante,
+                           @Param("blurhash") String blurhash);
+
+    /**
+     * Copia os metadados de outra imagem com o mesmo objeto (chaves por conteúdo) que já os tem;
+     * 0 se nenhuma tem.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE imagens_albuns i
+            SET largura = o.largura, altura = o.altura, cor_dominante = o.cor_dominante, blurhash = o.blurhash
+            FROM (
+                SELECT largura, altura, cor_dominante, blurhash
+                FROM imagens_albuns
+                WHERE chave_objeto = :chaveObjeto AND id <> :id AND blurhash IS NOT NULL
+                LIMIT 1
+            ) o
+            WHERE i.id = :id""", nativeQuery = true)
+    int copiarMetadados(@Param("id") Long id, @Param("chaveObjeto") String chaveObjeto);
 }
@@ -0,0 +1,75 @@
+package br.com.seplag.sistema.erp.repository;
+
+import br.com.seplag.sistema.exception.RequisicaoInvalidaException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Posição de uma página na paginação por cursor (seek): campo/direção de ordenação,
+ * valor da chave de ordenação e id da última linha entregue.
+ * O token enviado ao cliente é opaco (Base64 URL-safe).
+ */
+public record Keyset(String campo, boolean asc, String valor, Long id) {
+
+    private static final String SEP = ":";
+
+    public String encode() {
+        String raw = campo + SEP + (asc ? "asc" : "desc") + SEP + id
+                + (valor == null ? "" : SEP + valor);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Keyset decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // o valor vem por último para poder conter ':'
+            String[] partes = raw.split(SEP, 4);
+            if (partes.length < 3) {
+                throw new IllegalArgumentException("partes insuficientes");
+            }
+            boolean asc = switch (partes[1]) {
+                case "asc" -> true;
+                case "desc" -> false;
+                default -> throw new IllegalArgumentException("direção inválida");
+            };
+            String valor = partes.length == 4 ? partes[3] : null;
+            return new Keyset(partes[0], asc, valor, Long.valueOf(partes[2]));
+        } catch (IllegalArgumentException e) {
+            throw new RequisicaoInvalidaException("Cursor inválido");
+        }
+    }
+
+    /**
+     * Extrai a (única) ordenação do pageable, validando contra os campos que possuem índice composto.
+     */
+    public static Sort.Order ordem(Pageable pageable, Set<String> camposPermitidos) {
+        Sort.Order order = pageable.getSort().isSorted()
+                ? pageable.getSort().iterator().next()
+                : Sort.Order.asc("id");
+
+        if (!camposPermitidos.contains(order.getProperty())) {
+            throw new RequisicaoInvalidaException(
+                    "Ordenação não suportada no modo cursor: " + order.getProperty() + ". Use " + camposPermitidos);
+        }
+        return order;
+    }
+
+    /**
+     * Garante que o cursor recebido foi gerado para a mesma ordenação da requisição.
+     */
+    public static Keyset validar(String after, Sort.Order order) {
+        if (after == null || after.isBlank()) {
+            return null;
+        }
+        Keyset cursor = decode(after);
+        if (!cursor.campo().equals(order.getProperty()) || cursor.asc() != order.isAscending()) {
+            throw new RequisicaoInvalidaException("Cursor não corresponde à ordenação informada");
+        }
+        return cursor;
+    }
+}
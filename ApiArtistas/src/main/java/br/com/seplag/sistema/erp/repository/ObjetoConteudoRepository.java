@@ -0,0 +1,62 @@
+package br.com.seplag.sistema.erp.repository;
+
+import br.com.seplag.sistema.erp.model.ObjetoConteudo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Contagem de referências dos objetos endereçados por conteúdo. O lock da linha serializa quem
+ * reaproveita o objeto ({@link #renovar}) e a varredura que o apaga ({@link #travarSemReferencias}).
+ */
+public interface ObjetoConteudoRepository extends JpaRepository<ObjetoConteudo, String> {
+
+    /**
+     * Objeto recém-enviado; chamado na transação que grava a imagem, antes do INSERT (que incrementa o contador).
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+    INSERT INTO objetos_conteudo (chave_objeto) VALUES (:chave)
+    ON CONFLICT (chave_objeto) DO UPDATE SET atualizado_em = NOW()
+""", nativeQuery = true)
+    int registrar(@Param("chave") String chave);
+
+    /**
+     * Objeto reaproveitado sem envio: só vale se a linha ainda existe. Espera a varredura que estiver
+     * apagando a mesma chave e, se ela venceu, devolve 0.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE objetos_conteudo SET atualizado_em = NOW() WHERE chave_objeto = :chave", nativeQuery = true)
+    int renovar(@Param("chave") String chave);
+
+    boolean existsByChaveObjetoStartingWithAndChaveObjetoNot(String prefixo, String chaveObjeto);
+
+    @Query(value = """
+    SELECT o.chave_objeto
+    FROM objetos_conteudo o
+    WHERE o.referencias = 0
+      AND o.atualizado_em < NOW() - (:segundos * INTERVAL '1 second')
+    ORDER BY o.atualizado_em
+    LIMIT :lote
+""", nativeQuery = true)
+    List<String> buscarSemReferencias(@Param("segundos") long segundos, @Param("lote") int lote);
+
+    /**
+     * Trava a linha se ela continua sem referências e vencida; precisa da transação de quem chama.
+     */
+    @Query(value = """
+    SELECT o.chave_objeto
+    FROM objetos_conteudo o
+    WHERE o.chave_objeto = :chave
+      AND o.referencias = 0
+      AND o.atualizado_em < NOW() - (:segundos * INTERVAL '1 second')
+    FOR UPDATE
+""", nativeQuery = true)
+    List<String> travarSemReferencias(@Param("chave") String chave, @Param("segundos") long segundos);
+}
@@ -0,0 +1,83 @@
+package br.com.seplag.sistema.erp.repository;
+
+import br.com.seplag.sistema.erp.model.ObjetoPendente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Diário de objetos pendentes. Fora de uma transação cada método faz o próprio commit curto;
+ * dentro de uma, participa dela (é assim que a confirmação do metadado e a baixa no diário ficam atômicas).
+ */
+public interface ObjetoPendenteRepository extends JpaRepository<ObjetoPendente, String> {
+
+    /**
+     * Registrar de novo renova a carência: com chaves por conteúdo, o mesmo objeto pode ser reenviado.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+    INSERT INTO objetos_pendentes (chave_objeto) VALUES (:chave)
+    ON CONFLICT (chave_objeto) DO UPDATE SET criado_em = NOW()
+""", nativeQuery = true)
+    int registrar(@Param("chave") String chave);
+
+    /**
+     * Marca a chave de um envio direto como confirmada, renovando a carência; 0 se a chave não está no diário
+     * ou outra confirmação já a marcou. A linha fica: a varredura apaga o objeto de envio (e o que um PUT
+     * tardio na mesma URL recriar) quando a carência vencer.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+    UPDATE objetos_pendentes SET confirmado_em = NOW(), criado_em = NOW()
+    WHERE chave_objeto = :chave AND confirmado_em IS NULL
+""", nativeQuery = true)
+    int reivindicar(@Param("chave") String chave);
+
+    /**
+     * Desfaz {@link #reivindicar} de uma confirmação que falhou sem culpa do arquivo, para o cliente tentar de novo.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE objetos_pendentes SET confirmado_em = NULL WHERE chave_objeto IN (:chaves)", nativeQuery = true)
+    int liberar(@Param("chaves") Collection<String> chaves);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ObjetoPendente p WHERE p.chaveObjeto IN :chaves")
+    int removerTodas(@Param("chaves") Collection<String> chaves);
+
+    /**
+     * Chaves registradas há mais de {@code segundos}, mais antigas primeiro. A carência é medida pelo
+     * relógio do banco, o mesmo que preencheu criado_em.
+     */
+    @Query(value = """
+    SELECT p.chave_objeto
+    FROM objetos_pendentes p
+    WHERE p.criado_em < NOW() - (:segundos * INTERVAL '1 second')
+    ORDER BY p.criado_em
+    LIMIT :lote
+""", nativeQuery = true)
+    List<String> buscarVencidas(@Param("segundos") long segundos, @Param("lote") int lote);
+
+    /**
+     * Quais das chaves listadas no MinIO o banco ainda conhece: imagem, derivado, objeto por conteúdo
+     * ou envio em andamento. Cada ramo usa o índice da própria coluna.
+     */
+    @Query(value = """
+    SELECT i.chave_objeto FROM imagens_albuns i WHERE i.chave_objeto IN (:chaves)
+    UNION
+    SELECT d.chave_objeto FROM derivados_imagens d WHERE d.chave_objeto IN (:chaves)
+    UNION
+    SELECT o.chave_objeto FROM objetos_conteudo o WHERE o.chave_objeto IN (:chaves)
+    UNION
+    SELECT p.chave_objeto FROM objetos_pendentes p WHERE p.chave_objeto IN (:chaves)
+""", nativeQuery = true)
+    List<String> chavesReferenciadas(@Param("chaves") Collection<String> chaves);
+}
@@ -0,0 +1,61 @@
+package br.com.seplag.sistema.erp.repository;
+
+import br.com.seplag.sistema.erp.model.TarefaDerivado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface TarefaDerivadoRepository extends JpaRepository<TarefaDerivado, Long> {
+
+    /**
+     * Reserva até {@code lote} tarefas vencidas: conta a tentativa e empurra proxima_tentativa pelo lease,
+     * então outra instância (SKIP LOCKED) ou outra varredura não pega a mesma tarefa enquanto ela roda.
+     */
+    @Transactional
+    @Query(value = """
+    UPDATE tarefas_derivados t
+    SET tentativas = t.tentativas + 1,
+        proxima_tentativa = NOW() + (:leaseSegundos * INTERVAL '1 second')
+    WHERE t.imagem_id IN (
+        SELECT imagem_id
+        FROM tarefas_derivados
+        WHERE proxima_tentativa <= NOW()
+          AND tentativas < :maxTentativas
+        ORDER BY proxima_tentativa
+        LIMIT :lote
+        FOR UPDATE SKIP LOCKED
+    )
+    RETURNING t.imagem_id
+""", nativeQuery = true)
+    List<Long> reservar(
+            @Param("lote") int lote,
+            @Param("leaseSegundos") long leaseSegundos,
+            @Param("maxTentativas") int maxTentativas
+    );
+
+    /**
+     * Devolve a tarefa à fila com espera proporcional ao número de tentativas.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+    UPDATE tarefas_derivados
+    SET ultimo_erro = LEFT(:erro, 1000),
+        proxima_tentativa = NOW() + (tentativas * :esperaSegundos * INTERVAL '1 second')
+    WHERE imagem_id = :imagemId
+""", nativeQuery = true)
+    int registrarFalha(
+            @Param("imagemId") Long imagemId,
+            @Param("erro") String erro,
+            @Param("esperaSegundos") long esperaSegundos
+    );
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TarefaDerivado t WHERE t.imagemId = :imagemId")
+    int concluir(@Param("imagemId") Long imagemId);
+}
@@ -0,0 +1,53 @@
+package br.com.seplag.sistema.erp.repository;
+
+import br.com.seplag.sistema.erp.model.TokenRevogado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Revogações de access tokens. Validade gravada e lida como tempo restante, pelo relógio do banco (now(),
+ * colunas timestamptz): os nós não dependem do próprio relógio nem do fuso da sessão. revogado_em trafega
+ * em milissegundos desde a época, sem conversão de data no driver.
+ */
+public interface TokenRevogadoRepository extends JpaRepository<TokenRevogado, UUID> {
+
+    interface Revogacao {
+        UUID getJti();
+        long getRestanteMillis();
+        long getRevogadoEmMillis();
+    }
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+    INSERT INTO tokens_revogados (jti, expira_em)
+    VALUES (:jti, now() + (:restanteMillis * INTERVAL '1 millisecond'))
+    ON CONFLICT (jti) DO NOTHING
+""", nativeQuery = true)
+    int registrar(@Param("jti") UUID jti, @Param("restanteMillis") long restanteMillis);
+
+    /**
+     * Revogações ainda válidas gravadas depois de {@code desdeMillis} (valor de revogado_em já lido deste banco).
+     */
+    @Query(value = """
+    SELECT t.jti AS jti,
+           CAST(EXTRACT(EPOCH FROM (t.expira_em - now())) * 1000 AS BIGINT) AS restanteMillis,
+           CAST(EXTRACT(EPOCH FROM t.revogado_em) * 1000 AS BIGINT) AS revogadoEmMillis
+    FROM tokens_revogados t
+    WHERE t.revogado_em > to_timestamp(:desdeMillis / 1000.0)
+      AND t.expira_em > now()
+    ORDER BY t.revogado_em
+""", nativeQuery = true)
+    List<Revogacao> ativasDesde(@Param("desdeMillis") long desdeMillis);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM tokens_revogados WHERE expira_em < now()", nativeQuery = true)
+    int removerExpiradas();
+}
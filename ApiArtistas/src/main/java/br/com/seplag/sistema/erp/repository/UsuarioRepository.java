@@ -1,14 +1,26 @@
 package br.com.seplag.sistema.erp.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import br.com.seplag.sistema.erp.model.Usuario;
 
 import java.util.Optional;
 
+/**
+ * Comparações com lower() explícito: as derivadas IgnoreCase geram upper() e não usariam os índices
+ * em lower(email)/lower(nome) (V19).
+ */
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
-    Optional<Usuario> findByEmailIgnoreCase(String email);
-    Optional<Usuario> findByNomeIgnoreCase(String nome);
-    boolean existsByEmailIgnoreCase(String email);
 
-}
\ No newline at end of file
+    @Query("SELECT u FROM Usuario u WHERE lower(u.email) = lower(:email)")
+    Optional<Usuario> findByEmailIgnoreCase(@Param("email") String email);
+
+    @Query("SELECT u FROM Usuario u WHERE lower(u.nome) = lower(:nome)")
+    Optional<Usuario> findByNomeIgnoreCase(@Param("nome") String nome);
+
+    @Query("SELECT COUNT(u) > 0 FROM Usuario u WHERE lower(u.email) = lower(:email)")
+    boolean existsByEmailIgnoreCase(@Param("email") String email);
+
+}
@@ -0,0 +1,61 @@
+package br.com.seplag.sistema.erp.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Consultas de versão para GET condicional: uma linha por PK, sem carregar entidades.
+ */
+@Repository
+public class VersaoRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public Optional<LocalDateTime> ultimaAlteracaoAlbum(Long id) {
+        return ultimaAlteracao("albuns", id);
+    }
+
+    public Optional<LocalDateTime> ultimaAlteracaoArtista(Long id) {
+        return ultimaAlteracao("artistas", id);
+    }
+
+    /**
+     * Versão e data da última escrita na coleção (versoes_colecoes, mantida por trigger - V13).
+     */
+    public Optional<VersaoColecao> colecao(String colecao) {
+        List<?> r = em.createNativeQuery(
+                        "SELECT versao, atualizado_em FROM versoes_colecoes WHERE colecao = :colecao")
+                .setParameter("colecao", colecao)
+                .getResultList();
+
+        if (r.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] linha = (Object[]) r.get(0);
+        return Optional.of(new VersaoColecao(((Number) linha[0]).longValue(), toLocalDateTime(linha[1])));
+    }
+
+    // tabela vem só das constantes acima, nunca da requisição
+    private Optional<LocalDateTime> ultimaAlteracao(String tabela, Long id) {
+        List<?> r = em.createNativeQuery(
+                        "SELECT COALESCE(atualizado_em, criado_em) FROM " + tabela + " WHERE id = :id")
+                .setParameter("id", id)
+                .getResultList();
+
+        return r.stream().findFirst().map(VersaoRepository::toLocalDateTime);
+    }
+
+    private static LocalDateTime toLocalDateTime(Object valor) {
+        if (valor instanceof LocalDateTime d) return d;
+        return ((Timestamp) valor).toLocalDateTime();
+    }
+
+    public record VersaoColecao(long versao, LocalDateTime atualizadoEm) {}
+}
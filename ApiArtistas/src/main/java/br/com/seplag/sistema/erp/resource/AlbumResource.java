@@ -1,10 +1,16 @@
 package br.com.seplag.sistema.erp.resource;
 
 import br.com.seplag.sistema.erp.model.dto.AlbumComImagensDto;
+import br.com.seplag.sistema.erp.model.dto.AlbumLoteDto;
+import br.com.seplag.sistema.erp.model.dto.PaginaCursorDto;
+import br.com.seplag.sistema.erp.model.dto.PaginaEstimadaDto;
+import br.com.seplag.sistema.erp.model.dto.PaginaSliceDto;
+import br.com.seplag.sistema.erp.model.dto.VersaoRecursoDto;
 import jakarta.validation.Valid;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
@@ -12,6 +18,7 @@ import org.springframework.data.domain.Sort;
 
 import br.com.seplag.sistema.erp.model.dto.AlbumDto;
 import br.com.seplag.sistema.erp.service.AlbumService;
+import br.com.seplag.sistema.erp.service.VersaoService;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.net.URI;
@@ -25,9 +32,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class AlbumResource {
 
 	private final AlbumService albumService;
+    private final VersaoService versoes;
 
-    public AlbumResource(AlbumService albumService) {
+    public AlbumResource(AlbumService albumService, VersaoService versoes) {
         this.albumService = albumService;
+        this.versoes = versoes;
     }
 
     @PostMapping
@@ -36,22 +45,97 @@ public class AlbumResource {
         return ResponseEntity.created(URI.create("/albuns/" + criado.id())).body(criado);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<AlbumDto>> criarEmLote(@RequestBody @Valid AlbumLoteDto lote) {
+        return ResponseEntity.status(201).body(albumService.criarEmLote(lote.itens()));
+    }
+
     @GetMapping
     public ResponseEntity<Page<AlbumDto>> listar(
             @RequestParam(required = false) List<Long> artistaIds,
             @RequestParam(required = false) Long artistaId,
             @RequestParam(defaultValue = "") String titulo,
-            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC) Pageable pageable
+            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
+            ServletWebRequest request
     ) {
+        if (RespostaCondicional.naoModificado(request, versoes.albuns())) {
+            return null;
+        }
         if ((artistaIds == null || artistaIds.isEmpty()) && artistaId != null) {
             artistaIds = List.of(artistaId);
         }
         return ResponseEntity.ok(albumService.listar(artistaIds, titulo, pageable));
     }
 
+    /**
+     * Sem contagem total: só informa se existe próxima página (scroll infinito).
+     */
+    @GetMapping(params = "modo=slice")
+    public ResponseEntity<PaginaSliceDto<AlbumDto>> listarSemContagem(
+            @RequestParam(required = false) List<Long> artistaIds,
+            @RequestParam(required = false) Long artistaId,
+            @RequestParam(defaultValue = "") String titulo,
+            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
+            ServletWebRequest request
+    ) {
+        if (RespostaCondicional.naoModificado(request, versoes.albuns())) {
+            return null;
+        }
+        if ((artistaIds == null || artistaIds.isEmpty()) && artistaId != null) {
+            artistaIds = List.of(artistaId);
+        }
+        return ResponseEntity.ok(albumService.listarSemContagem(artistaIds, titulo, pageable));
+    }
+
+    /**
+     * Total aproximado (estatísticas do Postgres ou contagem em cache por filtro) em vez do COUNT exato.
+     */
+    @GetMapping(params = "modo=estimado")
+    public ResponseEntity<PaginaEstimadaDto<AlbumDto>> listarComTotalEstimado(
+            @RequestParam(required = false) List<Long> artistaIds,
+            @RequestParam(required = false) Long artistaId,
+            @RequestParam(defaultValue = "") String titulo,
+            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
+            ServletWebRequest request
+    ) {
+        if (RespostaCondicional.naoModificado(request, versoes.albuns())) {
+            return null;
+        }
+        if ((artistaIds == null || artistaIds.isEmpty()) && artistaId != null) {
+            artistaIds = List.of(artistaId);
+        }
+        return ResponseEntity.ok(albumService.listarComTotalEstimado(artistaIds, titulo, pageable));
+    }
+
+    /**
+     * Paginação por cursor: {@code after} é o {@code proximoCursor} da página anterior.
+     * Ordenações suportadas: id, titulo, dataLancamento.
+     */
+    @GetMapping(params = "modo=cursor")
+    public ResponseEntity<PaginaCursorDto<AlbumDto>> listarPorCursor(
+            @RequestParam(required = false) List<Long> artistaIds,
+            @RequestParam(required = false) Long artistaId,
+            @RequestParam(defaultValue = "") String titulo,
+            @RequestParam(required = false) String after,
+            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
+            ServletWebRequest request
+    ) {
+        if (RespostaCondicional.naoModificado(request, versoes.albuns())) {
+            return null;
+        }
+        if ((artistaIds == null || artistaIds.isEmpty()) && artistaId != null) {
+            artistaIds = List.of(artistaId);
+        }
+        return ResponseEntity.ok(albumService.listarPorCursor(artistaIds, titulo, pageable, after));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<AlbumDto> buscarPorId(@PathVariable Long id) {
-        return ResponseEntity.ok(albumService.buscarPorId(id));
+    public ResponseEntity<AlbumDto> buscarPorId(@PathVariable Long id, ServletWebRequest request) {
+        VersaoRecursoDto versao = versoes.album(id);
+        if (RespostaCondicional.naoModificado(request, versao)) {
+            return null;
+        }
+        return ResponseEntity.ok(albumService.buscarPorId(id, versao));
     }
 
     @PutMapping("/{id}")
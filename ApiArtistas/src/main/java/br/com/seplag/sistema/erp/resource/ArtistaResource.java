@@ -1,20 +1,28 @@
 package br.com.seplag.sistema.erp.resource;
 
 import br.com.seplag.sistema.erp.model.dto.ArtistaListDto;
+import br.com.seplag.sistema.erp.model.dto.ArtistaLoteDto;
+import br.com.seplag.sistema.erp.model.dto.PaginaCursorDto;
+import br.com.seplag.sistema.erp.model.dto.PaginaEstimadaDto;
+import br.com.seplag.sistema.erp.model.dto.PaginaSliceDto;
+import br.com.seplag.sistema.erp.model.dto.VersaoRecursoDto;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
 import br.com.seplag.sistema.erp.model.dto.ArtistaDto;
 import br.com.seplag.sistema.erp.service.ArtistaService;
+import br.com.seplag.sistema.erp.service.VersaoService;
 
 import java.net.URI;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/artistas")
@@ -22,9 +30,11 @@ import java.net.URI;
 public class ArtistaResource {
 
 	private final ArtistaService artistaService;
+    private final VersaoService versoes;
 
-    public ArtistaResource(ArtistaService artistaService) {
+    public ArtistaResource(ArtistaService artistaService, VersaoService versoes) {
         this.artistaService = artistaService;
+        this.versoes = versoes;
     }
 
     @PostMapping
@@ -33,17 +43,77 @@ public class ArtistaResource {
         return ResponseEntity.created(URI.create("/artistas/" + criado.id())).body(criado);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<ArtistaDto>> criarEmLote(@RequestBody @Valid ArtistaLoteDto lote) {
+        return ResponseEntity.status(201).body(artistaService.criarEmLote(lote.itens()));
+    }
+
     @GetMapping
     public ResponseEntity<Page<ArtistaListDto>> listar(
             @RequestParam(defaultValue = "") String pesquisa,
-            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC) Pageable pageable
+            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
+            ServletWebRequest request
     ) {
+        if (RespostaCondicional.naoModificado(request, versoes.artistas())) {
+            return null;
+        }
         return ResponseEntity.ok(artistaService.listar(pesquisa, pageable));
     }
 
+    /**
+     * Sem contagem total: só informa se existe próxima página (scroll infinito).
+     */
+    @GetMapping(params = "modo=slice")
+    public ResponseEntity<PaginaSliceDto<ArtistaListDto>> listarSemContagem(
+            @RequestParam(defaultValue = "") String pesquisa,
+            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
+            ServletWebRequest request
+    ) {
+        if (RespostaCondicional.naoModificado(request, versoes.artistas())) {
+            return null;
+        }
+        return ResponseEntity.ok(artistaService.listarSemContagem(pesquisa, pageable));
+    }
+
+    /**
+     * Total aproximado (estatísticas do Postgres ou contagem em cache por filtro) em vez do COUNT exato.
+     */
+    @GetMapping(params = "modo=estimado")
+    public ResponseEntity<PaginaEstimadaDto<ArtistaListDto>> listarComTotalEstimado(
+            @RequestParam(defaultValue = "") String pesquisa,
+            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
+            ServletWebRequest request
+    ) {
+        if (RespostaCondicional.naoModificado(request, versoes.artistas())) {
+            return null;
+        }
+        return ResponseEntity.ok(artistaService.listarComTotalEstimado(pesquisa, pageable));
+    }
+
+    /**
+     * Paginação por cursor: {@code after} é o {@code proximoCursor} da página anterior.
+     * Ordenações suportadas: id, nome.
+     */
+    @GetMapping(params = "modo=cursor")
+    public ResponseEntity<PaginaCursorDto<ArtistaListDto>> listarPorCursor(
+            @RequestParam(defaultValue = "") String pesquisa,
+            @RequestParam(required = false) String after,
+            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
+            ServletWebRequest request
+    ) {
+        if (RespostaCondicional.naoModificado(request, versoes.artistas())) {
+            return null;
+        }
+        return ResponseEntity.ok(artistaService.listarPorCursor(pesquisa, pageable, after));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<ArtistaDto> buscarPorId(@PathVariable Long id) {
-        return ResponseEntity.ok(artistaService.buscarPorId(id));
+    public ResponseEntity<ArtistaDto> buscarPorId(@PathVariable Long id, ServletWebRequest request) {
+        VersaoRecursoDto versao = versoes.artista(id);
+        if (RespostaCondicional.naoModificado(request, versao)) {
+            return null;
+        }
+        return ResponseEntity.ok(artistaService.buscarPorId(id, versao));
     }
 
     @PutMapping("/{id}")
@@ -0,0 +1,29 @@
+package br.com.seplag.sistema.erp.resource;
+
+import br.com.seplag.sistema.erp.model.dto.ResultadoBuscaDto;
+import br.com.seplag.sistema.erp.service.BuscaService;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/busca")
+@Tag(name = "Busca", description = "Busca por relevância em álbuns e artistas (sem acento, por substring e similaridade)")
+public class BuscaResource {
+
+    private final BuscaService buscaService;
+
+    public BuscaResource(BuscaService buscaService) {
+        this.buscaService = buscaService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ResultadoBuscaDto>> buscar(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limite
+    ) {
+        return ResponseEntity.ok(buscaService.buscar(q, limite));
+    }
+}
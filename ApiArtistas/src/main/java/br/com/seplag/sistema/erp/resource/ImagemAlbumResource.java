@@ -1,17 +1,29 @@
 package br.com.seplag.sistema.erp.resource;
 
+import br.com.seplag.sistema.erp.model.dto.ConfirmacaoUploadDto;
 import br.com.seplag.sistema.erp.model.dto.ImagemAlbumComUrlDto;
+import br.com.seplag.sistema.erp.model.dto.IntencaoUploadDto;
+import br.com.seplag.sistema.erp.model.dto.UrlUploadDto;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import br.com.seplag.sistema.erp.model.dto.ImagemAlbumDto;
 import br.com.seplag.sistema.erp.service.ImagemAlbumService;
+import br.com.seplag.sistema.storage.ArquivoInvalidoException;
+import br.com.seplag.sistema.storage.ArquivoStream;
+import br.com.seplag.sistema.storage.MultipartStreaming;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
 import java.net.URI;
+import java.util.Iterator;
 import java.util.List;
 
 @RestController
@@ -19,10 +31,14 @@ import java.util.List;
 @Tag(name = "Imagem Album", description = "Operações de cadastro, consulta, edição de imagens")
 public class ImagemAlbumResource {
 
+    private static final int MAX_ARQUIVOS_STREAM = 20;
+
     private final ImagemAlbumService imagemAlbumService;
+    private final MultipartProperties multipart;
 
-    public ImagemAlbumResource(ImagemAlbumService imagemAlbumService) {
+    public ImagemAlbumResource(ImagemAlbumService imagemAlbumService, MultipartProperties multipart) {
         this.imagemAlbumService = imagemAlbumService;
+        this.multipart = multipart;
     }
 
     @GetMapping
@@ -46,6 +62,48 @@ public class ImagemAlbumResource {
         return ResponseEntity.status(201).body(criadas);
     }
 
+    /**
+     * Mesmo resultado de /upload, mas cada parte "arquivos" é enviada ao MinIO enquanto é lida do corpo,
+     * sem buffer do multipart em memória/disco. indiceCapa vem só da query string:
+     * request.getParameter faria o Tomcat ler e armazenar o corpo inteiro.
+     */
+    @PostMapping(value = "/upload-stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<List<ImagemAlbumDto>> uploadStream(
+            @PathVariable Long albumId,
+            HttpServletRequest request
+    ) {
+        Integer indiceCapa = indiceCapaDaQuery(request);
+        Iterator<ArquivoStream> arquivos = MultipartStreaming.arquivos(request, "arquivos", MAX_ARQUIVOS_STREAM,
+                multipart.getMaxRequestSize().toBytes(), multipart.getMaxFileSize().toBytes());
+
+        List<ImagemAlbumDto> criadas = imagemAlbumService.uploadStreamParaAlbum(albumId, arquivos, indiceCapa);
+        return ResponseEntity.status(201).body(criadas);
+    }
+
+    /**
+     * Envio direto ao MinIO, etapa 1: URLs PUT assinadas para os arquivos declarados (tipo e tamanho).
+     * O cliente envia cada arquivo à sua URL com o mesmo Content-Type e depois chama /upload-intents/confirmacao.
+     */
+    @PostMapping("/upload-intents")
+    public ResponseEntity<List<UrlUploadDto>> criarIntencoesUpload(
+            @PathVariable Long albumId,
+            @RequestBody @Valid IntencaoUploadDto dto
+    ) {
+        return ResponseEntity.ok(imagemAlbumService.criarIntencoesUpload(albumId, dto.arquivos()));
+    }
+
+    /**
+     * Envio direto ao MinIO, etapa 2: confere os objetos enviados e grava as imagens (indiceCapa relativo a {@code chaves}).
+     */
+    @PostMapping("/upload-intents/confirmacao")
+    public ResponseEntity<List<ImagemAlbumDto>> confirmarUploadDireto(
+            @PathVariable Long albumId,
+            @RequestBody @Valid ConfirmacaoUploadDto dto
+    ) {
+        List<ImagemAlbumDto> criadas = imagemAlbumService.confirmarUploadDireto(albumId, dto.chaves(), dto.indiceCapa());
+        return ResponseEntity.status(201).body(criadas);
+    }
+
     @PatchMapping("/{imagemId}/capa")
     public ResponseEntity<ImagemAlbumDto> definirCapa(
             @PathVariable Long albumId,
@@ -54,15 +112,34 @@ public class ImagemAlbumResource {
         return ResponseEntity.ok(imagemAlbumService.definirCapa(albumId, imagemId));
     }
 
+    /**
+     * {@code tamanho}: largura desejada em pixels; devolve o menor derivado que a atende (ou o original).
+     */
     @GetMapping("/{imagemId}/url")
     public ResponseEntity<?> urlAssinada(
             @PathVariable Long albumId,
-            @PathVariable Long imagemId
+            @PathVariable Long imagemId,
+            @RequestParam(required = false) Integer tamanho
     ) {
-        String url = imagemAlbumService.gerarUrlAssinada(albumId, imagemId);
+        String url = imagemAlbumService.gerarUrlAssinada(albumId, imagemId, tamanho);
         return ResponseEntity.ok(new UrlDto(url));
     }
 
+    /**
+     * Bytes da imagem pela própria API, para clientes que não alcançam minio.public-url. Aceita {@code tamanho}
+     * como /url, Range e If-None-Match; o objeto fica em cache no disco do nó depois do primeiro acesso.
+     */
+    @GetMapping("/{imagemId}/conteudo")
+    public void conteudo(
+            @PathVariable Long albumId,
+            @PathVariable Long imagemId,
+            @RequestParam(required = false) Integer tamanho,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        RespostaArquivo.enviar(request, response, imagemAlbumService.abrirConteudo(albumId, imagemId, tamanho));
+    }
+
     @DeleteMapping("/{imagemId}")
     public ResponseEntity<Void> deletar(@PathVariable Long albumId, @PathVariable Long imagemId) {
         imagemAlbumService.deletarImagem(albumId, imagemId);
@@ -71,9 +148,26 @@ public class ImagemAlbumResource {
 
     @GetMapping("/urls")
     public ResponseEntity<List<ImagemAlbumComUrlDto>> listarComUrls(
-            @PathVariable Long albumId
+            @PathVariable Long albumId,
+            @RequestParam(required = false) Integer tamanho
     ) {
-        return ResponseEntity.ok(imagemAlbumService.listarPorAlbumComUrl(albumId));
+        return ResponseEntity.ok(imagemAlbumService.listarPorAlbumComUrl(albumId, tamanho));
+    }
+
+    private static Integer indiceCapaDaQuery(HttpServletRequest request) {
+        if (request.getQueryString() == null) {
+            return null;
+        }
+        String valor = UriComponentsBuilder.newInstance().query(request.getQueryString()).build()
+                .getQueryParams().getFirst("indiceCapa");
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new ArquivoInvalidoException("indiceCapa inválido");
+        }
     }
 
     public record UrlDto(String url) {}
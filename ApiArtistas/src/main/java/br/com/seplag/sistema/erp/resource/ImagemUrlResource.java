@@ -0,0 +1,32 @@
+package br.com.seplag.sistema.erp.resource;
+
+import br.com.seplag.sistema.erp.model.dto.ImagemUrlDto;
+import br.com.seplag.sistema.erp.model.dto.ImagemUrlLoteDto;
+import br.com.seplag.sistema.erp.service.ImagemAlbumService;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/imagens")
+@Tag(name = "Imagem Album", description = "Operações de cadastro, consulta, edição de imagens")
+public class ImagemUrlResource {
+
+    private final ImagemAlbumService imagemAlbumService;
+
+    public ImagemUrlResource(ImagemAlbumService imagemAlbumService) {
+        this.imagemAlbumService = imagemAlbumService;
+    }
+
+    /**
+     * URLs assinadas para imagens de vários álbuns numa só requisição (ex.: capas de uma listagem).
+     * Ids inexistentes são ignorados; a resposta segue a ordem dos ids encontrados.
+     */
+    @PostMapping("/urls")
+    public ResponseEntity<List<ImagemUrlDto>> urlsEmLote(@RequestBody @Valid ImagemUrlLoteDto lote) {
+        return ResponseEntity.ok(imagemAlbumService.gerarUrlsAssinadasEmLote(lote.ids()));
+    }
+}
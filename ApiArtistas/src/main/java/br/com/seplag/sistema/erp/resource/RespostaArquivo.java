@@ -0,0 +1,112 @@
+package br.com.seplag.sistema.erp.resource;
+
+import br.com.seplag.sistema.storage.ArquivoImagem;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Serve um arquivo local com If-None-Match (304) e Range de um intervalo só (206/416); pedidos com vários
+ * intervalos recebem o arquivo inteiro. Com sendfile disponível no conector o Tomcat faz a cópia
+ * arquivo -> socket no kernel depois do handler; sem ele (TLS, outro container) a cópia usa
+ * {@link FileChannel#transferTo} para o stream da resposta.
+ */
+final class RespostaArquivo {
+
+    private static final String SENDFILE_SUPORTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARQUIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIM = "org.apache.tomcat.sendfile.end";
+
+    // o conteúdo de uma chave nunca muda; privado porque a rota exige autenticação
+    private static final String CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().getHeaderValue();
+
+    private RespostaArquivo() {}
+
+    static void enviar(HttpServletRequest request, HttpServletResponse response, ArquivoImagem imagem) throws IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(imagem.etag())) {
+            return;
+        }
+
+        Path arquivo = imagem.arquivo();
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            long inicio = 0;
+            long fim = tamanho - 1;
+
+            HttpRange range = range(request, imagem.etag());
+            if (range != null) {
+                try {
+                    inicio = range.getRangeStart(tamanho);
+                    fim = range.getRangeEnd(tamanho);
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamanho);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fim + "/" + tamanho);
+            }
+
+            long quantidade = fim - inicio + 1;
+            response.setContentType(imagem.tipoConteudo());
+            response.setContentLengthLong(quantidade);
+            if ("HEAD".equals(request.getMethod())) {
+                return;
+            }
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPORTE))) {
+                request.setAttribute(SENDFILE_ARQUIVO, arquivo.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_INICIO, inicio);
+                request.setAttribute(SENDFILE_FIM, fim + 1);
+                return;
+            }
+
+            WritableByteChannel saida = Channels.newChannel(response.getOutputStream());
+            long posicao = inicio;
+            while (quantidade > 0) {
+                long enviados = canal.transferTo(posicao, quantidade, saida);
+                if (enviados <= 0) {
+                    break;
+                }
+                posicao += enviados;
+                quantidade -= enviados;
+            }
+        }
+    }
+
+    /**
+     * Intervalo pedido, ou null para responder o arquivo inteiro (sem Range, If-Range de outra versão,
+     * vários intervalos ou cabeçalho malformado).
+     */
+    private static HttpRange range(HttpServletRequest request, String etag) {
+        String cabecalho = request.getHeader(HttpHeaders.RANGE);
+        if (cabecalho == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals("\"" + etag + "\"")) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(cabecalho);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package br.com.seplag.sistema.erp.resource;
+
+import br.com.seplag.sistema.erp.model.dto.VersaoRecursoDto;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * GET condicional: responde 304 a partir só da versão, antes de carregar o corpo.
+ * O handler retorna null quando {@link #naoModificado} é true (status e cabeçalhos já estão na resposta).
+ */
+final class RespostaCondicional {
+
+    // "no-cache" (e não o no-store padrão do Spring Security) para o cliente guardar e revalidar com ETag
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private RespostaCondicional() {}
+
+    static boolean naoModificado(ServletWebRequest request, VersaoRecursoDto versao) {
+        HttpServletResponse response = request.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        return request.checkNotModified(versao.etag(), versao.ultimaModificacao().toEpochMilli());
+    }
+}
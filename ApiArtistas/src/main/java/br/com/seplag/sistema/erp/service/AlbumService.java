@@ -6,38 +6,63 @@ import br.com.seplag.sistema.erp.model.dto.AlbumComImagensDto;
 import br.com.seplag.sistema.erp.model.dto.AlbumDto;
 import br.com.seplag.sistema.erp.model.dto.ImagemAlbumDto;
 import br.com.seplag.sistema.erp.model.dto.NotificationDto;
+import br.com.seplag.sistema.erp.model.dto.PaginaCursorDto;
+import br.com.seplag.sistema.erp.model.dto.PaginaEstimadaDto;
+import br.com.seplag.sistema.erp.model.dto.PaginaSliceDto;
+import br.com.seplag.sistema.erp.model.dto.VersaoRecursoDto;
 import br.com.seplag.sistema.erp.repository.AlbumRepository;
 import br.com.seplag.sistema.erp.repository.ArtistaRepository;
+import br.com.seplag.sistema.erp.repository.Keyset;
 import br.com.seplag.sistema.exception.RecursoNaoEncontradoException;
 import br.com.seplag.sistema.websocket.NotificationPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class AlbumService {
 
+    private static final Set<String> CAMPOS_CURSOR = Set.of("id", "titulo", "dataLancamento");
+
     private final AlbumRepository albumRepository;
     private final ArtistaRepository artistaRepository;
     private final ImagemAlbumService imagemAlbumService;
     private final NotificationPublisher notifications;
+    private final ContagemEstimadaService contagens;
+    private final EntidadesCache cache;
+    private final TransactionTemplate transacao;
 
     public AlbumService(
             AlbumRepository albumRepository,
             ArtistaRepository artistaRepository,
             ImagemAlbumService imagemAlbumService,
-            NotificationPublisher notifications
+            NotificationPublisher notifications,
+            ContagemEstimadaService contagens,
+            EntidadesCache cache,
+            PlatformTransactionManager transactionManager
     ) {
         this.albumRepository = albumRepository;
         this.artistaRepository = artistaRepository;
         this.imagemAlbumService = imagemAlbumService;
         this.notifications = notifications;
+        this.contagens = contagens;
+        this.cache = cache;
+        this.transacao = new TransactionTemplate(transactionManager);
     }
 
     @Transactional
@@ -69,9 +94,59 @@ public class AlbumService {
         return toDto(salvo);
     }
 
+    /**
+     * Insere o lote numa única transação: os artistas de todos os álbuns são validados com um só
+     * findAllById e os INSERTs (albuns e artistas_albuns) saem em lotes JDBC.
+     * Emite uma só notificação para o lote inteiro.
+     */
     @Transactional
+    public List<AlbumDto> criarEmLote(List<AlbumDto> dtos) {
+        Set<Long> idsArtistas = dtos.stream()
+                .flatMap(d -> d.artistasIds().stream())
+                .collect(Collectors.toSet());
+
+        Map<Long, Artista> artistasPorId = artistaRepository.findAllById(idsArtistas).stream()
+                .collect(Collectors.toMap(Artista::getId, Function.identity()));
+
+        if (artistasPorId.size() != idsArtistas.size()) {
+            List<Long> faltando = idsArtistas.stream().filter(id -> !artistasPorId.containsKey(id)).sorted().toList();
+            throw new RecursoNaoEncontradoException("Artistas informados não existem: " + faltando);
+        }
+
+        List<Album> novos = dtos.stream().map(dto -> {
+            Album album = new Album();
+            album.setTitulo(dto.titulo());
+            album.setDataLancamento(dto.dataLancamento());
+            album.setArtistas(dto.artistasIds().stream()
+                    .distinct()
+                    .map(artistasPorId::get)
+                    .collect(Collectors.toCollection(ArrayList::new)));
+            return album;
+        }).toList();
+
+        List<Album> salvos = albumRepository.saveAll(novos);
+        List<Long> ids = salvos.stream().map(Album::getId).toList();
+
+        notifications.publish(new NotificationDto(
+                "ALBUMS_BATCH_CREATED",
+                "ALBUM",
+                null,
+                null,
+                "Álbuns cadastrados em lote: " + salvos.size(),
+                Instant.now(),
+                Map.of("qtd", salvos.size(), "ids", ids)
+        ));
+
+        return salvos.stream().map(this::toDto).toList();
+    }
+
+    /**
+     * Sem transação envolvendo tudo: o álbum é gravado e confirmado antes, e o envio das imagens
+     * faz o próprio I/O com o MinIO fora de transação (ver {@link ImagemAlbumService#uploadMultiplasParaAlbumOpcional}).
+     */
     public AlbumComImagensDto criarComUpload(AlbumDto dto, List<MultipartFile> arquivos, Integer indiceCapa) {
-        AlbumDto albumCriado = criar(dto);
+        // chamada interna não passa pelo proxy de @Transactional
+        AlbumDto albumCriado = transacao.execute(status -> criar(dto));
 
         try {
             List<ImagemAlbumDto> imagens = imagemAlbumService.uploadMultiplasParaAlbumOpcional(
@@ -122,15 +197,70 @@ public class AlbumService {
         if (artistaIds != null && artistaIds.isEmpty()) {
             artistaIds = null;
         }
-        return albumRepository.buscarComFiltro(artistaIds, titulo, pageable)
-                .map(this::toDto);
+        return albumRepository.listarProjetado(artistaIds, titulo, pageable);
     }
 
     @Transactional(readOnly = true)
-    public AlbumDto buscarPorId(Long id) {
-        Album album = albumRepository.findById(id)
-                .orElseThrow(() -> new RecursoNaoEncontradoException("Álbum não encontrado: " + id));
-        return toDto(album);
+    public PaginaSliceDto<AlbumDto> listarSemContagem(List<Long> artistaIds, String titulo, Pageable pageable) {
+        if (artistaIds != null && artistaIds.isEmpty()) {
+            artistaIds = null;
+        }
+        Slice<AlbumDto> slice = albumRepository.listarProjetadoSemContagem(artistaIds, titulo, pageable);
+        return new PaginaSliceDto<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext());
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaEstimadaDto<AlbumDto> listarComTotalEstimado(List<Long> artistaIds, String titulo, Pageable pageable) {
+        List<Long> ids = (artistaIds == null || artistaIds.isEmpty()) ? null : artistaIds;
+        Slice<AlbumDto> slice = albumRepository.listarProjetadoSemContagem(ids, titulo, pageable);
+
+        long estimado = contagens.estimar("albuns", chaveFiltro(ids, titulo), () -> albumRepository.contarComFiltro(ids, titulo));
+
+        // a estimativa nunca fica abaixo do que a própria página já mostrou
+        long minimo = pageable.getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+
+        return new PaginaEstimadaDto<>(
+                slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(), Math.max(estimado, minimo));
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaCursorDto<AlbumDto> listarPorCursor(List<Long> artistaIds, String titulo, Pageable pageable, String after) {
+        if (artistaIds != null && artistaIds.isEmpty()) {
+            artistaIds = null;
+        }
+
+        Sort.Order order = Keyset.ordem(pageable, CAMPOS_CURSOR);
+        Keyset cursor = Keyset.validar(after, order);
+        int tamanho = pageable.getPageSize();
+
+        // busca tamanho + 1 para saber se existe próxima página sem COUNT
+        List<AlbumDto> linhas = albumRepository.buscarComFiltroPorCursor(
+                artistaIds, titulo, order.getProperty(), order.isAscending(), cursor, tamanho + 1);
+
+        boolean temProximo = linhas.size() > tamanho;
+        List<AlbumDto> pagina = temProximo ? linhas.subList(0, tamanho) : linhas;
+
+        String proximoCursor = null;
+        if (temProximo) {
+            AlbumDto ultimo = pagina.get(pagina.size() - 1);
+            proximoCursor = new Keyset(
+                    order.getProperty(),
+                    order.isAscending(),
+                    valorChave(ultimo, order.getProperty()),
+                    ultimo.id()
+            ).encode();
+        }
+
+        return new PaginaCursorDto<>(pagina, tamanho, proximoCursor, temProximo);
+    }
+
+    /**
+     * {@code versao} é a do GET condicional, lida antes: o corpo sai do cache local só se foi carregado nela.
+     */
+    @Transactional(readOnly = true)
+    public AlbumDto buscarPorId(Long id, VersaoRecursoDto versao) {
+        return cache.buscar(EntidadesCache.ALBUNS, id, versao, () -> albumRepository.buscarProjetadoPorId(id)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Álbum não encontrado: " + id)));
     }
 
     @Transactional
@@ -143,24 +273,26 @@ public class AlbumService {
 
         List<Artista> artistas = carregarArtistas(dto.artistasIds());
         album.setArtistas(artistas);
+        // mudança só nos artistas não dispara o @PreUpdate; o ETag do álbum depende de atualizado_em
+        album.setAtualizadoEm(LocalDateTime.now());
 
-        Album salvo = albumRepository.save(album);
+        // flush para a leitura projetada enxergar a nova associação em artistas_albuns
+        albumRepository.saveAndFlush(album);
 
-        List<Long> artistasIds = (salvo.getArtistas() == null)
-                ? List.of()
-                : salvo.getArtistas().stream().map(Artista::getId).toList();
+        AlbumDto atualizado = albumRepository.buscarProjetadoPorId(id)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Álbum não encontrado: " + id));
 
         notifications.publish(new NotificationDto(
                 "ALBUM_UPDATED",
                 "ALBUM",
-                salvo.getId(),
-                salvo.getTitulo(),
-                "Álbum atualizado: " + salvo.getTitulo(),
+                atualizado.id(),
+                atualizado.titulo(),
+                "Álbum atualizado: " + atualizado.titulo(),
                 Instant.now(),
-                Map.of("artistasIds", artistasIds)
+                Map.of("artistasIds", atualizado.artistasIds())
         ));
 
-        return toDto(salvo);
+        return atualizado;
     }
 
     @Transactional
@@ -195,17 +327,40 @@ public class AlbumService {
         );
     }
 
+    private static String chaveFiltro(List<Long> artistaIds, String titulo) {
+        boolean semTitulo = titulo == null || titulo.isBlank();
+        if (artistaIds == null && semTitulo) {
+            return null;
+        }
+        String ids = artistaIds == null ? "" : artistaIds.stream().sorted().distinct().toList().toString();
+        return ids + "|" + (semTitulo ? "" : titulo.trim().toLowerCase());
+    }
+
+    private static String valorChave(AlbumDto album, String campo) {
+        return switch (campo) {
+            case "titulo" -> album.titulo();
+            case "dataLancamento" -> album.dataLancamento() == null ? null : album.dataLancamento().toString();
+            default -> null;
+        };
+    }
+
+    /**
+     * Valida os artistas no banco, com um só findAllById. O cache "artistas" é local a cada nó e pode ainda
+     * ter um artista removido por outro nó, o que só apareceria como violação de FK no INSERT (500).
+     */
     private List<Artista> carregarArtistas(List<Long> artistasIds) {
         if (artistasIds == null || artistasIds.isEmpty()) {
             return List.of();
         }
 
-        List<Artista> artistas = artistaRepository.findAllById(artistasIds);
+        List<Long> distintos = artistasIds.stream().distinct().toList();
+        Map<Long, Artista> porId = artistaRepository.findAllById(distintos).stream()
+                .collect(Collectors.toMap(Artista::getId, Function.identity()));
 
-        if (artistas.size() != artistasIds.size()) {
+        if (porId.size() != distintos.size()) {
             throw new RecursoNaoEncontradoException("Um ou mais artistas informados não existem");
         }
 
-        return artistas;
+        return distintos.stream().map(porId::get).toList();
     }
 }
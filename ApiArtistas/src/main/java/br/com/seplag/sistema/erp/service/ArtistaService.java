@@ -2,29 +2,52 @@ package br.com.seplag.sistema.erp.service;
 
 import br.com.seplag.sistema.erp.model.dto.ArtistaListDto;
 import br.com.seplag.sistema.erp.model.dto.NotificationDto;
+import br.com.seplag.sistema.erp.model.dto.PaginaCursorDto;
+import br.com.seplag.sistema.erp.model.dto.PaginaEstimadaDto;
+import br.com.seplag.sistema.erp.model.dto.PaginaSliceDto;
+import br.com.seplag.sistema.erp.model.dto.VersaoRecursoDto;
+import br.com.seplag.sistema.erp.repository.Keyset;
 import br.com.seplag.sistema.websocket.NotificationPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
 import br.com.seplag.sistema.erp.model.Artista;
 import br.com.seplag.sistema.erp.model.dto.ArtistaDto;
 import br.com.seplag.sistema.erp.repository.ArtistaRepository;
 import br.com.seplag.sistema.exception.RecursoNaoEncontradoException;
+import br.com.seplag.sistema.exception.RequisicaoInvalidaException;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 public class ArtistaService {
 
+    private static final Set<String> CAMPOS_ORDENACAO = Set.of("id", "nome", "genero", "qtdAlbuns");
+    private static final Set<String> CAMPOS_CURSOR = Set.of("id", "nome");
+
     private final ArtistaRepository artistaRepository;
     private final NotificationPublisher notifications;
-
-    public ArtistaService(ArtistaRepository artistaRepository, NotificationPublisher notifications) {
+    private final ContagemEstimadaService contagens;
+    private final EntidadesCache cache;
+
+    public ArtistaService(
+            ArtistaRepository artistaRepository,
+            NotificationPublisher notifications,
+            ContagemEstimadaService contagens,
+            EntidadesCache cache
+    ) {
         this.artistaRepository = artistaRepository;
         this.notifications = notifications;
+        this.contagens = contagens;
+        this.cache = cache;
     }
 
     @Transactional
@@ -48,27 +71,112 @@ public class ArtistaService {
         return new ArtistaDto(salvo.getId(), salvo.getNome(), salvo.getGenero());
     }
 
+    /**
+     * Insere o lote numa única transação; com ids por sequence pooled o Hibernate agrupa os INSERTs
+     * em lotes JDBC (hibernate.jdbc.batch_size). Emite uma só notificação para o lote inteiro.
+     */
+    @Transactional
+    public List<ArtistaDto> criarEmLote(List<ArtistaDto> dtos) {
+        List<Artista> novos = dtos.stream().map(dto -> {
+            Artista a = new Artista();
+            a.setNome(dto.nome());
+            a.setGenero(dto.genero());
+            return a;
+        }).toList();
+
+        List<Artista> salvos = artistaRepository.saveAll(novos);
+        List<Long> ids = salvos.stream().map(Artista::getId).toList();
+
+        notifications.publish(new NotificationDto(
+                "ARTISTS_BATCH_CREATED",
+                "ARTIST",
+                null,
+                null,
+                "Artistas cadastrados em lote: " + salvos.size(),
+                Instant.now(),
+                Map.of("qtd", salvos.size(), "ids", ids)
+        ));
+
+        return salvos.stream()
+                .map(a -> new ArtistaDto(a.getId(), a.getNome(), a.getGenero()))
+                .toList();
+    }
+
     @Transactional(readOnly = true)
     public Page<ArtistaListDto> listar(String pesquisa, Pageable pageable) {
-        String sortField = "id";
-        String sortDir = "asc";
+        return artistaRepository.buscarComFiltroComQtdAlbunsOrdenado(pesquisa, ordenado(pageable));
+    }
 
-        if (pageable.getSort().isSorted()) {
-            var order = pageable.getSort().iterator().next();
-            sortField = order.getProperty();
-            sortDir = order.isAscending() ? "asc" : "desc";
-        }
+    @Transactional(readOnly = true)
+    public PaginaSliceDto<ArtistaListDto> listarSemContagem(String pesquisa, Pageable pageable) {
+        Slice<ArtistaListDto> slice = artistaRepository.buscarComFiltroSemContagem(pesquisa, ordenado(pageable));
+        return new PaginaSliceDto<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext());
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaEstimadaDto<ArtistaListDto> listarComTotalEstimado(String pesquisa, Pageable pageable) {
+        Slice<ArtistaListDto> slice = artistaRepository.buscarComFiltroSemContagem(pesquisa, ordenado(pageable));
 
-        Pageable semSort = Pageable.ofSize(pageable.getPageSize()).withPage(pageable.getPageNumber());
+        String chaveFiltro = (pesquisa == null || pesquisa.isBlank()) ? null : pesquisa.trim().toLowerCase();
+        long estimado = contagens.estimar("artistas", chaveFiltro, () -> artistaRepository.contarComFiltro(pesquisa));
 
-        return artistaRepository.buscarComFiltroComQtdAlbunsOrdenado(pesquisa, sortField, sortDir, semSort);
+        // a estimativa nunca fica abaixo do que a própria página já mostrou
+        long minimo = pageable.getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+
+        return new PaginaEstimadaDto<>(
+                slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(), Math.max(estimado, minimo));
     }
 
     @Transactional(readOnly = true)
-    public ArtistaDto buscarPorId(Long id) {
-        Artista a = artistaRepository.findById(id)
-                .orElseThrow(() -> new RecursoNaoEncontradoException("Artista não encontrado: " + id));
-        return new ArtistaDto(a.getId(), a.getNome(), a.getGenero());
+    public PaginaCursorDto<ArtistaListDto> listarPorCursor(String pesquisa, Pageable pageable, String after) {
+        Sort.Order order = Keyset.ordem(pageable, CAMPOS_CURSOR);
+        Keyset cursor = Keyset.validar(after, order);
+        int tamanho = pageable.getPageSize();
+
+        // busca tamanho + 1 para saber se existe próxima página sem COUNT
+        List<ArtistaListDto> linhas = artistaRepository.buscarComFiltroPorCursor(
+                pesquisa, order.getProperty(), order.isAscending(), cursor, tamanho + 1);
+
+        boolean temProximo = linhas.size() > tamanho;
+        List<ArtistaListDto> pagina = temProximo ? linhas.subList(0, tamanho) : linhas;
+
+        String proximoCursor = null;
+        if (temProximo) {
+            ArtistaListDto ultimo = pagina.get(pagina.size() - 1);
+            String valor = "nome".equals(order.getProperty()) ? ultimo.nome() : null;
+            proximoCursor = new Keyset(order.getProperty(), order.isAscending(), valor, ultimo.id()).encode();
+        }
+
+        return new PaginaCursorDto<>(pagina, tamanho, proximoCursor, temProximo);
+    }
+
+    /**
+     * {@code versao} é a do GET condicional, lida antes: o corpo sai do cache local só se foi carregado nela.
+     */
+    @Transactional(readOnly = true)
+    public ArtistaDto buscarPorId(Long id, VersaoRecursoDto versao) {
+        return cache.buscar(EntidadesCache.ARTISTAS, id, versao, () -> {
+            Artista a = artistaRepository.findById(id)
+                    .orElseThrow(() -> new RecursoNaoEncontradoException("Artista não encontrado: " + id));
+            return new ArtistaDto(a.getId(), a.getNome(), a.getGenero());
+        });
+    }
+
+    private static Pageable ordenado(Pageable pageable) {
+        Sort.Order order = pageable.getSort().isSorted()
+                ? pageable.getSort().iterator().next()
+                : Sort.Order.asc("id");
+
+        if (!CAMPOS_ORDENACAO.contains(order.getProperty())) {
+            throw new RequisicaoInvalidaException("Ordenação não suportada: " + order.getProperty() + ". Use " + CAMPOS_ORDENACAO);
+        }
+
+        // id como desempate: a ordenação fica estável e casa com os índices (coluna, id)
+        Sort sort = "id".equals(order.getProperty())
+                ? Sort.by(order)
+                : Sort.by(order, new Sort.Order(order.getDirection(), "id"));
+
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
     }
 
     @Transactional
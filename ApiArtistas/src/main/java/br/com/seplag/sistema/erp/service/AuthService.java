@@ -10,10 +10,15 @@ import br.com.seplag.sistema.erp.repository.UsuarioRepository;
 import br.com.seplag.sistema.exception.RecursoNaoEncontradoException;
 import br.com.seplag.sistema.security.JwtService;
 import br.com.seplag.sistema.security.RefreshTokenService;
+import br.com.seplag.sistema.security.RevogacaoTokenService;
+import br.com.seplag.sistema.security.UsuarioAutenticado;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Service
@@ -24,51 +29,67 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final RefreshTokenService refreshTokenService;
+    private final RevogacaoTokenService revogacaoTokenService;
+    private final TransactionTemplate transacao;
 
     public AuthService(AuthenticationManager authManager,
                        UsuarioRepository usuarioRepository,
                        PasswordEncoder passwordEncoder,
                        JwtService jwtService,
-                       RefreshTokenService refreshTokenService) {
+                       RefreshTokenService refreshTokenService,
+                       RevogacaoTokenService revogacaoTokenService,
+                       PlatformTransactionManager transactionManager) {
         this.authManager = authManager;
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.refreshTokenService = refreshTokenService;
+        this.revogacaoTokenService = revogacaoTokenService;
+        this.transacao = new TransactionTemplate(transactionManager);
     }
 
-    @Transactional
+    /**
+     * O hash da senha (pool limitado de {@link br.com.seplag.sistema.security.CodificadorSenhaLimitado}) é
+     * calculado antes da transação: a espera na fila do hash não segura conexão do pool.
+     */
     public AuthResponse registrar(RegistrarRequest req) {
         if (usuarioRepository.existsByEmailIgnoreCase(req.email())) {
             throw new IllegalArgumentException("E-mail já cadastrado");
         }
 
-        Usuario u = new Usuario();
-        u.setNome(req.nome());
-        u.setEmail(req.email());
-        u.setSenhaHash(passwordEncoder.encode(req.senha()));
-        u.setPapel("USER");
-        u.setAtivo(true);
+        String senhaHash = passwordEncoder.encode(req.senha());
 
-        Usuario salvo = usuarioRepository.save(u);
+        return transacao.execute(status -> {
+            Usuario u = new Usuario();
+            u.setNome(req.nome());
+            u.setEmail(req.email());
+            u.setSenhaHash(senhaHash);
+            u.setPapel("USER");
+            u.setAtivo(true);
 
-        String access = jwtService.gerarAccessToken(salvo);
-        String refresh = refreshTokenService.emitirNovo(salvo);
+            Usuario salvo = usuarioRepository.save(u);
 
-        return new AuthResponse(access, refresh);
+            String access = jwtService.gerarAccessToken(salvo);
+            String refresh = refreshTokenService.emitirNovo(salvo);
+
+            return new AuthResponse(access, refresh);
+        });
     }
 
-    @Transactional
+    /**
+     * Sem transação em volta: a autenticação (consulta + comparação do hash, e a regravação do hash em
+     * transação própria quando o custo subiu) acontece antes, e só a emissão do refresh token abre a sua,
+     * curta, em {@link RefreshTokenService#emitirNovo}.
+     */
     public AuthResponse login(LoginRequest req) {
-        // autentica (vai validar senha e usuário habilitado)
-        authManager.authenticate(
+        // autentica (vai validar senha e usuário habilitado); o principal já traz o usuário carregado
+        Authentication autenticacao = authManager.authenticate(
                 new UsernamePasswordAuthenticationToken(req.login(), req.senha())
         );
-
-        // recuperar usuário real (para emitir tokens)
-        Usuario usuario = usuarioRepository.findByEmailIgnoreCase(req.login())
-                .or(() -> usuarioRepository.findByNomeIgnoreCase(req.login()))
-                .orElseThrow(() -> new RecursoNaoEncontradoException("Usuário não encontrado"));
+        if (autenticacao == null || !(autenticacao.getPrincipal() instanceof UsuarioAutenticado autenticado)) {
+            throw new RecursoNaoEncontradoException("Usuário não encontrado");
+        }
+        Usuario usuario = autenticado.getUsuario();
 
         String access = jwtService.gerarAccessToken(usuario);
         String refresh = refreshTokenService.emitirNovo(usuario);
@@ -87,7 +108,11 @@ public class AuthService {
     }
 
     @Transactional
-    public void logout(LogoutRequest req) {
+    public void logout(LogoutRequest req, String accessToken) {
         refreshTokenService.revogar(req.refreshToken());
+        // o access token deixaria de valer só no exp; revogado, cai em todos os nós na próxima sincronização
+        if (accessToken != null) {
+            revogacaoTokenService.revogar(accessToken);
+        }
     }
 }
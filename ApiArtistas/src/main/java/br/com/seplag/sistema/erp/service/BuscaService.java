@@ -0,0 +1,33 @@
+package br.com.seplag.sistema.erp.service;
+
+import br.com.seplag.sistema.erp.model.dto.ResultadoBuscaDto;
+import br.com.seplag.sistema.erp.repository.BuscaRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+public class BuscaService {
+
+    private static final int LIMITE_MAXIMO = 100;
+    // LIKE com menos de 3 caracteres não é servido pelo índice trigram (vira seq scan)
+    private static final int TAMANHO_MINIMO = 3;
+
+    private final BuscaRepository buscaRepository;
+
+    public BuscaService(BuscaRepository buscaRepository) {
+        this.buscaRepository = buscaRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ResultadoBuscaDto> buscar(String q, int limite) {
+        String termo = q == null ? "" : q.trim();
+        if (termo.length() < TAMANHO_MINIMO) {
+            return List.of();
+        }
+
+        int limiteNormalizado = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        return buscaRepository.buscar(termo, limiteNormalizado);
+    }
+}
@@ -0,0 +1,48 @@
+package br.com.seplag.sistema.erp.service;
+
+import br.com.seplag.sistema.erp.repository.EstatisticasRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Total aproximado para as listagens no modo "estimado":
+ * sem filtro usa a estimativa do planner (pg_class.reltuples);
+ * com filtro usa a contagem exata em cache por formato de filtro, recalculada após o TTL.
+ * Acima de {@value #MAX_ENTRADAS} formatos o Caffeine despeja os menos usados, em vez de zerar tudo.
+ */
+@Service
+public class ContagemEstimadaService {
+
+    private static final int MAX_ENTRADAS = 1_000;
+
+    private final EstatisticasRepository estatisticas;
+    private final Cache<String, Long> cache;
+
+    public ContagemEstimadaService(
+            EstatisticasRepository estatisticas,
+            @Value("${app.paginacao.contagem-cache-segundos:60}") long ttlSegundos
+    ) {
+        this.estatisticas = estatisticas;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(MAX_ENTRADAS)
+                .expireAfterWrite(Duration.ofSeconds(Math.max(1, ttlSegundos)))
+                .build();
+    }
+
+    public long estimar(String tabela, String chaveFiltro, LongSupplier contagemExata) {
+        if (chaveFiltro == null) {
+            long estimado = estatisticas.linhasEstimadas(tabela);
+            if (estimado >= 0) {
+                return estimado;
+            }
+        }
+
+        String chave = tabela + "|" + (chaveFiltro == null ? "" : chaveFiltro);
+        return cache.get(chave, k -> contagemExata.getAsLong());
+    }
+}
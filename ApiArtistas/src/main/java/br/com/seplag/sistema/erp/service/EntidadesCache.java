@@ -0,0 +1,88 @@
+package br.com.seplag.sistema.erp.service;
+
+import br.com.seplag.sistema.erp.model.dto.NotificationDto;
+import br.com.seplag.sistema.erp.model.dto.VersaoRecursoDto;
+import br.com.seplag.sistema.websocket.DomainNotificationEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.function.Supplier;
+
+/**
+ * Caches "artistas" (ArtistaDto) e "albuns" (AlbumDto) por id, usados pelos buscarPorId. A invalidação segue
+ * as mesmas notificações de domínio publicadas pelos services, depois do commit. São locais a cada nó: servem
+ * leitura, nunca validação de existência antes de gravar.
+ * Cada entrada guarda a versão (ETag) lida antes de carregar o corpo e só é servida se o banco ainda informa
+ * essa versão: um nó que não recebeu a notificação de outro não responde corpo antigo sob validador novo.
+ */
+@Component
+public class EntidadesCache {
+
+    public static final String ARTISTAS = "artistas";
+    public static final String ALBUNS = "albuns";
+
+    private final CacheManager cacheManager;
+
+    public EntidadesCache(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Corpo de {@code id} em cache se foi carregado na {@code versao} (a do GET condicional); senão carrega e guarda.
+     * A versão é lida antes do corpo, então o corpo guardado nunca é mais antigo que a versão da entrada.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T buscar(String nome, Long id, VersaoRecursoDto versao, Supplier<T> carregar) {
+        Cache cache = cacheManager.getCache(nome);
+        if (cache == null) {
+            return carregar.get();
+        }
+
+        Versionado emCache = cache.get(id, Versionado.class);
+        if (emCache != null && emCache.etag().equals(versao.etag())) {
+            return (T) emCache.corpo();
+        }
+
+        T corpo = carregar.get();
+        cache.put(id, new Versionado(versao.etag(), corpo));
+        return corpo;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNotificacao(DomainNotificationEvent event) {
+        NotificationDto n = event.notification();
+        if (n.entityId() == null) {
+            return;
+        }
+
+        switch (n.type()) {
+            case "ARTIST_UPDATED" -> evict(ARTISTAS, n.entityId());
+            case "ARTIST_DELETED" -> {
+                evict(ARTISTAS, n.entityId());
+                // o delete remove as linhas de artistas_albuns: artistasIds dos álbuns em cache mudam
+                clear(ALBUNS);
+            }
+            case "ALBUM_UPDATED", "ALBUM_DELETED" -> evict(ALBUNS, n.entityId());
+            default -> { }
+        }
+    }
+
+    private void evict(String nome, Long id) {
+        Cache cache = cacheManager.getCache(nome);
+        if (cache != null) {
+            cache.evict(id);
+        }
+    }
+
+    private void clear(String nome) {
+        Cache cache = cacheManager.getCache(nome);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private record Versionado(String etag, Object corpo) {}
+}
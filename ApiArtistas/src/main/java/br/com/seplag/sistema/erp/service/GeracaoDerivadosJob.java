@@ -0,0 +1,267 @@
+package br.com.seplag.sistema.erp.service;
+
+import br.com.seplag.sistema.erp.model.DerivadoImagem;
+import br.com.seplag.sistema.erp.model.ImagemAlbum;
+import br.com.seplag.sistema.erp.repository.DerivadoImagemRepository;
+import br.com.seplag.sistema.erp.repository.ImagemAlbumRepository;
+import br.com.seplag.sistema.erp.repository.ObjetoPendenteRepository;
+import br.com.seplag.sistema.erp.repository.TarefaDerivadoRepository;
+import br.com.seplag.sistema.storage.MinioStorageService;
+import br.com.seplag.sistema.storage.RedimensionadorImagem;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consome a fila persistente tarefas_derivados (V15) e gera as miniaturas de cada imagem nas larguras
+ * configuradas. O agendador só reserva tarefas para as vagas livres do pool (threads + fila do mesmo tamanho),
+ * então o trabalho pendente fica no banco e não na memória; tarefa de um processo que caiu volta quando o lease vence.
+ * Mesmas etapas do envio: objetos no MinIO sem transação (chaves no diário de pendentes), linhas numa transação curta.
+ * Cada tentativa grava sob chaves próprias ({@link MinioStorageService#gerarObjectKeyDerivado}), então uma execução
+ * que passou do lease e perde para outra no índice único só apaga o que ela mesma enviou.
+ * Imagem com chave por conteúdo cujo arquivo já tem derivados (em outra imagem) só ganha as linhas, sem reprocessar.
+ * A mesma decodificação preenche os metadados da imagem (dimensões, cor dominante e blurhash); imagem que já
+ * tem derivados e só precisa dos metadados (anteriores à V17) é decodificada sem gerar miniaturas.
+ */
+@Component
+public class GeracaoDerivadosJob implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(GeracaoDerivadosJob.class);
+
+    private final TarefaDerivadoRepository tarefas;
+    private final ImagemAlbumRepository imagemAlbumRepository;
+    private final DerivadoImagemRepository derivadoRepository;
+    private final ObjetoPendenteRepository pendentes;
+    private final MinioStorageService storage;
+    private final TransactionTemplate transacao;
+    private final RedimensionadorImagem redimensionador;
+
+    private final List<Integer> larguras;
+    private final int maxTentativas;
+    private final Duration lease;
+    private final Duration espera;
+
+    private final ThreadPoolExecutor executor;
+    private final int capacidade;
+    private final MeterRegistry registry;
+
+    public GeracaoDerivadosJob(
+            TarefaDerivadoRepository tarefas,
+            ImagemAlbumRepository imagemAlbumRepository,
+            DerivadoImagemRepository derivadoRepository,
+            ObjetoPendenteRepository pendentes,
+            MinioStorageService storage,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry registry,
+            @Value("${app.derivados.larguras:160,480,1024}") List<Integer> larguras,
+            @Value("${app.derivados.threads:2}") int threads,
+            @Value("${app.derivados.max-tentativas:5}") int maxTentativas,
+            @Value("${app.derivados.lease:PT5M}") Duration lease,
+            @Value("${app.derivados.espera-falha:PT1M}") Duration espera,
+            @Value("${app.derivados.qualidade-jpeg:0.82}") float qualidade
+    ) {
+        this.tarefas = tarefas;
+        this.imagemAlbumRepository = imagemAlbumRepository;
+        this.derivadoRepository = derivadoRepository;
+        this.pendentes = pendentes;
+        this.storage = storage;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.redimensionador = new RedimensionadorImagem(qualidade);
+        this.larguras = List.copyOf(larguras);
+        this.maxTentativas = maxTentativas;
+        this.lease = lease;
+        this.espera = espera;
+        this.registry = registry;
+
+        int n = Math.max(1, threads);
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(n), r -> {
+            Thread t = new Thread(r, "derivados-imagem-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.capacidade = 2 * n;
+
+        Gauge.builder("derivados.ativos", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.derivados.intervalo-ms:5000}")
+    public void despachar() {
+        int livres = capacidade - executor.getActiveCount() - executor.getQueue().size();
+        if (livres <= 0) {
+            return;
+        }
+
+        for (Long imagemId : tarefas.reservar(livres, lease.toSeconds(), maxTentativas)) {
+            try {
+                executor.execute(() -> processar(imagemId));
+            } catch (RejectedExecutionException e) {
+                // continua reservada; volta para a fila quando o lease vencer
+                log.debug("Pool de derivados cheio; imagem {} fica para depois", imagemId);
+            }
+        }
+    }
+
+    public void processar(Long imagemId) {
+        Timer.Sample amostra = Timer.start(registry);
+        String resultado = "ok";
+        List<String> enviadas = new ArrayList<>();
+
+        try {
+            Optional<ImagemAlbum> imagem = imagemAlbumRepository.findById(imagemId);
+            if (imagem.isEmpty()) {
+                // removida depois de reservada; o CASCADE normalmente já levou a tarefa
+                tarefas.concluir(imagemId);
+                return;
+            }
+            String original = imagem.get().getChaveObjeto();
+
+            boolean temDerivados = derivadoRepository.existsByImagemId(imagemId);
+            if (MinioStorageService.ehChaveConteudo(original)) {
+                if (reaproveitar(imagemId, original, temDerivados)) {
+                    return;
+                }
+                temDerivados = temDerivados || derivadoRepository.existsByImagemId(imagemId);
+            }
+
+            List<Integer> faltando = temDerivados ? List.of() : larguras;
+            RedimensionadorImagem.Processamento processamento;
+            try (InputStream in = storage.abrir(original)) {
+                processamento = redimensionador.processar(in, faltando);
+            }
+
+            List<DerivadoImagem> novos = new ArrayList<>();
+            String tentativa = UUID.randomUUID().toString().substring(0, 8);
+            for (RedimensionadorImagem.Derivado gerado : processamento.derivados()) {
+                String chave = storage.gerarObjectKeyDerivado(original, gerado.largura(), tentativa);
+                pendentes.registrar(chave);
+                enviadas.add(chave);
+                storage.upload(chave, new ByteArrayInputStream(gerado.conteudo()), gerado.conteudo().length,
+                        RedimensionadorImagem.TIPO_SAIDA);
+
+                DerivadoImagem derivado = new DerivadoImagem();
+                derivado.setLargura(gerado.largura());
+                derivado.setChaveObjeto(chave);
+                derivado.setTipoConteudo(RedimensionadorImagem.TIPO_SAIDA);
+                derivado.setTamanhoBytes(gerado.conteudo().length);
+                novos.add(derivado);
+            }
+
+            transacao.executeWithoutResult(status -> {
+                ImagemAlbum ref = imagemAlbumRepository.getReferenceById(imagemId);
+                novos.forEach(d -> d.setImagem(ref));
+                derivadoRepository.saveAll(novos);
+                imagemAlbumRepository.atualizarMetadados(imagemId, processamento.largura(), processamento.altura(),
+                        processamento.corDominante(), processamento.blurhash());
+                tarefas.concluir(imagemId);
+                if (!enviadas.isEmpty()) {
+                    pendentes.removerTodas(enviadas);
+                }
+            });
+        } catch (Exception e) {
+            resultado = "falha";
+            compensar(enviadas);
+            log.warn("Falha ao gerar derivados da imagem {}", imagemId, e);
+            try {
+                tarefas.registrarFalha(imagemId, String.valueOf(e.getMessage()), espera.toSeconds());
+            } catch (Exception falha) {
+                // sem o registro a tarefa volta quando o lease vencer
+                log.warn("Falha ao registrar erro da tarefa de derivados {}", imagemId, falha);
+            }
+        } finally {
+            amostra.stop(registry.timer("derivados.geracao", "resultado", resultado));
+        }
+    }
+
+    /**
+     * Copia as linhas dos derivados que outra imagem com o mesmo objeto já tem (os objetos são os mesmos)
+     * e os metadados dela. Se nenhuma outra imagem tem os metadados, as linhas copiadas ficam e a tarefa
+     * segue para a decodificação só dos metadados, sem ser concluída aqui.
+     */
+    private boolean reaproveitar(Long imagemId, String original, boolean temDerivados) {
+        Map<Integer, DerivadoImagem> existentes = new LinkedHashMap<>();
+        if (!temDerivados) {
+            for (DerivadoImagem d : derivadoRepository.findByChaveOriginal(original, imagemId)) {
+                existentes.putIfAbsent(d.getLargura(), d);
+            }
+            if (existentes.isEmpty()) {
+                return false;
+            }
+        }
+
+        return Boolean.TRUE.equals(transacao.execute(status -> {
+            ImagemAlbum ref = imagemAlbumRepository.getReferenceById(imagemId);
+            List<DerivadoImagem> copias = new ArrayList<>();
+            for (DerivadoImagem existente : existentes.values()) {
+                DerivadoImagem copia = new DerivadoImagem();
+                copia.setImagem(ref);
+                copia.setLargura(existente.getLargura());
+                copia.setChaveObjeto(existente.getChaveObjeto());
+                copia.setTipoConteudo(existente.getTipoConteudo());
+                copia.setTamanhoBytes(existente.getTamanhoBytes());
+                copias.add(copia);
+            }
+            if (!copias.isEmpty()) {
+                derivadoRepository.saveAll(copias);
+            }
+            if (imagemAlbumRepository.copiarMetadados(imagemId, original) == 0) {
+                return false;
+            }
+            tarefas.concluir(imagemId);
+            return true;
+        }));
+    }
+
+    /**
+     * As chaves levam o sufixo da tentativa, então tudo em {@code enviadas} é desta execução e nenhuma linha
+     * aponta para elas (o commit falhou): podem sair mesmo com outra execução da mesma imagem já concluída
+     * (conflito no índice único imagem_id + largura) e mesmo sob chave por conteúdo.
+     */
+    private void compensar(List<String> enviadas) {
+        List<String> removidas = new ArrayList<>();
+        for (String chave : enviadas) {
+            try {
+                storage.delete(chave);
+                removidas.add(chave);
+            } catch (Exception ignored) {
+                // fica no diário para a varredura de pendentes
+            }
+        }
+        if (!removidas.isEmpty()) {
+            try {
+                pendentes.removerTodas(removidas);
+            } catch (Exception ignored) {
+                // a varredura apaga de novo e limpa o diário
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -1,45 +1,94 @@
 package br.com.seplag.sistema.erp.service;
 
 import br.com.seplag.sistema.erp.model.Album;
+import br.com.seplag.sistema.erp.model.DerivadoImagem;
 import br.com.seplag.sistema.erp.model.ImagemAlbum;
 import br.com.seplag.sistema.erp.model.dto.ImagemAlbumComUrlDto;
 import br.com.seplag.sistema.erp.model.dto.ImagemAlbumDto;
+import br.com.seplag.sistema.erp.model.dto.ImagemUrlDto;
+import br.com.seplag.sistema.erp.model.dto.IntencaoUploadDto;
+import br.com.seplag.sistema.erp.model.dto.UrlUploadDto;
 import br.com.seplag.sistema.erp.model.dto.NotificationDto;
 import br.com.seplag.sistema.erp.repository.AlbumRepository;
+import br.com.seplag.sistema.erp.repository.DerivadoImagemRepository;
 import br.com.seplag.sistema.erp.repository.ImagemAlbumRepository;
+import br.com.seplag.sistema.erp.repository.ObjetoConteudoRepository;
+import br.com.seplag.sistema.erp.repository.ObjetoPendenteRepository;
 import br.com.seplag.sistema.exception.RecursoNaoEncontradoException;
+import br.com.seplag.sistema.exception.RequisicaoInvalidaException;
+import br.com.seplag.sistema.exception.ServicoSobrecarregadoException;
+import br.com.seplag.sistema.storage.ArquivoImagem;
 import br.com.seplag.sistema.storage.ArquivoInvalidoException;
+import br.com.seplag.sistema.storage.ArquivoStream;
+import br.com.seplag.sistema.storage.CacheLocalImagens;
+import br.com.seplag.sistema.storage.DimensoesImagem;
+import br.com.seplag.sistema.storage.EnvioImagem;
+import br.com.seplag.sistema.storage.HashConteudo;
+import br.com.seplag.sistema.storage.InfoObjeto;
 import br.com.seplag.sistema.storage.MinioStorageService;
+import br.com.seplag.sistema.storage.UploadParaleloExecutor;
 import br.com.seplag.sistema.websocket.NotificationPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.OutputStream;
+import java.security.DigestInputStream;
 import java.time.Instant;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ImagemAlbumService {
 
+    private static final Logger log = LoggerFactory.getLogger(ImagemAlbumService.class);
+
     private static final long MAX_BYTES = 10L * 1024 * 1024;
     private static final int EXPIRACAO_URL_SEGUNDOS = 30 * 60;
+    // abaixo da carência da varredura de pendentes (app.upload.pendentes.carencia), que apaga o não confirmado
+    private static final int EXPIRACAO_UPLOAD_SEGUNDOS = 15 * 60;
 
     private final AlbumRepository albumRepository;
     private final ImagemAlbumRepository imagemAlbumRepository;
     private final MinioStorageService storage;
     private final NotificationPublisher notifications;
+    private final UploadParaleloExecutor uploads;
+    private final ObjetoPendenteRepository pendentes;
+    private final DerivadoImagemRepository derivadoRepository;
+    private final ObjetoConteudoRepository conteudos;
+    private final CacheLocalImagens cacheLocal;
+    private final TransactionTemplate transacao;
 
     public ImagemAlbumService(
             AlbumRepository albumRepository,
             ImagemAlbumRepository imagemAlbumRepository,
             MinioStorageService storage,
-            NotificationPublisher notifications
+            NotificationPublisher notifications,
+            UploadParaleloExecutor uploads,
+            ObjetoPendenteRepository pendentes,
+            DerivadoImagemRepository derivadoRepository,
+            ObjetoConteudoRepository conteudos,
+            CacheLocalImagens cacheLocal,
+            PlatformTransactionManager transactionManager
     ) {
         this.albumRepository = albumRepository;
         this.imagemAlbumRepository = imagemAlbumRepository;
         this.storage = storage;
         this.notifications = notifications;
+        this.uploads = uploads;
+        this.pendentes = pendentes;
+        this.derivadoRepository = derivadoRepository;
+        this.conteudos = conteudos;
+        this.cacheLocal = cacheLocal;
+        this.transacao = new TransactionTemplate(transactionManager);
     }
 
     @Transactional(readOnly = true)
@@ -49,13 +98,7 @@ public class ImagemAlbumService {
         }
 
         return imagemAlbumRepository.findByAlbumId(albumId).stream()
-                .map(i -> new ImagemAlbumDto(
-                        i.getId(),
-                        i.getChaveObjeto(),
-                        i.getTipoConteudo(),
-                        i.getTamanhoBytes(),
-                        i.isEhCapa()
-                ))
+                .map(ImagemAlbumService::paraDto)
                 .toList();
     }
 
@@ -89,16 +132,16 @@ public class ImagemAlbumService {
         );
         notifications.publish(payload);
 
-        return new ImagemAlbumDto(
-                salvo.getId(),
-                salvo.getChaveObjeto(),
-                salvo.getTipoConteudo(),
-                salvo.getTamanhoBytes(),
-                salvo.isEhCapa()
-        );
+        return paraDto(salvo);
     }
 
-    @Transactional
+    /**
+     * Envio em etapas para não prender conexão do pool durante o I/O com o MinIO: os objetos sobem sem
+     * transação (cada chave registrada antes no diário de pendentes) e depois as linhas de imagens_albuns
+     * são gravadas numa única transação curta, que também dá baixa das chaves no diário.
+     * A chave é o SHA-256 do arquivo ({@link MinioStorageService#gerarObjectKeyConteudo}): conteúdo que já
+     * está no MinIO não é enviado de novo.
+     */
     public List<ImagemAlbumDto> uploadMultiplasParaAlbum(Long albumId, List<MultipartFile> arquivos, Integer indiceCapa) {
         Album album = albumRepository.findById(albumId)
                 .orElseThrow(() -> new RecursoNaoEncontradoException("Álbum não encontrado: " + albumId));
@@ -112,78 +155,243 @@ public class ImagemAlbumService {
             throw new ArquivoInvalidoException("indiceCapa inválido. Use 0 até " + (arquivos.size() - 1));
         }
 
-        if (temCapa) {
-            imagemAlbumRepository.desmarcarCapasDoAlbum(albumId);
-        }
-
-        List<String> objectKeysEnviados = new java.util.ArrayList<>();
-        List<ImagemAlbumDto> result = new java.util.ArrayList<>();
+        List<String> objectKeysEnviados = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
 
         try {
+            arquivos.forEach(this::validarArquivo);
+
+            // 1) MinIO, em paralelo e sem transação; chaves na ordem dos arquivos
+            List<ObjetoArmazenado> objetos = enviarArquivos(arquivos, objectKeysEnviados);
+
+            // 2) metadados numa transação curta
+            List<ImagemAlbum> novas = new java.util.ArrayList<>();
             for (int i = 0; i < arquivos.size(); i++) {
                 MultipartFile arquivo = arquivos.get(i);
-                validarArquivo(arquivo);
+                novas.add(novaImagem(album, objetos.get(i).chave(), arquivo.getContentType(), arquivo.getSize(),
+                        objetos.get(i).dimensoes(), temCapa && (i == indiceCapa)));
+            }
 
-                String contentType = arquivo.getContentType();
-                String objectKey = storage.gerarObjectKeyAlbum(albumId, contentType);
+            return confirmarImagens(album, novas, temCapa, reaproveitadas(objetos));
+        } catch (Exception e) {
+            compensarEnvio(album, objectKeysEnviados, e);
 
-                // 1) MinIO
-                storage.upload(objectKey, arquivo.getInputStream(), arquivo.getSize(), contentType);
-                objectKeysEnviados.add(objectKey);
+            if (e instanceof ArquivoInvalidoException invalido) {
+                throw invalido;
+            }
+            if (e instanceof ServicoSobrecarregadoException sobrecarregado) {
+                throw sobrecarregado;
+            }
+            throw new RuntimeException("Falha ao enviar imagens para o MinIO", e);
+        }
+    }
+
+    /**
+     * Variante de {@link #uploadMultiplasParaAlbum} que recebe as partes ainda não lidas do corpo:
+     * cada arquivo vai direto para o MinIO enquanto chega, com tipo (magic bytes) e tamanho
+     * validados durante a cópia. Como a quantidade só é conhecida no fim, indiceCapa é validado depois.
+     * Mesmas etapas: envio sem transação, metadados numa transação curta ao final.
+     * O hash só é conhecido no fim da transferência, então cada arquivo sobe para uma chave temporária
+     * e é copiado pelo MinIO para a chave por conteúdo (ou descartado, se o conteúdo já existe).
+     */
+    public List<ImagemAlbumDto> uploadStreamParaAlbum(Long albumId, Iterator<ArquivoStream> arquivos, Integer indiceCapa) {
+        Album album = albumRepository.findById(albumId)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Álbum não encontrado: " + albumId));
+
+        boolean temCapa = (indiceCapa != null);
+        if (temCapa && indiceCapa < 0) {
+            throw new ArquivoInvalidoException("indiceCapa inválido");
+        }
+
+        List<String> objectKeysEnviados = new java.util.ArrayList<>();
+        List<ImagemAlbum> novas = new java.util.ArrayList<>();
+        Set<String> reaproveitadas = new HashSet<>();
 
-                ImagemAlbum img = new ImagemAlbum();
-                img.setAlbum(album);
-                img.setChaveObjeto(objectKey);
-                img.setTipoConteudo(contentType);
-                img.setTamanhoBytes(arquivo.getSize());
+        try {
+            for (int i = 0; arquivos.hasNext(); i++) {
+                ArquivoStream arquivo = arquivos.next();
 
-                boolean ehCapa = temCapa && (i == indiceCapa);
-                img.setEhCapa(ehCapa);
+                EnvioImagem envio = storage.uploadImagemStream(albumId, arquivo.conteudo(), MAX_BYTES, chave -> {
+                    pendentes.registrar(chave);
+                    objectKeysEnviados.add(chave);
+                });
 
-                ImagemAlbum salvo = imagemAlbumRepository.save(img);
+                ObjetoArmazenado objeto = moverParaConteudo(envio, objectKeysEnviados);
+                if (objeto.reaproveitado()) {
+                    reaproveitadas.add(objeto.chave());
+                }
 
-                result.add(new ImagemAlbumDto(
-                        salvo.getId(),
-                        salvo.getChaveObjeto(),
-                        salvo.getTipoConteudo(),
-                        salvo.getTamanhoBytes(),
-                        salvo.isEhCapa()
-                ));
+                novas.add(novaImagem(album, objeto.chave(), envio.contentType(), envio.tamanhoBytes(),
+                        envio.dimensoes(), temCapa && i == indiceCapa));
             }
 
-            // Notificação (imagem upload)
-            notifications.publish(new NotificationDto(
-                    "ALBUM_IMAGES_UPLOADED",
-                    "ALBUM",
-                    albumId,
-                    album.getTitulo(),
-                    "Imagens enviadas para o álbum: " + album.getTitulo(),
-                    Instant.now(),
-                    Map.of(
-                            "qtd", result.size(),
-                            "temCapa", result.stream().anyMatch(i -> Boolean.TRUE.equals(i.ehCapa()))
-                    )
-            ));
+            if (novas.isEmpty()) {
+                throw new ArquivoInvalidoException("Arquivos são obrigatórios");
+            }
+            if (temCapa && indiceCapa >= novas.size()) {
+                throw new ArquivoInvalidoException("indiceCapa inválido. Use 0 até " + (novas.size() - 1));
+            }
 
-            return result;
+            return confirmarImagens(album, novas, temCapa, reaproveitadas);
         } catch (Exception e) {
-            for (String key : objectKeysEnviados) {
-                try { storage.delete(key); } catch (Exception ignored) {}
+            compensarEnvio(album, objectKeysEnviados, e);
+
+            // arquivo inválido continua 400; o resto é falha de infraestrutura
+            if (e instanceof ArquivoInvalidoException invalido) {
+                throw invalido;
+            }
+            if (e instanceof ServicoSobrecarregadoException sobrecarregado) {
+                throw sobrecarregado;
             }
+            throw new RuntimeException("Falha ao enviar imagens para o MinIO", e);
+        }
+    }
 
-            //  Notificação (upload falhou)
-            notifications.publish(new NotificationDto(
-                    "ALBUM_UPLOAD_FAILED",
-                    "ALBUM",
-                    albumId,
-                    album.getTitulo(),
-                    "Falha ao enviar imagens do álbum: " + album.getTitulo(),
-                    Instant.now(),
-                    Map.of("error", e.getMessage() == null ? "erro" : e.getMessage())
-            ));
+    /**
+     * Primeira etapa do envio direto: valida o que o cliente declara e devolve uma URL PUT assinada por arquivo.
+     * As chaves entram no diário de pendentes já aqui, então o que for enviado e nunca confirmado
+     * é apagado pela varredura.
+     */
+    public List<UrlUploadDto> criarIntencoesUpload(Long albumId, List<IntencaoUploadDto.Arquivo> arquivos) {
+        if (!albumRepository.existsById(albumId)) {
+            throw new RecursoNaoEncontradoException("Álbum não encontrado: " + albumId);
+        }
+        arquivos.forEach(a -> validarDeclarado(a.tipoConteudo(), a.tamanhoBytes()));
 
-            throw new RuntimeException("Falha ao enviar imagens para o MinIO", e);
+        Instant expiraEm = Instant.now().plusSeconds(EXPIRACAO_UPLOAD_SEGUNDOS);
+
+        return arquivos.stream().map(arquivo -> {
+            String tipo = arquivo.tipoConteudo().toLowerCase();
+            String chave = storage.gerarObjectKeyEnvioDireto(albumId, tipo);
+            pendentes.registrar(chave);
+
+            try {
+                return new UrlUploadDto(chave, storage.presignedPutUrl(chave, EXPIRACAO_UPLOAD_SEGUNDOS), tipo, MAX_BYTES, expiraEm);
+            } catch (Exception e) {
+                throw new RuntimeException("Falha ao gerar URL de envio", e);
+            }
+        }).toList();
+    }
+
+    /**
+     * Segunda etapa do envio direto: cada chave precisa ter saído de {@link #criarIntencoesUpload} para este álbum
+     * (prefixo) e ser reivindicada no diário de pendentes, o que só uma confirmação consegue.
+     * A URL PUT continua valendo depois da confirmação, então o objeto enviado é copiado no MinIO para a
+     * chave definitiva (sem URL de escrita) e é a cópia que passa pela conferência de tamanho e magic bytes
+     * e vira imagem; o que não respeita as regras é apagado. A chave de envio fica no diário e a varredura
+     * apaga o que um PUT tardio recriar.
+     */
+    public List<ImagemAlbumDto> confirmarUploadDireto(Long albumId, List<String> chaves, Integer indiceCapa) {
+        Album album = albumRepository.findById(albumId)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Álbum não encontrado: " + albumId));
+
+        if (chaves.stream().distinct().count() != chaves.size()) {
+            throw new ArquivoInvalidoException("Chaves repetidas na confirmação");
+        }
+        boolean temCapa = (indiceCapa != null);
+        if (temCapa && (indiceCapa < 0 || indiceCapa >= chaves.size())) {
+            throw new ArquivoInvalidoException("indiceCapa inválido. Use 0 até " + (chaves.size() - 1));
+        }
+
+        String prefixo = MinioStorageService.prefixoEnvioDireto(albumId);
+        for (String chave : chaves) {
+            if (!chave.startsWith(prefixo)) {
+                throw new ArquivoInvalidoException("Envio não autorizado ou já confirmado: " + chave);
+            }
         }
+
+        List<String> reivindicadas = new java.util.ArrayList<>();
+        List<String> definitivas = new java.util.ArrayList<>();
+        Set<String> invalidas = new HashSet<>();
+        List<ImagemAlbumDto> confirmadas;
+        try {
+            for (String chave : chaves) {
+                if (pendentes.reivindicar(chave) == 0) {
+                    throw new ArquivoInvalidoException("Envio não autorizado ou já confirmado: " + chave);
+                }
+                reivindicadas.add(chave);
+            }
+
+            List<ImagemAlbum> novas = new java.util.ArrayList<>();
+            for (int i = 0; i < chaves.size(); i++) {
+                String chave = chaves.get(i);
+                String definitiva = MinioStorageService.chaveDefinitiva(chave);
+                pendentes.registrar(definitiva);
+                definitivas.add(definitiva);
+
+                InfoObjeto info = copiarEInspecionar(chave, definitiva, invalidas);
+                novas.add(novaImagem(album, definitiva, info.tipoDetectado(), info.tamanhoBytes(), info.dimensoes(),
+                        temCapa && i == indiceCapa));
+            }
+
+            confirmadas = confirmarImagens(album, novas, temCapa, Set.of());
+        } catch (RuntimeException e) {
+            compensarConfirmacao(reivindicadas, definitivas, invalidas);
+            throw e;
+        }
+
+        // a cópia já é a imagem; o objeto de envio sai agora e a linha do diário, na varredura
+        apagarSemFalhar(chaves);
+        return confirmadas;
+    }
+
+    private InfoObjeto copiarEInspecionar(String chave, String definitiva, Set<String> invalidas) {
+        InfoObjeto info;
+        try {
+            if (!storage.copiarSeExistir(chave, definitiva)) {
+                throw new ArquivoInvalidoException("Arquivo ainda não enviado: " + chave);
+            }
+            info = storage.inspecionar(definitiva)
+                    .orElseThrow(() -> new IllegalStateException("Cópia não encontrada no MinIO: " + definitiva));
+        } catch (ArquivoInvalidoException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Falha ao verificar imagem no MinIO", e);
+        }
+
+        String motivo = null;
+        if (info.tamanhoBytes() > MAX_BYTES) {
+            motivo = "Arquivo excede o limite de 10MB";
+        } else if (info.tipoDetectado() == null) {
+            motivo = "Tipo de arquivo inválido. Use JPEG, PNG ou WEBP";
+        }
+        if (motivo != null) {
+            invalidas.add(chave);
+            throw new ArquivoInvalidoException(motivo + ": " + chave);
+        }
+        return info;
+    }
+
+    /**
+     * Confirmação que falhou: as cópias saem (e do diário, se saíram de fato); envio inválido também é apagado
+     * já, sem esperar a varredura, e continua reivindicado. Os demais são liberados para nova confirmação.
+     */
+    private void compensarConfirmacao(List<String> reivindicadas, List<String> definitivas, Set<String> invalidas) {
+        List<String> removidas = apagarSemFalhar(definitivas);
+        apagarSemFalhar(List.copyOf(invalidas));
+        try {
+            if (!removidas.isEmpty()) {
+                pendentes.removerTodas(removidas);
+            }
+            List<String> liberar = reivindicadas.stream().filter(c -> !invalidas.contains(c)).toList();
+            if (!liberar.isEmpty()) {
+                pendentes.liberar(liberar);
+            }
+        } catch (Exception e) {
+            log.warn("Falha ao atualizar o diário de pendentes após confirmação com erro", e);
+        }
+    }
+
+    private List<String> apagarSemFalhar(List<String> chaves) {
+        List<String> removidas = new java.util.ArrayList<>();
+        for (String chave : chaves) {
+            try {
+                storage.delete(chave);
+                removidas.add(chave);
+            } catch (Exception e) {
+                log.warn("Falha ao remover objeto {} do MinIO; fica para a varredura de pendentes", chave, e);
+            }
+        }
+        return removidas;
     }
 
     @Transactional
@@ -210,72 +418,152 @@ public class ImagemAlbumService {
                 )
         ));
 
-        return new ImagemAlbumDto(
-                salvo.getId(),
-                salvo.getChaveObjeto(),
-                salvo.getTipoConteudo(),
-                salvo.getTamanhoBytes(),
-                salvo.isEhCapa()
-        );
+        return paraDto(salvo);
     }
 
     @Transactional(readOnly = true)
     public String gerarUrlAssinada(Long albumId, Long imagemId) {
+        return gerarUrlAssinada(albumId, imagemId, null);
+    }
+
+    /**
+     * Com {@code tamanho} (largura em pixels), assina o menor derivado com pelo menos essa largura;
+     * sem derivado que sirva (maior que todos, ou ainda não gerados), assina o original.
+     */
+    @Transactional(readOnly = true)
+    public String gerarUrlAssinada(Long albumId, Long imagemId, Integer tamanho) {
+        validarTamanho(tamanho);
+
         ImagemAlbum img = imagemAlbumRepository.findByIdAndAlbumId(imagemId, albumId)
                 .orElseThrow(() -> new RecursoNaoEncontradoException("Imagem não encontrada: " + imagemId));
 
+        List<DerivadoImagem> derivados = tamanho == null ? List.of() : derivadoRepository.findByImagemId(imagemId);
+
         try {
-            return storage.presignedGetUrl(img.getChaveObjeto(), EXPIRACAO_URL_SEGUNDOS);
+            return storage.presignedGetUrl(chaveParaTamanho(img.getChaveObjeto(), derivados, tamanho), EXPIRACAO_URL_SEGUNDOS);
         } catch (Exception e) {
             throw new RuntimeException("Falha ao gerar URL assinada", e);
         }
     }
 
-    @Transactional
-    public void deletarImagem(Long albumId, Long imagemId) {
+    /**
+     * Bytes da imagem pela própria API (proxy): mesma escolha de derivado de {@link #gerarUrlAssinada(Long, Long, Integer)},
+     * servida da cópia local em disco ({@link CacheLocalImagens}). Sem transação (e com spring.jpa.open-in-view
+     * desligado): as consultas devolvem a conexão ao terminar e a leitura no MinIO de um miss não segura conexão do pool.
+     */
+    public ArquivoImagem abrirConteudo(Long albumId, Long imagemId, Integer tamanho) {
+        validarTamanho(tamanho);
+
         ImagemAlbum img = imagemAlbumRepository.findByIdAndAlbumId(imagemId, albumId)
                 .orElseThrow(() -> new RecursoNaoEncontradoException("Imagem não encontrada: " + imagemId));
 
-        String tituloAlbum = img.getAlbum() != null ? img.getAlbum().getTitulo() : null;
-        String chave = img.getChaveObjeto();
+        List<DerivadoImagem> derivados = tamanho == null ? List.of() : derivadoRepository.findByImagemId(imagemId);
+        Optional<DerivadoImagem> derivado = derivadoParaTamanho(derivados, tamanho);
 
-        // 1) tenta apagar do MinIO primeiro
-        try {
-            storage.delete(chave);
-        } catch (Exception e) {
-            throw new RuntimeException("Falha ao remover objeto do MinIO", e);
-        }
+        String chave = derivado.map(DerivadoImagem::getChaveObjeto).orElse(img.getChaveObjeto());
+        String tipo = derivado.map(DerivadoImagem::getTipoConteudo).orElse(img.getTipoConteudo());
 
-        // 2) apaga do banco
-        imagemAlbumRepository.delete(img);
+        // ETag pelo hash dos bytes copiados, não pelo nome: continua certo mesmo se uma chave for regravada
+        CacheLocalImagens.Copia copia = cacheLocal.obter(chave);
+        return new ArquivoImagem(copia.arquivo(), tipo, copia.hash());
+    }
 
-        // Notificação (imagem deletado)
-        notifications.publish(new NotificationDto(
-                "ALBUM_IMAGE_DELETED",
-                "ALBUM",
-                albumId,
-                tituloAlbum,
-                "Imagem removida do álbum" + (tituloAlbum != null ? ": " + tituloAlbum : ""),
-                Instant.now(),
-                Map.of(
-                        "imageId", imagemId,
-                        "objectKey", chave
-                )
-        ));
+    /**
+     * Uma consulta para todas as imagens e assinatura local (com cache) por chave de objeto.
+     */
+    @Transactional(readOnly = true)
+    public List<ImagemUrlDto> gerarUrlsAssinadasEmLote(List<Long> imagemIds) {
+        Map<Long, ImagemAlbum> porId = imagemAlbumRepository.findAllById(new java.util.LinkedHashSet<>(imagemIds)).stream()
+                .collect(java.util.stream.Collectors.toMap(ImagemAlbum::getId, i -> i));
+
+        return imagemIds.stream()
+                .distinct()
+                .map(porId::get)
+                .filter(java.util.Objects::nonNull)
+                .map(img -> new ImagemUrlDto(
+                        img.getId(),
+                        img.getAlbum().getId(),
+                        storage.presignedGetUrl(img.getChaveObjeto(), EXPIRACAO_URL_SEGUNDOS)
+                ))
+                .toList();
+    }
+
+    /**
+     * A linha sai do banco primeiro (transação curta, com a chave registrada no diário de pendentes)
+     * e o objeto é removido do MinIO depois do commit. Se essa remoção falhar, a varredura de
+     * pendentes tenta de novo; a imagem nunca fica no banco apontando para um objeto apagado.
+     * Objeto por conteúdo pode ser de outras imagens: ele fica, o trigger decrementa o contador e a
+     * varredura apaga objeto e derivados quando o contador zerar e a carência vencer.
+     */
+    public void deletarImagem(Long albumId, Long imagemId) {
+        List<String> chaves = transacao.execute(status -> {
+            ImagemAlbum img = imagemAlbumRepository.findByIdAndAlbumId(imagemId, albumId)
+                    .orElseThrow(() -> new RecursoNaoEncontradoException("Imagem não encontrada: " + imagemId));
+
+            String tituloAlbum = img.getAlbum() != null ? img.getAlbum().getTitulo() : null;
+
+            // derivados saem junto (ON DELETE CASCADE); os objetos deles também vão para o diário
+            List<String> objetos = new java.util.ArrayList<>();
+            if (!MinioStorageService.ehChaveConteudo(img.getChaveObjeto())) {
+                objetos.add(img.getChaveObjeto());
+                objetos.addAll(derivadoRepository.chavesPorImagem(imagemId));
+            }
+
+            imagemAlbumRepository.delete(img);
+            objetos.forEach(pendentes::registrar);
+
+            // Notificação (imagem deletado)
+            notifications.publish(new NotificationDto(
+                    "ALBUM_IMAGE_DELETED",
+                    "ALBUM",
+                    albumId,
+                    tituloAlbum,
+                    "Imagem removida do álbum" + (tituloAlbum != null ? ": " + tituloAlbum : ""),
+                    Instant.now(),
+                    Map.of(
+                            "imageId", imagemId,
+                            "objectKey", img.getChaveObjeto()
+                    )
+            ));
+
+            return objetos;
+        });
+
+        List<String> removidas = apagarSemFalhar(chaves);
+        if (!removidas.isEmpty()) {
+            pendentes.removerTodas(removidas);
+        }
     }
 
     @Transactional(readOnly = true)
     public List<ImagemAlbumComUrlDto> listarPorAlbumComUrl(Long albumId) {
+        return listarPorAlbumComUrl(albumId, null);
+    }
+
+    /**
+     * Mesma regra de {@link #gerarUrlAssinada(Long, Long, Integer)} por imagem, com os derivados
+     * do álbum inteiro carregados numa só consulta.
+     */
+    @Transactional(readOnly = true)
+    public List<ImagemAlbumComUrlDto> listarPorAlbumComUrl(Long albumId, Integer tamanho) {
+        validarTamanho(tamanho);
+
         if (!albumRepository.existsById(albumId)) {
             throw new RecursoNaoEncontradoException("Álbum não encontrado: " + albumId);
         }
 
         List<ImagemAlbumDto> imagens = listarPorAlbum(albumId);
 
+        Map<Long, List<DerivadoImagem>> derivadosPorImagem = (tamanho == null || imagens.isEmpty())
+                ? Map.of()
+                : derivadoRepository.findByImagemIdIn(imagens.stream().map(ImagemAlbumDto::id).toList()).stream()
+                        .collect(java.util.stream.Collectors.groupingBy(d -> d.getImagem().getId()));
+
         return imagens.stream().map(img -> {
+            String chave = chaveParaTamanho(img.chaveObjeto(), derivadosPorImagem.getOrDefault(img.id(), List.of()), tamanho);
             String url;
             try {
-                url = storage.presignedGetUrl(img.chaveObjeto(), EXPIRACAO_URL_SEGUNDOS);
+                url = storage.presignedGetUrl(chave, EXPIRACAO_URL_SEGUNDOS);
             } catch (Exception e) {
                 throw new RuntimeException("Falha ao gerar URL assinada para imagem " + img.id(), e);
             }
@@ -286,12 +574,15 @@ public class ImagemAlbumService {
                     img.tipoConteudo(),
                     img.tamanhoBytes(),
                     img.ehCapa(),
+                    img.largura(),
+                    img.altura(),
+                    img.corDominante(),
+                    img.blurhash(),
                     url
             );
         }).toList();
     }
 
-    @Transactional
     public List<ImagemAlbumDto> uploadMultiplasParaAlbumOpcional(Long albumId, List<MultipartFile> arquivos, Integer indiceCapa) {
         Album album = albumRepository.findById(albumId)
                 .orElseThrow(() -> new RecursoNaoEncontradoException("Álbum não encontrado: " + albumId));
@@ -302,45 +593,96 @@ public class ImagemAlbumService {
 
         Integer capaIdx = normalizeIndiceCapa(indiceCapa, arquivos.size());
 
-        imagemAlbumRepository.desmarcarCapasDoAlbum(albumId);
-
-        List<String> objectKeysEnviados = new java.util.ArrayList<>();
-        List<ImagemAlbumDto> result = new java.util.ArrayList<>();
+        List<String> objectKeysEnviados = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
 
         try {
+            arquivos.forEach(this::validarArquivo);
+
+            List<ObjetoArmazenado> objetos = enviarArquivos(arquivos, objectKeysEnviados);
+
+            List<ImagemAlbum> novas = new java.util.ArrayList<>();
             for (int i = 0; i < arquivos.size(); i++) {
                 MultipartFile arquivo = arquivos.get(i);
-                validarArquivo(arquivo);
-
-                String contentType = arquivo.getContentType();
-                String objectKey = storage.gerarObjectKeyAlbum(albumId, contentType);
-
-                storage.upload(objectKey, arquivo.getInputStream(), arquivo.getSize(), contentType);
-                objectKeysEnviados.add(objectKey);
-
-                ImagemAlbum img = new ImagemAlbum();
-                img.setAlbum(album);
-                img.setChaveObjeto(objectKey);
-                img.setTipoConteudo(contentType);
-                img.setTamanhoBytes(arquivo.getSize());
-                img.setEhCapa(i == capaIdx);
-
-                ImagemAlbum salvo = imagemAlbumRepository.save(img);
-
-                result.add(new ImagemAlbumDto(
-                        salvo.getId(),
-                        salvo.getChaveObjeto(),
-                        salvo.getTipoConteudo(),
-                        salvo.getTamanhoBytes(),
-                        salvo.isEhCapa()
-                ));
+                novas.add(novaImagem(album, objetos.get(i).chave(), arquivo.getContentType(), arquivo.getSize(),
+                        objetos.get(i).dimensoes(), i == capaIdx));
             }
 
-            // Notificação (imagens upload)
+            return confirmarImagens(album, novas, true, reaproveitadas(objetos));
+        } catch (Exception e) {
+            compensarEnvio(album, objectKeysEnviados, e);
+
+            if (e instanceof ArquivoInvalidoException invalido) {
+                throw invalido;
+            }
+            if (e instanceof ServicoSobrecarregadoException sobrecarregado) {
+                throw sobrecarregado;
+            }
+            throw new RuntimeException("Falha ao enviar imagens para o MinIO", e);
+        }
+    }
+
+    /**
+     * Etapa curta e transacional do envio: grava as linhas (INSERTs em lote JDBC), dá baixa das chaves no
+     * diário de pendentes e publica a notificação, que sai depois do commit.
+     * Chaves por conteúdo entram em objetos_conteudo antes dos INSERTs (o trigger conta as referências);
+     * as {@code reaproveitadas} não foram enviadas e só valem se a linha ainda existe: {@code renovar}
+     * espera a varredura que estiver apagando o objeto e, se ela venceu, o envio falha.
+     * O mesmo arquivo repetido no envio, ou já presente no álbum, vira uma imagem só (a existente, se houver);
+     * se alguma das cópias foi escolhida como capa, é essa imagem que fica como capa.
+     */
+    private List<ImagemAlbumDto> confirmarImagens(Album album, List<ImagemAlbum> novas, boolean desmarcarCapas,
+                                                  Set<String> reaproveitadas) {
+        Map<String, ImagemAlbum> unicas = new java.util.LinkedHashMap<>();
+        for (ImagemAlbum img : novas) {
+            ImagemAlbum primeira = unicas.putIfAbsent(img.getChaveObjeto(), img);
+            if (primeira != null && img.isEhCapa()) {
+                primeira.setEhCapa(true);
+            }
+        }
+        List<String> chaves = List.copyOf(unicas.keySet());
+
+        return transacao.execute(status -> {
+            if (desmarcarCapas) {
+                imagemAlbumRepository.desmarcarCapasDoAlbum(album.getId());
+            }
+
+            // consultas antes dos saves, para não quebrar o lote de INSERTs
+            Map<String, ImagemAlbum> existentes = new java.util.HashMap<>();
+            for (String chave : chaves) {
+                if (!MinioStorageService.ehChaveConteudo(chave)) {
+                    continue;
+                }
+                Optional<ImagemAlbum> existente = imagemAlbumRepository.findByAlbumIdAndChaveObjeto(album.getId(), chave);
+                if (existente.isPresent()) {
+                    // já referenciada por esta linha: nada a registrar no contador
+                    existentes.put(chave, existente.get());
+                } else if (!reaproveitadas.contains(chave)) {
+                    conteudos.registrar(chave);
+                } else if (conteudos.renovar(chave) == 0) {
+                    throw new IllegalStateException("Objeto removido durante o envio, tente novamente: " + chave);
+                }
+            }
+
+            List<ImagemAlbumDto> result = new java.util.ArrayList<>();
+            for (ImagemAlbum img : unicas.values()) {
+                ImagemAlbum existente = existentes.get(img.getChaveObjeto());
+                if (existente == null) {
+                    result.add(paraDto(imagemAlbumRepository.save(img)));
+                    continue;
+                }
+                if (img.isEhCapa()) {
+                    existente.setEhCapa(true);
+                }
+                result.add(paraDto(existente));
+            }
+
+            pendentes.removerTodas(chaves);
+
+            // Notificação (imagem upload)
             notifications.publish(new NotificationDto(
                     "ALBUM_IMAGES_UPLOADED",
                     "ALBUM",
-                    albumId,
+                    album.getId(),
                     album.getTitulo(),
                     "Imagens enviadas para o álbum: " + album.getTitulo(),
                     Instant.now(),
@@ -351,33 +693,155 @@ public class ImagemAlbumService {
             ));
 
             return result;
-        } catch (Exception e) {
-            for (String key : objectKeysEnviados) {
-                try { storage.delete(key); } catch (Exception ignored) {}
+        });
+    }
+
+    /**
+     * Remove do MinIO o que foi registrado neste envio e dá baixa no diário só do que saiu de fato;
+     * o resto fica para a varredura de pendentes.
+     */
+    private void compensarEnvio(Album album, List<String> objectKeysEnviados, Exception e) {
+        List<String> removidas = new java.util.ArrayList<>();
+        for (String key : List.copyOf(objectKeysEnviados)) {
+            if (MinioStorageService.ehChaveConteudo(key)) {
+                // outro envio do mesmo arquivo pode estar confirmando agora; a varredura confere as referências
+                continue;
             }
-            // Notificação (imagens falhou)
-            notifications.publish(new NotificationDto(
-                    "ALBUM_UPLOAD_FAILED",
-                    "ALBUM",
-                    albumId,
-                    album.getTitulo(),
-                    "Falha ao enviar imagens do álbum: " + album.getTitulo(),
-                    Instant.now(),
-                    Map.of("error", e.getMessage() == null ? "erro" : e.getMessage())
-            ));
+            try {
+                storage.delete(key);
+                removidas.add(key);
+            } catch (Exception falha) {
+                log.warn("Falha ao remover objeto {} do MinIO; fica para a varredura de pendentes", key, falha);
+            }
+        }
+        if (!removidas.isEmpty()) {
+            try {
+                pendentes.removerTodas(removidas);
+            } catch (Exception ignored) {
+                // a varredura apaga de novo (remoção idempotente) e limpa o diário
+            }
+        }
 
-            throw new RuntimeException("Falha ao enviar imagens para o MinIO", e);
+        //  Notificação (upload falhou)
+        notifications.publish(new NotificationDto(
+                "ALBUM_UPLOAD_FAILED",
+                "ALBUM",
+                album.getId(),
+                album.getTitulo(),
+                "Falha ao enviar imagens do álbum: " + album.getTitulo(),
+                Instant.now(),
+                Map.of("error", e.getMessage() == null ? "erro" : e.getMessage())
+        ));
+    }
+
+    /**
+     * {@code dimensoes} vem do cabeçalho e pode faltar; cor dominante, blurhash e as dimensões que faltarem
+     * são preenchidas pelo worker de derivados ({@link GeracaoDerivadosJob}).
+     */
+    private static ImagemAlbum novaImagem(Album album, String chave, String contentType, long tamanho,
+                                          DimensoesImagem dimensoes, boolean ehCapa) {
+        ImagemAlbum img = new ImagemAlbum();
+        img.setAlbum(album);
+        img.setChaveObjeto(chave);
+        img.setTipoConteudo(contentType);
+        img.setTamanhoBytes(tamanho);
+        if (dimensoes != null) {
+            img.setLargura(dimensoes.largura());
+            img.setAltura(dimensoes.altura());
         }
+        img.setEhCapa(ehCapa);
+        return img;
     }
 
+    private static ImagemAlbumDto paraDto(ImagemAlbum img) {
+        return new ImagemAlbumDto(
+                img.getId(),
+                img.getChaveObjeto(),
+                img.getTipoConteudo(),
+                img.getTamanhoBytes(),
+                img.isEhCapa(),
+                img.getLargura(),
+                img.getAltura(),
+                img.getCorDominante(),
+                img.getBlurhash()
+        );
+    }
+
+    /**
+     * Envia os arquivos ao MinIO em paralelo (limites do {@link UploadParaleloExecutor}) e devolve as chaves
+     * na ordem de {@code arquivos}. Cada chave é registrada no diário de pendentes e entra em
+     * {@code objectKeysEnviados} antes do envio, para a compensação (ou a varredura, se o processo cair)
+     * apagar tudo o que pode ter chegado ao MinIO.
+     * A parte multipart já está local (memória ou disco), então o hash é uma leitura a mais, sem rede,
+     * e conteúdo já registrado em objetos_conteudo não sobe de novo. As dimensões saem do começo dessa mesma leitura.
+     */
+    private List<ObjetoArmazenado> enviarArquivos(List<MultipartFile> arquivos, List<String> objectKeysEnviados) throws Exception {
+        return uploads.executar(arquivos, MultipartFile::getSize, arquivo -> {
+            String contentType = arquivo.getContentType();
+            String hash;
+            DimensoesImagem dimensoes;
+            try (DigestInputStream in = HashConteudo.calculando(arquivo.getInputStream())) {
+                dimensoes = DimensoesImagem.ler(in.readNBytes(DimensoesImagem.BYTES_CABECALHO));
+                in.transferTo(OutputStream.nullOutputStream());
+                hash = HashConteudo.hex(in.getMessageDigest());
+            }
+            String objectKey = storage.gerarObjectKeyConteudo(hash, contentType);
+            if (conteudos.existsById(objectKey)) {
+                return new ObjetoArmazenado(objectKey, true, dimensoes);
+            }
+
+            pendentes.registrar(objectKey);
+            objectKeysEnviados.add(objectKey);
+            storage.upload(objectKey, arquivo.getInputStream(), arquivo.getSize(), contentType);
+            return new ObjetoArmazenado(objectKey, false, dimensoes);
+        });
+    }
+
+    /**
+     * Leva o envio em stream da chave temporária para a chave por conteúdo (cópia no próprio MinIO)
+     * e apaga a temporária; se o conteúdo já existe, só apaga.
+     */
+    private ObjetoArmazenado moverParaConteudo(EnvioImagem envio, List<String> objectKeysEnviados) throws Exception {
+        String temporaria = envio.objectKey();
+        String objectKey = storage.gerarObjectKeyConteudo(envio.sha256(), envio.contentType());
+
+        boolean reaproveitado = conteudos.existsById(objectKey);
+        if (!reaproveitado) {
+            pendentes.registrar(objectKey);
+            objectKeysEnviados.add(objectKey);
+            storage.copiar(temporaria, objectKey);
+        }
+
+        storage.delete(temporaria);
+        objectKeysEnviados.remove(temporaria);
+        pendentes.removerTodas(List.of(temporaria));
+        return new ObjetoArmazenado(objectKey, reaproveitado, envio.dimensoes());
+    }
+
+    private static Set<String> reaproveitadas(List<ObjetoArmazenado> objetos) {
+        Set<String> chaves = new HashSet<>();
+        for (ObjetoArmazenado objeto : objetos) {
+            if (objeto.reaproveitado()) {
+                chaves.add(objeto.chave());
+            }
+        }
+        return chaves;
+    }
+
+    // reaproveitado: o conteúdo já estava no MinIO e nada foi enviado; dimensoes: do cabeçalho, se reconhecido
+    private record ObjetoArmazenado(String chave, boolean reaproveitado, DimensoesImagem dimensoes) {}
+
     private void validarArquivo(MultipartFile arquivo) {
         if (arquivo == null || arquivo.isEmpty()) {
             throw new ArquivoInvalidoException("Arquivo é obrigatório");
         }
-        if (arquivo.getSize() > MAX_BYTES) {
+        validarDeclarado(arquivo.getContentType(), arquivo.getSize());
+    }
+
+    private static void validarDeclarado(String ct, long tamanho) {
+        if (tamanho > MAX_BYTES) {
             throw new ArquivoInvalidoException("Arquivo excede o limite de 10MB");
         }
-        String ct = arquivo.getContentType();
         if (ct == null || !(ct.equalsIgnoreCase("image/jpeg")
                 || ct.equalsIgnoreCase("image/png")
                 || ct.equalsIgnoreCase("image/webp"))) {
@@ -385,6 +849,26 @@ public class ImagemAlbumService {
         }
     }
 
+    private static void validarTamanho(Integer tamanho) {
+        if (tamanho != null && tamanho <= 0) {
+            throw new RequisicaoInvalidaException("tamanho deve ser maior que zero");
+        }
+    }
+
+    // o original é maior que todos os derivados, então serve quando nenhum alcança o tamanho pedido
+    private static String chaveParaTamanho(String original, List<DerivadoImagem> derivados, Integer tamanho) {
+        return derivadoParaTamanho(derivados, tamanho).map(DerivadoImagem::getChaveObjeto).orElse(original);
+    }
+
+    private static Optional<DerivadoImagem> derivadoParaTamanho(List<DerivadoImagem> derivados, Integer tamanho) {
+        if (tamanho == null) {
+            return Optional.empty();
+        }
+        return derivados.stream()
+                .filter(d -> d.getLargura() >= tamanho)
+                .min(java.util.Comparator.comparingInt(DerivadoImagem::getLargura));
+    }
+
     private Integer normalizeIndiceCapa(Integer indiceCapa, int total) {
         if (total <= 0) return 0;
         if (indiceCapa == null) return 0;
@@ -0,0 +1,136 @@
+package br.com.seplag.sistema.erp.service;
+
+import br.com.seplag.sistema.erp.repository.DerivadoImagemRepository;
+import br.com.seplag.sistema.erp.repository.ImagemAlbumRepository;
+import br.com.seplag.sistema.erp.repository.ObjetoConteudoRepository;
+import br.com.seplag.sistema.erp.repository.ObjetoPendenteRepository;
+import br.com.seplag.sistema.storage.MinioStorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Varre o diário de objetos pendentes: chaves registradas há mais que a carência e sem linha em
+ * imagens_albuns ou derivados_imagens são de envios que não confirmaram o metadado (processo caiu,
+ * compensação falhou) ou de imagens excluídas cujo objeto não saiu do MinIO, e são apagadas.
+ * Sem transação: cada consulta faz o próprio commit e o I/O com o MinIO não segura conexão.
+ * Depois passa pelos objetos por conteúdo (objetos_conteudo) sem referências há mais que a carência.
+ */
+@Component
+public class LimpezaObjetosPendentesJob {
+
+    private static final Logger log = LoggerFactory.getLogger(LimpezaObjetosPendentesJob.class);
+
+    private final ObjetoPendenteRepository pendentes;
+    private final ImagemAlbumRepository imagemAlbumRepository;
+    private final DerivadoImagemRepository derivadoRepository;
+    private final ObjetoConteudoRepository conteudos;
+    private final MinioStorageService storage;
+    private final TransactionTemplate transacao;
+    private final Duration carencia;
+    private final int lote;
+
+    public LimpezaObjetosPendentesJob(
+            ObjetoPendenteRepository pendentes,
+            ImagemAlbumRepository imagemAlbumRepository,
+            DerivadoImagemRepository derivadoRepository,
+            ObjetoConteudoRepository conteudos,
+            MinioStorageService storage,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.upload.pendentes.carencia:PT1H}") Duration carencia,
+            @Value("${app.upload.pendentes.lote:500}") int lote
+    ) {
+        this.pendentes = pendentes;
+        this.imagemAlbumRepository = imagemAlbumRepository;
+        this.derivadoRepository = derivadoRepository;
+        this.conteudos = conteudos;
+        this.storage = storage;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.carencia = carencia;
+        this.lote = lote;
+    }
+
+    @Scheduled(cron = "${app.upload.pendentes.cron:0 */10 * * * *}")
+    public int limpar() {
+        List<String> vencidas = pendentes.buscarVencidas(carencia.toSeconds(), lote);
+        List<String> resolvidas = new ArrayList<>();
+        int apagados = 0;
+
+        for (String chave : vencidas) {
+            // metadado confirmado (ou objeto por conteúdo, que segue o contador): só sai do diário
+            if (!imagemAlbumRepository.existsByChaveObjeto(chave) && !derivadoRepository.existsByChaveObjeto(chave)
+                    && !(MinioStorageService.ehChaveConteudo(chave) && conteudos.existsById(chave))) {
+                try {
+                    storage.delete(chave);
+                    apagados++;
+                } catch (Exception e) {
+                    log.warn("Falha ao remover objeto pendente {}; nova tentativa na próxima varredura", chave, e);
+                    continue;
+                }
+            }
+            resolvidas.add(chave);
+        }
+
+        if (!resolvidas.isEmpty()) {
+            pendentes.removerTodas(resolvidas);
+        }
+        if (apagados > 0) {
+            log.warn("{} objeto(s) sem metadado removido(s) do MinIO", apagados);
+        }
+        return resolvidas.size() + limparConteudosSemReferencias();
+    }
+
+    /**
+     * Cada objeto sai numa transação própria que trava a linha (contador ainda zero) enquanto o MinIO
+     * apaga o original e os derivados pelo prefixo: um envio que reaproveita a mesma chave espera em
+     * {@code renovar} e, com a linha apagada, falha em vez de apontar para um objeto removido.
+     * É a única remoção feita com conexão presa durante o I/O, e só na varredura, uma chave por vez.
+     */
+    public int limparConteudosSemReferencias() {
+        int removidos = 0;
+        for (String chave : conteudos.buscarSemReferencias(carencia.toSeconds(), lote)) {
+            try {
+                Boolean removido = transacao.execute(status -> {
+                    if (conteudos.travarSemReferencias(chave, carencia.toSeconds()).isEmpty()) {
+                        return false; // voltou a ser referenciado
+                    }
+                    String prefixo = MinioStorageService.prefixoObjeto(chave);
+                    List<String> remover = new ArrayList<>(List.of(chave));
+                    List<String> falhas;
+                    try {
+                        // o mesmo conteúdo enviado com outro tipo declarado divide os derivados
+                        if (!conteudos.existsByChaveObjetoStartingWithAndChaveObjetoNot(prefixo, chave)) {
+                            remover.addAll(storage.listarChaves(prefixo + "_w"));
+                        }
+                        falhas = storage.deleteTodos(remover);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    if (!falhas.isEmpty()) {
+                        // a linha fica (rollback) e a varredura seguinte apaga de novo
+                        throw new IllegalStateException("Falha ao remover " + falhas);
+                    }
+                    conteudos.deleteById(chave);
+                    return true;
+                });
+                if (Boolean.TRUE.equals(removido)) {
+                    removidos++;
+                }
+            } catch (Exception e) {
+                log.warn("Falha ao remover objeto sem referências {}; nova tentativa na próxima varredura", chave, e);
+            }
+        }
+        if (removidos > 0) {
+            log.info("{} objeto(s) por conteúdo sem referências removido(s) do MinIO", removidos);
+        }
+        return removidos;
+    }
+}
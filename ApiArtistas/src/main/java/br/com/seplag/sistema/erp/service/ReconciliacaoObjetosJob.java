@@ -0,0 +1,131 @@
+package br.com.seplag.sistema.erp.service;
+
+import br.com.seplag.sistema.erp.repository.ObjetoPendenteRepository;
+import br.com.seplag.sistema.storage.MinioStorageService;
+import br.com.seplag.sistema.storage.ObjetoListado;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reconciliação completa entre o bucket e o banco: percorre os prefixos página a página ({@code listObjects})
+ * e apaga, com {@code removeObjects} em lote, os objetos que nenhuma tabela conhece. Cobre o que o diário de
+ * pendentes não vê: imagens levadas pelo CASCADE da exclusão do álbum e compensações que falharam sem
+ * chegar ao diário. Objetos mais novos que a carência ficam (envio direto ainda não confirmado, por exemplo).
+ * O prefixo conteudo/ fica de fora por padrão: objetos por conteúdo saem pelo contador de referências.
+ * O ritmo conta operações no MinIO (uma por página listada, uma por objeto removido) até {@code opsPorSegundo}.
+ */
+@Component
+public class ReconciliacaoObjetosJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliacaoObjetosJob.class);
+
+    private final MinioStorageService storage;
+    private final ObjetoPendenteRepository pendentes;
+    private final List<String> prefixos;
+    private final Duration carencia;
+    private final int lote;
+    private final long nanosPorOp;
+
+    private long proximaOp;
+
+    public ReconciliacaoObjetosJob(
+            MinioStorageService storage,
+            ObjetoPendenteRepository pendentes,
+            @Value("${app.storage.reconciliacao.prefixos:albuns/}") List<String> prefixos,
+            @Value("${app.storage.reconciliacao.carencia:PT24H}") Duration carencia,
+            @Value("${app.storage.reconciliacao.lote:1000}") int lote,
+            @Value("${app.storage.reconciliacao.ops-por-segundo:500}") int opsPorSegundo
+    ) {
+        this.storage = storage;
+        this.pendentes = pendentes;
+        this.prefixos = List.copyOf(prefixos);
+        this.carencia = carencia;
+        this.lote = Math.max(1, lote);
+        this.nanosPorOp = 1_000_000_000L / Math.max(1, opsPorSegundo);
+    }
+
+    @Scheduled(cron = "${app.storage.reconciliacao.cron:0 30 4 * * *}")
+    public int reconciliar() {
+        int removidos = 0;
+        for (String prefixo : prefixos) {
+            try {
+                removidos += reconciliar(prefixo);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return removidos;
+            } catch (Exception e) {
+                log.warn("Reconciliação do prefixo {} interrompida; continua na próxima execução", prefixo, e);
+            }
+        }
+        if (removidos > 0) {
+            log.warn("{} objeto(s) órfão(s) removido(s) do MinIO pela reconciliação", removidos);
+        }
+        return removidos;
+    }
+
+    private int reconciliar(String prefixo) throws Exception {
+        Instant limite = Instant.now().minus(carencia);
+        String apos = null;
+        int removidos = 0;
+
+        while (true) {
+            aguardar(1);
+            List<ObjetoListado> pagina = storage.listarPagina(prefixo, apos, lote);
+            if (pagina.isEmpty()) {
+                return removidos;
+            }
+            apos = pagina.get(pagina.size() - 1).chave();
+
+            List<String> candidatas = pagina.stream()
+                    .filter(o -> o.ultimaModificacao().isBefore(limite))
+                    .map(ObjetoListado::chave)
+                    .toList();
+
+            if (!candidatas.isEmpty()) {
+                // o ritmo é pago antes da consulta, para o diff e a remoção ficarem o mais próximos possível
+                aguardar(candidatas.size());
+                Set<String> referenciadas = new HashSet<>(pendentes.chavesReferenciadas(candidatas));
+                List<String> orfas = candidatas.stream().filter(c -> !referenciadas.contains(c)).toList();
+
+                if (!orfas.isEmpty()) {
+                    try {
+                        List<String> falhas = storage.deleteTodos(orfas);
+                        removidos += orfas.size() - falhas.size();
+                        if (!falhas.isEmpty()) {
+                            // continuam no bucket: a próxima execução as lista e tenta de novo
+                            log.warn("Falha ao remover {} de {} objeto(s) órfão(s), ex.: {}; ficam para a próxima execução",
+                                    falhas.size(), orfas.size(), falhas.get(0));
+                        }
+                    } catch (Exception e) {
+                        log.warn("Falha ao remover {} objeto(s) órfão(s) após {}; ficam para a próxima execução",
+                                orfas.size(), orfas.get(0), e);
+                    }
+                }
+            }
+
+            if (pagina.size() < lote) {
+                return removidos;
+            }
+        }
+    }
+
+    // espaça as operações em nanosPorOp cada; o lote atual só começa quando o anterior "venceu"
+    private void aguardar(int ops) throws InterruptedException {
+        long agora = System.nanoTime();
+        long inicio = Math.max(agora, proximaOp);
+        proximaOp = inicio + ops * nanosPorOp;
+        long esperaNanos = inicio - agora;
+        if (esperaNanos > 0) {
+            Thread.sleep(esperaNanos / 1_000_000, (int) (esperaNanos % 1_000_000));
+        }
+    }
+}
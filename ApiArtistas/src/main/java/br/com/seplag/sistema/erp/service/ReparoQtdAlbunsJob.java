@@ -0,0 +1,34 @@
+package br.com.seplag.sistema.erp.service;
+
+import br.com.seplag.sistema.erp.repository.ArtistaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Corrige divergências de artistas.qtd_albuns (mantido por trigger) em relação a artistas_albuns,
+ * por exemplo após cargas manuais com a trigger desabilitada.
+ */
+@Component
+public class ReparoQtdAlbunsJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ReparoQtdAlbunsJob.class);
+
+    private final ArtistaRepository artistaRepository;
+
+    public ReparoQtdAlbunsJob(ArtistaRepository artistaRepository) {
+        this.artistaRepository = artistaRepository;
+    }
+
+    @Scheduled(cron = "${app.artistas.reparo-qtd-albuns.cron:0 30 3 * * *}")
+    @Transactional
+    public int reparar() {
+        int corrigidos = artistaRepository.repararQtdAlbuns();
+        if (corrigidos > 0) {
+            log.warn("qtd_albuns divergente corrigido em {} artista(s)", corrigidos);
+        }
+        return corrigidos;
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.seplag.sistema.erp.service;
+
+import br.com.seplag.sistema.erp.repository.TokenRevogadoRepository;
+import br.com.seplag.sistema.security.ListaNegraTokens;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Copia para a lista negra local as revogações de access token gravadas por qualquer nó. A consulta pega só
+ * linhas com revogado_em depois da última lida (índice em revogado_em), recuando uma janela: revogado_em é o
+ * início da transação que gravou, e um commit lento pode aparecer com horário anterior ao já lido. Reler uma
+ * revogação não custa nada ({@link ListaNegraTokens#adicionar} ignora repetidas). A primeira rodada carrega
+ * todas as ainda válidas.
+ */
+@Component
+public class SincronizacaoRevogacoesJob {
+
+    private static final Logger log = LoggerFactory.getLogger(SincronizacaoRevogacoesJob.class);
+
+    private final TokenRevogadoRepository repo;
+    private final ListaNegraTokens listaNegra;
+    private final Duration janela;
+    private volatile long ultimaLidaMillis;
+
+    public SincronizacaoRevogacoesJob(
+            TokenRevogadoRepository repo,
+            ListaNegraTokens listaNegra,
+            @Value("${jwt.revogacao.janela:PT30S}") Duration janela
+    ) {
+        this.repo = repo;
+        this.listaNegra = listaNegra;
+        this.janela = janela;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revogacao.intervalo-ms:2000}")
+    public int sincronizar() {
+        long desde = ultimaLidaMillis == 0 ? 0 : ultimaLidaMillis - janela.toMillis();
+        long maisRecente = ultimaLidaMillis;
+        long agora = System.currentTimeMillis();
+        int lidas = 0;
+
+        for (TokenRevogadoRepository.Revogacao r : repo.ativasDesde(desde)) {
+            listaNegra.adicionar(r.getJti(), agora + r.getRestanteMillis());
+            maisRecente = Math.max(maisRecente, r.getRevogadoEmMillis());
+            lidas++;
+        }
+        ultimaLidaMillis = maisRecente;
+        listaNegra.recompor();
+        return lidas;
+    }
+
+    @Scheduled(cron = "${jwt.revogacao.limpeza-cron:0 17 * * * *}")
+    public void removerExpiradas() {
+        int removidas = repo.removerExpiradas();
+        if (removidas > 0) {
+            log.info("{} revogação(ões) de access token expirada(s) removida(s)", removidas);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package br.com.seplag.sistema.erp.service;
+
+import br.com.seplag.sistema.erp.model.dto.VersaoRecursoDto;
+import br.com.seplag.sistema.erp.repository.VersaoRepository;
+import br.com.seplag.sistema.exception.RecursoNaoEncontradoException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * ETag/Last-Modified de álbuns e artistas. Por recurso a versão é COALESCE(atualizado_em, criado_em);
+ * nas listagens é o contador da coleção em versoes_colecoes, que muda a cada escrita que afeta a página.
+ */
+@Service
+public class VersaoService {
+
+    private final VersaoRepository versaoRepository;
+
+    public VersaoService(VersaoRepository versaoRepository) {
+        this.versaoRepository = versaoRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public VersaoRecursoDto album(Long id) {
+        LocalDateTime alteracao = versaoRepository.ultimaAlteracaoAlbum(id)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Álbum não encontrado: " + id));
+        return porRecurso("album", id, alteracao);
+    }
+
+    @Transactional(readOnly = true)
+    public VersaoRecursoDto artista(Long id) {
+        LocalDateTime alteracao = versaoRepository.ultimaAlteracaoArtista(id)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Artista não encontrado: " + id));
+        return porRecurso("artista", id, alteracao);
+    }
+
+    @Transactional(readOnly = true)
+    public VersaoRecursoDto albuns() {
+        return colecao("albuns");
+    }
+
+    @Transactional(readOnly = true)
+    public VersaoRecursoDto artistas() {
+        return colecao("artistas");
+    }
+
+    private VersaoRecursoDto colecao(String nome) {
+        VersaoRepository.VersaoColecao v = versaoRepository.colecao(nome)
+                .orElseThrow(() -> new IllegalStateException("Versão da coleção ausente: " + nome));
+        return new VersaoRecursoDto(nome + "-v" + v.versao(), instante(v.atualizadoEm()));
+    }
+
+    private static VersaoRecursoDto porRecurso(String tipo, Long id, LocalDateTime alteracao) {
+        Instant instante = instante(alteracao);
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, instante);
+        return new VersaoRecursoDto(tipo + "-" + id + "-" + micros, instante);
+    }
+
+    // colunas TIMESTAMP sem fuso, gravadas no fuso da aplicação
+    private static Instant instante(LocalDateTime valor) {
+        return valor.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
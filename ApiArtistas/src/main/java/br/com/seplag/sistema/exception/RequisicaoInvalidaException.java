@@ -0,0 +1,7 @@
+package br.com.seplag.sistema.exception;
+
+public class RequisicaoInvalidaException extends RuntimeException {
+    public RequisicaoInvalidaException(String mensagem) {
+        super(mensagem);
+    }
+}
@@ -0,0 +1,7 @@
+package br.com.seplag.sistema.exception;
+
+public class ServicoSobrecarregadoException extends RuntimeException {
+    public ServicoSobrecarregadoException(String mensagem) {
+        super(mensagem);
+    }
+}
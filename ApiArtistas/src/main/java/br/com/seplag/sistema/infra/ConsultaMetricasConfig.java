@@ -0,0 +1,74 @@
+package br.com.seplag.sistema.infra;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import javax.sql.DataSource;
+
+/**
+ * Instrumentação de consultas via datasource-proxy (substitui spring.jpa.show-sql):
+ * timers por método de repositório, statements por requisição e log de consultas lentas.
+ * Os post-processors são estáticos e leem a configuração pelo Binder para não antecipar
+ * a criação de outros beans.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.db.consultas", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConsultaMetricasConfig {
+
+    private static ConsultasProperties propriedades(Environment env) {
+        return Binder.get(env)
+                .bind("app.db.consultas", ConsultasProperties.class)
+                .orElseGet(() -> new ConsultasProperties(true, null, null, null));
+    }
+
+    /**
+     * Envolve o DataSource principal ("dataSource", com ou sem o roteamento de réplicas).
+     */
+    @Bean
+    public static BeanPostProcessor consultaDataSourcePostProcessor(Environment env, ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource ds && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(ds)
+                            .name(beanName)
+                            .listener(new ConsultaMetricasListener(registry, propriedades(env)))
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Adiciona o interceptor de métricas ao proxy de todos os repositórios Spring Data.
+     */
+    @Bean
+    public static BeanPostProcessor repositorioMetricasPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxy, info) -> proxy.addAdvice(new RepositorioMetricasInterceptor(
+                                    info.getRepositoryInterface().getSimpleName(), registry))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public StatementsPorRequisicaoFilter statementsPorRequisicaoFilter(Environment env, ObjectProvider<MeterRegistry> registry) {
+        return new StatementsPorRequisicaoFilter(registry, propriedades(env).alertaStatementsPorRequisicaoOrDefault());
+    }
+}
@@ -0,0 +1,101 @@
+package br.com.seplag.sistema.infra;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recebe cada execução JDBC do datasource-proxy: registra o timer "db.consulta" por método de
+ * repositório e operação, conta o statement na requisição atual e loga só as consultas lentas
+ * (mais uma amostra das demais). Valores de bind nunca vão para o log, só a quantidade.
+ */
+public class ConsultaMetricasListener implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsultaMetricasListener.class);
+
+    private final ObjectProvider<MeterRegistry> registry;
+    private final long limiarLentaMs;
+    private final double taxaAmostragem;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public ConsultaMetricasListener(ObjectProvider<MeterRegistry> registry, ConsultasProperties props) {
+        this.registry = registry;
+        this.limiarLentaMs = props.limiarLentaMsOrDefault();
+        this.taxaAmostragem = props.taxaAmostragemOrDefault();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        ContextoConsulta.contarStatement();
+
+        String metodo = ContextoConsulta.metodoAtual();
+        String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+        String operacao = operacao(sql);
+        long ms = execInfo.getElapsedTime();
+
+        Timer timer = timer(metodo, operacao);
+        if (timer != null) {
+            timer.record(ms, TimeUnit.MILLISECONDS);
+        }
+
+        if (ms >= limiarLentaMs) {
+            log.warn("Consulta lenta ({} ms) em {}: {} [binds omitidos: {}]",
+                    ms, metodo, compactar(sql), qtdBinds(queryInfoList));
+        } else if (taxaAmostragem > 0 && ThreadLocalRandom.current().nextDouble() < taxaAmostragem) {
+            log.info("Consulta ({} ms) em {}: {} [binds omitidos: {}]",
+                    ms, metodo, compactar(sql), qtdBinds(queryInfoList));
+        }
+    }
+
+    private Timer timer(String metodo, String operacao) {
+        MeterRegistry r = registry.getIfAvailable();
+        if (r == null) {
+            return null;
+        }
+        return timers.computeIfAbsent(metodo + '|' + operacao, k -> Timer.builder("db.consulta")
+                .tag("consulta", metodo)
+                .tag("operacao", operacao)
+                .register(r));
+    }
+
+    static String operacao(String sql) {
+        String s = sql.stripLeading();
+        int fim = 0;
+        while (fim < s.length() && Character.isLetter(s.charAt(fim))) fim++;
+        String palavra = s.substring(0, fim).toUpperCase(Locale.ROOT);
+        return switch (palavra) {
+            case "SELECT", "WITH" -> "SELECT";
+            case "INSERT", "UPDATE", "DELETE" -> palavra;
+            default -> "OUTRO";
+        };
+    }
+
+    private static String compactar(String sql) {
+        return sql.replaceAll("\\s+", " ").trim();
+    }
+
+    private static int qtdBinds(List<QueryInfo> queryInfoList) {
+        if (queryInfoList.isEmpty()) {
+            return 0;
+        }
+        // num batch conta só o primeiro conjunto de parâmetros
+        var params = queryInfoList.get(0).getParametersList();
+        return params.isEmpty() ? 0 : params.get(0).size();
+    }
+}
@@ -0,0 +1,15 @@
+package br.com.seplag.sistema.infra;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.db.consultas")
+public record ConsultasProperties(
+        Boolean enabled,
+        Long limiarLentaMs,
+        Double taxaAmostragem,
+        Integer alertaStatementsPorRequisicao
+) {
+    public long limiarLentaMsOrDefault() { return limiarLentaMs == null ? 500 : limiarLentaMs; }
+    public double taxaAmostragemOrDefault() { return taxaAmostragem == null ? 0.0 : Math.max(0.0, Math.min(1.0, taxaAmostragem)); }
+    public int alertaStatementsPorRequisicaoOrDefault() { return alertaStatementsPorRequisicao == null ? 50 : alertaStatementsPorRequisicao; }
+}
@@ -0,0 +1,52 @@
+package br.com.seplag.sistema.infra;
+
+/**
+ * Estado por thread usado pela instrumentação de consultas: o método de repositório em execução
+ * (o mais externo, quando um chama outro) e o contador de statements da requisição HTTP atual.
+ */
+final class ContextoConsulta {
+
+    static final String SEM_REPOSITORIO = "sem-repositorio";
+
+    private static final ThreadLocal<String> METODO = new ThreadLocal<>();
+    private static final ThreadLocal<int[]> STATEMENTS = new ThreadLocal<>();
+
+    private ContextoConsulta() {}
+
+    /**
+     * @return true se este é o método mais externo (quem entrou deve chamar {@link #sair()})
+     */
+    static boolean entrar(String metodo) {
+        if (METODO.get() != null) {
+            return false;
+        }
+        METODO.set(metodo);
+        return true;
+    }
+
+    static void sair() {
+        METODO.remove();
+    }
+
+    static String metodoAtual() {
+        String m = METODO.get();
+        return m == null ? SEM_REPOSITORIO : m;
+    }
+
+    static void iniciarRequisicao() {
+        STATEMENTS.set(new int[1]);
+    }
+
+    static int encerrarRequisicao() {
+        int[] c = STATEMENTS.get();
+        STATEMENTS.remove();
+        return c == null ? 0 : c[0];
+    }
+
+    static void contarStatement() {
+        int[] c = STATEMENTS.get();
+        if (c != null) {
+            c[0]++;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package br.com.seplag.sistema.infra;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-your-writes: depois que um usuário abre uma transação de escrita, as leituras dele
+ * vão para o primário durante a janela configurada, para não enxergar uma réplica atrasada.
+ * O registro é local à instância.
+ */
+public class LeituraAposEscritaGuard {
+
+    private static final int MAX_USUARIOS = 10_000;
+
+    private final long janelaNanos;
+    private final Map<String, Long> ultimaEscrita = new ConcurrentHashMap<>();
+
+    public LeituraAposEscritaGuard(Duration janela) {
+        this.janelaNanos = janela.toNanos();
+    }
+
+    public void registrarEscrita() {
+        String usuario = usuarioAtual();
+        if (usuario == null || janelaNanos <= 0) {
+            return;
+        }
+        long agora = System.nanoTime();
+        ultimaEscrita.put(usuario, agora);
+
+        if (ultimaEscrita.size() > MAX_USUARIOS) {
+            ultimaEscrita.values().removeIf(t -> agora - t > janelaNanos);
+        }
+    }
+
+    public boolean exigePrimario() {
+        String usuario = usuarioAtual();
+        if (usuario == null) {
+            return false;
+        }
+        Long escrita = ultimaEscrita.get(usuario);
+        if (escrita == null) {
+            return false;
+        }
+        if (System.nanoTime() - escrita > janelaNanos) {
+            ultimaEscrita.remove(usuario, escrita);
+            return false;
+        }
+        return true;
+    }
+
+    private static String usuarioAtual() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return auth.getName();
+    }
+}
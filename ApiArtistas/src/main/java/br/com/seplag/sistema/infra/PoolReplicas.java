@@ -0,0 +1,107 @@
+package br.com.seplag.sistema.infra;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Réplicas de leitura em round-robin. Uma réplica que falha ao entregar conexão, não responde
+ * à verificação periódica ou está atrasada além do limite sai do rodízio até a próxima verificação ok.
+ */
+public class PoolReplicas implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PoolReplicas.class);
+
+    // 0 quando a réplica já aplicou tudo o que recebeu (evita falso atraso com o primário ocioso)
+    private static final String SQL_ATRASO = """
+            SELECT CASE
+                     WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                     ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END""";
+
+    private final List<Replica> replicas;
+    private final long atrasoMaximoSegundos;
+    private final AtomicInteger proxima = new AtomicInteger();
+
+    public PoolReplicas(List<Replica> replicas, long atrasoMaximoSegundos) {
+        this.replicas = List.copyOf(replicas);
+        this.atrasoMaximoSegundos = atrasoMaximoSegundos;
+    }
+
+    /**
+     * Próxima réplica saudável no rodízio, ou null se nenhuma estiver disponível.
+     */
+    public Replica proxima() {
+        int n = replicas.size();
+        for (int i = 0; i < n; i++) {
+            Replica r = replicas.get(Math.floorMod(proxima.getAndIncrement(), n));
+            if (r.saudavel) {
+                return r;
+            }
+        }
+        return null;
+    }
+
+    public void ejetar(Replica replica, Exception causa) {
+        if (replica.saudavel) {
+            replica.saudavel = false;
+            log.warn("Réplica {} removida do rodízio: {}", replica.nome, causa.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.verificacao-ms:5000}")
+    public void verificar() {
+        for (Replica r : replicas) {
+            try (Connection c = r.dataSource.getConnection(); Statement st = c.createStatement()) {
+                st.setQueryTimeout(2);
+                try (ResultSet rs = st.executeQuery(SQL_ATRASO)) {
+                    rs.next();
+                    double atraso = rs.getDouble(1);
+                    if (atraso > atrasoMaximoSegundos) {
+                        ejetar(r, new SQLException("atraso de replicação de " + (long) atraso + "s"));
+                        continue;
+                    }
+                }
+                if (!r.saudavel) {
+                    r.saudavel = true;
+                    log.info("Réplica {} de volta ao rodízio", r.nome);
+                }
+            } catch (SQLException e) {
+                ejetar(r, e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica r : replicas) {
+            if (r.dataSource instanceof AutoCloseable c) {
+                c.close();
+            }
+        }
+    }
+
+    public static final class Replica {
+
+        private final String nome;
+        private final DataSource dataSource;
+        private volatile boolean saudavel = true;
+
+        public Replica(String nome, DataSource dataSource) {
+            this.nome = nome;
+            this.dataSource = dataSource;
+        }
+
+        public String nome() { return nome; }
+        public DataSource dataSource() { return dataSource; }
+        public boolean saudavel() { return saudavel; }
+    }
+}
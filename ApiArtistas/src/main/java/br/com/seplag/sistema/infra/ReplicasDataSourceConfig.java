@@ -0,0 +1,83 @@
+package br.com.seplag.sistema.infra;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Liga o roteamento primário/réplicas quando app.datasource.replicas.enabled=true.
+ * Desligado, o DataSource continua sendo o auto-configurado pelo Spring Boot.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicasProperties.class)
+@ConditionalOnProperty(prefix = "app.datasource.replicas", name = "enabled", havingValue = "true")
+public class ReplicasDataSourceConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicasDataSourceConfig.class);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties props) {
+        return props.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public PoolReplicas poolReplicas(DataSourceProperties props, ReplicasProperties replicas) {
+        List<String> urls = replicas.urlsOrEmpty();
+        if (urls.isEmpty()) {
+            log.warn("app.datasource.replicas.enabled=true sem URLs: todas as leituras irão para o primário");
+        }
+
+        List<PoolReplicas.Replica> lista = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource ds = new HikariDataSource();
+            ds.setPoolName("replica-" + i);
+            ds.setJdbcUrl(urls.get(i));
+            ds.setUsername(props.determineUsername());
+            ds.setPassword(props.determinePassword());
+            ds.setDriverClassName(props.determineDriverClassName());
+            ds.setMaximumPoolSize(replicas.poolSizeOrDefault());
+            ds.setReadOnly(true);
+            // falha rápido para a leitura cair na próxima réplica, e não derruba o boot se estiver fora
+            ds.setConnectionTimeout(2_000);
+            ds.setInitializationFailTimeout(-1);
+            lista.add(new PoolReplicas.Replica("replica-" + i, ds));
+        }
+        return new PoolReplicas(lista, replicas.atrasoMaximoSegundosOrDefault());
+    }
+
+    @Bean
+    public LeituraAposEscritaGuard leituraAposEscritaGuard(ReplicasProperties replicas) {
+        return new LeituraAposEscritaGuard(Duration.ofSeconds(replicas.leituraAposEscritaSegundosOrDefault()));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primarioDataSource") DataSource primario,
+            PoolReplicas poolReplicas,
+            LeituraAposEscritaGuard leituraAposEscrita
+    ) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(
+                new RoteamentoDataSource(primario, poolReplicas, leituraAposEscrita));
+        // evita buscar uma conexão só para descobrir os padrões
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return proxy;
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.seplag.sistema.infra;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app.datasource.replicas")
+public record ReplicasProperties(
+        boolean enabled,
+        List<String> urls,
+        Integer poolSize,
+        Integer atrasoMaximoSegundos,
+        Integer leituraAposEscritaSegundos
+) {
+    public List<String> urlsOrEmpty() {
+        return urls == null ? List.of() : urls.stream().filter(u -> !u.isBlank()).toList();
+    }
+    public int poolSizeOrDefault() { return poolSize == null ? 10 : poolSize; }
+    public int atrasoMaximoSegundosOrDefault() { return atrasoMaximoSegundos == null ? 10 : atrasoMaximoSegundos; }
+    public int leituraAposEscritaSegundosOrDefault() { return leituraAposEscritaSegundos == null ? 5 : leituraAposEscritaSegundos; }
+}
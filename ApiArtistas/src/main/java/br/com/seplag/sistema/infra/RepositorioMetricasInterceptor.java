@@ -0,0 +1,60 @@
+package br.com.seplag.sistema.infra;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adicionado ao proxy de cada repositório Spring Data: cronometra o método (timer "db.repositorio")
+ * e o publica em {@link ContextoConsulta} para os statements JDBC serem atribuídos a ele.
+ * O nome e o timer de cada método são montados uma vez, como em {@link ConsultaMetricasListener}.
+ */
+class RepositorioMetricasInterceptor implements MethodInterceptor {
+
+    private final String repositorio;
+    private final ObjectProvider<MeterRegistry> registry;
+    private final Map<Method, String> nomes = new ConcurrentHashMap<>();
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    RepositorioMetricasInterceptor(String repositorio, ObjectProvider<MeterRegistry> registry) {
+        this.repositorio = repositorio;
+        this.registry = registry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method metodo = invocation.getMethod();
+        if (!ContextoConsulta.entrar(nomes.computeIfAbsent(metodo, m -> repositorio + "." + m.getName()))) {
+            return invocation.proceed();
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            ContextoConsulta.sair();
+            Timer timer = timer(metodo);
+            if (timer != null) {
+                timer.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private Timer timer(Method metodo) {
+        MeterRegistry r = registry.getIfAvailable();
+        if (r == null) {
+            return null;
+        }
+        return timers.computeIfAbsent(metodo, m -> Timer.builder("db.repositorio")
+                .tag("repositorio", repositorio)
+                .tag("metodo", m.getName())
+                .register(r));
+    }
+}
@@ -0,0 +1,58 @@
+package br.com.seplag.sistema.infra;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Entrega conexões de réplica para transações readOnly e do primário para o resto
+ * (escritas, código fora de transação, Flyway). Deve ficar atrás de um
+ * LazyConnectionDataSourceProxy: assim a conexão física só é pedida no primeiro statement,
+ * quando o flag readOnly da transação já está publicado no TransactionSynchronizationManager.
+ */
+public class RoteamentoDataSource extends AbstractDataSource {
+
+    private final DataSource primario;
+    private final PoolReplicas replicas;
+    private final LeituraAposEscritaGuard leituraAposEscrita;
+
+    public RoteamentoDataSource(DataSource primario, PoolReplicas replicas, LeituraAposEscritaGuard leituraAposEscrita) {
+        this.primario = primario;
+        this.replicas = replicas;
+        this.leituraAposEscrita = leituraAposEscrita;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return primario.getConnection();
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            leituraAposEscrita.registrarEscrita();
+            return primario.getConnection();
+        }
+        if (leituraAposEscrita.exigePrimario()) {
+            return primario.getConnection();
+        }
+
+        // réplica que falha sai do rodízio e a leitura tenta a próxima; sem nenhuma, cai no primário
+        PoolReplicas.Replica replica = replicas.proxima();
+        while (replica != null) {
+            try {
+                return replica.dataSource().getConnection();
+            } catch (SQLException e) {
+                replicas.ejetar(replica, e);
+                replica = replicas.proxima();
+            }
+        }
+        return primario.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primario.getConnection(username, password);
+    }
+}
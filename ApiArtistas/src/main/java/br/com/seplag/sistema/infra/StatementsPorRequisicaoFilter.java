@@ -0,0 +1,78 @@
+package br.com.seplag.sistema.infra;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conta os statements JDBC executados na thread de cada requisição e publica a distribuição
+ * "http.server.requests.statements" por método e rota; acima do limite de alerta também loga.
+ * A rota é o padrão do mapeamento (não a URI crua), então há um summary por endpoint, montado uma vez.
+ */
+public class StatementsPorRequisicaoFilter extends OncePerRequestFilter implements Ordered {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementsPorRequisicaoFilter.class);
+
+    private final ObjectProvider<MeterRegistry> registry;
+    private final int alerta;
+    private final Map<Rota, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public StatementsPorRequisicaoFilter(ObjectProvider<MeterRegistry> registry, int alerta) {
+        this.registry = registry;
+        this.alerta = alerta;
+    }
+
+    // antes da cadeia do Spring Security, para contar também o que os filtros de autenticação executam
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContextoConsulta.iniciarRequisicao();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int statements = ContextoConsulta.encerrarRequisicao();
+            Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = padrao == null ? "UNKNOWN" : padrao.toString();
+
+            DistributionSummary summary = summary(new Rota(request.getMethod(), uri));
+            if (summary != null) {
+                summary.record(statements);
+            }
+            if (statements > alerta) {
+                log.warn("{} {} executou {} statements", request.getMethod(), uri, statements);
+            }
+        }
+    }
+
+    private DistributionSummary summary(Rota rota) {
+        MeterRegistry r = registry.getIfAvailable();
+        if (r == null) {
+            return null;
+        }
+        return summaries.computeIfAbsent(rota, k -> DistributionSummary.builder("http.server.requests.statements")
+                .tag("method", k.metodo())
+                .tag("uri", k.uri())
+                .register(r));
+    }
+
+    private record Rota(String metodo, String uri) {
+    }
+}
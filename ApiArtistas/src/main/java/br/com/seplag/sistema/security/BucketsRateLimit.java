@@ -0,0 +1,56 @@
+package br.com.seplag.sistema.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.distributed.BucketProxy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Buckets do rate limit por usuário num cache limitado: sai o menos usado quando passa de {@code maxChaves}
+ * e o que fica sem requisição por {@code ociosidade}. A ociosidade nunca é menor que o período de recarga,
+ * então um bucket só sai já cheio e recriá-lo não devolve tokens a ninguém.
+ * Quem cria o bucket decide onde fica o estado: só na memória deste nó ou num proxy do bucket4j para o Postgres
+ * (ver {@link RateLimitConfig}); nesse caso, ao sair do cache, os tokens ainda não sincronizados são enviados.
+ */
+public class BucketsRateLimit {
+
+    private static final Logger log = LoggerFactory.getLogger(BucketsRateLimit.class);
+
+    private final Cache<String, Bucket> buckets;
+    private final Function<String, Bucket> criador;
+
+    public BucketsRateLimit(long maxChaves, Duration ociosidade, Function<String, Bucket> criador) {
+        this.criador = criador;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, maxChaves))
+                .expireAfterAccess(ociosidade)
+                .removalListener(BucketsRateLimit::sincronizarAoSair)
+                .build();
+    }
+
+    public Bucket bucket(String chave) {
+        return buckets.get(chave, criador);
+    }
+
+    // aplica as remoções pendentes antes de contar (a do Caffeine é feita aos poucos, nas operações)
+    public long tamanho() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+
+    private static void sincronizarAoSair(String chave, Bucket bucket, RemovalCause causa) {
+        if (bucket instanceof BucketProxy proxy) {
+            try {
+                proxy.getOptimizationController().syncImmediately();
+            } catch (Exception e) {
+                log.debug("Falha ao sincronizar o bucket de {} ao sair do cache", chave, e);
+            }
+        }
+    }
+}
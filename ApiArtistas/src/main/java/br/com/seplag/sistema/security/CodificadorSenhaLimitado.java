@@ -0,0 +1,96 @@
+package br.com.seplag.sistema.security;
+
+import br.com.seplag.sistema.exception.ServicoSobrecarregadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Roda o BCrypt (ou outro codificador lento) num pool próprio de poucas threads com fila limitada, em vez de na
+ * thread do Tomcat: uma rajada de logins ocupa no máximo {@code threads} núcleos e o resto da API segue
+ * respondendo. A thread da requisição espera o resultado; com a fila cheia a tarefa é recusada na hora com
+ * {@link ServicoSobrecarregadoException} (503), sem esperar vaga.
+ * {@code upgradeEncoding} vai direto ao delegado: é o que faz o login regravar hashes de custo antigo.
+ */
+public class CodificadorSenhaLimitado implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegado;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer codificar;
+    private final Timer comparar;
+    private final Counter recusadas;
+
+    public CodificadorSenhaLimitado(PasswordEncoder delegado, int threads, int fila, MeterRegistry registry) {
+        this.delegado = delegado;
+        int n = Math.max(1, threads);
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, fila)), r -> {
+            Thread t = new Thread(r, "hash-senha-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.codificar = Timer.builder("senha.hash.duracao").tag("operacao", "codificar").register(registry);
+        this.comparar = Timer.builder("senha.hash.duracao").tag("operacao", "comparar").register(registry);
+        this.recusadas = Counter.builder("senha.hash.recusadas").register(registry);
+        Gauge.builder("senha.hash.fila", executor, e -> e.getQueue().size()).register(registry);
+        Gauge.builder("senha.hash.ativos", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence senha) {
+        return executar(codificar, () -> delegado.encode(senha));
+    }
+
+    @Override
+    public boolean matches(CharSequence senha, String hash) {
+        return executar(comparar, () -> delegado.matches(senha, hash));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String hash) {
+        return delegado.upgradeEncoding(hash);
+    }
+
+    private <T> T executar(Timer timer, Callable<T> tarefa) {
+        Future<T> futuro;
+        try {
+            // só o tempo do hash; a espera na fila aparece em senha.hash.fila
+            futuro = executor.submit(() -> timer.recordCallable(tarefa));
+        } catch (RejectedExecutionException e) {
+            recusadas.increment();
+            throw new ServicoSobrecarregadoException("Muitas autenticações simultâneas; tente novamente em instantes");
+        }
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando o hash da senha", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException r) {
+                throw r;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -1,15 +1,12 @@
 package br.com.seplag.sistema.security;
 
-import io.jsonwebtoken.Claims;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import jakarta.servlet.*;
 import jakarta.servlet.http.*;
 import java.io.IOException;
-import java.util.List;
 
 public class JwtAuthFilter extends OncePerRequestFilter {
 
@@ -31,12 +28,12 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         String token = auth.substring(7);
         try {
-            Claims claims = jwtService.validar(token).getBody();
-            String papel = (String) claims.get("papel");
+            // verificação em cache até o exp do token (ver JwtService#autenticar)
+            JwtService.TokenValidado validado = jwtService.autenticar(token);
 
             var authToken = new UsernamePasswordAuthenticationToken(
-                    claims.getSubject(), null,
-                    List.of(new SimpleGrantedAuthority("ROLE_" + papel))
+                    validado.usuario(), null,
+                    validado.autoridades()
             );
             SecurityContextHolder.getContext().setAuthentication(authToken);
         } catch (Exception ignored) {
@@ -8,10 +8,12 @@ public record JwtProperties(
         String issuer,
         Integer accessMinutes,
         Integer refreshDays,
-        String loginField
+        String loginField,
+        Long cacheMaxEntradas
 ) {
     public int accessMinutesOrDefault() { return accessMinutes == null ? 5 : accessMinutes; }
     public int refreshDaysOrDefault() { return refreshDays == null ? 7 : refreshDays; }
     public String issuerOrDefault() { return (issuer == null || issuer.isBlank()) ? "api" : issuer; }
+    public long cacheMaxEntradasOrDefault() { return cacheMaxEntradas == null ? 10_000 : cacheMaxEntradas; }
     public String loginFieldOrDefault() { return (loginField == null || loginField.isBlank()) ? "email" : loginField; }
 }
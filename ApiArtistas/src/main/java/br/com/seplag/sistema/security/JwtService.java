@@ -1,52 +1,160 @@
 package br.com.seplag.sistema.security;
 
-
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
-import java.nio.charset.StandardCharsets;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import br.com.seplag.sistema.erp.model.Usuario;
 
+/**
+ * Chave HMAC e parser são montados uma vez (o parser do jjwt é imutável e thread-safe).
+ * {@link #autenticar} guarda o resultado de cada token verificado num cache limitado, com a chave sendo o
+ * SHA-256 do token (o token em si não fica no heap), até o {@code exp} dele: as requisições seguintes com o
+ * mesmo token pagam um hash e uma consulta ao cache, sem decodificar Base64/JSON nem conferir a assinatura.
+ * Todo access token leva um {@code jti}; a lista de revogados é consultada a cada chamada, inclusive com o
+ * token já em cache, para que o logout valha na hora.
+ */
 public class JwtService {
 
     private final JwtProperties props;
-    private final byte[] keyBytes;
+    private final SecretKey chave;
+    private final JwtParser parser;
+    private final Cache<ChaveToken, TokenValidado> validados;
+    private final ListaNegraTokens revogados;
 
-    public JwtService(JwtProperties props) {
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    public JwtService(JwtProperties props, ListaNegraTokens revogados) {
         this.props = props;
-        this.keyBytes = props.secret().getBytes(StandardCharsets.UTF_8);
+        this.revogados = revogados;
+        byte[] keyBytes = props.secret().getBytes(StandardCharsets.UTF_8);
         if (keyBytes.length < 32) {
             throw new IllegalArgumentException("JWT_SECRET deve ter pelo menos 32 caracteres");
         }
+        this.chave = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parserBuilder()
+                .requireIssuer(props.issuerOrDefault())
+                .setSigningKey(chave)
+                .build();
+        this.validados = Caffeine.newBuilder()
+                .maximumSize(props.cacheMaxEntradasOrDefault())
+                .expireAfter(new ValidadeToken())
+                .build();
     }
 
+    /**
+     * O que o filtro precisa de um token já verificado; {@code autoridades} é montada uma vez por token.
+     * {@code jti} é null em tokens emitidos antes dele existir.
+     */
+    public record TokenValidado(UUID jti, String usuario, String papel, List<SimpleGrantedAuthority> autoridades,
+                                long expiraEmMillis) {}
+
     public String gerarAccessToken(Usuario usuario) {
         Instant now = Instant.now();
         Instant exp = now.plus(props.accessMinutesOrDefault(), ChronoUnit.MINUTES);
 
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setIssuer(props.issuerOrDefault())
                 .setSubject(String.valueOf(usuario.getId()))
                 .claim("papel", usuario.getPapel())
                 .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(exp))
-                .signWith(Keys.hmacShaKeyFor(keyBytes), SignatureAlgorithm.HS256)
+                .signWith(chave, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public Jws<Claims> validar(String token) {
-        return Jwts.parserBuilder()
-                .requireIssuer(props.issuerOrDefault())
-                .setSigningKey(Keys.hmacShaKeyFor(keyBytes))
-                .build()
-                .parseClaimsJws(token);
+        return parser.parseClaimsJws(token);
+    }
+
+    /**
+     * Mesma verificação de {@link #validar}, com o resultado em cache até o {@code exp} do token.
+     * Token inválido não entra no cache e lança a exceção do jjwt; token revogado lança {@link JwtException}.
+     */
+    public TokenValidado autenticar(String token) {
+        ChaveToken chaveToken = ChaveToken.de(token);
+        TokenValidado cacheado = validados.getIfPresent(chaveToken);
+        if (cacheado != null) {
+            return naoRevogado(cacheado);
+        }
+
+        Claims claims = validar(token).getBody();
+        String papel = claims.get("papel", String.class);
+        Date exp = claims.getExpiration();
+        TokenValidado validado = new TokenValidado(
+                claims.getId() == null ? null : UUID.fromString(claims.getId()),
+                claims.getSubject(),
+                papel,
+                List.of(new SimpleGrantedAuthority("ROLE_" + papel)),
+                exp == null ? 0 : exp.getTime()
+        );
+        // sem exp não há até quando guardar
+        if (exp != null) {
+            validados.put(chaveToken, validado);
+        }
+        return naoRevogado(validado);
+    }
+
+    private TokenValidado naoRevogado(TokenValidado validado) {
+        if (revogados.revogado(validado.jti())) {
+            throw new JwtException("Token revogado");
+        }
+        return validado;
     }
 
     public Long getUsuarioId(String token) {
-        return Long.valueOf(validar(token).getBody().getSubject());
+        return Long.valueOf(autenticar(token).usuario());
+    }
+
+    // SHA-256 do token em quatro longs: chave de tamanho fixo, sem array nem String
+    private record ChaveToken(long a, long b, long c, long d) {
+
+        static ChaveToken de(String token) {
+            MessageDigest digest = SHA256.get();
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new ChaveToken(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+        }
+    }
+
+    // cada entrada vive até o exp do próprio token
+    private static final class ValidadeToken implements Expiry<ChaveToken, TokenValidado> {
+
+        @Override
+        public long expireAfterCreate(ChaveToken chave, TokenValidado token, long agora) {
+            long restanteMillis = token.expiraEmMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, restanteMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(ChaveToken chave, TokenValidado token, long agora, long restante) {
+            return expireAfterCreate(chave, token, agora);
+        }
+
+        @Override
+        public long expireAfterRead(ChaveToken chave, TokenValidado token, long agora, long restante) {
+            return restante;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,96 @@
+package br.com.seplag.sistema.security;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Access tokens revogados (pelo jti) ainda dentro da validade. Na frente fica um filtro de Bloom em bits
+ * (4 funções por dupla dispersão sobre os 128 bits do UUID): o caso comum, token não revogado, termina com
+ * até quatro leituras de long, sem lock nem alocação. Só quando os quatro bits estão ligados o conjunto exato
+ * é consultado, o que também elimina os falsos positivos. Revogações expiradas saem em {@link #recompor},
+ * que monta um filtro novo só com as restantes e troca a referência (o Bloom não aceita remoção de bit).
+ */
+public class ListaNegraTokens {
+
+    private static final int FUNCOES = 4;
+
+    private final int mascara;
+    private final Map<UUID, Long> revogados = new ConcurrentHashMap<>();
+    private volatile AtomicLongArray bloom;
+
+    /**
+     * @param bits tamanho do filtro, arredondado para a potência de dois seguinte (mínimo 64)
+     */
+    public ListaNegraTokens(int bits) {
+        int tamanho = Math.max(64, Integer.highestOneBit(Math.max(1, bits - 1)) << 1);
+        this.mascara = tamanho - 1;
+        this.bloom = new AtomicLongArray(tamanho / 64);
+    }
+
+    public boolean revogado(UUID jti) {
+        if (jti == null) {
+            return false;
+        }
+        AtomicLongArray bits = bloom;
+        long h = espalhar(jti);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        for (int i = 0; i < FUNCOES; i++) {
+            int bit = (h1 + i * h2) & mascara;
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return revogados.containsKey(jti);
+    }
+
+    public synchronized void adicionar(UUID jti, long expiraEmMillis) {
+        if (expiraEmMillis <= System.currentTimeMillis() || revogados.putIfAbsent(jti, expiraEmMillis) != null) {
+            return;
+        }
+        marcar(bloom, jti);
+    }
+
+    /**
+     * Tira as revogações já expiradas e, se saiu alguma, troca o filtro por um montado só com as restantes.
+     *
+     * @return quantas saíram
+     */
+    public synchronized int recompor() {
+        long agora = System.currentTimeMillis();
+        int antes = revogados.size();
+        revogados.values().removeIf(expiraEm -> expiraEm <= agora);
+        int removidas = antes - revogados.size();
+        if (removidas > 0) {
+            AtomicLongArray novo = new AtomicLongArray(bloom.length());
+            revogados.keySet().forEach(jti -> marcar(novo, jti));
+            bloom = novo;
+        }
+        return removidas;
+    }
+
+    public int tamanho() {
+        return revogados.size();
+    }
+
+    private void marcar(AtomicLongArray bits, UUID jti) {
+        long h = espalhar(jti);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        for (int i = 0; i < FUNCOES; i++) {
+            int bit = (h1 + i * h2) & mascara;
+            long valor = 1L << bit;
+            bits.getAndUpdate(bit >>> 6, atual -> atual | valor);
+        }
+    }
+
+    // finalizador do SplitMix64: o jti já é aleatório, mas nada garante que todo emissor use UUID v4
+    private static long espalhar(UUID jti) {
+        long z = jti.getMostSignificantBits() ^ Long.rotateLeft(jti.getLeastSignificantBits(), 32);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
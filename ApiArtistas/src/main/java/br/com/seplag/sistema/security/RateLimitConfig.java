@@ -0,0 +1,77 @@
+package br.com.seplag.sistema.security;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.jdbc.PrimaryKeyMapper;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.github.bucket4j.postgresql.PostgreSQLadvisoryLockBasedProxyManager;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Onde ficam os buckets do rate limit ({@code app.ratelimit.backend}):
+ * <ul>
+ *   <li>{@code local}: só na memória de cada nó; com N réplicas o usuário tem N vezes a cota.</li>
+ *   <li>{@code postgres}: estado na tabela buckets_rate_limit (V20), com lock consultivo por chave. Cada nó
+ *   consome localmente e sincroniza a cada {@code lote-tokens} tokens ou {@code lote-intervalo}, o que vier
+ *   primeiro: a maioria das requisições não vai ao banco, e a cota pode passar em até
+ *   {@code lote-tokens} por nó entre duas sincronizações.</li>
+ * </ul>
+ */
+@Configuration
+public class RateLimitConfig {
+
+    private static final String TABELA = "buckets_rate_limit";
+
+    @Bean
+    public BucketsRateLimit bucketsRateLimit(
+            @Value("${app.ratelimit.capacity:40}") long capacity,
+            @Value("${app.ratelimit.minutes:1}") long minutes,
+            @Value("${app.ratelimit.backend:local}") String backend,
+            @Value("${app.ratelimit.max-chaves:100000}") long maxChaves,
+            @Value("${app.ratelimit.ociosidade:PT10M}") Duration ociosidade,
+            @Value("${app.ratelimit.lote-tokens:10}") long loteTokens,
+            @Value("${app.ratelimit.lote-intervalo:PT1S}") Duration loteIntervalo,
+            DataSource dataSource,
+            MeterRegistry registry
+    ) {
+        // garante que não vem 0/negativo do env
+        if (capacity <= 0) capacity = 40;
+        if (minutes <= 0) minutes = 1;
+        Duration periodo = Duration.ofMinutes(minutes);
+
+        Bandwidth limite = Bandwidth.classic(capacity, Refill.intervally(capacity, periodo));
+        BucketConfiguration configuracao = BucketConfiguration.builder().addLimit(limite).build();
+
+        Function<String, Bucket> criador;
+        if ("postgres".equalsIgnoreCase(backend)) {
+            var proxyManager = new PostgreSQLadvisoryLockBasedProxyManager<>(SQLProxyConfiguration.builder()
+                    .withTableSettings(BucketTableSettings.customSettings(TABELA, "id", "estado"))
+                    .withPrimaryKeyMapper(PrimaryKeyMapper.STRING)
+                    .build(dataSource));
+            var lote = Optimizations.delaying(new DelayParameters(Math.max(1, loteTokens), loteIntervalo));
+            criador = chave -> proxyManager.builder()
+                    .withOptimization(lote)
+                    .build(chave, () -> configuracao);
+        } else {
+            criador = chave -> Bucket.builder().addLimit(limite).build();
+        }
+
+        Duration ociosidadeMinima = ociosidade.compareTo(periodo) < 0 ? periodo : ociosidade;
+        BucketsRateLimit buckets = new BucketsRateLimit(maxChaves, ociosidadeMinima, criador);
+        Gauge.builder("ratelimit.buckets", buckets, BucketsRateLimit::tamanho).register(registry);
+        return buckets;
+    }
+}
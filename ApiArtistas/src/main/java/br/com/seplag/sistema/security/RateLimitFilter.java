@@ -1,8 +1,6 @@
 package br.com.seplag.sistema.security;
 
 
-import jakarta.annotation.PostConstruct;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -13,32 +11,14 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
-import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class RateLimitFilter extends OncePerRequestFilter {
 
-    private final Map<String, io.github.bucket4j.Bucket> buckets = new ConcurrentHashMap<>();
+    // limite, tamanho do cache e backend (local ou Postgres) em RateLimitConfig
+    private final BucketsRateLimit buckets;
 
-    @Value("${app.ratelimit.capacity:40}")
-    private long capacity;
-
-    @Value("${app.ratelimit.minutes:1}")
-    private long minutes;
-
-    private io.github.bucket4j.Bandwidth limit; // <-- não final
-
-    @PostConstruct
-    void init() {
-        // garante que não vem 0/negativo do env
-        if (capacity <= 0) capacity = 40;
-        if (minutes <= 0) minutes = 1;
-
-        this.limit = io.github.bucket4j.Bandwidth.classic(
-                capacity,
-                io.github.bucket4j.Refill.intervally(capacity, Duration.ofMinutes(minutes))
-        );
+    public RateLimitFilter(BucketsRateLimit buckets) {
+        this.buckets = buckets;
     }
 
     @Override
@@ -64,10 +44,7 @@ public class RateLimitFilter extends OncePerRequestFilter {
 
         String userKey = String.valueOf(auth.getPrincipal());
 
-        io.github.bucket4j.Bucket bucket = buckets.computeIfAbsent(
-                userKey,
-                k -> io.github.bucket4j.Bucket.builder().addLimit(limit).build()
-        );
+        io.github.bucket4j.Bucket bucket = buckets.bucket(userKey);
 
         io.github.bucket4j.ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
         if (probe.isConsumed()) {
@@ -0,0 +1,43 @@
+package br.com.seplag.sistema.security;
+
+import br.com.seplag.sistema.erp.repository.TokenRevogadoRepository;
+import io.jsonwebtoken.JwtException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Revoga um access token antes do exp: grava o jti em tokens_revogados (os outros nós copiam em
+ * {@code SincronizacaoRevogacoesJob}) e põe na lista local, que passa a recusar o token aqui na hora.
+ */
+@Service
+public class RevogacaoTokenService {
+
+    private final JwtService jwtService;
+    private final ListaNegraTokens listaNegra;
+    private final TokenRevogadoRepository repo;
+
+    public RevogacaoTokenService(JwtService jwtService, ListaNegraTokens listaNegra, TokenRevogadoRepository repo) {
+        this.jwtService = jwtService;
+        this.listaNegra = listaNegra;
+        this.repo = repo;
+    }
+
+    /**
+     * Token inválido, expirado, já revogado ou sem jti não tem o que revogar e é ignorado.
+     */
+    @Transactional
+    public void revogar(String accessToken) {
+        JwtService.TokenValidado validado;
+        try {
+            validado = jwtService.autenticar(accessToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            return;
+        }
+        long restanteMillis = validado.expiraEmMillis() - System.currentTimeMillis();
+        if (validado.jti() == null || restanteMillis <= 0) {
+            return;
+        }
+        repo.registrar(validado.jti(), restanteMillis);
+        listaNegra.adicionar(validado.jti(), validado.expiraEmMillis());
+    }
+}
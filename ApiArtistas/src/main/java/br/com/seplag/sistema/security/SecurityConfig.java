@@ -1,5 +1,7 @@
 package br.com.seplag.sistema.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.*;
 import org.springframework.security.authentication.*;
 import org.springframework.security.config.Customizer;
@@ -17,13 +19,28 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${app.senha.bcrypt-custo:10}") int custo,
+            @Value("${app.senha.threads:0}") int threads,
+            @Value("${app.senha.fila:0}") int fila,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int conexoes,
+            MeterRegistry registry
+    ) {
+        // 0 = metade dos núcleos: o resto fica para as demais requisições
+        int n = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        // quem sai da fila do hash ainda precisa de uma conexão para os tokens: a fila nunca passa do pool
+        int limiteFila = fila > 0 ? Math.min(fila, conexoes) : conexoes;
+        return new CodificadorSenhaLimitado(new BCryptPasswordEncoder(custo), n, limiteFila, registry);
     }
 
     @Bean
-    public JwtService jwtService(JwtProperties props) {
-        return new JwtService(props);
+    public ListaNegraTokens listaNegraTokens(@Value("${jwt.revogacao.bits-bloom:1048576}") int bits) {
+        return new ListaNegraTokens(bits);
+    }
+
+    @Bean
+    public JwtService jwtService(JwtProperties props, ListaNegraTokens listaNegraTokens) {
+        return new JwtService(props, listaNegraTokens);
     }
 
     @Bean
@@ -37,12 +54,12 @@ public class SecurityConfig {
     }
     
     @Bean
-    public RateLimitFilter rateLimitFilter() {
-        return new RateLimitFilter();
+    public RateLimitFilter rateLimitFilter(BucketsRateLimit bucketsRateLimit) {
+        return new RateLimitFilter(bucketsRateLimit);
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http, JwtAuthFilter jwtAuthFilter) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtAuthFilter jwtAuthFilter, RateLimitFilter rateLimitFilter) throws Exception {
         return http
         		.cors(Customizer.withDefaults())
                 .csrf(csrf -> csrf.disable())
@@ -57,7 +74,7 @@ public class SecurityConfig {
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
-                .addFilterAfter(rateLimitFilter(), JwtAuthFilter.class) 
+                .addFilterAfter(rateLimitFilter, JwtAuthFilter.class) 
                 .build();
     }
 }
\ No newline at end of file
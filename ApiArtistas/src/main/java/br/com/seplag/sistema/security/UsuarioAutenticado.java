@@ -0,0 +1,26 @@
+package br.com.seplag.sistema.security;
+
+import br.com.seplag.sistema.erp.model.Usuario;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+
+/**
+ * Principal do login: além do que o Spring Security confere, leva o {@link Usuario} carregado em
+ * {@link UsuarioDetailsService}, para quem autenticou emitir os tokens sem buscar o usuário de novo.
+ */
+public class UsuarioAutenticado extends User {
+
+    private final transient Usuario usuario;
+
+    public UsuarioAutenticado(String login, String senhaHash, Usuario usuario) {
+        super(login, senhaHash, usuario.isAtivo(), true, true, true,
+                List.of(new SimpleGrantedAuthority("ROLE_" + usuario.getPapel())));
+        this.usuario = usuario;
+    }
+
+    public Usuario getUsuario() {
+        return usuario;
+    }
+}
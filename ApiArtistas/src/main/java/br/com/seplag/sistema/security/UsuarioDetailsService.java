@@ -1,13 +1,19 @@
 package br.com.seplag.sistema.security;
 
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import br.com.seplag.sistema.erp.model.Usuario;
 import br.com.seplag.sistema.erp.repository.UsuarioRepository;
 
+/**
+ * Devolve {@link UsuarioAutenticado}, com a entidade já carregada: o login inteiro faz uma única consulta
+ * ao usuário. Também regrava o hash da senha quando o login confere um hash de custo menor que o
+ * configurado (o DaoAuthenticationProvider chama {@link #updatePassword} com o hash novo, já calculado).
+ */
 @Service
-public class UsuarioDetailsService implements UserDetailsService {
+public class UsuarioDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UsuarioRepository repo;
     private final JwtProperties props;
@@ -27,11 +33,15 @@ public class UsuarioDetailsService implements UserDetailsService {
 
         var usuario = usuarioOpt.orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado"));
 
-        return User.builder()
-                .username(login)
-                .password(usuario.getSenhaHash())
-                .disabled(!usuario.isAtivo())
-                .authorities(new SimpleGrantedAuthority("ROLE_" + usuario.getPapel()))
-                .build();
+        return new UsuarioAutenticado(login, usuario.getSenhaHash(), usuario);
+    }
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String novoHash) {
+        Usuario usuario = ((UsuarioAutenticado) user).getUsuario();
+        usuario.setSenhaHash(novoHash);
+        Usuario salvo = repo.save(usuario);
+        return new UsuarioAutenticado(user.getUsername(), novoHash, salvo);
     }
 }
@@ -0,0 +1,12 @@
+package br.com.seplag.sistema.storage;
+
+import java.nio.file.Path;
+
+/**
+ * Cópia local de uma imagem pronta para servir; {@code etag} sem aspas, o SHA-256 dos bytes da cópia.
+ */
+public record ArquivoImagem(
+        Path arquivo,
+        String tipoConteudo,
+        String etag
+) {}
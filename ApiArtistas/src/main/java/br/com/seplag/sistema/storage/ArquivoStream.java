@@ -0,0 +1,13 @@
+package br.com.seplag.sistema.storage;
+
+import java.io.InputStream;
+
+/**
+ * Parte de arquivo de um multipart lido sob demanda: o conteúdo só pode ser lido
+ * antes de avançar para a próxima parte.
+ */
+public record ArquivoStream(
+        String nomeArquivo,
+        String tipoDeclarado,
+        InputStream conteudo
+) {}
@@ -0,0 +1,142 @@
+package br.com.seplag.sistema.storage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+
+/**
+ * Assina localmente URLs GET (AWS Signature V4 na query string, path-style) para o endpoint público do MinIO,
+ * sem passar pelo {@code MinioClient}. A chave de assinatura (HMAC encadeado de data/região/serviço)
+ * só muda com o dia UTC, então é calculada uma vez por dia; por URL sobram um SHA-256 e um HMAC.
+ */
+public class AssinadorUrl {
+
+    private static final String ALGORITMO = "AWS4-HMAC-SHA256";
+    private static final String SERVICO = "s3";
+    private static final DateTimeFormatter DATA = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter DATA_HORA = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final HexFormat HEX = HexFormat.of();
+
+    // Mac e MessageDigest não são thread-safe
+    private static final ThreadLocal<Mac> HMAC = ThreadLocal.withInitial(() -> instancia(() -> Mac.getInstance("HmacSHA256")));
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> instancia(() -> MessageDigest.getInstance("SHA-256")));
+
+    private final String endpoint;
+    private final String host;
+    private final String bucket;
+    private final String accessKey;
+    private final byte[] segredo;
+    private final String regiao;
+
+    private volatile ChaveDoDia chaveDoDia;
+
+    public AssinadorUrl(String endpoint, String bucket, String accessKey, String secretKey, String regiao) {
+        URI uri = URI.create(endpoint);
+        boolean portaPadrao = uri.getPort() == -1
+                || ("http".equalsIgnoreCase(uri.getScheme()) && uri.getPort() == 80)
+                || ("https".equalsIgnoreCase(uri.getScheme()) && uri.getPort() == 443);
+
+        this.host = portaPadrao ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+        this.endpoint = uri.getScheme() + "://" + host;
+        this.bucket = bucket;
+        this.accessKey = accessKey;
+        this.segredo = ("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8);
+        this.regiao = (regiao == null || regiao.isBlank()) ? "us-east-1" : regiao;
+    }
+
+    public String assinarGet(String objectKey, int expiracaoSegundos) {
+        return assinarGet(objectKey, expiracaoSegundos, Instant.now());
+    }
+
+    public String assinarGet(String objectKey, int expiracaoSegundos, Instant agora) {
+        String data = DATA.format(agora);
+        String dataHora = DATA_HORA.format(agora);
+        String escopo = data + "/" + regiao + "/" + SERVICO + "/aws4_request";
+
+        String caminho = "/" + bucket + "/" + codificar(objectKey, false);
+        // parâmetros já em ordem alfabética, como exige a forma canônica
+        String query = "X-Amz-Algorithm=" + ALGORITMO
+                + "&X-Amz-Credential=" + codificar(accessKey + "/" + escopo, true)
+                + "&X-Amz-Date=" + dataHora
+                + "&X-Amz-Expires=" + expiracaoSegundos
+                + "&X-Amz-SignedHeaders=host";
+
+        String requisicaoCanonica = "GET\n" + caminho + "\n" + query + "\n"
+                + "host:" + host + "\n\n"
+                + "host\n"
+                + "UNSIGNED-PAYLOAD";
+
+        String textoAssinado = ALGORITMO + "\n" + dataHora + "\n" + escopo + "\n"
+                + HEX.formatHex(sha256(requisicaoCanonica));
+
+        String assinatura = HEX.formatHex(hmac(chaveDoDia(data), textoAssinado));
+        return endpoint + caminho + "?" + query + "&X-Amz-Signature=" + assinatura;
+    }
+
+    private byte[] chaveDoDia(String data) {
+        ChaveDoDia atual = chaveDoDia;
+        if (atual != null && atual.data().equals(data)) {
+            return atual.chave();
+        }
+        // corrida na virada do dia só recalcula a mesma chave
+        byte[] chave = hmac(segredo, data);
+        chave = hmac(chave, regiao);
+        chave = hmac(chave, SERVICO);
+        chave = hmac(chave, "aws4_request");
+        chaveDoDia = new ChaveDoDia(data, chave);
+        return chave;
+    }
+
+    private static byte[] hmac(byte[] chave, String texto) {
+        try {
+            Mac mac = HMAC.get();
+            mac.init(new SecretKeySpec(chave, "HmacSHA256"));
+            return mac.doFinal(texto.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] sha256(String texto) {
+        return SHA256.get().digest(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * URI encoding do S3: só A-Z a-z 0-9 - _ . ~ passam; '/' passa no caminho e é codificada na query.
+     */
+    static String codificar(String valor, boolean codificarBarra) {
+        StringBuilder out = new StringBuilder(valor.length() + 16);
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && !codificarBarra)) {
+                out.append(c);
+            } else {
+                out.append('%').append(Character.toUpperCase(Character.forDigit((c >> 4) & 0xF, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xF, 16)));
+            }
+        }
+        return out.toString();
+    }
+
+    private static <T> T instancia(Fabrica<T> fabrica) {
+        try {
+            return fabrica.criar();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private interface Fabrica<T> {
+        T criar() throws GeneralSecurityException;
+    }
+
+    private record ChaveDoDia(String data, byte[] chave) {}
+}
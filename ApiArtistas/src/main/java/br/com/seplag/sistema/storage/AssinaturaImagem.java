@@ -0,0 +1,51 @@
+package br.com.seplag.sistema.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Identifica JPEG/PNG/WEBP pelos primeiros bytes do conteúdo (magic bytes),
+ * sem confiar no Content-Type declarado pelo cliente.
+ */
+public final class AssinaturaImagem {
+
+    static final int BYTES_CABECALHO = 12;
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] RIFF = {'R', 'I', 'F', 'F'};
+    private static final byte[] WEBP = {'W', 'E', 'B', 'P'};
+
+    private AssinaturaImagem() {}
+
+    /**
+     * Lê o cabeçalho e volta o stream para o início (o stream precisa suportar mark/reset).
+     */
+    public static String detectar(InputStream in) throws IOException {
+        in.mark(BYTES_CABECALHO);
+        byte[] cabecalho = in.readNBytes(BYTES_CABECALHO);
+        in.reset();
+
+        if (cabecalho.length == 0) {
+            throw new ArquivoInvalidoException("Arquivo é obrigatório");
+        }
+        String tipo = detectar(cabecalho);
+        if (tipo == null) {
+            throw new ArquivoInvalidoException("Tipo de arquivo inválido. Use JPEG, PNG ou WEBP");
+        }
+        return tipo;
+    }
+
+    public static String detectar(byte[] cabecalho) {
+        if (comecaCom(cabecalho, 0, JPEG)) return "image/jpeg";
+        if (comecaCom(cabecalho, 0, PNG)) return "image/png";
+        if (comecaCom(cabecalho, 0, RIFF) && comecaCom(cabecalho, 8, WEBP)) return "image/webp";
+        return null;
+    }
+
+    private static boolean comecaCom(byte[] dados, int offset, byte[] prefixo) {
+        return dados.length >= offset + prefixo.length
+                && Arrays.equals(dados, offset, offset + prefixo.length, prefixo, 0, prefixo.length);
+    }
+}
@@ -0,0 +1,106 @@
+package br.com.seplag.sistema.storage;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Codificador BlurHash (https://blurha.sh): a imagem vira poucos componentes DCT em espaço linear,
+ * quantizados em base 83. Com 4x3 componentes o texto tem 28 caracteres e o cliente desenha o
+ * placeholder sem baixar nada. Custo proporcional a pixels x componentes, então a entrada deve ser
+ * uma amostra pequena (dezenas de pixels de lado).
+ */
+public final class Blurhash {
+
+    private static final String BASE83 =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    private static final double[] SRGB_PARA_LINEAR = new double[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            double v = i / 255.0;
+            SRGB_PARA_LINEAR[i] = v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+        }
+    }
+
+    private Blurhash() {}
+
+    public static String codificar(BufferedImage imagem, int componentesX, int componentesY) {
+        if (componentesX < 1 || componentesX > 9 || componentesY < 1 || componentesY > 9) {
+            throw new IllegalArgumentException("Componentes devem estar entre 1 e 9");
+        }
+        int w = imagem.getWidth();
+        int h = imagem.getHeight();
+        int[] pixels = imagem.getRGB(0, 0, w, h, null, 0, w);
+
+        double[][] fatores = new double[componentesX * componentesY][];
+        for (int j = 0; j < componentesY; j++) {
+            for (int i = 0; i < componentesX; i++) {
+                fatores[j * componentesX + i] = fator(pixels, w, h, i, j);
+            }
+        }
+
+        StringBuilder hash = new StringBuilder();
+        base83(hash, (componentesX - 1) + (componentesY - 1) * 9, 1);
+
+        double maximo = 1;
+        if (fatores.length > 1) {
+            double maiorAc = 0;
+            for (int k = 1; k < fatores.length; k++) {
+                for (double c : fatores[k]) {
+                    maiorAc = Math.max(maiorAc, Math.abs(c));
+                }
+            }
+            int quantizado = (int) Math.max(0, Math.min(82, Math.floor(maiorAc * 166 - 0.5)));
+            maximo = (quantizado + 1) / 166.0;
+            base83(hash, quantizado, 1);
+        } else {
+            base83(hash, 0, 1);
+        }
+
+        double[] dc = fatores[0];
+        base83(hash, (linearParaSrgb(dc[0]) << 16) | (linearParaSrgb(dc[1]) << 8) | linearParaSrgb(dc[2]), 4);
+
+        for (int k = 1; k < fatores.length; k++) {
+            double[] ac = fatores[k];
+            base83(hash, quantizarAc(ac[0], maximo) * 19 * 19 + quantizarAc(ac[1], maximo) * 19 + quantizarAc(ac[2], maximo), 2);
+        }
+        return hash.toString();
+    }
+
+    private static double[] fator(int[] pixels, int w, int h, int i, int j) {
+        double r = 0, g = 0, b = 0;
+        double normalizacao = (i == 0 && j == 0) ? 1 : 2;
+        for (int y = 0; y < h; y++) {
+            double cosY = Math.cos(Math.PI * j * y / h);
+            for (int x = 0; x < w; x++) {
+                double base = normalizacao * Math.cos(Math.PI * i * x / w) * cosY;
+                int rgb = pixels[y * w + x];
+                r += base * SRGB_PARA_LINEAR[(rgb >> 16) & 0xFF];
+                g += base * SRGB_PARA_LINEAR[(rgb >> 8) & 0xFF];
+                b += base * SRGB_PARA_LINEAR[rgb & 0xFF];
+            }
+        }
+        double escala = 1.0 / (w * h);
+        return new double[]{r * escala, g * escala, b * escala};
+    }
+
+    private static int quantizarAc(double valor, double maximo) {
+        double v = valor / maximo;
+        double raiz = Math.copySign(Math.sqrt(Math.abs(v)), v);
+        return (int) Math.max(0, Math.min(18, Math.floor(raiz * 9 + 9.5)));
+    }
+
+    private static int linearParaSrgb(double valor) {
+        double v = Math.max(0, Math.min(1, valor));
+        return v <= 0.0031308
+                ? (int) (v * 12.92 * 255 + 0.5)
+                : (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+    private static void base83(StringBuilder out, int valor, int digitos) {
+        for (int i = 1; i <= digitos; i++) {
+            int digito = (valor / (int) Math.pow(83, digitos - i)) % 83;
+            out.append(BASE83.charAt(digito));
+        }
+    }
+}
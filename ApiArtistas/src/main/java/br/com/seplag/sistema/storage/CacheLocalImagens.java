@@ -0,0 +1,189 @@
+package br.com.seplag.sistema.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cópia em disco dos objetos do MinIO servidos pelo proxy de imagens, limitada pelo total de bytes.
+ * O índice é um cache Caffeine com peso = tamanho do arquivo; o arquivo de uma entrada despejada só é
+ * apagado depois de {@code atrasoRemocao}, para respostas em andamento (sendfile abre o arquivo pelo nome
+ * depois do handler) terminarem. Cada carga grava um arquivo de nome novo, então a remoção atrasada
+ * nunca apaga uma cópia mais recente. Misses simultâneos da mesma chave fazem uma única leitura no MinIO.
+ * Cada processo grava num subdiretório próprio dentro de {@code diretorio}, criado na subida e apagado no
+ * encerramento: o índice não sobrevive ao processo, e outra instância no mesmo host usa outro subdiretório.
+ * A cópia guarda o SHA-256 dos bytes gravados, que é o ETag servido: o validador segue o conteúdo, não o nome da chave.
+ */
+@Component
+public class CacheLocalImagens implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheLocalImagens.class);
+
+    private final MinioStorageService storage;
+    private final Path diretorio;
+    private final Duration atrasoRemocao;
+    private final Cache<String, Copia> arquivos;
+    private final ConcurrentMap<String, CompletableFuture<Copia>> carregando = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService remocoes;
+
+    private final Counter acertos;
+    private final Counter faltas;
+    private final Counter compartilhadas;
+
+    public CacheLocalImagens(
+            MinioStorageService storage,
+            MeterRegistry registry,
+            @Value("${app.imagens.cache.diretorio:${java.io.tmpdir}/api-artistas-imagens}") Path diretorio,
+            @Value("${app.imagens.cache.max-bytes:1GB}") DataSize maxBytes,
+            @Value("${app.imagens.cache.atraso-remocao:PT1M}") Duration atrasoRemocao
+    ) throws IOException {
+        this.storage = storage;
+        this.atrasoRemocao = atrasoRemocao;
+
+        Files.createDirectories(diretorio);
+        this.diretorio = Files.createTempDirectory(diretorio, "processo-");
+
+        this.remocoes = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cache-imagens-remocao");
+            t.setDaemon(true);
+            return t;
+        });
+        this.arquivos = Caffeine.newBuilder()
+                .maximumWeight(maxBytes.toBytes())
+                .weigher((String chave, Copia copia) -> peso(copia.arquivo()))
+                .removalListener((String chave, Copia copia, RemovalCause causa) -> {
+                    if (copia != null) {
+                        agendarRemocao(copia.arquivo());
+                    }
+                })
+                .build();
+
+        this.acertos = Counter.builder("imagens.cache").tag("resultado", "acerto").register(registry);
+        this.faltas = Counter.builder("imagens.cache").tag("resultado", "falta").register(registry);
+        this.compartilhadas = Counter.builder("imagens.cache").tag("resultado", "compartilhada").register(registry);
+        Gauge.builder("imagens.cache.bytes", arquivos,
+                        c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L))
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Cópia local de um objeto e o SHA-256 (hex) do que foi gravado nela.
+     */
+    public record Copia(Path arquivo, String hash) {}
+
+    /**
+     * Cópia local de {@code chave}, baixando do MinIO se ainda não está em disco.
+     * O arquivo continua legível por pelo menos {@code atrasoRemocao} depois de um despejo.
+     */
+    public Copia obter(String chave) {
+        Copia local = arquivos.getIfPresent(chave);
+        if (local != null) {
+            acertos.increment();
+            return local;
+        }
+
+        CompletableFuture<Copia> carga = new CompletableFuture<>();
+        CompletableFuture<Copia> emAndamento = carregando.putIfAbsent(chave, carga);
+        if (emAndamento != null) {
+            compartilhadas.increment();
+            return aguardar(emAndamento);
+        }
+
+        try {
+            // outra carga pode ter terminado entre o getIfPresent e o putIfAbsent
+            local = arquivos.getIfPresent(chave);
+            if (local == null) {
+                faltas.increment();
+                local = baixar(chave);
+                arquivos.put(chave, local);
+            }
+            carga.complete(local);
+            return local;
+        } catch (RuntimeException e) {
+            carga.completeExceptionally(e);
+            throw e;
+        } finally {
+            carregando.remove(chave, carga);
+        }
+    }
+
+    private Copia baixar(String chave) {
+        Path destino = diretorio.resolve(UUID.randomUUID().toString());
+        try (DigestInputStream in = HashConteudo.calculando(storage.abrir(chave))) {
+            Files.copy(in, destino, StandardCopyOption.REPLACE_EXISTING);
+            return new Copia(destino, HashConteudo.hex(in.getMessageDigest()));
+        } catch (Exception e) {
+            try {
+                Files.deleteIfExists(destino);
+            } catch (IOException ignored) {
+                // o subdiretório sai inteiro no encerramento
+            }
+            throw new RuntimeException("Falha ao ler imagem do MinIO: " + chave, e);
+        }
+    }
+
+    private static Copia aguardar(CompletableFuture<Copia> carga) {
+        try {
+            return carga.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando imagem", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException r) {
+                throw r;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private void agendarRemocao(Path arquivo) {
+        remocoes.schedule(() -> {
+            try {
+                Files.deleteIfExists(arquivo);
+            } catch (IOException e) {
+                log.warn("Falha ao remover cópia local {}", arquivo, e);
+            }
+        }, atrasoRemocao.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static int peso(Path arquivo) {
+        try {
+            return (int) Math.min(Integer.MAX_VALUE, Files.size(arquivo));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        remocoes.shutdownNow();
+        FileSystemUtils.deleteRecursively(diretorio);
+    }
+}
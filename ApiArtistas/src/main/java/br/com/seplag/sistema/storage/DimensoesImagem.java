@@ -0,0 +1,123 @@
+package br.com.seplag.sistema.storage;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Largura e altura lidas só do cabeçalho, sem decodificar a imagem: IHDR no PNG, cabeçalho do quadro
+ * VP8/VP8L/VP8X no WebP e o primeiro SOFn no JPEG (os segmentos anteriores são pulados pelo tamanho).
+ */
+public record DimensoesImagem(int largura, int altura) {
+
+    // cobre PNG/WebP com folga e, no JPEG, os segmentos antes do SOF (EXIF com miniatura embutida, na prática)
+    public static final int BYTES_CABECALHO = 64 * 1024;
+
+    /**
+     * Dimensões a partir dos primeiros bytes do arquivo, ou {@code null} se o formato não é reconhecido
+     * ou o cabeçalho não coube em {@code cabecalho}.
+     */
+    public static DimensoesImagem ler(byte[] cabecalho) {
+        String tipo = AssinaturaImagem.detectar(cabecalho);
+        if (tipo == null) {
+            return null;
+        }
+        return switch (tipo) {
+            case "image/png" -> png(cabecalho);
+            case "image/webp" -> webp(cabecalho);
+            case "image/jpeg" -> jpeg(cabecalho);
+            default -> null;
+        };
+    }
+
+    private static DimensoesImagem png(byte[] b) {
+        if (b.length < 24 || b[12] != 'I' || b[13] != 'H' || b[14] != 'D' || b[15] != 'R') {
+            return null;
+        }
+        return valida(int32be(b, 16), int32be(b, 20));
+    }
+
+    private static DimensoesImagem webp(byte[] b) {
+        if (b.length < 30) {
+            return null;
+        }
+        String chunk = new String(b, 12, 4, StandardCharsets.US_ASCII);
+        return switch (chunk) {
+            // com perdas: código de início 9D 01 2A e 14 bits de cada dimensão
+            case "VP8 " -> (u8(b, 23) == 0x9D && u8(b, 24) == 0x01 && u8(b, 25) == 0x2A)
+                    ? valida(int16le(b, 26) & 0x3FFF, int16le(b, 28) & 0x3FFF)
+                    : null;
+            // sem perdas: assinatura 0x2F e (largura - 1, altura - 1) em 14 bits cada
+            case "VP8L" -> {
+                if (u8(b, 20) != 0x2F) {
+                    yield null;
+                }
+                int b1 = u8(b, 21), b2 = u8(b, 22), b3 = u8(b, 23), b4 = u8(b, 24);
+                yield valida(1 + (((b2 & 0x3F) << 8) | b1),
+                        1 + (((b4 & 0x0F) << 10) | (b3 << 2) | ((b2 & 0xC0) >> 6)));
+            }
+            // estendido: canvas (largura - 1, altura - 1) em 24 bits
+            case "VP8X" -> valida(1 + int24le(b, 24), 1 + int24le(b, 27));
+            default -> null;
+        };
+    }
+
+    private static DimensoesImagem jpeg(byte[] b) {
+        int pos = 2;
+        while (pos + 4 <= b.length) {
+            if (u8(b, pos) != 0xFF) {
+                return null;
+            }
+            int marcador = u8(b, pos + 1);
+            if (marcador == 0xFF) {
+                // bytes de preenchimento entre segmentos
+                pos++;
+                continue;
+            }
+            if (marcador == 0x01 || (marcador >= 0xD0 && marcador <= 0xD8)) {
+                pos += 2;
+                continue;
+            }
+            if (marcador == 0xD9 || marcador == 0xDA) {
+                // fim da imagem ou início dos dados comprimidos sem SOF antes
+                return null;
+            }
+
+            int tamanho = int16be(b, pos + 2);
+            // SOF0..SOF15, exceto DHT (C4), JPG (C8) e DAC (CC)
+            if (marcador >= 0xC0 && marcador <= 0xCF && marcador != 0xC4 && marcador != 0xC8 && marcador != 0xCC) {
+                if (pos + 9 > b.length) {
+                    return null;
+                }
+                return valida(int16be(b, pos + 7), int16be(b, pos + 5));
+            }
+            if (tamanho < 2) {
+                return null;
+            }
+            pos += 2 + tamanho;
+        }
+        return null;
+    }
+
+    private static DimensoesImagem valida(int largura, int altura) {
+        return largura > 0 && altura > 0 ? new DimensoesImagem(largura, altura) : null;
+    }
+
+    private static int u8(byte[] b, int i) {
+        return b[i] & 0xFF;
+    }
+
+    private static int int16be(byte[] b, int i) {
+        return (u8(b, i) << 8) | u8(b, i + 1);
+    }
+
+    private static int int16le(byte[] b, int i) {
+        return u8(b, i) | (u8(b, i + 1) << 8);
+    }
+
+    private static int int24le(byte[] b, int i) {
+        return u8(b, i) | (u8(b, i + 1) << 8) | (u8(b, i + 2) << 16);
+    }
+
+    private static int int32be(byte[] b, int i) {
+        return (u8(b, i) << 24) | (u8(b, i + 1) << 16) | (u8(b, i + 2) << 8) | u8(b, i + 3);
+    }
+}
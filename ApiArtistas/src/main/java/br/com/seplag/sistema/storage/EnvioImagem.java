@@ -0,0 +1,9 @@
+package br.com.seplag.sistema.storage;
+
+public record EnvioImagem(
+        String objectKey,
+        String contentType,
+        long tamanhoBytes,
+        String sha256,
+        DimensoesImagem dimensoes
+) {}
@@ -0,0 +1,36 @@
+package br.com.seplag.sistema.storage;
+
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 do conteúdo enviado, base da chave endereçada por conteúdo.
+ */
+public final class HashConteudo {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private HashConteudo() {}
+
+    public static MessageDigest novoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Envolve o stream para calcular o hash durante a própria transferência.
+     */
+    public static DigestInputStream calculando(InputStream in) {
+        return new DigestInputStream(in, novoDigest());
+    }
+
+    public static String hex(MessageDigest digest) {
+        return HEX.formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,8 @@
+package br.com.seplag.sistema.storage;
+
+/**
+ * O que o MinIO tem de fato para uma chave: tamanho e Content-Type gravados, o tipo
+ * identificado pelos magic bytes ({@code null} quando não é JPEG/PNG/WEBP) e as dimensões
+ * do cabeçalho ({@code null} quando não couberam na leitura).
+ */
+public record InfoObjeto(long tamanhoBytes, String contentType, String tipoDetectado, DimensoesImagem dimensoes) {}
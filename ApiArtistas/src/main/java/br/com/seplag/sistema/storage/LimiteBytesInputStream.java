@@ -0,0 +1,60 @@
+package br.com.seplag.sistema.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Conta os bytes lidos e falha assim que o limite é ultrapassado, durante a própria transferência.
+ */
+public class LimiteBytesInputStream extends FilterInputStream {
+
+    private final long limite;
+    private long lidos;
+
+    public LimiteBytesInputStream(InputStream in, long limite) {
+        super(in);
+        this.limite = limite;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) contar(1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) contar(n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long pulados = super.skip(n);
+        contar(pulados);
+        return pulados;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    public long lidos() {
+        return lidos;
+    }
+
+    public boolean excedeu() {
+        return lidos > limite;
+    }
+
+    private void contar(long n) {
+        lidos += n;
+        if (lidos > limite) {
+            throw new ArquivoInvalidoException("Arquivo excede o limite de " + (limite / (1024 * 1024)) + "MB");
+        }
+    }
+}
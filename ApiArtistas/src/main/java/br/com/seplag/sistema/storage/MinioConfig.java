@@ -14,6 +14,7 @@ public class MinioConfig {
         return MinioClient.builder()
                 .endpoint(props.internalUrl())
                 .credentials(props.accessKey(), props.secretKey())
+                .region(props.region())
                 .build();
     }
 
@@ -22,6 +23,8 @@ public class MinioConfig {
         return MinioClient.builder()
                 .endpoint(props.publicUrl())
                 .credentials(props.accessKey(), props.secretKey())
+                // com a região fixa, assinar não consulta o bucket pelo endpoint público
+                .region(props.region())
                 .build();
     }
 }
@@ -1,29 +1,60 @@
 package br.com.seplag.sistema.storage;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
 import io.minio.http.Method;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+
+import java.io.BufferedInputStream;
 import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 public class MinioStorageService {
 
+    // mínimo de parte aceito pelo multipart upload do S3/MinIO
+    private static final long TAMANHO_PARTE = 5L * 1024 * 1024;
+    private static final int BUFFER_LEITURA = 64 * 1024;
+    private static final String PREFIXO_CONTEUDO = "conteudo/";
+
     private final MinioClient internalClient;
     private final MinioClient publicClient;
     private final MinioProperties props;
+    private final AssinadorUrl assinador;
+    private final Cache<String, UrlAssinada> urlsAssinadas;
 
     public MinioStorageService(
             @Qualifier("minioInternalClient") MinioClient internalClient,
             @Qualifier("minioPublicClient") MinioClient publicClient,
-            MinioProperties props
+            MinioProperties props,
+            @Value("${app.minio.url-assinada.margem:PT5M}") Duration margemUrl,
+            @Value("${app.minio.url-assinada.max-entradas:100000}") long maxUrls
     ) {
         this.internalClient = internalClient;
         this.publicClient = publicClient;
         this.props = props;
+        this.assinador = new AssinadorUrl(props.publicUrl(), props.bucket(), props.accessKey(), props.secretKey(), props.region());
+        this.urlsAssinadas = Caffeine.newBuilder()
+                .maximumSize(maxUrls)
+                .expireAfter(new ValidadeUrl(margemUrl))
+                .build();
     }
 
     public String gerarObjectKeyAlbum(Long albumId, String contentType) {
@@ -31,6 +62,54 @@ public class MinioStorageService {
         return "albuns/" + albumId + "/" + UUID.randomUUID() + ext;
     }
 
+    /**
+     * Chave de envio direto (URL PUT assinada): albuns/{id}/envios/{uuid}.ext. O cliente pode regravá-la
+     * enquanto a URL valer, então ela nunca vira imagem; a confirmação copia o objeto para
+     * {@link #chaveDefinitiva}, que não tem URL de escrita.
+     */
+    public String gerarObjectKeyEnvioDireto(Long albumId, String contentType) {
+        return prefixoEnvioDireto(albumId) + UUID.randomUUID() + extPorContentType(contentType);
+    }
+
+    public static String prefixoEnvioDireto(Long albumId) {
+        return "albuns/" + albumId + "/envios/";
+    }
+
+    // albuns/{id}/envios/{uuid}.ext -> albuns/{id}/{uuid}.ext
+    public static String chaveDefinitiva(String chaveEnvio) {
+        return chaveEnvio.replaceFirst("/envios/", "/");
+    }
+
+    /**
+     * Chave endereçada por conteúdo: conteudo/ab/abcd...ef.png. O mesmo arquivo gera a mesma chave
+     * em qualquer álbum; os dois primeiros dígitos só espalham as chaves por prefixo.
+     */
+    public String gerarObjectKeyConteudo(String sha256, String contentType) {
+        return PREFIXO_CONTEUDO + sha256.substring(0, 2) + "/" + sha256 + extPorContentType(contentType);
+    }
+
+    public static boolean ehChaveConteudo(String objectKey) {
+        return objectKey != null && objectKey.startsWith(PREFIXO_CONTEUDO);
+    }
+
+    /**
+     * Prefixo que cobre o objeto e todos os seus derivados (conteudo/ab/abcd...ef).
+     */
+    public static String prefixoObjeto(String objectKey) {
+        int barra = objectKey.lastIndexOf('/');
+        int ponto = objectKey.lastIndexOf('.');
+        return ponto > barra ? objectKey.substring(0, ponto) : objectKey;
+    }
+
+    /**
+     * Chave de uma versão redimensionada, ao lado do original: albuns/1/uuid.png -> albuns/1/uuid_w480_{tentativa}.jpg.
+     * O sufixo da tentativa faz cada geração gravar objetos próprios: uma execução atrasada (lease vencido)
+     * nunca sobrescreve nem apaga, na compensação, os objetos de quem gravou as linhas.
+     */
+    public String gerarObjectKeyDerivado(String chaveOriginal, int largura, String tentativa) {
+        return prefixoObjeto(chaveOriginal) + "_w" + largura + "_" + tentativa + ".jpg";
+    }
+
     public void upload(String objectKey, InputStream input, long size, String contentType) throws Exception {
         internalClient.putObject(
                 PutObjectArgs.builder()
@@ -42,31 +121,257 @@ public class MinioStorageService {
         );
     }
 
-    public void delete(String objectKey) throws Exception {
-        internalClient.removeObject(
-                RemoveObjectArgs.builder()
+    /**
+     * Envia a imagem enquanto a lê: o tipo vem dos magic bytes e o tamanho é validado durante a cópia.
+     * Com tamanho desconhecido o cliente do MinIO faz multipart upload em partes de {@link #TAMANHO_PARTE},
+     * então a memória por envio fica limitada a uma parte.
+     * {@code antesDoEnvio} recebe a chave gerada antes do primeiro byte ir ao MinIO; o SHA-256 é
+     * calculado na mesma passada e volta em {@link EnvioImagem#sha256()}, junto com as dimensões lidas do cabeçalho.
+     */
+    public EnvioImagem uploadImagemStream(Long albumId, InputStream input, long maxBytes, Consumer<String> antesDoEnvio) throws Exception {
+        BufferedInputStream in = new BufferedInputStream(input, BUFFER_LEITURA);
+        String contentType = AssinaturaImagem.detectar(in);
+        String objectKey = gerarObjectKeyAlbum(albumId, contentType);
+        antesDoEnvio.accept(objectKey);
+
+        // o cabeçalho fica no buffer e volta para o envio; não lê nada além do que já seria lido
+        in.mark(DimensoesImagem.BYTES_CABECALHO);
+        DimensoesImagem dimensoes = DimensoesImagem.ler(in.readNBytes(DimensoesImagem.BYTES_CABECALHO));
+        in.reset();
+
+        DigestInputStream hash = HashConteudo.calculando(in);
+        LimiteBytesInputStream limitado = new LimiteBytesInputStream(hash, maxBytes);
+        try {
+            internalClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(props.bucket())
+                            .object(objectKey)
+                            .stream(limitado, -1, TAMANHO_PARTE)
+                            .contentType(contentType)
+                            .build()
+            );
+        } catch (Exception e) {
+            // o cliente pode embrulhar a exceção lançada pelo stream
+            if (limitado.excedeu()) {
+                throw new ArquivoInvalidoException("Arquivo excede o limite de " + (maxBytes / (1024 * 1024)) + "MB");
+            }
+            for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+                if (causa instanceof ArquivoInvalidoException invalido) {
+                    throw invalido;
+                }
+            }
+            throw e;
+        }
+        return new EnvioImagem(objectKey, contentType, limitado.lidos(), HashConteudo.hex(hash.getMessageDigest()), dimensoes);
+    }
+
+    /**
+     * Cópia feita pelo próprio MinIO, sem os bytes passarem pela aplicação.
+     */
+    public void copiar(String origem, String destino) throws Exception {
+        internalClient.copyObject(
+                CopyObjectArgs.builder()
+                        .bucket(props.bucket())
+                        .object(destino)
+                        .source(CopySource.builder()
+                                .bucket(props.bucket())
+                                .object(origem)
+                                .build())
+                        .build()
+        );
+    }
+
+    /**
+     * Como {@link #copiar}, mas devolve false se a origem não existe (envio direto ainda não feito).
+     */
+    public boolean copiarSeExistir(String origem, String destino) throws Exception {
+        try {
+            copiar(origem, destino);
+            return true;
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Conteúdo do objeto pelo endpoint interno; quem chama fecha o stream.
+     */
+    public InputStream abrir(String objectKey) throws Exception {
+        return internalClient.getObject(
+                GetObjectArgs.builder()
+                        .bucket(props.bucket())
+                        .object(objectKey)
+                        .build()
+        );
+    }
+
+    /**
+     * URL PUT assinada no endpoint público, para o cliente enviar o objeto direto ao MinIO.
+     * A assinatura cobre só o host: tamanho e tipo são conferidos depois, em {@link #inspecionar}.
+     */
+    public String presignedPutUrl(String objectKey, int expirySeconds) throws Exception {
+        return publicClient.getPresignedObjectUrl(
+                GetPresignedObjectUrlArgs.builder()
+                        .method(Method.PUT)
                         .bucket(props.bucket())
                         .object(objectKey)
+                        .expiry(expirySeconds)
                         .build()
         );
     }
 
-    public String presignedGetUrl(String objectKey, int expirySeconds) throws Exception {
+    /**
+     * statObject e leitura só do cabeçalho (range, até {@link DimensoesImagem#BYTES_CABECALHO}), sem baixar
+     * o objeto inteiro; vazio se a chave não existe.
+     */
+    public Optional<InfoObjeto> inspecionar(String objectKey) throws Exception {
+        StatObjectResponse stat;
         try {
-            return publicClient.getPresignedObjectUrl(
-                    GetPresignedObjectUrlArgs.builder()
-                            .method(Method.GET)
+            stat = internalClient.statObject(
+                    StatObjectArgs.builder()
                             .bucket(props.bucket())
                             .object(objectKey)
-                            .expiry(expirySeconds)
                             .build()
             );
-        } catch (Exception e) {
-            System.out.println("MINIO publicUrl=" + props.publicUrl());
-            System.out.println("MINIO bucket=" + props.bucket());
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return Optional.empty();
+            }
             throw e;
         }
 
+        byte[] cabecalho;
+        try (InputStream in = internalClient.getObject(
+                GetObjectArgs.builder()
+                        .bucket(props.bucket())
+                        .object(objectKey)
+                        .offset(0L)
+                        .length((long) DimensoesImagem.BYTES_CABECALHO)
+                        .build()
+        )) {
+            cabecalho = in.readAllBytes();
+        }
+
+        return Optional.of(new InfoObjeto(stat.size(), stat.contentType(), AssinaturaImagem.detectar(cabecalho),
+                DimensoesImagem.ler(cabecalho)));
+    }
+
+    public void delete(String objectKey) throws Exception {
+        urlsAssinadas.invalidate(objectKey);
+        internalClient.removeObject(
+                RemoveObjectArgs.builder()
+                        .bucket(props.bucket())
+                        .object(objectKey)
+                        .build()
+        );
+    }
+
+    public List<String> listarChaves(String prefixo) throws Exception {
+        List<String> chaves = new ArrayList<>();
+        for (Result<Item> item : internalClient.listObjects(
+                ListObjectsArgs.builder()
+                        .bucket(props.bucket())
+                        .prefix(prefixo)
+                        .recursive(true)
+                        .build()
+        )) {
+            chaves.add(item.get().objectName());
+        }
+        return chaves;
+    }
+
+    /**
+     * Uma página da listagem (uma requisição ao MinIO), em ordem de chave a partir de {@code inicioApos}
+     * (exclusivo; null começa do prefixo). Página menor que {@code maximo} é a última.
+     */
+    public List<ObjetoListado> listarPagina(String prefixo, String inicioApos, int maximo) throws Exception {
+        ListObjectsArgs.Builder args = ListObjectsArgs.builder()
+                .bucket(props.bucket())
+                .prefix(prefixo)
+                .recursive(true)
+                .maxKeys(maximo);
+        if (inicioApos != null) {
+            args.startAfter(inicioApos);
+        }
+
+        List<ObjetoListado> pagina = new ArrayList<>(maximo);
+        // o iterador busca a página seguinte sozinho quando esgota; para antes disso
+        for (Result<Item> resultado : internalClient.listObjects(args.build())) {
+            Item item = resultado.get();
+            if (!item.isDir()) {
+                pagina.add(new ObjetoListado(item.objectName(), item.lastModified().toInstant()));
+            }
+            if (pagina.size() >= maximo) {
+                break;
+            }
+        }
+        return pagina;
+    }
+
+    /**
+     * Remove várias chaves numa requisição só; o removeObjects é preguiçoso e só executa ao
+     * percorrer os resultados, que trazem apenas as falhas. Percorre todos e devolve as chaves que
+     * falharam (vazio se todas saíram); quem chama tenta de novo só essas. Falha da requisição inteira
+     * (MinIO fora, por exemplo) continua saindo como exceção.
+     */
+    public List<String> deleteTodos(Collection<String> objectKeys) throws Exception {
+        if (objectKeys.isEmpty()) {
+            return List.of();
+        }
+        List<DeleteObject> objetos = new ArrayList<>(objectKeys.size());
+        for (String chave : objectKeys) {
+            urlsAssinadas.invalidate(chave);
+            objetos.add(new DeleteObject(chave));
+        }
+        List<String> falhas = new ArrayList<>();
+        for (Result<DeleteError> erro : internalClient.removeObjects(
+                RemoveObjectsArgs.builder()
+                        .bucket(props.bucket())
+                        .objects(objetos)
+                        .build()
+        )) {
+            falhas.add(erro.get().objectName());
+        }
+        return falhas;
+    }
+
+    /**
+     * URL GET assinada localmente ({@link AssinadorUrl}) e reaproveitada por chave de objeto até
+     * {@code margemUrl} antes de expirar, então quem a recebe ainda tem ao menos a margem para usá-la.
+     */
+    public String presignedGetUrl(String objectKey, int expirySeconds) {
+        UrlAssinada cacheada = urlsAssinadas.getIfPresent(objectKey);
+        if (cacheada != null && cacheada.expiracaoSegundos() == expirySeconds) {
+            return cacheada.url();
+        }
+
+        String url = assinador.assinarGet(objectKey, expirySeconds);
+        urlsAssinadas.put(objectKey, new UrlAssinada(url, expirySeconds));
+        return url;
+    }
+
+    private record UrlAssinada(String url, int expiracaoSegundos) {}
+
+    // cada entrada vive a validade da própria URL menos a margem
+    private record ValidadeUrl(Duration margem) implements Expiry<String, UrlAssinada> {
+
+        @Override
+        public long expireAfterCreate(String chave, UrlAssinada url, long agora) {
+            return Math.max(0, Duration.ofSeconds(url.expiracaoSegundos()).minus(margem).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String chave, UrlAssinada url, long agora, long restante) {
+            return expireAfterCreate(chave, url, agora);
+        }
+
+        @Override
+        public long expireAfterRead(String chave, UrlAssinada url, long agora, long restante) {
+            return restante;
+        }
     }
 
     private String extPorContentType(String contentType) {
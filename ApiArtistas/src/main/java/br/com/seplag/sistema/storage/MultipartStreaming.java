@@ -0,0 +1,376 @@
+package br.com.seplag.sistema.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Percorre as partes de arquivo de um multipart/form-data direto do corpo da requisição,
+ * sem o MultipartResolver gravar nada em memória/disco antes. Só /imagens/upload-stream usa esta leitura:
+ * o resolver da aplicação não trata essa rota como multipart (MultipartConfig), e ninguém pode chamar
+ * request.getParameter antes (no Tomcat isso dispara o parse completo do corpo).
+ * Os limites são os mesmos do multipart comum (spring.servlet.multipart.max-request-size e max-file-size),
+ * além do número de partes; estourar qualquer um, ou mandar um corpo malformado, vira {@link ArquivoInvalidoException}.
+ */
+public final class MultipartStreaming {
+
+    // RFC 2046: boundary tem até 70 caracteres; o buffer precisa conter o delimitador inteiro com folga
+    private static final int TAMANHO_BUFFER = 8192;
+    private static final int MAX_BYTES_CABECALHOS = 4096;
+
+    private MultipartStreaming() {}
+
+    public static Iterator<ArquivoStream> arquivos(HttpServletRequest request, String campo, int maxArquivos,
+                                                   long maxBytesRequisicao, long maxBytesArquivo) {
+        String contentType = request.getContentType();
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) {
+            throw new ArquivoInvalidoException("Requisição deve ser multipart/form-data");
+        }
+        String boundary = parametro(contentType, "boundary");
+        if (boundary == null || boundary.isEmpty() || boundary.length() > 70) {
+            throw new ArquivoInvalidoException("Multipart sem boundary válido");
+        }
+        try {
+            Corpo corpo = new Corpo(request.getInputStream(), boundary, maxBytesRequisicao);
+            return new Partes(corpo, campo, maxArquivos, maxBytesArquivo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ArquivoInvalidoException malformado() {
+        return new ArquivoInvalidoException("Multipart inválido ou acima dos limites: corpo malformado");
+    }
+
+    /**
+     * Valor de um parâmetro de cabeçalho ({@code nome=valor} ou {@code nome="valor"}), separado por ';'.
+     */
+    static String parametro(String cabecalho, String nome) {
+        for (String trecho : cabecalho.split(";")) {
+            int igual = trecho.indexOf('=');
+            if (igual < 0 || !trecho.substring(0, igual).trim().equalsIgnoreCase(nome)) {
+                continue;
+            }
+            String valor = trecho.substring(igual + 1).trim();
+            if (valor.length() >= 2 && valor.startsWith("\"") && valor.endsWith("\"")) {
+                valor = valor.substring(1, valor.length() - 1);
+            }
+            return valor;
+        }
+        return null;
+    }
+
+    /**
+     * Corpo da requisição com um buffer próprio: procura o delimitador ("\r\n--boundary") sem consumir
+     * além dele e conta os bytes lidos contra o limite da requisição.
+     */
+    private static final class Corpo {
+
+        private final InputStream in;
+        private final byte[] delimitador;
+        private final long maxBytes;
+        private final byte[] buffer = new byte[TAMANHO_BUFFER];
+        private int inicio;
+        private int fim;
+        private long lidos;
+        private boolean eof;
+
+        Corpo(InputStream in, String boundary, long maxBytes) {
+            this.in = in;
+            this.delimitador = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+            this.maxBytes = maxBytes;
+            // o primeiro delimitador não tem o CRLF na frente: começa como se o corpo o tivesse
+            buffer[0] = '\r';
+            buffer[1] = '\n';
+            fim = 2;
+        }
+
+        /**
+         * Garante ao menos {@code n} bytes no buffer, salvo no fim do corpo; devolve quantos há.
+         */
+        int garantir(int n) throws IOException {
+            while (fim - inicio < n && !eof) {
+                if (inicio > 0) {
+                    System.arraycopy(buffer, inicio, buffer, 0, fim - inicio);
+                    fim -= inicio;
+                    inicio = 0;
+                }
+                int r = in.read(buffer, fim, buffer.length - fim);
+                if (r < 0) {
+                    eof = true;
+                } else {
+                    lidos += r;
+                    if (maxBytes >= 0 && lidos > maxBytes) {
+                        throw new ArquivoInvalidoException("Requisição excede o limite de " + (maxBytes / (1024 * 1024)) + "MB");
+                    }
+                    fim += r;
+                }
+            }
+            return fim - inicio;
+        }
+
+        int indiceDelimitador() {
+            outer:
+            for (int i = inicio; i <= fim - delimitador.length; i++) {
+                for (int j = 0; j < delimitador.length; j++) {
+                    if (buffer[i + j] != delimitador[j]) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+
+        /**
+         * Lê da parte atual até o próximo delimitador (exclusive); -1 quando ele é alcançado,
+         * que fica no buffer para {@link #avancarDelimitador}.
+         */
+        int lerParte(byte[] b, int off, int len) throws IOException {
+            garantir(delimitador.length);
+            int indice = indiceDelimitador();
+            int disponivel;
+            if (indice >= 0) {
+                disponivel = indice - inicio;
+            } else {
+                // um delimitador pode começar nos últimos bytes: eles esperam a próxima leitura
+                disponivel = fim - inicio - (delimitador.length - 1);
+                if (disponivel <= 0) {
+                    if (eof) {
+                        throw malformado();
+                    }
+                    garantir(fim - inicio + 1);
+                    return lerParte(b, off, len);
+                }
+            }
+            if (disponivel == 0) {
+                return -1;
+            }
+            int n = Math.min(len, disponivel);
+            System.arraycopy(buffer, inicio, b, off, n);
+            inicio += n;
+            return n;
+        }
+
+        /**
+         * Consome o delimitador e o que o segue: true se vem outra parte, false no delimitador final ("--").
+         */
+        boolean avancarDelimitador() throws IOException {
+            if (garantir(delimitador.length + 2) < delimitador.length + 2 || indiceDelimitador() != inicio) {
+                throw malformado();
+            }
+            inicio += delimitador.length;
+            if (buffer[inicio] == '-' && buffer[inicio + 1] == '-') {
+                inicio += 2;
+                return false;
+            }
+            if (buffer[inicio] == '\r' && buffer[inicio + 1] == '\n') {
+                inicio += 2;
+                return true;
+            }
+            throw malformado();
+        }
+
+        /**
+         * Uma linha de cabeçalho da parte, sem o CRLF; vazia no fim dos cabeçalhos.
+         */
+        String linha(int restante) throws IOException {
+            for (int i = inicio; ; i++) {
+                if (i - inicio >= restante) {
+                    throw new ArquivoInvalidoException("Cabeçalhos da parte muito grandes");
+                }
+                if (i + 1 >= fim) {
+                    int antes = i - inicio;
+                    if (garantir(antes + 2) < antes + 2) {
+                        throw malformado();
+                    }
+                    i = inicio + antes;
+                }
+                if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+                    String linha = new String(buffer, inicio, i - inicio, StandardCharsets.UTF_8);
+                    inicio = i + 2;
+                    return linha;
+                }
+            }
+        }
+    }
+
+    private static final class Partes implements Iterator<ArquivoStream> {
+
+        private final Corpo corpo;
+        private final String campo;
+        private final int maxArquivos;
+        private final long maxBytesArquivo;
+        private Conteudo atual;
+        private ArquivoStream proxima;
+        private boolean iniciado;
+        private boolean terminado;
+        private int partes;
+
+        Partes(Corpo corpo, String campo, int maxArquivos, long maxBytesArquivo) {
+            this.corpo = corpo;
+            this.campo = campo;
+            this.maxArquivos = maxArquivos;
+            this.maxBytesArquivo = maxBytesArquivo;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (proxima != null) {
+                return true;
+            }
+            try {
+                // campos de formulário e partes de outros nomes são ignorados
+                while (avancar()) {
+                    // toda parte conta, mesmo as ignoradas
+                    if (++partes > maxArquivos) {
+                        throw new ArquivoInvalidoException("Máximo de " + maxArquivos + " arquivos por envio");
+                    }
+                    ArquivoStream parte = lerCabecalhos();
+                    if (parte != null) {
+                        proxima = parte;
+                        return true;
+                    }
+                }
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public ArquivoStream next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ArquivoStream parte = proxima;
+            proxima = null;
+            return parte;
+        }
+
+        /**
+         * Descarta o resto da parte anterior (e o preâmbulo, na primeira) e para no início da próxima.
+         */
+        private boolean avancar() throws IOException {
+            if (terminado) {
+                return false;
+            }
+            if (!iniciado) {
+                iniciado = true;
+                descartarParte();
+            } else if (atual != null) {
+                atual.descartar();
+                atual = null;
+            } else {
+                descartarParte();
+            }
+            if (!corpo.avancarDelimitador()) {
+                terminado = true;
+                return false;
+            }
+            return true;
+        }
+
+        private void descartarParte() throws IOException {
+            byte[] descarte = new byte[TAMANHO_BUFFER];
+            while (corpo.lerParte(descarte, 0, descarte.length) >= 0) {
+                // só avança até o delimitador
+            }
+        }
+
+        /**
+         * Lê os cabeçalhos da parte; devolve a parte se for um arquivo do campo pedido, senão null
+         * (o corpo dela é descartado no próximo avanço).
+         */
+        private ArquivoStream lerCabecalhos() throws IOException {
+            String disposicao = null;
+            String tipo = null;
+            int restante = MAX_BYTES_CABECALHOS;
+            for (String linha = corpo.linha(restante); !linha.isEmpty(); linha = corpo.linha(restante)) {
+                restante -= linha.length() + 2;
+                int doisPontos = linha.indexOf(':');
+                if (doisPontos < 0) {
+                    throw malformado();
+                }
+                String nome = linha.substring(0, doisPontos).trim();
+                String valor = linha.substring(doisPontos + 1).trim();
+                if (nome.equalsIgnoreCase("Content-Disposition")) {
+                    disposicao = valor;
+                } else if (nome.equalsIgnoreCase("Content-Type")) {
+                    tipo = valor;
+                }
+            }
+
+            if (disposicao == null) {
+                return null;
+            }
+            String nomeArquivo = parametro(disposicao, "filename");
+            if (nomeArquivo == null || !campo.equals(parametro(disposicao, "name"))) {
+                return null;
+            }
+            atual = new Conteudo(corpo, maxBytesArquivo);
+            return new ArquivoStream(nomeArquivo, tipo, atual);
+        }
+    }
+
+    /**
+     * Conteúdo de uma parte: termina no delimitador; passar de max-file-size vira {@link ArquivoInvalidoException}
+     * durante a leitura, já dentro do envio ao MinIO, para não virar falha de infraestrutura.
+     */
+    private static final class Conteudo extends InputStream {
+
+        private final Corpo corpo;
+        private final long maxBytes;
+        private long lidos;
+        private boolean terminado;
+
+        Conteudo(Corpo corpo, long maxBytes) {
+            this.corpo = corpo;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] um = new byte[1];
+            int n = read(um, 0, 1);
+            return n < 0 ? -1 : um[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (terminado) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            int n = corpo.lerParte(b, off, len);
+            if (n < 0) {
+                terminado = true;
+                return -1;
+            }
+            lidos += n;
+            if (maxBytes >= 0 && lidos > maxBytes) {
+                throw new ArquivoInvalidoException("Arquivo excede o limite de " + (maxBytes / (1024 * 1024)) + "MB");
+            }
+            return n;
+        }
+
+        void descartar() throws IOException {
+            byte[] descarte = new byte[TAMANHO_BUFFER];
+            while (!terminado) {
+                if (corpo.lerParte(descarte, 0, descarte.length) < 0) {
+                    terminado = true;
+                }
+            }
+        }
+    }
+}
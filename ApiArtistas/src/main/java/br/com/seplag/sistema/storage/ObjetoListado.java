@@ -0,0 +1,8 @@
+package br.com.seplag.sistema.storage;
+
+import java.time.Instant;
+
+public record ObjetoListado(
+        String chave,
+        Instant ultimaModificacao
+) {}
@@ -0,0 +1,169 @@
+package br.com.seplag.sistema.storage;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Gera versões reduzidas de uma imagem (JPEG/PNG/WebP de entrada, JPEG de saída) em Java2D puro.
+ * Só larguras menores que a do original são geradas; a maior imagem é reduzida por metades sucessivas
+ * (bilinear), o que mantém a qualidade perto da bicúbica a uma fração do custo.
+ */
+public class RedimensionadorImagem {
+
+    public static final String TIPO_SAIDA = "image/jpeg";
+
+    // protege contra "bombas" de descompressão: dimensão declarada no cabeçalho, checada antes de decodificar
+    private static final long MAX_PIXELS = 40_000_000L;
+
+    // lado da amostra para cor dominante e blurhash
+    private static final int LARGURA_AMOSTRA = 32;
+
+    private final float qualidade;
+
+    public RedimensionadorImagem(float qualidade) {
+        this.qualidade = qualidade;
+    }
+
+    public record Derivado(int largura, byte[] conteudo) {}
+
+    /**
+     * Derivados gerados mais o que a listagem devolve do original: dimensões, cor dominante ("#rrggbb")
+     * e blurhash. Cor e blurhash saem de uma amostra de {@value #LARGURA_AMOSTRA}px tirada da menor redução,
+     * então custam pouco perto da decodificação.
+     */
+    public record Processamento(int largura, int altura, String corDominante, String blurhash, List<Derivado> derivados) {}
+
+    public Processamento processar(InputStream original, List<Integer> larguras) throws IOException {
+        BufferedImage imagem = ler(original);
+
+        List<Derivado> derivados = new ArrayList<>();
+        BufferedImage atual = imagem;
+        // da maior para a menor: cada redução parte da anterior
+        for (int largura : larguras.stream().distinct().sorted((a, b) -> b - a).toList()) {
+            if (largura >= imagem.getWidth()) {
+                continue;
+            }
+            atual = reduzir(atual, largura);
+            derivados.add(new Derivado(largura, jpeg(atual)));
+        }
+        Collections.reverse(derivados);
+
+        BufferedImage amostra = reduzir(atual, Math.min(LARGURA_AMOSTRA, atual.getWidth()));
+        boolean paisagem = imagem.getWidth() >= imagem.getHeight();
+        return new Processamento(
+                imagem.getWidth(),
+                imagem.getHeight(),
+                corDominante(amostra),
+                Blurhash.codificar(amostra, paisagem ? 4 : 3, paisagem ? 3 : 4),
+                derivados
+        );
+    }
+
+    private static BufferedImage ler(InputStream original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original)) {
+            Iterator<ImageReader> leitores = ImageIO.getImageReaders(in);
+            if (!leitores.hasNext()) {
+                throw new IOException("Formato de imagem não suportado");
+            }
+            ImageReader leitor = leitores.next();
+            try {
+                leitor.setInput(in, true, true);
+                long pixels = (long) leitor.getWidth(0) * leitor.getHeight(0);
+                if (pixels > MAX_PIXELS) {
+                    throw new IOException("Imagem grande demais para redimensionar: " + pixels + " pixels");
+                }
+                ImageReadParam param = leitor.getDefaultReadParam();
+                return leitor.read(0, param);
+            } finally {
+                leitor.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage reduzir(BufferedImage origem, int largura) {
+        BufferedImage atual = origem;
+        int w = origem.getWidth();
+        int h = origem.getHeight();
+        int alturaFinal = Math.max(1, Math.round((float) origem.getHeight() * largura / origem.getWidth()));
+
+        do {
+            w = Math.max(largura, w / 2);
+            h = (w == largura) ? alturaFinal : Math.max(alturaFinal, h / 2);
+            atual = desenhar(atual, w, h);
+        } while (w > largura);
+
+        return atual;
+    }
+
+    // sempre RGB sem alfa: JPEG não tem transparência, então o fundo vira branco
+    private static BufferedImage desenhar(BufferedImage origem, int w, int h) {
+        BufferedImage destino = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, w, h);
+            g.drawImage(origem, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+    /**
+     * Média dos pixels da faixa mais populosa de um histograma com 4 bits por canal: a cor que mais aparece,
+     * não a média da imagem inteira (que tende ao cinza).
+     */
+    private static String corDominante(BufferedImage amostra) {
+        int[] pixels = amostra.getRGB(0, 0, amostra.getWidth(), amostra.getHeight(), null, 0, amostra.getWidth());
+        int[] contagem = new int[4096];
+        long[][] somas = new long[4096][3];
+        int maior = 0;
+        for (int rgb : pixels) {
+            int r = (rgb >> 16) & 0xFF, g = (rgb >> 8) & 0xFF, b = rgb & 0xFF;
+            int faixa = ((r >> 4) << 8) | ((g >> 4) << 4) | (b >> 4);
+            contagem[faixa]++;
+            somas[faixa][0] += r;
+            somas[faixa][1] += g;
+            somas[faixa][2] += b;
+            if (contagem[faixa] > contagem[maior]) {
+                maior = faixa;
+            }
+        }
+        int n = contagem[maior];
+        return String.format("#%02x%02x%02x", somas[maior][0] / n, somas[maior][1] / n, somas[maior][2] / n);
+    }
+
+    private byte[] jpeg(BufferedImage imagem) throws IOException {
+        ImageWriter escritor = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = escritor.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(qualidade);
+            escritor.setOutput(ios);
+            escritor.write(null, new IIOImage(imagem, null, null), param);
+        } finally {
+            escritor.dispose();
+        }
+        return out.toByteArray();
+    }
+}
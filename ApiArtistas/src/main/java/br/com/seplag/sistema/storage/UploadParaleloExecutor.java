@@ -0,0 +1,151 @@
+package br.com.seplag.sistema.storage;
+
+import br.com.seplag.sistema.exception.ServicoSobrecarregadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+/**
+ * Executa envios ao storage em paralelo com dois limites: o pool global (threads dedicadas,
+ * compartilhadas por todas as requisições) e um semáforo por chamada, para uma requisição
+ * com muitos arquivos não ocupar o pool inteiro. A fila do pool também é limitada: cada item
+ * enfileirado segura a parte multipart (memória ou arquivo temporário) da sua requisição, então
+ * com a fila cheia o envio é recusado na hora com {@link ServicoSobrecarregadoException} (503).
+ */
+@Component
+public class UploadParaleloExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final int porRequisicao;
+
+    private final Timer duracao;
+    private final DistributionSummary bytes;
+    private final DistributionSummary vazao;
+    private final Counter recusadas;
+
+    public UploadParaleloExecutor(
+            @Value("${app.upload.concorrencia-global:16}") int global,
+            @Value("${app.upload.concorrencia-por-requisicao:4}") int porRequisicao,
+            @Value("${app.upload.fila:64}") int fila,
+            MeterRegistry registry
+    ) {
+        int threads = Math.max(1, global);
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, fila)), r -> {
+            Thread t = new Thread(r, "upload-imagem-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.porRequisicao = Math.max(1, porRequisicao);
+
+        this.duracao = Timer.builder("upload.imagem.duracao").register(registry);
+        this.bytes = DistributionSummary.builder("upload.imagem.bytes").baseUnit("bytes").register(registry);
+        this.vazao = DistributionSummary.builder("upload.lote.vazao").baseUnit("bytes/s").register(registry);
+        this.recusadas = Counter.builder("upload.imagem.recusadas").register(registry);
+        Gauge.builder("upload.imagem.ativos", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+        Gauge.builder("upload.imagem.fila", executor, e -> e.getQueue().size()).register(registry);
+    }
+
+    /**
+     * Aplica {@code tarefa} a cada item em paralelo e devolve os resultados na ordem dos itens.
+     * Na primeira falha nenhum item novo é iniciado; os que já estavam em andamento terminam
+     * antes de a exceção ser relançada, para o chamador compensar tudo o que foi enviado.
+     * Se a fila global estiver cheia o mesmo vale, com {@link ServicoSobrecarregadoException}.
+     */
+    public <T, R> List<R> executar(List<T> itens, ToLongFunction<T> tamanho, Tarefa<T, R> tarefa) throws Exception {
+        if (itens.isEmpty()) {
+            return List.of();
+        }
+
+        Semaphore vagas = new Semaphore(porRequisicao);
+        AtomicBoolean falhou = new AtomicBoolean();
+        List<Future<R>> futuros = new ArrayList<>(itens.size());
+        long inicio = System.nanoTime();
+        Exception primeiraFalha = null;
+
+        for (T item : itens) {
+            vagas.acquire();
+            if (falhou.get()) {
+                vagas.release();
+                break;
+            }
+            Future<R> futuro;
+            try {
+                futuro = executor.submit(() -> {
+                    try {
+                        if (falhou.get()) {
+                            return null;
+                        }
+                        long t0 = System.nanoTime();
+                        R r = tarefa.executar(item);
+                        duracao.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+                        bytes.record(tamanho.applyAsLong(item));
+                        return r;
+                    } catch (Exception e) {
+                        falhou.set(true);
+                        throw e;
+                    } finally {
+                        vagas.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                vagas.release();
+                falhou.set(true);
+                recusadas.increment();
+                primeiraFalha = new ServicoSobrecarregadoException("Muitos envios de imagens simultâneos; tente novamente em instantes");
+                break;
+            }
+            futuros.add(futuro);
+        }
+
+        List<R> resultados = new ArrayList<>(itens.size());
+        for (Future<R> f : futuros) {
+            try {
+                resultados.add(f.get());
+            } catch (ExecutionException e) {
+                if (primeiraFalha == null) {
+                    primeiraFalha = e.getCause() instanceof Exception c ? c : e;
+                }
+            }
+        }
+        if (primeiraFalha != null) {
+            throw primeiraFalha;
+        }
+
+        long total = itens.stream().mapToLong(tamanho).sum();
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+        if (segundos > 0) {
+            vazao.record(total / segundos);
+        }
+        return resultados;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    @FunctionalInterface
+    public interface Tarefa<T, R> {
+        R executar(T item) throws Exception;
+    }
+}
@@ -1,8 +1,6 @@
 package br.com.seplag.sistema.websocket;
 
 import br.com.seplag.sistema.security.JwtService;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import org.springframework.messaging.*;
 import org.springframework.messaging.simp.stomp.*;
 import org.springframework.messaging.support.ChannelInterceptor;
@@ -40,10 +38,10 @@ public class StompAuthChannelInterceptor implements ChannelInterceptor {
 
             String token = auth.substring("Bearer ".length()).trim();
 
-            Jws<Claims> claims = jwtService.validar(token);
+            JwtService.TokenValidado validado = jwtService.autenticar(token);
 
-            Long userId = Long.valueOf(claims.getBody().getSubject());
-            String papel = claims.getBody().get("papel", String.class);
+            Long userId = Long.valueOf(validado.usuario());
+            String papel = validado.papel();
 
             Principal principal = new StompPrincipal(userId.toString());
 
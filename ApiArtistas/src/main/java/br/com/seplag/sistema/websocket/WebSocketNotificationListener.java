@@ -15,7 +15,8 @@ public class WebSocketNotificationListener {
         this.messaging = messaging;
     }
 
-    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    // fora de transação (ex.: falha de envio ao MinIO, que não abre transação) entrega na hora
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
     public void onAfterCommit(DomainNotificationEvent event) {
         // broadcast
         messaging.convertAndSend("/topic/notifications", event.notification());
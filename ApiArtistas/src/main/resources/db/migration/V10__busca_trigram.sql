@@ -0,0 +1,20 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent() é STABLE; o wrapper IMMUTABLE (dicionário fixo) permite usá-lo em índices de expressão
+CREATE OR REPLACE FUNCTION normalizar_busca(texto TEXT)
+    RETURNS TEXT
+    LANGUAGE sql
+    IMMUTABLE PARALLEL SAFE STRICT
+AS $$
+    SELECT lower(public.unaccent('public.unaccent'::regdictionary, texto))
+$$;
+
+CREATE INDEX ix_albuns_titulo_trgm
+    ON albuns USING gin (normalizar_busca(titulo) gin_trgm_ops);
+
+CREATE INDEX ix_artistas_nome_trgm
+    ON artistas USING gin (normalizar_busca(nome) gin_trgm_ops);
+
+CREATE INDEX ix_artistas_genero_normalizado
+    ON artistas(normalizar_busca(genero));
@@ -0,0 +1,40 @@
+-- Contador de álbuns por artista mantido por trigger em artistas_albuns,
+-- substituindo o LEFT JOIN + GROUP BY + COUNT(DISTINCT) da listagem
+ALTER TABLE artistas
+    ADD COLUMN qtd_albuns BIGINT NOT NULL DEFAULT 0;
+
+UPDATE artistas a
+SET qtd_albuns = c.qtd
+FROM (
+    SELECT artista_id, COUNT(*) AS qtd
+    FROM artistas_albuns
+    GROUP BY artista_id
+) c
+WHERE c.artista_id = a.id;
+
+CREATE OR REPLACE FUNCTION atualizar_qtd_albuns_artista()
+    RETURNS TRIGGER
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        UPDATE artistas SET qtd_albuns = qtd_albuns - 1 WHERE id = OLD.artista_id;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        UPDATE artistas SET qtd_albuns = qtd_albuns + 1 WHERE id = NEW.artista_id;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER tg_artistas_albuns_qtd_albuns
+    AFTER INSERT OR DELETE OR UPDATE OF artista_id ON artistas_albuns
+    FOR EACH ROW
+    EXECUTE FUNCTION atualizar_qtd_albuns_artista();
+
+-- um índice (coluna, id) por ordenação da listagem; (nome, id) já existe (V9)
+CREATE INDEX ix_artistas_qtd_albuns_id
+    ON artistas(qtd_albuns, id);
+
+CREATE INDEX ix_artistas_genero_id
+    ON artistas(genero, id);
@@ -0,0 +1,6 @@
+-- Ids de artistas, álbuns e imagens passam a vir da sequence com otimizador pooled do Hibernate
+-- (allocationSize = 50), o que libera o batch de INSERT que o IDENTITY desabilitava.
+-- O DEFAULT nextval() das colunas continua valendo para inserts feitos fora da aplicação.
+ALTER SEQUENCE artistas_id_seq INCREMENT BY 50;
+ALTER SEQUENCE albuns_id_seq INCREMENT BY 50;
+ALTER SEQUENCE imagens_albuns_id_seq INCREMENT BY 50;
@@ -0,0 +1,56 @@
+-- Versão por coleção para ETag/Last-Modified das listagens: incrementada por trigger de statement
+-- na mesma transação da escrita, então só fica visível junto com os dados alterados
+CREATE TABLE versoes_colecoes (
+    colecao VARCHAR(50) PRIMARY KEY,
+    versao BIGINT NOT NULL DEFAULT 0,
+    atualizado_em TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+INSERT INTO versoes_colecoes (colecao) VALUES ('artistas'), ('albuns');
+
+CREATE OR REPLACE FUNCTION incrementar_versao_colecao()
+    RETURNS TRIGGER
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    -- TG_ARGV: coleções afetadas pela tabela do trigger
+    UPDATE versoes_colecoes
+    SET versao = versao + 1,
+        atualizado_em = clock_timestamp()
+    WHERE colecao = ANY (TG_ARGV);
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER tg_artistas_versao
+    AFTER INSERT OR UPDATE OR DELETE ON artistas
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION incrementar_versao_colecao('artistas');
+
+CREATE TRIGGER tg_albuns_versao
+    AFTER INSERT OR UPDATE OR DELETE ON albuns
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION incrementar_versao_colecao('albuns');
+
+-- artistasIds da listagem de álbuns e qtd_albuns da de artistas
+CREATE TRIGGER tg_artistas_albuns_versao
+    AFTER INSERT OR UPDATE OR DELETE ON artistas_albuns
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION incrementar_versao_colecao('artistas', 'albuns');
+
+-- Remover um artista apaga (em cascata) seus vínculos sem passar pelo álbum:
+-- atualiza albuns.atualizado_em para o ETag do álbum mudar junto com artistasIds
+CREATE OR REPLACE FUNCTION tocar_album_vinculo_removido()
+    RETURNS TRIGGER
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    UPDATE albuns SET atualizado_em = clock_timestamp() WHERE id = OLD.album_id;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER tg_artistas_albuns_tocar_album
+    AFTER DELETE ON artistas_albuns
+    FOR EACH ROW
+    EXECUTE FUNCTION tocar_album_vinculo_removido();
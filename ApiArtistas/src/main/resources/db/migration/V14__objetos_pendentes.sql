@@ -0,0 +1,17 @@
+-- Diário de objetos do MinIO cujo metadado ainda não foi confirmado em imagens_albuns.
+-- A chave entra antes do envio (ou junto com a remoção da linha, na exclusão) e sai na mesma
+-- transação que grava o metadado; o que sobra depois da carência é apagado pela varredura.
+-- confirmado_em (envio direto): a confirmação marca a chave de envio antes de copiar o objeto para a chave
+-- definitiva, e só uma confirmação por chave passa; a linha continua até a varredura apagar o objeto de envio
+CREATE TABLE objetos_pendentes (
+    chave_objeto VARCHAR(500) PRIMARY KEY,
+    criado_em TIMESTAMP NOT NULL DEFAULT NOW(),
+    confirmado_em TIMESTAMP
+);
+
+CREATE INDEX ix_objetos_pendentes_criado_em
+    ON objetos_pendentes(criado_em);
+
+-- a varredura confere se a chave já tem metadado antes de apagar o objeto
+CREATE INDEX ix_imagens_albuns_chave_objeto
+    ON imagens_albuns(chave_objeto);
@@ -0,0 +1,63 @@
+-- Versões redimensionadas das imagens (miniaturas), gravadas no MinIO ao lado do original
+CREATE TABLE derivados_imagens (
+    id BIGSERIAL PRIMARY KEY,
+    imagem_id BIGINT NOT NULL,
+    largura INT NOT NULL,
+    chave_objeto VARCHAR(500) NOT NULL,
+    tipo_conteudo VARCHAR(100) NOT NULL,
+    tamanho_bytes BIGINT NOT NULL,
+    criado_em TIMESTAMP NOT NULL DEFAULT NOW(),
+
+    CONSTRAINT fk_derivados_imagens_imagem
+        FOREIGN KEY (imagem_id)
+        REFERENCES imagens_albuns(id)
+        ON DELETE CASCADE
+);
+
+CREATE UNIQUE INDEX ux_derivados_imagens_imagem_largura
+    ON derivados_imagens(imagem_id, largura);
+
+CREATE INDEX ix_derivados_imagens_chave_objeto
+    ON derivados_imagens(chave_objeto);
+
+-- mesmo otimizador pooled das demais entidades (V12)
+ALTER SEQUENCE derivados_imagens_id_seq INCREMENT BY 50;
+
+-- Fila persistente de geração: uma tarefa por imagem, criada na mesma transação do INSERT da imagem.
+-- O worker reserva tarefas empurrando proxima_tentativa (lease); se o processo cair no meio,
+-- a tarefa volta a ficar disponível quando o lease vence
+CREATE TABLE tarefas_derivados (
+    imagem_id BIGINT PRIMARY KEY,
+    tentativas INT NOT NULL DEFAULT 0,
+    proxima_tentativa TIMESTAMP NOT NULL DEFAULT NOW(),
+    ultimo_erro VARCHAR(1000),
+    criado_em TIMESTAMP NOT NULL DEFAULT NOW(),
+
+    CONSTRAINT fk_tarefas_derivados_imagem
+        FOREIGN KEY (imagem_id)
+        REFERENCES imagens_albuns(id)
+        ON DELETE CASCADE
+);
+
+CREATE INDEX ix_tarefas_derivados_proxima_tentativa
+    ON tarefas_derivados(proxima_tentativa);
+
+CREATE OR REPLACE FUNCTION enfileirar_derivados()
+    RETURNS TRIGGER
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    INSERT INTO tarefas_derivados (imagem_id) VALUES (NEW.id)
+    ON CONFLICT (imagem_id) DO NOTHING;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER tg_imagens_albuns_enfileirar_derivados
+    AFTER INSERT ON imagens_albuns
+    FOR EACH ROW
+    EXECUTE FUNCTION enfileirar_derivados();
+
+-- imagens que já existiam também ganham miniaturas
+INSERT INTO tarefas_derivados (imagem_id)
+SELECT id FROM imagens_albuns;
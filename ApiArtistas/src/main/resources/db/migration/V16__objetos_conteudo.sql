@@ -0,0 +1,40 @@
+-- Objetos endereçados por conteúdo (conteudo/{sha256[0:2]}/{sha256}.ext), compartilhados entre imagens.
+-- referencias conta as linhas de imagens_albuns que apontam para a chave e é mantido por trigger;
+-- com zero referências o objeto fica até a carência vencer (reenvio do mesmo arquivo reaproveita)
+-- e então a varredura apaga o objeto, os derivados e a linha
+CREATE TABLE objetos_conteudo (
+    chave_objeto VARCHAR(500) PRIMARY KEY,
+    referencias INT NOT NULL DEFAULT 0,
+    atualizado_em TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX ix_objetos_conteudo_sem_referencias
+    ON objetos_conteudo(atualizado_em)
+    WHERE referencias = 0;
+
+CREATE OR REPLACE FUNCTION atualizar_referencias_objeto()
+    RETURNS TRIGGER
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    -- chaves fora de objetos_conteudo (envios antigos, envio direto) não têm linha e o UPDATE não faz nada
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        UPDATE objetos_conteudo
+        SET referencias = referencias - 1,
+            atualizado_em = NOW()
+        WHERE chave_objeto = OLD.chave_objeto;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        UPDATE objetos_conteudo
+        SET referencias = referencias + 1,
+            atualizado_em = NOW()
+        WHERE chave_objeto = NEW.chave_objeto;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER tg_imagens_albuns_referencias_objeto
+    AFTER INSERT OR DELETE OR UPDATE OF chave_objeto ON imagens_albuns
+    FOR EACH ROW
+    EXECUTE FUNCTION atualizar_referencias_objeto();
@@ -0,0 +1,12 @@
+-- Metadados para o cliente montar a grade sem baixar as imagens: dimensões (lidas do cabeçalho no envio)
+-- e cor dominante/blurhash (calculadas pelo worker de derivados, que já decodifica o original)
+ALTER TABLE imagens_albuns
+    ADD COLUMN largura INT,
+    ADD COLUMN altura INT,
+    ADD COLUMN cor_dominante VARCHAR(7),
+    ADD COLUMN blurhash VARCHAR(100);
+
+-- imagens que já existiam voltam para a fila; como já têm derivados, o worker só preenche os metadados
+INSERT INTO tarefas_derivados (imagem_id)
+SELECT id FROM imagens_albuns
+ON CONFLICT (imagem_id) DO NOTHING;
@@ -0,0 +1,14 @@
+-- Access tokens revogados no logout, pelo jti do JWT. Cada nó copia as linhas novas (revogado_em) para a
+-- lista em memória consultada a cada requisição; a linha só serve até o token expirar e depois é apagada.
+-- Instantes (timestamptz) comparados com now(): não dependem do fuso de cada sessão
+CREATE TABLE tokens_revogados (
+    jti UUID PRIMARY KEY,
+    expira_em TIMESTAMPTZ NOT NULL,
+    revogado_em TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX ix_tokens_revogados_revogado_em
+    ON tokens_revogados(revogado_em);
+
+CREATE INDEX ix_tokens_revogados_expira_em
+    ON tokens_revogados(expira_em);
@@ -0,0 +1,10 @@
+-- O login compara lower(email)/lower(nome) com lower(:login); o índice único em email era sensível a
+-- maiúsculas e não servia a essa comparação. O único em lower(email) cobre também o caso exato, então o antigo sai.
+-- (o cadastro já recusava e-mail repetido ignorando maiúsculas, então não há duplicatas para a criação falhar)
+CREATE UNIQUE INDEX ux_usuarios_email_lower
+    ON usuarios(lower(email));
+
+DROP INDEX IF EXISTS ux_usuarios_email;
+
+CREATE INDEX ix_usuarios_nome_lower
+    ON usuarios(lower(nome));
@@ -0,0 +1,6 @@
+-- Estado dos buckets do rate limit com app.ratelimit.backend=postgres: uma linha por usuário, gravada pelo
+-- bucket4j (estado serializado), com lock consultivo na chave durante a atualização
+CREATE TABLE buckets_rate_limit (
+    id VARCHAR(255) PRIMARY KEY,
+    estado BYTEA
+);
@@ -0,0 +1,9 @@
+-- Índices compostos (chave de ordenação, id) para a paginação por cursor (seek)
+CREATE INDEX ix_albuns_titulo_id
+    ON albuns(titulo, id);
+
+CREATE INDEX ix_albuns_data_lancamento_id
+    ON albuns(data_lancamento, id);
+
+CREATE INDEX ix_artistas_nome_id
+    ON artistas(nome, id);
@@ -0,0 +1,46 @@
+import br.com.seplag.sistema.erp.model.dto.AlbumDto;
+import br.com.seplag.sistema.erp.model.dto.AlbumLoteDto;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AlbumDtoValidacaoTest {
+
+    static ValidatorFactory fabrica;
+    static Validator validator;
+
+    @BeforeAll
+    static void montar() {
+        fabrica = Validation.buildDefaultValidatorFactory();
+        validator = fabrica.getValidator();
+    }
+
+    @AfterAll
+    static void encerrar() {
+        fabrica.close();
+    }
+
+    @Test
+    void lote_quandoIdDeArtistaNulo_deveSerInvalidoAntesDoServico() {
+        var item = new AlbumDto(null, "Álbum", null, Arrays.asList(1L, null));
+
+        var violacoes = validator.validate(new AlbumLoteDto(List.of(item)));
+
+        // vira 400 (MethodArgumentNotValidException) em vez do NPE do Collectors.toSet/findAllById
+        assertThat(violacoes).singleElement()
+                .satisfies(v -> assertThat(v.getPropertyPath().toString()).startsWith("itens[0].artistasIds[1]"));
+    }
+
+    @Test
+    void album_quandoIdsValidos_naoDeveTerViolacoes() {
+        assertThat(validator.validate(new AlbumDto(null, "Álbum", null, List.of(1L, 2L)))).isEmpty();
+    }
+}
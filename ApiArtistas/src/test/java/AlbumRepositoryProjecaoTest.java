@@ -0,0 +1,117 @@
+import br.com.seplag.sistema.ApiArtistasApplication;
+import br.com.seplag.sistema.erp.model.Album;
+import br.com.seplag.sistema.erp.model.Artista;
+import br.com.seplag.sistema.erp.model.dto.AlbumDto;
+import br.com.seplag.sistema.erp.repository.AlbumRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Conta as instruções SQL da leitura projetada de álbuns contra um Postgres real
+ * (as consultas usam string_agg e normalizar_busca da V10). Ignorado sem Docker.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ContextConfiguration(classes = ApiArtistasApplication.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class AlbumRepositoryProjecaoTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired AlbumRepository albumRepository;
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory emf;
+
+    Statistics stats;
+
+    @BeforeEach
+    void popular() {
+        List<Artista> artistas = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Artista a = new Artista();
+            a.setNome("Artista " + i);
+            a.setGenero("Rock");
+            em.persist(a);
+            artistas.add(a);
+        }
+
+        for (int i = 0; i < 60; i++) {
+            Album al = new Album();
+            al.setTitulo(String.format("Álbum %03d", i));
+            al.setDataLancamento(LocalDate.of(2000, 1, 1).plusDays(i));
+            al.setArtistas(new ArrayList<>(List.of(artistas.get(i % 5), artistas.get((i + 1) % 5))));
+            em.persist(al);
+        }
+
+        em.flush();
+        em.clear();
+
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void listarProjetado_deveExecutarSoPaginaECount() {
+        Page<AlbumDto> page = albumRepository.listarProjetado(null, "", PageRequest.of(0, 50, Sort.by("titulo")));
+
+        assertThat(page.getContent()).hasSize(50);
+        assertThat(page.getTotalElements()).isEqualTo(60);
+        assertThat(page.getContent()).allSatisfy(a -> assertThat(a.artistasIds()).hasSize(2));
+
+        // 1 página + 1 count, sem N+1 em artistas e sem entidades gerenciadas
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(stats.getEntityLoadCount()).isZero();
+        assertThat(stats.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void listarProjetado_comSortForaDoCursor_deveOrdenarPelaColuna() {
+        Page<AlbumDto> page = albumRepository.listarProjetado(null, "",
+                PageRequest.of(1, 5, Sort.by("criadoEm")));
+
+        assertThat(page.getContent()).hasSize(5);
+        assertThat(page.getContent().get(0).titulo()).isEqualTo("Álbum 005");
+    }
+
+    @Test
+    void buscarProjetadoPorId_deveExecutarUmaInstrucao() {
+        Long id = albumRepository.listarProjetado(null, "", PageRequest.of(0, 1)).getContent().get(0).id();
+        stats.clear();
+
+        AlbumDto dto = albumRepository.buscarProjetadoPorId(id).orElseThrow();
+
+        assertThat(dto.artistasIds()).hasSize(2);
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(stats.getEntityLoadCount()).isZero();
+    }
+}
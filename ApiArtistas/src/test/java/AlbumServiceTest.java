@@ -2,18 +2,25 @@
 import br.com.seplag.sistema.erp.model.Album;
 import br.com.seplag.sistema.erp.model.Artista;
 import br.com.seplag.sistema.erp.model.dto.AlbumDto;
+import br.com.seplag.sistema.erp.model.dto.VersaoRecursoDto;
 import br.com.seplag.sistema.erp.repository.AlbumRepository;
 import br.com.seplag.sistema.erp.repository.ArtistaRepository;
+import br.com.seplag.sistema.erp.repository.Keyset;
 import br.com.seplag.sistema.erp.service.AlbumService;
+import br.com.seplag.sistema.erp.service.EntidadesCache;
 import br.com.seplag.sistema.erp.service.ImagemAlbumService;
 import br.com.seplag.sistema.exception.RecursoNaoEncontradoException;
+import br.com.seplag.sistema.exception.RequisicaoInvalidaException;
 import br.com.seplag.sistema.websocket.NotificationPublisher;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.data.domain.*;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -28,6 +35,8 @@ class AlbumServiceTest {
     @Mock ArtistaRepository artistaRepository;
     @Mock
     ImagemAlbumService imagemAlbumService;
+    @Spy
+    EntidadesCache cache = new EntidadesCache(new ConcurrentMapCacheManager(EntidadesCache.ALBUNS));
 
     @InjectMocks
     AlbumService service;
@@ -35,6 +44,9 @@ class AlbumServiceTest {
     @Mock
     NotificationPublisher notifications;
 
+    @Mock
+    PlatformTransactionManager transactionManager;
+
     @Test
     void criar_deveSalvarAlbumComArtistas() {
         var dto = new AlbumDto(null, "Alucinação", LocalDate.of(1976, 1, 1), List.of(1L, 2L));
@@ -73,23 +85,88 @@ class AlbumServiceTest {
         verify(albumRepository, never()).save(any());
     }
 
+    @Test
+    void criarEmLote_deveValidarArtistasUmaVezESalvarTudoJunto() {
+        var d1 = new AlbumDto(null, "A", null, List.of(1L, 2L));
+        var d2 = new AlbumDto(null, "B", null, List.of(2L));
+
+        var a1 = new Artista(); a1.setId(1L);
+        var a2 = new Artista(); a2.setId(2L);
+
+        when(artistaRepository.findAllById(anyIterable())).thenReturn(List.of(a1, a2));
+        when(albumRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        var out = service.criarEmLote(List.of(d1, d2));
+
+        assertThat(out).extracting(AlbumDto::titulo).containsExactly("A", "B");
+        assertThat(out.get(0).artistasIds()).containsExactlyInAnyOrder(1L, 2L);
+        verify(artistaRepository, times(1)).findAllById(anyIterable());
+        verify(albumRepository, never()).save(any());
+        verify(notifications, times(1)).publish(any());
+    }
+
+    @Test
+    void criarEmLote_quandoAlgumArtistaNaoExiste_deveLancarSemSalvar() {
+        var d1 = new AlbumDto(null, "A", null, List.of(1L, 9L));
+        var a1 = new Artista(); a1.setId(1L);
+
+        when(artistaRepository.findAllById(anyIterable())).thenReturn(List.of(a1));
+
+        assertThatThrownBy(() -> service.criarEmLote(List.of(d1)))
+                .isInstanceOf(RecursoNaoEncontradoException.class)
+                .hasMessageContaining("[9]");
+
+        verify(albumRepository, never()).saveAll(any());
+    }
+
     @Test
     void listar_quandoArtistaIdsVazio_devePassarNullProRepo() {
         Pageable pageable = PageRequest.of(0, 10);
 
-        when(albumRepository.buscarComFiltro(isNull(), eq("t"), eq(pageable)))
+        when(albumRepository.listarProjetado(isNull(), eq("t"), eq(pageable)))
                 .thenReturn(new PageImpl<>(List.of()));
 
         service.listar(List.of(), "t", pageable);
 
-        verify(albumRepository).buscarComFiltro(isNull(), eq("t"), eq(pageable));
+        verify(albumRepository).listarProjetado(isNull(), eq("t"), eq(pageable));
+    }
+
+    @Test
+    void listarPorCursor_quandoVemLinhaExtra_deveGerarProximoCursor() {
+        var a1 = new AlbumDto(1L, "A", null, List.of());
+        var a2 = new AlbumDto(2L, "B", null, List.of());
+        var a3 = new AlbumDto(3L, "C", null, List.of());
+
+        when(albumRepository.buscarComFiltroPorCursor(isNull(), eq(""), eq("titulo"), eq(true), isNull(), eq(3)))
+                .thenReturn(List.of(a1, a2, a3));
+
+        var out = service.listarPorCursor(List.of(), "", PageRequest.of(0, 2, Sort.by("titulo")), null);
+
+        assertThat(out.conteudo()).extracting(AlbumDto::id).containsExactly(1L, 2L);
+        assertThat(out.temProximo()).isTrue();
+
+        var cursor = Keyset.decode(out.proximoCursor());
+        assertThat(cursor.campo()).isEqualTo("titulo");
+        assertThat(cursor.asc()).isTrue();
+        assertThat(cursor.valor()).isEqualTo("B");
+        assertThat(cursor.id()).isEqualTo(2L);
+    }
+
+    @Test
+    void listarPorCursor_quandoCursorDeOutraOrdenacao_deveLancar400() {
+        String after = new Keyset("id", true, null, 5L).encode();
+
+        assertThatThrownBy(() -> service.listarPorCursor(null, "", PageRequest.of(0, 2, Sort.by("titulo")), after))
+                .isInstanceOf(RequisicaoInvalidaException.class);
+
+        verify(albumRepository, never()).buscarComFiltroPorCursor(any(), any(), any(), anyBoolean(), any(), anyInt());
     }
 
     @Test
     void buscarPorId_quandoNaoExiste_deveLancar404() {
-        when(albumRepository.findById(9L)).thenReturn(Optional.empty());
+        when(albumRepository.buscarProjetadoPorId(9L)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> service.buscarPorId(9L))
+        assertThatThrownBy(() -> service.buscarPorId(9L, new VersaoRecursoDto("album-9-1", Instant.EPOCH)))
                 .isInstanceOf(RecursoNaoEncontradoException.class)
                 .hasMessageContaining("Álbum não encontrado: 9");
     }
@@ -106,18 +183,17 @@ class AlbumServiceTest {
         var a1 = new Artista(); a1.setId(10L);
         when(artistaRepository.findAllById(List.of(10L))).thenReturn(List.of(a1));
 
-        var salvo = new Album();
-        salvo.setId(1L);
-        salvo.setTitulo("Novo");
-        salvo.setDataLancamento(LocalDate.of(2020, 1, 1));
-        salvo.setArtistas(List.of(a1));
-
-        when(albumRepository.save(any(Album.class))).thenReturn(salvo);
+        when(albumRepository.buscarProjetadoPorId(1L))
+                .thenReturn(Optional.of(new AlbumDto(1L, "Novo", LocalDate.of(2020, 1, 1), List.of(10L))));
 
         var out = service.atualizar(1L, new AlbumDto(null, "Novo", LocalDate.of(2020,1,1), List.of(10L)));
 
         assertThat(out.titulo()).isEqualTo("Novo");
         assertThat(out.artistasIds()).containsExactly(10L);
+
+        verify(albumRepository).saveAndFlush(existente);
+        assertThat(existente.getTitulo()).isEqualTo("Novo");
+        assertThat(existente.getArtistas()).containsExactly(a1);
     }
 
     @Test
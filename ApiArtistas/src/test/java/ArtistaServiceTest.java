@@ -2,16 +2,22 @@
 import br.com.seplag.sistema.erp.model.Artista;
 import br.com.seplag.sistema.erp.model.dto.ArtistaDto;
 import br.com.seplag.sistema.erp.model.dto.ArtistaListDto;
+import br.com.seplag.sistema.erp.model.dto.VersaoRecursoDto;
 import br.com.seplag.sistema.erp.repository.ArtistaRepository;
 import br.com.seplag.sistema.erp.service.ArtistaService;
+import br.com.seplag.sistema.erp.service.ContagemEstimadaService;
+import br.com.seplag.sistema.erp.service.EntidadesCache;
 import br.com.seplag.sistema.exception.RecursoNaoEncontradoException;
+import br.com.seplag.sistema.exception.RequisicaoInvalidaException;
 import br.com.seplag.sistema.websocket.NotificationPublisher;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.data.domain.*;
 
+import java.time.Instant;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -25,6 +31,10 @@ class ArtistaServiceTest {
     ArtistaService service;
     @Mock
     NotificationPublisher notifications;
+    @Mock
+    ContagemEstimadaService contagens;
+    @Spy
+    EntidadesCache cache = new EntidadesCache(new ConcurrentMapCacheManager(EntidadesCache.ARTISTAS));
 
 
     @Test
@@ -55,7 +65,7 @@ class ArtistaServiceTest {
     void buscarPorId_quandoNaoExiste_deveLancar404() {
         when(artistaRepository.findById(99L)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> service.buscarPorId(99L))
+        assertThatThrownBy(() -> service.buscarPorId(99L, versao("artista-99-1")))
                 .isInstanceOf(RecursoNaoEncontradoException.class)
                 .hasMessageContaining("Artista não encontrado: 99");
     }
@@ -69,13 +79,31 @@ class ArtistaServiceTest {
 
         when(artistaRepository.findById(5L)).thenReturn(Optional.of(a));
 
-        var dto = service.buscarPorId(5L);
+        var dto = service.buscarPorId(5L, versao("artista-5-1"));
 
         assertThat(dto.id()).isEqualTo(5L);
         assertThat(dto.nome()).isEqualTo("Legião Urbana");
         assertThat(dto.genero()).isEqualTo("Rock");
     }
 
+    @Test
+    void buscarPorId_quandoVersaoDoBancoMuda_deveIgnorarCacheLocal() {
+        var a = new Artista();
+        a.setId(5L);
+        a.setNome("Legião Urbana");
+        a.setGenero("Rock");
+        when(artistaRepository.findById(5L)).thenReturn(Optional.of(a));
+
+        service.buscarPorId(5L, versao("artista-5-1"));
+        assertThat(service.buscarPorId(5L, versao("artista-5-1")).nome()).isEqualTo("Legião Urbana");
+
+        // alterado em outro nó: este não recebeu a notificação, só a versão nova do banco
+        a.setNome("Legião");
+        assertThat(service.buscarPorId(5L, versao("artista-5-2")).nome()).isEqualTo("Legião");
+
+        verify(artistaRepository, times(2)).findById(5L);
+    }
+
     @Test
     void atualizar_quandoNaoExiste_deveLancar404() {
         when(artistaRepository.findById(1L)).thenReturn(Optional.empty());
@@ -131,8 +159,8 @@ class ArtistaServiceTest {
     }
 
     @Test
-    void listar_deveExtrairSortFieldEDir_eChamarRepositoryComPageableSemSort() {
-        Pageable pageable = PageRequest.of(2, 20, Sort.by(Sort.Order.desc("nome")));
+    void listar_deveRepassarSortComDesempatePorId() {
+        Pageable pageable = PageRequest.of(2, 20, Sort.by(Sort.Order.desc("qtdAlbuns")));
 
         Page<ArtistaListDto> page = new PageImpl<>(
                 java.util.List.of(new ArtistaListDto(1L, "A", "G", 0)),
@@ -140,22 +168,53 @@ class ArtistaServiceTest {
                 41
         );
 
-        when(artistaRepository.buscarComFiltroComQtdAlbunsOrdenado(
-                eq("rock"), eq("nome"), eq("desc"), any(Pageable.class))
-        ).thenReturn(page);
+        when(artistaRepository.buscarComFiltroComQtdAlbunsOrdenado(eq("rock"), any(Pageable.class)))
+                .thenReturn(page);
 
         var resp = service.listar("rock", pageable);
 
         assertThat(resp.getContent()).hasSize(1);
 
         ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
-        verify(artistaRepository).buscarComFiltroComQtdAlbunsOrdenado(
-                eq("rock"), eq("nome"), eq("desc"), captor.capture()
-        );
+        verify(artistaRepository).buscarComFiltroComQtdAlbunsOrdenado(eq("rock"), captor.capture());
 
         Pageable usado = captor.getValue();
         assertThat(usado.getPageNumber()).isEqualTo(2);
         assertThat(usado.getPageSize()).isEqualTo(20);
-        assertThat(usado.getSort().isSorted()).isFalse();
+        assertThat(usado.getSort()).containsExactly(Sort.Order.desc("qtdAlbuns"), Sort.Order.desc("id"));
+    }
+
+    @Test
+    void listar_quandoSortNaoSuportado_deveLancar400() {
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("criadoEm"));
+
+        assertThatThrownBy(() -> service.listar("", pageable))
+                .isInstanceOf(RequisicaoInvalidaException.class);
+
+        verify(artistaRepository, never()).buscarComFiltroComQtdAlbunsOrdenado(any(), any());
+    }
+
+    @Test
+    void listarComTotalEstimado_naoDeveFicarAbaixoDoQueJaFoiVisto() {
+        Pageable pageable = PageRequest.of(3, 10);
+
+        var conteudo = java.util.stream.LongStream.rangeClosed(31, 40)
+                .mapToObj(i -> new ArtistaListDto(i, "A" + i, "Rock", 1))
+                .toList();
+
+        when(artistaRepository.buscarComFiltroSemContagem(eq(""), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(conteudo, pageable, true));
+        when(contagens.estimar(eq("artistas"), isNull(), any())).thenReturn(12L); // estatística defasada
+
+        var out = service.listarComTotalEstimado("", pageable);
+
+        assertThat(out.conteudo()).hasSize(10);
+        assertThat(out.temProximo()).isTrue();
+        assertThat(out.totalEstimado()).isEqualTo(41L);
+        verify(artistaRepository, never()).contarComFiltro(any());
+    }
+
+    private static VersaoRecursoDto versao(String etag) {
+        return new VersaoRecursoDto(etag, Instant.EPOCH);
     }
 }
@@ -6,15 +6,17 @@ import br.com.seplag.sistema.erp.service.AuthService;
 import br.com.seplag.sistema.exception.RecursoNaoEncontradoException;
 import br.com.seplag.sistema.security.JwtService;
 import br.com.seplag.sistema.security.RefreshTokenService;
+import br.com.seplag.sistema.security.RevogacaoTokenService;
+import br.com.seplag.sistema.security.UsuarioAutenticado;
 import br.com.seplag.sistema.websocket.NotificationPublisher;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
-
-import java.util.Optional;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,6 +29,8 @@ class AuthServiceTest {
     @Mock PasswordEncoder passwordEncoder;
     @Mock JwtService jwtService;
     @Mock RefreshTokenService refreshTokenService;
+    @Mock RevogacaoTokenService revogacaoTokenService;
+    @Mock PlatformTransactionManager transactionManager;
 
     @InjectMocks
     AuthService service;
@@ -75,8 +79,8 @@ class AuthServiceTest {
 
     @Test
     void login_quandoUsuarioNaoEncontrado_deveLancar() {
-        when(usuarioRepository.findByEmailIgnoreCase("login")).thenReturn(Optional.empty());
-        when(usuarioRepository.findByNomeIgnoreCase("login")).thenReturn(Optional.empty());
+        // autenticação sem o usuário carregado no principal (outro provider)
+        when(authManager.authenticate(any())).thenReturn(new UsernamePasswordAuthenticationToken("login", null));
 
         assertThatThrownBy(() -> service.login(new LoginRequest("login", "123")))
                 .isInstanceOf(RecursoNaoEncontradoException.class)
@@ -89,8 +93,12 @@ class AuthServiceTest {
         u.setId(1L);
         u.setNome("Fulano");
         u.setEmail("fulano@x.com");
+        u.setPapel("USER");
+        u.setAtivo(true);
 
-        when(usuarioRepository.findByEmailIgnoreCase("fulano@x.com")).thenReturn(Optional.of(u));
+        var principal = new UsuarioAutenticado("fulano@x.com", "HASH", u);
+        when(authManager.authenticate(any()))
+                .thenReturn(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
         when(jwtService.gerarAccessToken(u)).thenReturn("A");
         when(refreshTokenService.emitirNovo(u)).thenReturn("R");
 
@@ -100,6 +108,7 @@ class AuthServiceTest {
         assertThat(out.refreshToken()).isEqualTo("R");
 
         verify(authManager).authenticate(any());
+        verifyNoInteractions(usuarioRepository);
     }
 
     @Test
@@ -119,7 +128,15 @@ class AuthServiceTest {
 
     @Test
     void logout_deveRevogar() {
-        service.logout(new LogoutRequest("RT"));
+        service.logout(new LogoutRequest("RT"), null);
+        verify(refreshTokenService).revogar("RT");
+        verifyNoInteractions(revogacaoTokenService);
+    }
+
+    @Test
+    void logout_comAccessToken_deveRevogarTambemOAccessToken() {
+        service.logout(new LogoutRequest("RT"), "ACCESS");
         verify(refreshTokenService).revogar("RT");
+        verify(revogacaoTokenService).revogar("ACCESS");
     }
 }
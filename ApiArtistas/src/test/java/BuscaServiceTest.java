@@ -0,0 +1,40 @@
+import br.com.seplag.sistema.erp.model.dto.ResultadoBuscaDto;
+import br.com.seplag.sistema.erp.repository.BuscaRepository;
+import br.com.seplag.sistema.erp.service.BuscaService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BuscaServiceTest {
+
+    @Mock BuscaRepository buscaRepository;
+
+    @InjectMocks
+    BuscaService service;
+
+    @Test
+    void buscar_quandoTermoCurto_naoDeveConsultarBanco() {
+        var out = service.buscar(" ab ", 20);
+
+        assertThat(out).isEmpty();
+        verifyNoInteractions(buscaRepository);
+    }
+
+    @Test
+    void buscar_deveApararTermoELimitarQuantidade() {
+        var r = new ResultadoBuscaDto("ALBUM", 1L, "Coração Selvagem", null, 0.9);
+        when(buscaRepository.buscar("coração", 100)).thenReturn(List.of(r));
+
+        var out = service.buscar("  coração ", 5000);
+
+        assertThat(out).containsExactly(r);
+        verify(buscaRepository).buscar("coração", 100);
+    }
+}
@@ -0,0 +1,164 @@
+import br.com.seplag.sistema.storage.CacheLocalImagens;
+import br.com.seplag.sistema.storage.MinioStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheLocalImagensTest {
+
+    @Mock MinioStorageService storage;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void obter_quandoJaEmDisco_deveLerDoMinioUmaVezSo() throws Exception {
+        when(storage.abrir("albuns/1/a.png")).thenReturn(new ByteArrayInputStream("imagem".getBytes()));
+        CacheLocalImagens cache = novoCache(DataSize.ofMegabytes(1));
+
+        CacheLocalImagens.Copia primeiro = cache.obter("albuns/1/a.png");
+        CacheLocalImagens.Copia segundo = cache.obter("albuns/1/a.png");
+
+        assertThat(segundo).isEqualTo(primeiro);
+        assertThat(Files.readString(primeiro.arquivo())).isEqualTo("imagem");
+        assertThat(primeiro.hash()).isEqualTo(sha256("imagem"));
+        verify(storage, times(1)).abrir("albuns/1/a.png");
+        cache.destroy();
+    }
+
+    @Test
+    void obter_quandoMissesSimultaneos_deveFazerUmaLeituraNoMinio() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(storage.abrir("k")).thenAnswer(inv -> {
+            liberar.await(5, TimeUnit.SECONDS);
+            return new ByteArrayInputStream("capa".getBytes());
+        });
+        CacheLocalImagens cache = novoCache(DataSize.ofMegabytes(1));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<CacheLocalImagens.Copia>> resultados = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            resultados.add(pool.submit(() -> cache.obter("k")));
+        }
+        Thread.sleep(100);
+        liberar.countDown();
+
+        CacheLocalImagens.Copia esperado = resultados.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<CacheLocalImagens.Copia> r : resultados) {
+            assertThat(r.get(5, TimeUnit.SECONDS)).isEqualTo(esperado);
+        }
+        verify(storage, times(1)).abrir("k");
+        pool.shutdown();
+        cache.destroy();
+    }
+
+    @Test
+    void obter_quandoMinioFalhar_naoDeveGuardarENovaChamadaTentaDeNovo() throws Exception {
+        when(storage.abrir("k"))
+                .thenThrow(new RuntimeException("minio fora"))
+                .thenReturn(new ByteArrayInputStream("ok".getBytes()));
+        CacheLocalImagens cache = novoCache(DataSize.ofMegabytes(1));
+
+        assertThatThrownBy(() -> cache.obter("k"))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Falha ao ler imagem do MinIO");
+
+        assertThat(Files.readString(cache.obter("k").arquivo())).isEqualTo("ok");
+        try (var arquivos = Files.list(pastaDoProcesso())) {
+            assertThat(arquivos.count()).isEqualTo(1);
+        }
+        cache.destroy();
+    }
+
+    @Test
+    void obter_quandoPassarDoLimite_deveDespejarEApagarArquivo() throws Exception {
+        when(storage.abrir(anyString())).thenAnswer(inv -> new ByteArrayInputStream(new byte[8]));
+        CacheLocalImagens cache = novoCache(DataSize.ofBytes(10));
+
+        cache.obter("a");
+        cache.obter("b");
+
+        Path pasta = pastaDoProcesso();
+        long limite = System.currentTimeMillis() + 5000;
+        long restantes;
+        do {
+            try (var arquivos = Files.list(pasta)) {
+                restantes = arquivos.count();
+            }
+            if (restantes > 1) {
+                Thread.sleep(20);
+            }
+        } while (restantes > 1 && System.currentTimeMillis() < limite);
+
+        assertThat(restantes).isEqualTo(1);
+        cache.destroy();
+    }
+
+    @Test
+    void construtorEDestroy_devemMexerSoNoSubdiretorioDoProcesso() throws Exception {
+        Path deOutroProcesso = Files.createDirectories(diretorio.resolve("cache").resolve("processo-outro"));
+        Files.writeString(deOutroProcesso.resolve("x"), "em uso");
+        when(storage.abrir("k")).thenReturn(new ByteArrayInputStream("ok".getBytes()));
+
+        CacheLocalImagens cache = novoCache(DataSize.ofMegabytes(1));
+        Path copia = cache.obter("k").arquivo();
+        assertThat(deOutroProcesso.resolve("x")).exists();
+        assertThat(copia.getParent().getParent()).isEqualTo(diretorio.resolve("cache"));
+
+        cache.destroy();
+
+        assertThat(copia.getParent()).doesNotExist();
+        assertThat(deOutroProcesso.resolve("x")).hasContent("em uso");
+    }
+
+    @Test
+    void obter_quandoObjetoRegravado_deveMudarOHash() throws Exception {
+        when(storage.abrir(anyString()))
+                .thenReturn(new ByteArrayInputStream("v1".getBytes()))
+                .thenReturn(new ByteArrayInputStream("v2".getBytes()));
+        CacheLocalImagens primeiro = novoCache(DataSize.ofMegabytes(1));
+        CacheLocalImagens segundo = novoCache(DataSize.ofMegabytes(1));
+
+        // dois nós (ou antes e depois de um despejo) que leram versões diferentes da mesma chave
+        assertThat(primeiro.obter("k").hash()).isNotEqualTo(segundo.obter("k").hash());
+        primeiro.destroy();
+        segundo.destroy();
+    }
+
+    private Path pastaDoProcesso() throws Exception {
+        try (var pastas = Files.list(diretorio.resolve("cache"))) {
+            return pastas.filter(Files::isDirectory).findFirst().orElseThrow();
+        }
+    }
+
+    private static String sha256(String conteudo) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(conteudo.getBytes()));
+    }
+
+    private CacheLocalImagens novoCache(DataSize maxBytes) throws Exception {
+        return new CacheLocalImagens(storage, new SimpleMeterRegistry(), diretorio.resolve("cache"), maxBytes, Duration.ZERO);
+    }
+}
@@ -0,0 +1,78 @@
+import br.com.seplag.sistema.exception.ServicoSobrecarregadoException;
+import br.com.seplag.sistema.security.CodificadorSenhaLimitado;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CodificadorSenhaLimitadoTest {
+
+    @Test
+    void encodeEMatches_deveRodarNoPoolERegistrarDuracao() {
+        var registry = new SimpleMeterRegistry();
+        var codificador = new CodificadorSenhaLimitado(new BCryptPasswordEncoder(4), 2, 4, registry);
+
+        String hash = codificador.encode("segredo");
+
+        assertThat(codificador.matches("segredo", hash)).isTrue();
+        assertThat(codificador.matches("outro", hash)).isFalse();
+        assertThat(registry.get("senha.hash.duracao").tag("operacao", "codificar").timer().count()).isEqualTo(1);
+        assertThat(registry.get("senha.hash.duracao").tag("operacao", "comparar").timer().count()).isEqualTo(2);
+        codificador.destroy();
+    }
+
+    @Test
+    void encode_quandoPoolEFilaCheios_deveRecusarNaHora() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var liberar = new CountDownLatch(1);
+        var iniciou = new CountDownLatch(1);
+        var codificador = new CodificadorSenhaLimitado(new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence senha) {
+                iniciou.countDown();
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "HASH";
+            }
+
+            @Override
+            public boolean matches(CharSequence senha, String hash) {
+                return true;
+            }
+        }, 1, 1, registry);
+
+        var emExecucao = CompletableFuture.supplyAsync(() -> codificador.encode("a"));
+        assertThat(iniciou.await(5, TimeUnit.SECONDS)).isTrue();
+        var naFila = CompletableFuture.supplyAsync(() -> codificador.encode("b"));
+        while (registry.get("senha.hash.fila").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        assertThatThrownBy(() -> codificador.encode("c")).isInstanceOf(ServicoSobrecarregadoException.class);
+        assertThat(registry.get("senha.hash.recusadas").counter().count()).isEqualTo(1);
+
+        liberar.countDown();
+        assertThat(emExecucao.get(5, TimeUnit.SECONDS)).isEqualTo("HASH");
+        assertThat(naFila.get(5, TimeUnit.SECONDS)).isEqualTo("HASH");
+        codificador.destroy();
+    }
+
+    @Test
+    void upgradeEncoding_quandoCustoMenorQueOConfigurado_deveIndicarRegravacao() {
+        String custo4 = new BCryptPasswordEncoder(4).encode("segredo");
+        var codificador = new CodificadorSenhaLimitado(new BCryptPasswordEncoder(5), 1, 1, new SimpleMeterRegistry());
+
+        assertThat(codificador.upgradeEncoding(custo4)).isTrue();
+        assertThat(codificador.upgradeEncoding(codificador.encode("segredo"))).isFalse();
+        codificador.destroy();
+    }
+}
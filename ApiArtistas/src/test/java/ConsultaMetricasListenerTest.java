@@ -0,0 +1,51 @@
+import br.com.seplag.sistema.infra.ConsultaMetricasListener;
+import br.com.seplag.sistema.infra.ConsultasProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConsultaMetricasListenerTest {
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<MeterRegistry> provider(MeterRegistry registry) {
+        ObjectProvider<MeterRegistry> p = mock(ObjectProvider.class);
+        when(p.getIfAvailable()).thenReturn(registry);
+        return p;
+    }
+
+    private static ExecutionInfo execucao(long ms) {
+        ExecutionInfo info = new ExecutionInfo();
+        info.setElapsedTime(ms);
+        return info;
+    }
+
+    @Test
+    void afterQuery_deveRegistrarTimerPorOperacao() {
+        var registry = new SimpleMeterRegistry();
+        var listener = new ConsultaMetricasListener(provider(registry), new ConsultasProperties(true, 500L, 0.0, null));
+
+        listener.afterQuery(execucao(12), List.of(new QueryInfo("select a.id from artistas a where a.id = ?")));
+        listener.afterQuery(execucao(3), List.of(new QueryInfo("  insert into albuns (id, titulo) values (?, ?)")));
+
+        var select = registry.get("db.consulta").tag("operacao", "SELECT").timer();
+        assertThat(select.count()).isEqualTo(1);
+        assertThat(select.getId().getTag("consulta")).isEqualTo("sem-repositorio");
+        assertThat(registry.get("db.consulta").tag("operacao", "INSERT").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void afterQuery_semRegistry_naoDeveFalhar() {
+        var listener = new ConsultaMetricasListener(provider(null), new ConsultasProperties(true, 0L, 1.0, null));
+
+        assertThatCode(() -> listener.afterQuery(execucao(1), List.of(new QueryInfo("select 1"))))
+                .doesNotThrowAnyException();
+    }
+}
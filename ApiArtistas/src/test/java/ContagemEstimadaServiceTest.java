@@ -0,0 +1,56 @@
+import br.com.seplag.sistema.erp.repository.EstatisticasRepository;
+import br.com.seplag.sistema.erp.service.ContagemEstimadaService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ContagemEstimadaServiceTest {
+
+    @Mock EstatisticasRepository estatisticas;
+
+    @Test
+    void estimar_semFiltro_deveUsarEstimativaDoPlanner() {
+        when(estatisticas.linhasEstimadas("album")).thenReturn(500L);
+        var service = new ContagemEstimadaService(estatisticas, 60);
+
+        assertThat(service.estimar("album", null, () -> { throw new AssertionError("não deveria contar"); })).isEqualTo(500L);
+    }
+
+    @Test
+    void estimar_comFiltro_deveContarUmaVezDentroDoTtl() {
+        var service = new ContagemEstimadaService(estatisticas, 60);
+        var contagens = new AtomicLong();
+
+        long primeiro = service.estimar("album", "titulo=a", contagens::incrementAndGet);
+        long segundo = service.estimar("album", "titulo=a", contagens::incrementAndGet);
+
+        assertThat(primeiro).isEqualTo(1L);
+        assertThat(segundo).isEqualTo(1L);
+        assertThat(service.estimar("album", "titulo=b", contagens::incrementAndGet)).isEqualTo(2L);
+        verifyNoInteractions(estatisticas);
+    }
+
+    @Test
+    void estimar_quandoMuitosFormatos_naoDeveDescartarTodosDeUmaVez() {
+        var service = new ContagemEstimadaService(estatisticas, 60);
+        var contagens = new AtomicLong();
+        service.estimar("album", "quente", contagens::incrementAndGet);
+
+        for (int i = 0; i < 1_500; i++) {
+            service.estimar("album", "f" + i, contagens::incrementAndGet);
+            service.estimar("album", "quente", contagens::incrementAndGet);
+        }
+
+        // o formato mais usado sobrevive ao excesso de entradas; o mapa antigo era zerado ao encher
+        long antes = contagens.get();
+        service.estimar("album", "quente", contagens::incrementAndGet);
+        assertThat(contagens.get()).isEqualTo(antes);
+    }
+}
@@ -0,0 +1,186 @@
+
+import br.com.seplag.sistema.erp.model.DerivadoImagem;
+import br.com.seplag.sistema.erp.model.ImagemAlbum;
+import br.com.seplag.sistema.erp.repository.DerivadoImagemRepository;
+import br.com.seplag.sistema.erp.repository.ImagemAlbumRepository;
+import br.com.seplag.sistema.erp.repository.ObjetoPendenteRepository;
+import br.com.seplag.sistema.erp.repository.TarefaDerivadoRepository;
+import br.com.seplag.sistema.erp.service.GeracaoDerivadosJob;
+import br.com.seplag.sistema.storage.MinioStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GeracaoDerivadosJobTest {
+
+    @Mock TarefaDerivadoRepository tarefas;
+    @Mock ImagemAlbumRepository imagemAlbumRepository;
+    @Mock DerivadoImagemRepository derivadoRepository;
+    @Mock ObjetoPendenteRepository pendentes;
+    @Mock MinioStorageService storage;
+    @Mock PlatformTransactionManager transactionManager;
+
+    GeracaoDerivadosJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new GeracaoDerivadosJob(tarefas, imagemAlbumRepository, derivadoRepository, pendentes, storage,
+                transactionManager, new SimpleMeterRegistry(), List.of(160, 480, 1024), 1, 5,
+                Duration.ofMinutes(5), Duration.ofMinutes(1), 0.8f);
+    }
+
+    @AfterEach
+    void tearDown() {
+        job.destroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void processar_deveGerarSoLargurasMenoresQueOriginalEConcluirTarefa() throws Exception {
+        var img = new ImagemAlbum();
+        img.setId(10L);
+        img.setChaveObjeto("albuns/1/a.png");
+
+        when(imagemAlbumRepository.findById(10L)).thenReturn(Optional.of(img));
+        when(storage.abrir("albuns/1/a.png")).thenReturn(new ByteArrayInputStream(png(600, 400)));
+        when(storage.gerarObjectKeyDerivado(eq("albuns/1/a.png"), anyInt(), anyString())).thenCallRealMethod();
+
+        job.processar(10L);
+
+        ArgumentCaptor<String> chaves = ArgumentCaptor.forClass(String.class);
+        verify(storage, times(2)).upload(chaves.capture(), any(), anyLong(), eq("image/jpeg"));
+        assertThat(chaves.getAllValues()).satisfiesExactly(
+                c -> assertThat(c).matches("albuns/1/a_w160_[0-9a-f]{8}\\.jpg"),
+                c -> assertThat(c).matches("albuns/1/a_w480_[0-9a-f]{8}\\.jpg"));
+
+        ArgumentCaptor<List<DerivadoImagem>> salvos = ArgumentCaptor.forClass(List.class);
+        verify(derivadoRepository).saveAll(salvos.capture());
+        assertThat(salvos.getValue()).extracting(DerivadoImagem::getLargura).containsExactly(160, 480);
+        assertThat(salvos.getValue()).extracting(DerivadoImagem::getChaveObjeto).isEqualTo(chaves.getAllValues());
+
+        verify(tarefas).concluir(10L);
+        verify(pendentes).removerTodas(chaves.getAllValues());
+        // PNG transparente sobre fundo branco
+        verify(imagemAlbumRepository).atualizarMetadados(eq(10L), eq(600), eq(400), eq("#ffffff"),
+                argThat(h -> h.length() == 28));
+    }
+
+    @Test
+    void processar_quandoJaTemDerivados_deveSoPreencherMetadados() throws Exception {
+        var img = new ImagemAlbum();
+        img.setId(10L);
+        img.setChaveObjeto("albuns/1/a.png");
+
+        when(imagemAlbumRepository.findById(10L)).thenReturn(Optional.of(img));
+        when(derivadoRepository.existsByImagemId(10L)).thenReturn(true);
+        when(storage.abrir("albuns/1/a.png")).thenReturn(new ByteArrayInputStream(png(600, 400)));
+
+        job.processar(10L);
+
+        verify(storage, never()).upload(anyString(), any(), anyLong(), any());
+        verify(imagemAlbumRepository).atualizarMetadados(eq(10L), eq(600), eq(400), anyString(), anyString());
+        verify(tarefas).concluir(10L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void processar_quandoOutraExecucaoJaGravou_deveApagarSoOsObjetosDestaTentativa() throws Exception {
+        var img = new ImagemAlbum();
+        img.setId(10L);
+        img.setChaveObjeto("conteudo/ab/abcd.png");
+
+        when(imagemAlbumRepository.findById(10L)).thenReturn(Optional.of(img));
+        when(derivadoRepository.findByChaveOriginal("conteudo/ab/abcd.png", 10L)).thenReturn(List.of());
+        when(storage.abrir("conteudo/ab/abcd.png")).thenAnswer(inv -> new ByteArrayInputStream(png(600, 400)));
+        when(storage.gerarObjectKeyDerivado(eq("conteudo/ab/abcd.png"), anyInt(), anyString())).thenCallRealMethod();
+        // a primeira execução grava; a segunda (lease vencido) esbarra no índice único imagem_id + largura
+        when(derivadoRepository.saveAll(anyList()))
+                .thenAnswer(inv -> inv.getArgument(0))
+                .thenThrow(new DataIntegrityViolationException("ux_derivados_imagem_largura"));
+
+        job.processar(10L);
+        job.processar(10L);
+
+        ArgumentCaptor<String> chaves = ArgumentCaptor.forClass(String.class);
+        verify(storage, times(4)).upload(chaves.capture(), any(), anyLong(), eq("image/jpeg"));
+        List<String> vencedora = chaves.getAllValues().subList(0, 2);
+        List<String> atrasada = chaves.getAllValues().subList(2, 4);
+
+        assertThat(vencedora).doesNotContainAnyElementsOf(atrasada);
+        for (String chave : atrasada) {
+            verify(storage).delete(chave);
+        }
+        for (String chave : vencedora) {
+            verify(storage, never()).delete(chave);
+        }
+        verify(pendentes).removerTodas(atrasada);
+    }
+
+    @Test
+    void processar_quandoImagemInvalida_deveRegistrarFalhaSemConcluir() throws Exception {
+        var img = new ImagemAlbum();
+        img.setId(10L);
+        img.setChaveObjeto("albuns/1/a.png");
+
+        when(imagemAlbumRepository.findById(10L)).thenReturn(Optional.of(img));
+        when(storage.abrir("albuns/1/a.png")).thenReturn(new ByteArrayInputStream("nao é imagem".getBytes()));
+
+        job.processar(10L);
+
+        verify(tarefas).registrarFalha(eq(10L), anyString(), eq(60L));
+        verify(tarefas, never()).concluir(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void processar_quandoMesmoConteudoJaTemDerivados_deveCopiarLinhasSemReprocessar() throws Exception {
+        var img = new ImagemAlbum();
+        img.setId(10L);
+        img.setChaveObjeto("conteudo/ab/abcd.png");
+
+        var existente = new DerivadoImagem();
+        existente.setLargura(160);
+        existente.setChaveObjeto("conteudo/ab/abcd_w160.jpg");
+        existente.setTipoConteudo("image/jpeg");
+        existente.setTamanhoBytes(123);
+
+        when(imagemAlbumRepository.findById(10L)).thenReturn(Optional.of(img));
+        when(derivadoRepository.findByChaveOriginal("conteudo/ab/abcd.png", 10L)).thenReturn(List.of(existente));
+        when(imagemAlbumRepository.copiarMetadados(10L, "conteudo/ab/abcd.png")).thenReturn(1);
+
+        job.processar(10L);
+
+        verify(storage, never()).abrir(anyString());
+        verify(storage, never()).upload(anyString(), any(), anyLong(), any());
+
+        ArgumentCaptor<List<DerivadoImagem>> salvos = ArgumentCaptor.forClass(List.class);
+        verify(derivadoRepository).saveAll(salvos.capture());
+        assertThat(salvos.getValue()).extracting(DerivadoImagem::getChaveObjeto).containsExactly("conteudo/ab/abcd_w160.jpg");
+        verify(tarefas).concluir(10L);
+    }
+
+    private static byte[] png(int largura, int altura) throws Exception {
+        var out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(largura, altura, BufferedImage.TYPE_INT_ARGB), "png", out);
+        return out.toByteArray();
+    }
+}
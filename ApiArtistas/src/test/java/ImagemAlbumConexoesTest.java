@@ -0,0 +1,169 @@
+import br.com.seplag.sistema.ApiArtistasApplication;
+import br.com.seplag.sistema.erp.model.Album;
+import br.com.seplag.sistema.erp.model.ImagemAlbum;
+import br.com.seplag.sistema.erp.repository.AlbumRepository;
+import br.com.seplag.sistema.erp.repository.DerivadoImagemRepository;
+import br.com.seplag.sistema.erp.repository.ImagemAlbumRepository;
+import br.com.seplag.sistema.erp.repository.ObjetoConteudoRepository;
+import br.com.seplag.sistema.erp.repository.ObjetoPendenteRepository;
+import br.com.seplag.sistema.erp.service.ImagemAlbumService;
+import br.com.seplag.sistema.storage.CacheLocalImagens;
+import br.com.seplag.sistema.storage.MinioStorageService;
+import br.com.seplag.sistema.storage.UploadParaleloExecutor;
+import br.com.seplag.sistema.websocket.NotificationPublisher;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.imageio.ImageIO;
+import javax.sql.DataSource;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Confere no pool (Hikari) que nenhuma conexão fica presa enquanto o envio/remoção no MinIO acontece,
+ * contra um Postgres real. A requisição é simulada como o Spring Boot a monta: com spring.jpa.open-in-view
+ * ligado, o EntityManager da requisição é aberto antes do serviço e segura a conexão da primeira consulta.
+ * Ignorado sem Docker.
+ */
+@DataJpaTest
+@ContextConfiguration(classes = ApiArtistasApplication.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImagemAlbumConexoesTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Value("${spring.jpa.open-in-view:true}") boolean openInView;
+
+    @Autowired DataSource dataSource;
+    @Autowired EntityManagerFactory emf;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired AlbumRepository albumRepository;
+    @Autowired ImagemAlbumRepository imagemAlbumRepository;
+    @Autowired ObjetoPendenteRepository pendentes;
+    @Autowired DerivadoImagemRepository derivadoRepository;
+    @Autowired ObjetoConteudoRepository conteudos;
+
+    MinioStorageService storage = mock(MinioStorageService.class);
+    UploadParaleloExecutor uploads = new UploadParaleloExecutor(4, 2, 16, new SimpleMeterRegistry());
+    List<Integer> ativasNoMinio = new CopyOnWriteArrayList<>();
+
+    ImagemAlbumService service;
+    HikariDataSource hikari;
+    Album album;
+
+    @BeforeEach
+    void montar() throws Exception {
+        hikari = dataSource.unwrap(HikariDataSource.class);
+        service = new ImagemAlbumService(albumRepository, imagemAlbumRepository, storage, mock(NotificationPublisher.class),
+                uploads, pendentes, derivadoRepository, conteudos, mock(CacheLocalImagens.class), transactionManager);
+
+        album = new Album();
+        album.setTitulo("Álbum");
+        album = albumRepository.save(album);
+
+        when(storage.gerarObjectKeyConteudo(anyString(), anyString()))
+                .thenAnswer(inv -> "conteudo/" + inv.getArgument(0, String.class) + ".png");
+        doAnswer(inv -> ativasNoMinio.add(ativas())).when(storage).upload(anyString(), any(), anyLong(), anyString());
+        doAnswer(inv -> ativasNoMinio.add(ativas())).when(storage).delete(anyString());
+    }
+
+    @AfterEach
+    void encerrar() {
+        uploads.destroy();
+    }
+
+    @Test
+    void uploadMultiplasParaAlbum_naoDeveSegurarConexaoDuranteEnvio() throws Exception {
+        var out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB), "png", out);
+        var arquivo = new MockMultipartFile("f", "a.png", "image/png", out.toByteArray());
+
+        var criadas = emRequisicao(() -> service.uploadMultiplasParaAlbum(album.getId(), List.of(arquivo), 0));
+
+        assertThat(criadas).hasSize(1);
+        assertThat(ativasNoMinio).containsExactly(0);
+    }
+
+    @Test
+    void deletarImagem_naoDeveSegurarConexaoDuranteRemocao() {
+        var img = new ImagemAlbum();
+        img.setAlbum(album);
+        img.setChaveObjeto("albuns/" + album.getId() + "/a.png");
+        img.setTipoConteudo("image/png");
+        img.setTamanhoBytes(10L);
+        Long imagemId = new TransactionTemplate(transactionManager).execute(s -> imagemAlbumRepository.save(img).getId());
+
+        emRequisicao(() -> {
+            service.deletarImagem(album.getId(), imagemId);
+            return null;
+        });
+
+        assertThat(ativasNoMinio).containsExactly(0);
+        assertThat(imagemAlbumRepository.existsById(imagemId)).isFalse();
+    }
+
+    private int ativas() {
+        return hikari.getHikariPoolMXBean().getActiveConnections();
+    }
+
+    private <T> T emRequisicao(ThrowingSupplier<T> chamada) {
+        var requisicao = new ServletWebRequest(new MockHttpServletRequest());
+        var osiv = new OpenEntityManagerInViewInterceptor();
+        osiv.setEntityManagerFactory(emf);
+        if (openInView) {
+            osiv.preHandle(requisicao);
+        }
+        try {
+            return chamada.get();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (openInView) {
+                osiv.afterCompletion(requisicao, null);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingSupplier<T> {
+        T get() throws Exception;
+    }
+}
@@ -1,21 +1,44 @@
 
 import br.com.seplag.sistema.erp.model.Album;
+import br.com.seplag.sistema.erp.model.DerivadoImagem;
 import br.com.seplag.sistema.erp.model.ImagemAlbum;
+import br.com.seplag.sistema.erp.model.dto.ImagemAlbumDto;
+import br.com.seplag.sistema.erp.model.dto.ImagemUrlDto;
+import br.com.seplag.sistema.erp.model.dto.IntencaoUploadDto;
 import br.com.seplag.sistema.erp.repository.AlbumRepository;
+import br.com.seplag.sistema.erp.repository.DerivadoImagemRepository;
 import br.com.seplag.sistema.erp.repository.ImagemAlbumRepository;
+import br.com.seplag.sistema.erp.repository.ObjetoConteudoRepository;
+import br.com.seplag.sistema.erp.repository.ObjetoPendenteRepository;
 import br.com.seplag.sistema.erp.service.ImagemAlbumService;
 import br.com.seplag.sistema.exception.RecursoNaoEncontradoException;
+import br.com.seplag.sistema.exception.RequisicaoInvalidaException;
+import br.com.seplag.sistema.storage.ArquivoImagem;
 import br.com.seplag.sistema.storage.ArquivoInvalidoException;
+import br.com.seplag.sistema.storage.ArquivoStream;
+import br.com.seplag.sistema.storage.CacheLocalImagens;
+import br.com.seplag.sistema.storage.DimensoesImagem;
+import br.com.seplag.sistema.storage.EnvioImagem;
+import br.com.seplag.sistema.storage.InfoObjeto;
 import br.com.seplag.sistema.storage.MinioStorageService;
+import br.com.seplag.sistema.storage.UploadParaleloExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import br.com.seplag.sistema.websocket.NotificationPublisher;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,6 +51,13 @@ class ImagemAlbumServiceTest {
     @Mock MinioStorageService storage;
     @Mock
     NotificationPublisher notifications;
+    @Spy
+    UploadParaleloExecutor uploads = new UploadParaleloExecutor(4, 2, 16, new SimpleMeterRegistry());
+    @Mock ObjetoPendenteRepository pendentes;
+    @Mock DerivadoImagemRepository derivadoRepository;
+    @Mock ObjetoConteudoRepository conteudos;
+    @Mock CacheLocalImagens cacheLocal;
+    @Mock PlatformTransactionManager transactionManager;
 
     @InjectMocks
     ImagemAlbumService service;
@@ -40,6 +70,50 @@ class ImagemAlbumServiceTest {
                 .isInstanceOf(RecursoNaoEncontradoException.class);
     }
 
+    @Test
+    void listarPorAlbum_deveDevolverDimensoesECorEBlurhash() {
+        var img = new ImagemAlbum();
+        img.setId(10L);
+        img.setChaveObjeto("k");
+        img.setLargura(800);
+        img.setAltura(600);
+        img.setCorDominante("#c81e28");
+        img.setBlurhash("LBMds~N+A#b5sdA#AzF7F7F7F6JZ");
+
+        when(albumRepository.existsById(1L)).thenReturn(true);
+        when(imagemAlbumRepository.findByAlbumId(1L)).thenReturn(List.of(img));
+
+        assertThat(service.listarPorAlbum(1L)).singleElement().satisfies(i -> {
+            assertThat(i.largura()).isEqualTo(800);
+            assertThat(i.altura()).isEqualTo(600);
+            assertThat(i.corDominante()).isEqualTo("#c81e28");
+            assertThat(i.blurhash()).isEqualTo("LBMds~N+A#b5sdA#AzF7F7F7F6JZ");
+        });
+    }
+
+    @Test
+    void uploadMultiplasParaAlbum_deveGravarDimensoesLidasDoCabecalho() throws Exception {
+        var album = new Album();
+        album.setId(1L);
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+
+        var out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB), "png", out);
+        var f = new MockMultipartFile("f", "a.png", "image/png", out.toByteArray());
+
+        when(storage.gerarObjectKeyConteudo(anyString(), eq("image/png"))).thenReturn("conteudo/aa/a.png");
+        when(imagemAlbumRepository.save(any(ImagemAlbum.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        var criadas = service.uploadMultiplasParaAlbum(1L, List.of(f), null);
+
+        assertThat(criadas).singleElement().satisfies(i -> {
+            assertThat(i.largura()).isEqualTo(300);
+            assertThat(i.altura()).isEqualTo(200);
+            // cor e blurhash ficam para o worker de derivados
+            assertThat(i.blurhash()).isNull();
+        });
+    }
+
     @Test
     void uploadMultiplasParaAlbum_quandoArquivosVazios_deveLancar() {
         var album = new Album();
@@ -73,7 +147,7 @@ class ImagemAlbumServiceTest {
         var f1 = new MockMultipartFile("f", "a.png", "image/png", "x".getBytes());
         var f2 = new MockMultipartFile("f", "b.png", "image/png", "y".getBytes());
 
-        when(storage.gerarObjectKeyAlbum(eq(1L), anyString()))
+        when(storage.gerarObjectKeyConteudo(anyString(), anyString()))
                 .thenReturn("k1", "k2");
 
         when(imagemAlbumRepository.save(any(ImagemAlbum.class)))
@@ -104,7 +178,7 @@ class ImagemAlbumServiceTest {
         var f2 = new MockMultipartFile("f", "b.png", "image/png", "y".getBytes());
 
         // Simular erro ao fazer upload de 2 imagens com a primeira passando segunda dando erro
-        when(storage.gerarObjectKeyAlbum(eq(1L), anyString()))
+        when(storage.gerarObjectKeyConteudo(anyString(), anyString()))
                 .thenReturn("k1")
                 .thenThrow(new RuntimeException("boom"));
 
@@ -118,6 +192,133 @@ class ImagemAlbumServiceTest {
     }
 
 
+    @Test
+    void criarIntencoesUpload_deveRegistrarChaveNoDiarioEAssinarPut() throws Exception {
+        when(albumRepository.existsById(1L)).thenReturn(true);
+        when(storage.gerarObjectKeyEnvioDireto(1L, "image/png")).thenReturn("albuns/1/envios/k.png");
+        when(storage.presignedPutUrl("albuns/1/envios/k.png", 15 * 60)).thenReturn("http://put");
+
+        var out = service.criarIntencoesUpload(1L, List.of(new IntencaoUploadDto.Arquivo("IMAGE/PNG", 100L)));
+
+        assertThat(out).singleElement().satisfies(u -> {
+            assertThat(u.chaveObjeto()).isEqualTo("albuns/1/envios/k.png");
+            assertThat(u.url()).isEqualTo("http://put");
+            assertThat(u.tamanhoMaximoBytes()).isEqualTo(10L * 1024 * 1024);
+        });
+        verify(pendentes).registrar("albuns/1/envios/k.png");
+    }
+
+    @Test
+    void criarIntencoesUpload_quandoTipoInvalido_deveLancarSemAssinar() throws Exception {
+        when(albumRepository.existsById(1L)).thenReturn(true);
+
+        assertThatThrownBy(() -> service.criarIntencoesUpload(1L, List.of(new IntencaoUploadDto.Arquivo("application/pdf", 100L))))
+                .isInstanceOf(ArquivoInvalidoException.class);
+
+        verify(storage, never()).presignedPutUrl(any(), anyInt());
+    }
+
+    @Test
+    void confirmarUploadDireto_quandoChaveDeOutroAlbum_deveLancar() throws Exception {
+        var album = new Album();
+        album.setId(1L);
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+
+        assertThatThrownBy(() -> service.confirmarUploadDireto(1L, List.of("albuns/2/envios/k.png"), null))
+                .isInstanceOf(ArquivoInvalidoException.class)
+                .hasMessageContaining("não autorizado");
+
+        verify(pendentes, never()).reivindicar(any());
+        verify(storage, never()).inspecionar(any());
+    }
+
+    @Test
+    void confirmarUploadDireto_quandoChaveJaConfirmada_deveLancarSemCopiar() throws Exception {
+        var album = new Album();
+        album.setId(1L);
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+        when(pendentes.reivindicar("albuns/1/envios/k.png")).thenReturn(0);
+
+        assertThatThrownBy(() -> service.confirmarUploadDireto(1L, List.of("albuns/1/envios/k.png"), null))
+                .isInstanceOf(ArquivoInvalidoException.class)
+                .hasMessageContaining("já confirmado");
+
+        verify(storage, never()).copiarSeExistir(any(), any());
+        verify(pendentes, never()).liberar(any());
+        verify(imagemAlbumRepository, never()).save(any());
+    }
+
+    @Test
+    void confirmarUploadDireto_deveCopiarParaChaveDefinitivaEConferirACopia() throws Exception {
+        var album = new Album();
+        album.setId(1L);
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+        when(pendentes.reivindicar("albuns/1/envios/k.png")).thenReturn(1);
+        when(storage.copiarSeExistir("albuns/1/envios/k.png", "albuns/1/k.png")).thenReturn(true);
+        when(storage.inspecionar("albuns/1/k.png"))
+                .thenReturn(Optional.of(new InfoObjeto(2048, "application/octet-stream", "image/png", new DimensoesImagem(640, 480))));
+        when(imagemAlbumRepository.save(any(ImagemAlbum.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        var out = service.confirmarUploadDireto(1L, List.of("albuns/1/envios/k.png"), 0);
+
+        assertThat(out).singleElement().satisfies(i -> {
+            assertThat(i.chaveObjeto()).isEqualTo("albuns/1/k.png");
+            assertThat(i.tipoConteudo()).isEqualTo("image/png");
+            assertThat(i.tamanhoBytes()).isEqualTo(2048L);
+            assertThat(i.largura()).isEqualTo(640);
+            assertThat(i.altura()).isEqualTo(480);
+            assertThat(i.ehCapa()).isTrue();
+        });
+
+        // a cópia é feita antes da conferência: o que é conferido é o que vira imagem
+        var ordem = inOrder(pendentes, storage);
+        ordem.verify(pendentes).reivindicar("albuns/1/envios/k.png");
+        ordem.verify(pendentes).registrar("albuns/1/k.png");
+        ordem.verify(storage).copiarSeExistir("albuns/1/envios/k.png", "albuns/1/k.png");
+        ordem.verify(storage).inspecionar("albuns/1/k.png");
+        ordem.verify(pendentes).removerTodas(List.of("albuns/1/k.png"));
+        ordem.verify(storage).delete("albuns/1/envios/k.png");
+        // a chave de envio continua no diário para a varredura pegar um PUT tardio
+        verify(pendentes, never()).removerTodas(List.of("albuns/1/envios/k.png"));
+    }
+
+    @Test
+    void confirmarUploadDireto_quandoAindaNaoEnviado_deveLiberarParaNovaTentativa() throws Exception {
+        var album = new Album();
+        album.setId(1L);
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+        when(pendentes.reivindicar("albuns/1/envios/k.png")).thenReturn(1);
+        when(storage.copiarSeExistir("albuns/1/envios/k.png", "albuns/1/k.png")).thenReturn(false);
+
+        assertThatThrownBy(() -> service.confirmarUploadDireto(1L, List.of("albuns/1/envios/k.png"), null))
+                .isInstanceOf(ArquivoInvalidoException.class)
+                .hasMessageContaining("ainda não enviado");
+
+        verify(pendentes).liberar(List.of("albuns/1/envios/k.png"));
+        verify(storage, never()).delete("albuns/1/envios/k.png");
+    }
+
+    @Test
+    void confirmarUploadDireto_quandoObjetoExcedeLimite_deveApagarELancar() throws Exception {
+        var album = new Album();
+        album.setId(1L);
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+        when(pendentes.reivindicar("albuns/1/envios/k.png")).thenReturn(1);
+        when(storage.copiarSeExistir("albuns/1/envios/k.png", "albuns/1/k.png")).thenReturn(true);
+        when(storage.inspecionar("albuns/1/k.png"))
+                .thenReturn(Optional.of(new InfoObjeto(11L * 1024 * 1024, "image/png", "image/png", null)));
+
+        assertThatThrownBy(() -> service.confirmarUploadDireto(1L, List.of("albuns/1/envios/k.png"), null))
+                .isInstanceOf(ArquivoInvalidoException.class)
+                .hasMessageContaining("10MB");
+
+        verify(storage).delete("albuns/1/k.png");
+        verify(storage).delete("albuns/1/envios/k.png");
+        verify(pendentes).removerTodas(List.of("albuns/1/k.png"));
+        verify(pendentes, never()).liberar(any());
+        verify(imagemAlbumRepository, never()).save(any());
+    }
+
     @Test
     void definirCapa_deveDesmarcarAntigasESalvarNova() {
         var img = new ImagemAlbum();
@@ -149,6 +350,52 @@ class ImagemAlbumServiceTest {
         assertThat(url).contains("http://signed");
     }
 
+    @Test
+    void gerarUrlAssinada_comTamanho_deveUsarMenorDerivadoQueAtende() {
+        var img = new ImagemAlbum();
+        img.setId(10L);
+        img.setChaveObjeto("orig.png");
+
+        when(imagemAlbumRepository.findByIdAndAlbumId(10L, 1L)).thenReturn(Optional.of(img));
+        when(derivadoRepository.findByImagemId(10L)).thenReturn(List.of(
+                derivado(img, 160, "orig_w160.jpg"),
+                derivado(img, 480, "orig_w480.jpg"),
+                derivado(img, 1024, "orig_w1024.jpg")
+        ));
+        when(storage.presignedGetUrl("orig_w480.jpg", 30*60)).thenReturn("http://w480");
+        when(storage.presignedGetUrl("orig.png", 30*60)).thenReturn("http://orig");
+
+        assertThat(service.gerarUrlAssinada(1L, 10L, 200)).isEqualTo("http://w480");
+        // maior que todos os derivados: o original
+        assertThat(service.gerarUrlAssinada(1L, 10L, 4000)).isEqualTo("http://orig");
+    }
+
+    @Test
+    void gerarUrlAssinada_quandoTamanhoNaoPositivo_deveLancar400() {
+        assertThatThrownBy(() -> service.gerarUrlAssinada(1L, 10L, 0))
+                .isInstanceOf(RequisicaoInvalidaException.class);
+    }
+
+    @Test
+    void gerarUrlsAssinadasEmLote_deveAssinarNaOrdemPedidaEIgnorarInexistentes() {
+        var album1 = new Album(); album1.setId(1L);
+        var album2 = new Album(); album2.setId(2L);
+
+        var a = new ImagemAlbum(); a.setId(10L); a.setAlbum(album1); a.setChaveObjeto("k10");
+        var b = new ImagemAlbum(); b.setId(20L); b.setAlbum(album2); b.setChaveObjeto("k20");
+
+        when(imagemAlbumRepository.findAllById(any())).thenReturn(List.of(a, b));
+        when(storage.presignedGetUrl("k10", 30*60)).thenReturn("http://u10");
+        when(storage.presignedGetUrl("k20", 30*60)).thenReturn("http://u20");
+
+        var out = service.gerarUrlsAssinadasEmLote(List.of(20L, 99L, 10L, 20L));
+
+        assertThat(out).containsExactly(
+                new ImagemUrlDto(20L, 2L, "http://u20"),
+                new ImagemUrlDto(10L, 1L, "http://u10")
+        );
+    }
+
     @Test
     void deletarImagem_deveRemoverDoMinioEDoBanco() throws Exception {
         var img = new ImagemAlbum();
@@ -163,6 +410,23 @@ class ImagemAlbumServiceTest {
         verify(imagemAlbumRepository).delete(img);
     }
 
+    @Test
+    void deletarImagem_deveRemoverTambemObjetosDosDerivados() throws Exception {
+        var img = new ImagemAlbum();
+        img.setId(10L);
+        img.setChaveObjeto("key.png");
+
+        when(imagemAlbumRepository.findByIdAndAlbumId(10L, 1L)).thenReturn(Optional.of(img));
+        when(derivadoRepository.chavesPorImagem(10L)).thenReturn(List.of("key_w160.jpg"));
+
+        service.deletarImagem(1L, 10L);
+
+        verify(pendentes).registrar("key_w160.jpg");
+        verify(storage).delete("key.png");
+        verify(storage).delete("key_w160.jpg");
+        verify(pendentes).removerTodas(List.of("key.png", "key_w160.jpg"));
+    }
+
     @Test
     void uploadMultiplasParaAlbumOpcional_quandoArquivosVazios_deveRetornarListaVazia() throws Exception {
         var album = new Album();
@@ -184,7 +448,7 @@ class ImagemAlbumServiceTest {
         var f1 = new MockMultipartFile("f", "a.png", "image/png", "x".getBytes());
         var f2 = new MockMultipartFile("f", "b.png", "image/png", "y".getBytes());
 
-        when(storage.gerarObjectKeyAlbum(eq(1L), anyString()))
+        when(storage.gerarObjectKeyConteudo(anyString(), anyString()))
                 .thenReturn("k1", "k2");
 
         when(imagemAlbumRepository.save(any(ImagemAlbum.class)))
@@ -200,4 +464,278 @@ class ImagemAlbumServiceTest {
         assertThat(out.get(0).ehCapa()).isTrue();  // normalizou para 0
         assertThat(out.get(1).ehCapa()).isFalse();
     }
+
+    @Test
+    void uploadStreamParaAlbum_deveEnviarCadaParteEMarcarCapa() throws Exception {
+        var album = new Album();
+        album.setId(1L);
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+
+        var p1 = new ArquivoStream("a.png", "image/png", new ByteArrayInputStream(new byte[]{1}));
+        var p2 = new ArquivoStream("b.jpg", "image/jpeg", new ByteArrayInputStream(new byte[]{2}));
+
+        when(storage.uploadImagemStream(eq(1L), any(), anyLong(), any()))
+                .thenAnswer(envio("k1", "image/png", 10))
+                .thenAnswer(envio("k2", "image/jpeg", 20));
+        when(storage.gerarObjectKeyConteudo("sha-k1", "image/png")).thenReturn("c1");
+        when(storage.gerarObjectKeyConteudo("sha-k2", "image/jpeg")).thenReturn("c2");
+        when(imagemAlbumRepository.save(any(ImagemAlbum.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        var out = service.uploadStreamParaAlbum(1L, List.of(p1, p2).iterator(), 1);
+
+        assertThat(out).extracting(ImagemAlbumDto::chaveObjeto).containsExactly("c1", "c2");
+        assertThat(out).extracting(ImagemAlbumDto::ehCapa).containsExactly(false, true);
+        assertThat(out.get(1).tamanhoBytes()).isEqualTo(20L);
+        verify(imagemAlbumRepository).desmarcarCapasDoAlbum(1L);
+
+        // a chave temporária do stream vira a chave por conteúdo
+        verify(storage).copiar("k1", "c1");
+        verify(storage).delete("k1");
+        verify(pendentes).removerTodas(List.of("c1", "c2"));
+    }
+
+    @Test
+    void uploadStreamParaAlbum_quandoIndiceCapaAlemDoTotal_deveRemoverEnviados() throws Exception {
+        var album = new Album();
+        album.setId(1L);
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+
+        var p1 = new ArquivoStream("a.png", "image/png", new ByteArrayInputStream(new byte[]{1}));
+
+        when(storage.uploadImagemStream(eq(1L), any(), anyLong(), any())).thenAnswer(envio("k1", "image/png", 10));
+        when(storage.gerarObjectKeyConteudo("sha-k1", "image/png")).thenReturn("c1");
+
+        assertThatThrownBy(() -> service.uploadStreamParaAlbum(1L, List.of(p1).iterator(), 3))
+                .isInstanceOf(ArquivoInvalidoException.class)
+                .hasMessageContaining("indiceCapa inválido");
+
+        verify(storage).delete("k1");
+        verify(storage).delete("c1");
+        verify(pendentes).removerTodas(List.of("k1"));
+        verify(pendentes).removerTodas(List.of("c1"));
+        verify(imagemAlbumRepository, never()).save(any());
+    }
+
+    @Test
+    void uploadMultiplasParaAlbum_deveRegistrarPendentesAntesDoEnvioEDarBaixaNoCommit() throws Exception {
+        var album = new Album();
+        album.setId(1L);
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+
+        var f1 = new MockMultipartFile("f", "a.png", "image/png", "x".getBytes());
+
+        when(storage.gerarObjectKeyConteudo(anyString(), anyString())).thenReturn("k1");
+        when(imagemAlbumRepository.save(any(ImagemAlbum.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        service.uploadMultiplasParaAlbum(1L, List.of(f1), null);
+
+        InOrder ordem = inOrder(pendentes, storage, transactionManager, imagemAlbumRepository);
+        ordem.verify(pendentes).registrar("k1");
+        ordem.verify(storage).upload(eq("k1"), any(), anyLong(), eq("image/png"));
+        ordem.verify(transactionManager).getTransaction(any());
+        ordem.verify(imagemAlbumRepository).save(any(ImagemAlbum.class));
+        ordem.verify(pendentes).removerTodas(List.of("k1"));
+        ordem.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void deletarImagem_quandoMinioFalhar_deveManterExclusaoNoBancoEChaveNoDiario() throws Exception {
+        var img = new ImagemAlbum();
+        img.setId(10L);
+        img.setChaveObjeto("key");
+
+        when(imagemAlbumRepository.findByIdAndAlbumId(10L, 1L)).thenReturn(Optional.of(img));
+        doThrow(new RuntimeException("minio fora")).when(storage).delete("key");
+
+        service.deletarImagem(1L, 10L);
+
+        verify(imagemAlbumRepository).delete(img);
+        verify(pendentes).registrar("key");
+        verify(pendentes, never()).removerTodas(any());
+    }
+
+    @Test
+    void uploadMultiplasParaAlbum_quandoConteudoJaExiste_deveReaproveitarSemEnviar() throws Exception {
+        var album = new Album();
+        album.setId(1L);
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+
+        var f1 = new MockMultipartFile("f", "a.png", "image/png", "x".getBytes());
+
+        when(storage.gerarObjectKeyConteudo(SHA256_X, "image/png")).thenReturn(CHAVE_X);
+        when(conteudos.existsById(CHAVE_X)).thenReturn(true);
+        when(conteudos.renovar(CHAVE_X)).thenReturn(1);
+        when(imagemAlbumRepository.save(any(ImagemAlbum.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        var out = service.uploadMultiplasParaAlbum(1L, List.of(f1), null);
+
+        assertThat(out).extracting(ImagemAlbumDto::chaveObjeto).containsExactly(CHAVE_X);
+        verify(storage, never()).upload(anyString(), any(), anyLong(), any());
+        verify(pendentes, never()).registrar(anyString());
+        verify(conteudos, never()).registrar(anyString());
+    }
+
+    @Test
+    void uploadMultiplasParaAlbum_quandoConteudoNovo_deveRegistrarObjetoAntesDasLinhas() throws Exception {
+        var album = new Album();
+        album.setId(1L);
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+
+        var f1 = new MockMultipartFile("f", "a.png", "image/png", "x".getBytes());
+
+        when(storage.gerarObjectKeyConteudo(SHA256_X, "image/png")).thenReturn(CHAVE_X);
+        when(imagemAlbumRepository.save(any(ImagemAlbum.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        service.uploadMultiplasParaAlbum(1L, List.of(f1), null);
+
+        // o trigger só conta a referência se a linha de objetos_conteudo já existe no INSERT da imagem
+        InOrder ordem = inOrder(storage, conteudos, imagemAlbumRepository);
+        ordem.verify(storage).upload(eq(CHAVE_X), any(), anyLong(), eq("image/png"));
+        ordem.verify(conteudos).registrar(CHAVE_X);
+        ordem.verify(imagemAlbumRepository).save(any(ImagemAlbum.class));
+    }
+
+    @Test
+    void uploadMultiplasParaAlbum_quandoObjetoReaproveitadoFoiRemovido_deveFalharSemGravar() throws Exception {
+        var album = new Album();
+        album.setId(1L);
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+
+        var f1 = new MockMultipartFile("f", "a.png", "image/png", "x".getBytes());
+
+        when(storage.gerarObjectKeyConteudo(SHA256_X, "image/png")).thenReturn(CHAVE_X);
+        when(conteudos.existsById(CHAVE_X)).thenReturn(true);
+        when(conteudos.renovar(CHAVE_X)).thenReturn(0);
+
+        assertThatThrownBy(() -> service.uploadMultiplasParaAlbum(1L, List.of(f1), null))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Falha ao enviar imagens para o MinIO");
+
+        verify(imagemAlbumRepository, never()).save(any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void uploadMultiplasParaAlbum_quandoMesmoArquivoJaNoAlbum_deveDevolverImagemExistente() throws Exception {
+        var album = new Album();
+        album.setId(1L);
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+
+        var existente = new ImagemAlbum();
+        existente.setId(7L);
+        existente.setAlbum(album);
+        existente.setChaveObjeto(CHAVE_X);
+
+        var f1 = new MockMultipartFile("f", "a.png", "image/png", "x".getBytes());
+
+        when(storage.gerarObjectKeyConteudo(SHA256_X, "image/png")).thenReturn(CHAVE_X);
+        when(conteudos.existsById(CHAVE_X)).thenReturn(true);
+        when(imagemAlbumRepository.findByAlbumIdAndChaveObjeto(1L, CHAVE_X)).thenReturn(Optional.of(existente));
+
+        var out = service.uploadMultiplasParaAlbum(1L, List.of(f1), 0);
+
+        assertThat(out).extracting(ImagemAlbumDto::id).containsExactly(7L);
+        assertThat(existente.isEhCapa()).isTrue();
+        verify(imagemAlbumRepository, never()).save(any());
+        verify(conteudos, never()).renovar(anyString());
+        verify(storage, never()).delete(anyString());
+    }
+
+    @Test
+    void uploadMultiplasParaAlbum_quandoArquivosIguais_deveGravarUmaImagem() throws Exception {
+        var album = new Album();
+        album.setId(1L);
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+
+        var f1 = new MockMultipartFile("f", "a.png", "image/png", "x".getBytes());
+        var f2 = new MockMultipartFile("f", "b.png", "image/png", "x".getBytes());
+
+        when(storage.gerarObjectKeyConteudo(SHA256_X, "image/png")).thenReturn(CHAVE_X);
+        when(imagemAlbumRepository.save(any(ImagemAlbum.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        var out = service.uploadMultiplasParaAlbum(1L, List.of(f1, f2), 1);
+
+        assertThat(out).singleElement().satisfies(i -> {
+            assertThat(i.chaveObjeto()).isEqualTo(CHAVE_X);
+            // a cópia escolhida como capa foi a segunda
+            assertThat(i.ehCapa()).isTrue();
+        });
+        verify(imagemAlbumRepository, times(1)).save(any(ImagemAlbum.class));
+        verify(conteudos, times(1)).registrar(CHAVE_X);
+        verify(pendentes).removerTodas(List.of(CHAVE_X));
+    }
+
+    @Test
+    void deletarImagem_quandoChavePorConteudo_deveDeixarObjetoParaOContador() throws Exception {
+        var img = new ImagemAlbum();
+        img.setId(10L);
+        img.setChaveObjeto(CHAVE_X);
+
+        when(imagemAlbumRepository.findByIdAndAlbumId(10L, 1L)).thenReturn(Optional.of(img));
+
+        service.deletarImagem(1L, 10L);
+
+        verify(imagemAlbumRepository).delete(img);
+        verify(derivadoRepository, never()).chavesPorImagem(any());
+        verify(pendentes, never()).registrar(anyString());
+        verify(storage, never()).delete(anyString());
+    }
+
+    @Test
+    void abrirConteudo_comTamanho_deveServirDerivadoComTipoEEtagDoConteudo() {
+        var img = new ImagemAlbum();
+        img.setId(10L);
+        img.setChaveObjeto("albuns/1/a.png");
+        img.setTipoConteudo("image/png");
+
+        var d160 = derivado(img, 160, "albuns/1/a_w160.jpg");
+        d160.setTipoConteudo("image/jpeg");
+
+        when(imagemAlbumRepository.findByIdAndAlbumId(10L, 1L)).thenReturn(Optional.of(img));
+        when(derivadoRepository.findByImagemId(10L)).thenReturn(List.of(d160));
+        when(cacheLocal.obter("albuns/1/a_w160.jpg")).thenReturn(new CacheLocalImagens.Copia(Path.of("/tmp/x"), "abc123"));
+
+        ArquivoImagem arquivo = service.abrirConteudo(1L, 10L, 100);
+
+        assertThat(arquivo.arquivo()).isEqualTo(Path.of("/tmp/x"));
+        assertThat(arquivo.tipoConteudo()).isEqualTo("image/jpeg");
+        assertThat(arquivo.etag()).isEqualTo("abc123");
+    }
+
+    @Test
+    void abrirConteudo_semTamanho_deveServirOriginalSemConsultarDerivados() {
+        var img = new ImagemAlbum();
+        img.setId(10L);
+        img.setChaveObjeto(CHAVE_X);
+        img.setTipoConteudo("image/png");
+
+        when(imagemAlbumRepository.findByIdAndAlbumId(10L, 1L)).thenReturn(Optional.of(img));
+        when(cacheLocal.obter(CHAVE_X)).thenReturn(new CacheLocalImagens.Copia(Path.of("/tmp/x"), SHA256_X));
+
+        ArquivoImagem arquivo = service.abrirConteudo(1L, 10L, null);
+
+        assertThat(arquivo.tipoConteudo()).isEqualTo("image/png");
+        assertThat(arquivo.etag()).isEqualTo(SHA256_X);
+        verifyNoInteractions(derivadoRepository);
+    }
+
+    private static final String SHA256_X = "2d711642b726b04401627ca9fbac32f5c8530fb1903cc4db02258717921a4881";
+    private static final String CHAVE_X = "conteudo/2d/" + SHA256_X + ".png";
+
+    private static DerivadoImagem derivado(ImagemAlbum img, int largura, String chave) {
+        var d = new DerivadoImagem();
+        d.setImagem(img);
+        d.setLargura(largura);
+        d.setChaveObjeto(chave);
+        return d;
+    }
+
+    // simula o MinioStorageService: entrega a chave ao callback antes de "enviar"
+    private static org.mockito.stubbing.Answer<EnvioImagem> envio(String chave, String contentType, long bytes) {
+        return inv -> {
+            Consumer<String> antesDoEnvio = inv.getArgument(3);
+            antesDoEnvio.accept(chave);
+            return new EnvioImagem(chave, contentType, bytes, "sha-" + chave, null);
+        };
+    }
 }
@@ -0,0 +1,85 @@
+import br.com.seplag.sistema.erp.model.Usuario;
+import br.com.seplag.sistema.security.JwtProperties;
+import br.com.seplag.sistema.security.JwtService;
+import br.com.seplag.sistema.security.ListaNegraTokens;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtServiceTest {
+
+    private static final String SEGREDO = "segredo-de-teste-com-mais-de-32-caracteres";
+
+    @Test
+    void autenticar_deveDevolverUsuarioPapelEAutoridade() {
+        var jwt = new JwtService(props(SEGREDO, 5), new ListaNegraTokens(1 << 16));
+
+        var validado = jwt.autenticar(jwt.gerarAccessToken(usuario(7L, "ADMIN")));
+
+        assertThat(validado.usuario()).isEqualTo("7");
+        assertThat(validado.papel()).isEqualTo("ADMIN");
+        assertThat(validado.autoridades()).extracting(a -> a.getAuthority()).containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void autenticar_quandoMesmoToken_deveVerificarAssinaturaUmaVez() {
+        var jwt = spy(new JwtService(props(SEGREDO, 5), new ListaNegraTokens(1 << 16)));
+        String token = jwt.gerarAccessToken(usuario(7L, "USER"));
+
+        var primeiro = jwt.autenticar(token);
+        var segundo = jwt.autenticar(token);
+
+        assertThat(segundo).isSameAs(primeiro);
+        verify(jwt, times(1)).validar(token);
+    }
+
+    @Test
+    void autenticar_quandoAssinadoComOutraChave_deveLancarSemGuardar() {
+        var jwt = spy(new JwtService(props(SEGREDO, 5), new ListaNegraTokens(1 << 16)));
+        String alheio = new JwtService(props(SEGREDO + "-outro", 5), new ListaNegraTokens(1 << 16)).gerarAccessToken(usuario(7L, "ADMIN"));
+
+        assertThatThrownBy(() -> jwt.autenticar(alheio)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> jwt.autenticar(alheio)).isInstanceOf(JwtException.class);
+        verify(jwt, times(2)).validar(alheio);
+    }
+
+    @Test
+    void autenticar_quandoExpirado_deveLancar() {
+        var jwt = new JwtService(props(SEGREDO, -1), new ListaNegraTokens(1 << 16));
+
+        String token = jwt.gerarAccessToken(usuario(7L, "USER"));
+
+        assertThatThrownBy(() -> jwt.autenticar(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void autenticar_quandoJtiRevogado_deveLancarMesmoComTokenEmCache() {
+        var lista = new ListaNegraTokens(1 << 16);
+        var jwt = new JwtService(props(SEGREDO, 5), lista);
+        String token = jwt.gerarAccessToken(usuario(7L, "USER"));
+        String outro = jwt.gerarAccessToken(usuario(7L, "USER"));
+
+        var validado = jwt.autenticar(token);
+        assertThat(validado.jti()).isNotNull();
+        lista.adicionar(validado.jti(), validado.expiraEmMillis());
+
+        assertThatThrownBy(() -> jwt.autenticar(token))
+                .isInstanceOf(JwtException.class)
+                .hasMessageContaining("revogado");
+        assertThat(jwt.autenticar(outro).usuario()).isEqualTo("7");
+    }
+
+    private static JwtProperties props(String segredo, int minutos) {
+        return new JwtProperties(segredo, "api", minutos, 7, "email", 100L);
+    }
+
+    private static Usuario usuario(Long id, String papel) {
+        var u = new Usuario();
+        u.setId(id);
+        u.setPapel(papel);
+        return u;
+    }
+}
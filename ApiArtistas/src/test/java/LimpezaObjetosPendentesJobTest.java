@@ -0,0 +1,139 @@
+
+import br.com.seplag.sistema.erp.repository.DerivadoImagemRepository;
+import br.com.seplag.sistema.erp.repository.ImagemAlbumRepository;
+import br.com.seplag.sistema.erp.repository.ObjetoConteudoRepository;
+import br.com.seplag.sistema.erp.repository.ObjetoPendenteRepository;
+import br.com.seplag.sistema.erp.service.LimpezaObjetosPendentesJob;
+import br.com.seplag.sistema.storage.MinioStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LimpezaObjetosPendentesJobTest {
+
+    @Mock ObjetoPendenteRepository pendentes;
+    @Mock ImagemAlbumRepository imagemAlbumRepository;
+    @Mock DerivadoImagemRepository derivadoRepository;
+    @Mock ObjetoConteudoRepository conteudos;
+    @Mock MinioStorageService storage;
+    @Mock PlatformTransactionManager transactionManager;
+
+    LimpezaObjetosPendentesJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new LimpezaObjetosPendentesJob(pendentes, imagemAlbumRepository, derivadoRepository, conteudos, storage,
+                transactionManager, Duration.ofHours(1), 100);
+    }
+
+    @Test
+    void limpar_deveApagarSoObjetosSemMetadadoEDarBaixaNoDiario() throws Exception {
+        when(pendentes.buscarVencidas(3600, 100)).thenReturn(List.of("orfa", "confirmada"));
+        when(imagemAlbumRepository.existsByChaveObjeto("orfa")).thenReturn(false);
+        when(imagemAlbumRepository.existsByChaveObjeto("confirmada")).thenReturn(true);
+
+        int resolvidas = job.limpar();
+
+        assertThat(resolvidas).isEqualTo(2);
+        verify(storage).delete("orfa");
+        verify(storage, never()).delete("confirmada");
+        verify(pendentes).removerTodas(List.of("orfa", "confirmada"));
+    }
+
+    @Test
+    void limpar_quandoMinioFalhar_deveManterChaveParaProximaVarredura() throws Exception {
+        when(pendentes.buscarVencidas(3600, 100)).thenReturn(List.of("a", "b"));
+        when(imagemAlbumRepository.existsByChaveObjeto(anyString())).thenReturn(false);
+        doThrow(new RuntimeException("minio fora")).when(storage).delete("a");
+
+        job.limpar();
+
+        verify(pendentes).removerTodas(List.of("b"));
+    }
+
+    @Test
+    void limpar_quandoChavePorConteudoRegistrada_deveSoDarBaixaNoDiario() throws Exception {
+        when(pendentes.buscarVencidas(3600, 100)).thenReturn(List.of(CHAVE));
+        when(conteudos.existsById(CHAVE)).thenReturn(true);
+
+        job.limpar();
+
+        verify(storage, never()).delete(anyString());
+        verify(pendentes).removerTodas(List.of(CHAVE));
+    }
+
+    @Test
+    void limparConteudosSemReferencias_deveApagarOriginalEDerivadosEALinha() throws Exception {
+        when(conteudos.buscarSemReferencias(3600, 100)).thenReturn(List.of(CHAVE));
+        when(conteudos.travarSemReferencias(CHAVE, 3600)).thenReturn(List.of(CHAVE));
+        when(storage.listarChaves(PREFIXO + "_w")).thenReturn(List.of(PREFIXO + "_w160.jpg"));
+
+        int removidos = job.limparConteudosSemReferencias();
+
+        assertThat(removidos).isEqualTo(1);
+        verify(storage).deleteTodos(List.of(CHAVE, PREFIXO + "_w160.jpg"));
+        verify(conteudos).deleteById(CHAVE);
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void limparConteudosSemReferencias_quandoVoltouASerReferenciado_deveManter() throws Exception {
+        when(conteudos.buscarSemReferencias(3600, 100)).thenReturn(List.of(CHAVE));
+        when(conteudos.travarSemReferencias(CHAVE, 3600)).thenReturn(List.of());
+
+        assertThat(job.limparConteudosSemReferencias()).isZero();
+
+        verify(storage, never()).deleteTodos(any());
+        verify(conteudos, never()).deleteById(any());
+    }
+
+    @Test
+    void limparConteudosSemReferencias_quandoMesmoConteudoComOutroTipo_deveManterDerivados() throws Exception {
+        when(conteudos.buscarSemReferencias(3600, 100)).thenReturn(List.of(CHAVE));
+        when(conteudos.travarSemReferencias(CHAVE, 3600)).thenReturn(List.of(CHAVE));
+        when(conteudos.existsByChaveObjetoStartingWithAndChaveObjetoNot(PREFIXO, CHAVE)).thenReturn(true);
+
+        job.limparConteudosSemReferencias();
+
+        verify(storage, never()).listarChaves(anyString());
+        verify(storage).deleteTodos(List.of(CHAVE));
+    }
+
+    @Test
+    void limparConteudosSemReferencias_quandoMinioFalhar_deveDesfazerEManterLinha() throws Exception {
+        when(conteudos.buscarSemReferencias(3600, 100)).thenReturn(List.of(CHAVE));
+        when(conteudos.travarSemReferencias(CHAVE, 3600)).thenReturn(List.of(CHAVE));
+        doThrow(new RuntimeException("minio fora")).when(storage).deleteTodos(any());
+
+        assertThat(job.limparConteudosSemReferencias()).isZero();
+
+        verify(conteudos, never()).deleteById(any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void limparConteudosSemReferencias_quandoUmaChaveFalhar_deveDesfazerEManterLinha() throws Exception {
+        when(conteudos.buscarSemReferencias(3600, 100)).thenReturn(List.of(CHAVE));
+        when(conteudos.travarSemReferencias(CHAVE, 3600)).thenReturn(List.of(CHAVE));
+        when(conteudos.existsByChaveObjetoStartingWithAndChaveObjetoNot(PREFIXO, CHAVE)).thenReturn(true);
+        when(storage.deleteTodos(List.of(CHAVE))).thenReturn(List.of(CHAVE));
+
+        assertThat(job.limparConteudosSemReferencias()).isZero();
+
+        verify(conteudos, never()).deleteById(any());
+        verify(transactionManager).rollback(any());
+    }
+
+    private static final String PREFIXO = "conteudo/ab/abcd";
+    private static final String CHAVE = PREFIXO + ".png";
+}
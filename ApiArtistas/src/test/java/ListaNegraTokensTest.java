@@ -0,0 +1,56 @@
+import br.com.seplag.sistema.security.ListaNegraTokens;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ListaNegraTokensTest {
+
+    @Test
+    void revogado_deveReconhecerSoOsAdicionados() {
+        var lista = new ListaNegraTokens(1 << 10);
+        List<UUID> adicionados = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            UUID jti = UUID.randomUUID();
+            lista.adicionar(jti, System.currentTimeMillis() + 60_000);
+            adicionados.add(jti);
+        }
+
+        assertThat(adicionados).allMatch(lista::revogado);
+        // filtro pequeno e cheio o bastante para ter falsos positivos: o conjunto exato barra todos
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(lista.revogado(UUID.randomUUID())).isFalse();
+        }
+        assertThat(lista.revogado(null)).isFalse();
+    }
+
+    @Test
+    void adicionar_quandoJaExpirado_deveIgnorar() {
+        var lista = new ListaNegraTokens(1 << 10);
+        UUID jti = UUID.randomUUID();
+
+        lista.adicionar(jti, System.currentTimeMillis() - 1);
+
+        assertThat(lista.revogado(jti)).isFalse();
+        assertThat(lista.tamanho()).isZero();
+    }
+
+    @Test
+    void recompor_deveTirarExpiradosEManterOsDemais() throws InterruptedException {
+        var lista = new ListaNegraTokens(1 << 10);
+        UUID curto = UUID.randomUUID();
+        UUID longo = UUID.randomUUID();
+        lista.adicionar(curto, System.currentTimeMillis() + 20);
+        lista.adicionar(longo, System.currentTimeMillis() + 60_000);
+
+        Thread.sleep(40);
+
+        assertThat(lista.recompor()).isEqualTo(1);
+        assertThat(lista.revogado(curto)).isFalse();
+        assertThat(lista.revogado(longo)).isTrue();
+        assertThat(lista.tamanho()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,150 @@
+import br.com.seplag.sistema.ApiArtistasApplication;
+import br.com.seplag.sistema.erp.model.Usuario;
+import br.com.seplag.sistema.erp.model.dto.auth.LoginRequest;
+import br.com.seplag.sistema.erp.repository.RefreshTokenRepository;
+import br.com.seplag.sistema.erp.repository.UsuarioRepository;
+import br.com.seplag.sistema.erp.service.AuthService;
+import br.com.seplag.sistema.security.JwtProperties;
+import br.com.seplag.sistema.security.JwtService;
+import br.com.seplag.sistema.security.ListaNegraTokens;
+import br.com.seplag.sistema.security.RefreshTokenService;
+import br.com.seplag.sistema.security.UsuarioDetailsService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Conta as instruções SQL de um login completo (autenticação + emissão dos tokens) contra um Postgres real,
+ * com os índices em lower(email)/lower(nome) da V19. Ignorado sem Docker.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ContextConfiguration(classes = ApiArtistasApplication.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class LoginConsultasTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired UsuarioRepository usuarioRepository;
+    @Autowired RefreshTokenRepository refreshTokenRepository;
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory emf;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    JwtProperties props;
+    AuthService authService;
+    Statistics stats;
+
+    @BeforeEach
+    void montar() {
+        props = new JwtProperties("segredo-de-teste-com-mais-de-32-caracteres", "api", 5, 7, "email", 100L);
+        var encoder = new BCryptPasswordEncoder(4);
+
+        var provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(new UsuarioDetailsService(usuarioRepository, props));
+        provider.setPasswordEncoder(encoder);
+
+        authService = new AuthService(
+                new ProviderManager(List.of(provider)),
+                usuarioRepository,
+                encoder,
+                new JwtService(props, new ListaNegraTokens(1 << 10)),
+                new RefreshTokenService(refreshTokenRepository, props),
+                null,
+                transactionManager
+        );
+
+        Usuario u = new Usuario();
+        u.setNome("Fulano");
+        u.setEmail("Fulano@Exemplo.com");
+        u.setSenhaHash(encoder.encode("123"));
+        u.setPapel("USER");
+        u.setAtivo(true);
+        em.persist(u);
+        em.flush();
+        em.clear();
+
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void login_deveBuscarUsuarioUmaVezEGravarSoORefreshToken() {
+        var out = authService.login(new LoginRequest("fulano@exemplo.COM", "123"));
+        em.flush();
+
+        assertThat(out.accessToken()).isNotBlank();
+        assertThat(out.refreshToken()).isNotBlank();
+        // SELECT do usuário + UPDATE revogando refresh tokens antigos + INSERT do novo
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(stats.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void login_quandoSenhaErrada_deveFazerSoABuscaDoUsuario() {
+        assertThatThrownBy(() -> authService.login(new LoginRequest("fulano@exemplo.com", "errada")))
+                .isInstanceOf(BadCredentialsException.class);
+
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void login_quandoHashDeCustoMenor_deveRegravarHashPeloProvider() {
+        // mesmo caminho do DaoAuthenticationProvider da aplicação: o UserDetailsService também é o UserDetailsPasswordService
+        var detalhes = new UsuarioDetailsService(usuarioRepository, props);
+        var provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(detalhes);
+        provider.setUserDetailsPasswordService(detalhes);
+        provider.setPasswordEncoder(new BCryptPasswordEncoder(5));
+
+        new ProviderManager(List.of(provider))
+                .authenticate(new UsernamePasswordAuthenticationToken("fulano@exemplo.com", "123"));
+        em.flush();
+        em.clear();
+
+        Usuario relido = usuarioRepository.findByEmailIgnoreCase("fulano@exemplo.com").orElseThrow();
+        assertThat(relido.getSenhaHash()).startsWith("$2a$05$");
+        assertThat(new BCryptPasswordEncoder(5).matches("123", relido.getSenhaHash())).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void buscaPorEmail_deveUsarIndiceEmLower() {
+        em.createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+
+        List<String> plano = em.createNativeQuery(
+                "EXPLAIN SELECT * FROM usuarios WHERE lower(email) = lower('FULANO@exemplo.com')").getResultList();
+
+        assertThat(String.join("\n", plano)).contains("ux_usuarios_email_lower");
+    }
+}
@@ -0,0 +1,63 @@
+import br.com.seplag.sistema.storage.Blurhash;
+import br.com.seplag.sistema.storage.DimensoesImagem;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MetadadosImagemTest {
+
+    @Test
+    void ler_quandoPngOuJpeg_deveLerDoCabecalho() throws Exception {
+        assertThat(DimensoesImagem.ler(imagem("png", 600, 400))).isEqualTo(new DimensoesImagem(600, 400));
+        assertThat(DimensoesImagem.ler(imagem("jpeg", 320, 240))).isEqualTo(new DimensoesImagem(320, 240));
+    }
+
+    @Test
+    void ler_quandoWebpEstendidoOuSemPerdas_deveLerDoCabecalhoDoQuadro() {
+        byte[] vp8x = webp("VP8X");
+        // canvas 1024 x 736 gravado como (largura - 1, altura - 1) em 24 bits little-endian
+        vp8x[24] = (byte) 0xFF; vp8x[25] = 0x03;
+        vp8x[27] = (byte) 0xDF; vp8x[28] = 0x02;
+
+        byte[] vp8l = webp("VP8L");
+        long bits = 299 | (199L << 14);
+        vp8l[20] = 0x2F;
+        vp8l[21] = (byte) bits; vp8l[22] = (byte) (bits >> 8); vp8l[23] = (byte) (bits >> 16); vp8l[24] = (byte) (bits >> 24);
+
+        assertThat(DimensoesImagem.ler(vp8x)).isEqualTo(new DimensoesImagem(1024, 736));
+        assertThat(DimensoesImagem.ler(vp8l)).isEqualTo(new DimensoesImagem(300, 200));
+    }
+
+    @Test
+    void ler_quandoCabecalhoCortadoAntesDoSof_deveRetornarNull() throws Exception {
+        byte[] jpeg = imagem("jpeg", 320, 240);
+
+        assertThat(DimensoesImagem.ler(Arrays.copyOf(jpeg, 20))).isNull();
+        assertThat(DimensoesImagem.ler("nao é imagem".getBytes(StandardCharsets.UTF_8))).isNull();
+    }
+
+    @Test
+    void blurhash_quandoImagemPreta_deveGerarHashDeReferencia() {
+        var preta = new BufferedImage(32, 21, BufferedImage.TYPE_INT_RGB);
+
+        assertThat(Blurhash.codificar(preta, 4, 3)).isEqualTo("L00000fQfQfQfQfQfQfQfQfQfQfQ");
+    }
+
+    private static byte[] imagem(String formato, int largura, int altura) throws Exception {
+        var out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB), formato, out);
+        return out.toByteArray();
+    }
+
+    private static byte[] webp(String chunk) {
+        byte[] b = new byte[30];
+        System.arraycopy(("RIFF\0\0\0\0WEBP" + chunk).getBytes(StandardCharsets.US_ASCII), 0, b, 0, 16);
+        return b;
+    }
+}
@@ -0,0 +1,144 @@
+import br.com.seplag.sistema.storage.ArquivoInvalidoException;
+import br.com.seplag.sistema.storage.ArquivoStream;
+import br.com.seplag.sistema.storage.MultipartStreaming;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MultipartStreamingTest {
+
+    static final String BOUNDARY = "----limite123";
+
+    @Test
+    void arquivos_deveLerSoAsPartesDoCampoComConteudoIntacto() throws Exception {
+        // maior que o buffer e com trechos parecidos com o delimitador
+        byte[] grande = new byte[20_000];
+        new Random(7).nextBytes(grande);
+        byte[] quase = ("\r\n--" + BOUNDARY.substring(0, 8)).getBytes(StandardCharsets.ISO_8859_1);
+        System.arraycopy(quase, 0, grande, 8190, quase.length);
+
+        byte[] corpo = new Corpo()
+                .campo("indiceCapa", "1")
+                .arquivo("arquivos", "a.png", "image/png", grande)
+                .arquivo("outro", "x.png", "image/png", "ignorado".getBytes())
+                .arquivo("arquivos", "b.jpg", "image/jpeg", "segundo".getBytes())
+                .fim();
+
+        Iterator<ArquivoStream> it = MultipartStreaming.arquivos(requisicao(corpo), "arquivos", 10, 1_000_000, 1_000_000);
+
+        ArquivoStream a = it.next();
+        assertThat(a.nomeArquivo()).isEqualTo("a.png");
+        assertThat(a.tipoDeclarado()).isEqualTo("image/png");
+        assertThat(a.conteudo().readAllBytes()).isEqualTo(grande);
+
+        ArquivoStream b = it.next();
+        assertThat(b.nomeArquivo()).isEqualTo("b.jpg");
+        assertThat(new String(b.conteudo().readAllBytes())).isEqualTo("segundo");
+        assertThat(it.hasNext()).isFalse();
+    }
+
+    @Test
+    void arquivos_quandoParteNaoLida_deveDescartarAoAvancar() {
+        byte[] corpo = new Corpo()
+                .arquivo("arquivos", "a.png", "image/png", new byte[10_000])
+                .arquivo("arquivos", "b.png", "image/png", "b".getBytes())
+                .fim();
+
+        Iterator<ArquivoStream> it = MultipartStreaming.arquivos(requisicao(corpo), "arquivos", 10, 1_000_000, 1_000_000);
+
+        assertThat(it.next().nomeArquivo()).isEqualTo("a.png");
+        assertThat(it.next().nomeArquivo()).isEqualTo("b.png");
+        assertThat(it.hasNext()).isFalse();
+    }
+
+    @Test
+    void arquivos_quandoArquivoPassaDoLimite_deveFalharNaLeitura() {
+        byte[] corpo = new Corpo().arquivo("arquivos", "a.png", "image/png", new byte[5_000]).fim();
+
+        ArquivoStream a = MultipartStreaming.arquivos(requisicao(corpo), "arquivos", 10, 1_000_000, 1_000).next();
+
+        assertThatThrownBy(() -> a.conteudo().readAllBytes()).isInstanceOf(ArquivoInvalidoException.class);
+    }
+
+    @Test
+    void arquivos_quandoRequisicaoPassaDoLimite_deveFalhar() {
+        byte[] corpo = new Corpo().arquivo("arquivos", "a.png", "image/png", new byte[50_000]).fim();
+
+        ArquivoStream a = MultipartStreaming.arquivos(requisicao(corpo), "arquivos", 10, 20_000, 1_000_000).next();
+
+        assertThatThrownBy(() -> a.conteudo().readAllBytes())
+                .isInstanceOf(ArquivoInvalidoException.class)
+                .hasMessageContaining("Requisição excede");
+    }
+
+    @Test
+    void arquivos_quandoPartesDemais_deveFalhar() {
+        Corpo corpo = new Corpo();
+        for (int i = 0; i < 3; i++) {
+            corpo.campo("campo" + i, "v");
+        }
+        Iterator<ArquivoStream> it = MultipartStreaming.arquivos(requisicao(corpo.fim()), "arquivos", 2, 1_000_000, 1_000_000);
+
+        assertThatThrownBy(it::hasNext).hasMessageContaining("Máximo de 2 arquivos");
+    }
+
+    @Test
+    void arquivos_quandoCorpoTruncado_deveFalharComoInvalido() {
+        byte[] completo = new Corpo().arquivo("arquivos", "a.png", "image/png", new byte[100]).fim();
+        byte[] truncado = Arrays.copyOf(completo, completo.length - 30);
+
+        ArquivoStream a = MultipartStreaming.arquivos(requisicao(truncado), "arquivos", 10, 1_000_000, 1_000_000).next();
+
+        assertThatThrownBy(() -> a.conteudo().readAllBytes()).isInstanceOf(ArquivoInvalidoException.class);
+    }
+
+    @Test
+    void arquivos_quandoNaoMultipart_deveFalhar() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/albuns/1/imagens/upload-stream");
+        request.setContentType("application/json");
+
+        assertThatThrownBy(() -> MultipartStreaming.arquivos(request, "arquivos", 10, 1_000, 1_000))
+                .isInstanceOf(ArquivoInvalidoException.class);
+    }
+
+    private static MockHttpServletRequest requisicao(byte[] corpo) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/albuns/1/imagens/upload-stream");
+        request.setContentType("multipart/form-data; boundary=\"" + BOUNDARY + "\"");
+        request.setContent(corpo);
+        return request;
+    }
+
+    private static final class Corpo {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Corpo campo(String nome, String valor) {
+            escrever("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + nome + "\"\r\n\r\n" + valor + "\r\n");
+            return this;
+        }
+
+        Corpo arquivo(String nome, String arquivo, String tipo, byte[] conteudo) {
+            escrever("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + nome + "\"; filename=\"" + arquivo
+                    + "\"\r\nContent-Type: " + tipo + "\r\n\r\n");
+            out.writeBytes(conteudo);
+            escrever("\r\n");
+            return this;
+        }
+
+        byte[] fim() {
+            escrever("--" + BOUNDARY + "--\r\n");
+            return out.toByteArray();
+        }
+
+        private void escrever(String s) {
+            out.writeBytes(s.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+import br.com.seplag.sistema.security.BucketsRateLimit;
+import br.com.seplag.sistema.security.RateLimitFilter;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private static BucketsRateLimit buckets(long maxChaves, long capacidade) {
+        Bandwidth limite = Bandwidth.classic(capacidade, Refill.intervally(capacidade, Duration.ofMinutes(1)));
+        return new BucketsRateLimit(maxChaves, Duration.ofMinutes(10), chave -> Bucket.builder().addLimit(limite).build());
+    }
+
+    private static MockHttpServletResponse requisicao(RateLimitFilter filtro, String usuario) throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(usuario, null, List.of()));
+        var response = new MockHttpServletResponse();
+        filtro.doFilter(new MockHttpServletRequest("GET", "/api/v1/artistas"), response, new MockFilterChain());
+        return response;
+    }
+
+    @AfterEach
+    void limpar() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_quandoPassaDaCapacidade_deveResponder429PorUsuario() throws Exception {
+        var filtro = new RateLimitFilter(buckets(100, 2));
+
+        assertThat(requisicao(filtro, "1").getHeader("X-Rate-Limit-Remaining")).isEqualTo("1");
+        assertThat(requisicao(filtro, "1").getStatus()).isEqualTo(200);
+        var bloqueada = requisicao(filtro, "1");
+
+        assertThat(bloqueada.getStatus()).isEqualTo(429);
+        assertThat(bloqueada.getHeader("Retry-After")).isNotNull();
+        assertThat(requisicao(filtro, "2").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void bucket_quandoMesmoUsuario_deveReusarEManterOLimiteDeChaves() {
+        var buckets = buckets(3, 10);
+
+        assertThat(buckets.bucket("1")).isSameAs(buckets.bucket("1"));
+        for (int i = 0; i < 50; i++) {
+            buckets.bucket("u" + i);
+        }
+
+        assertThat(buckets.tamanho()).isLessThanOrEqualTo(3);
+    }
+}
@@ -0,0 +1,90 @@
+import br.com.seplag.sistema.ApiArtistasApplication;
+import br.com.seplag.sistema.security.BucketsRateLimit;
+import br.com.seplag.sistema.security.RateLimitConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Duas instâncias de {@link BucketsRateLimit} montadas por {@link RateLimitConfig} com backend postgres, sobre
+ * o mesmo banco (tabela da V20), fazem o papel de dois nós: a cota do usuário é uma só, com a folga de até
+ * {@code lote-tokens} por nó entre sincronizações. Ignorado sem Docker.
+ */
+@DataJpaTest
+@ContextConfiguration(classes = ApiArtistasApplication.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RateLimitPostgresTest {
+
+    private static final long CAPACIDADE = 40;
+    private static final long LOTE_TOKENS = 5;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired DataSource dataSource;
+
+    private BucketsRateLimit no(String backend) {
+        // lote-intervalo longo: só o limite de tokens dispara a sincronização durante o teste
+        return new RateLimitConfig().bucketsRateLimit(CAPACIDADE, 1, backend, 1_000, Duration.ofMinutes(10),
+                LOTE_TOKENS, Duration.ofMinutes(1), dataSource, new SimpleMeterRegistry());
+    }
+
+    private static long consumirAlternando(BucketsRateLimit a, BucketsRateLimit b, String chave) {
+        long aceitos = 0;
+        for (int i = 0; i < 2 * CAPACIDADE; i++) {
+            if (a.bucket(chave).tryConsume(1)) aceitos++;
+            if (b.bucket(chave).tryConsume(1)) aceitos++;
+        }
+        return aceitos;
+    }
+
+    @Test
+    void postgres_doisNos_devemDividirAMesmaCota() {
+        long aceitos = consumirAlternando(no("postgres"), no("postgres"), "usuario-compartilhado");
+
+        assertThat(aceitos).isBetween(CAPACIDADE, CAPACIDADE + 2 * LOTE_TOKENS);
+    }
+
+    @Test
+    void postgres_noNovo_deveVerACotaJaConsumidaPelosOutros() {
+        BucketsRateLimit a = no("postgres");
+        BucketsRateLimit b = no("postgres");
+        consumirAlternando(a, b, "usuario-esgotado");
+
+        // um nó que ainda não tinha visto a chave lê o estado do banco e não recebe cota nova; no banco faltam
+        // no máximo os lotes ainda não sincronizados de a e b
+        BucketsRateLimit c = no("postgres");
+        assertThat(c.bucket("usuario-esgotado").tryConsume(2 * LOTE_TOKENS + 1)).isFalse();
+        assertThat(c.bucket("outro-usuario").tryConsume(2 * LOTE_TOKENS + 1)).isTrue();
+    }
+
+    @Test
+    void local_doisNos_devemTerCotasSeparadas() {
+        // referência: sem o banco cada nó tem a cota inteira
+        assertThat(consumirAlternando(no("local"), no("local"), "usuario-local")).isEqualTo(2 * CAPACIDADE);
+    }
+}
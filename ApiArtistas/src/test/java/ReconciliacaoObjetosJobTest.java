@@ -0,0 +1,89 @@
+import br.com.seplag.sistema.erp.repository.ObjetoPendenteRepository;
+import br.com.seplag.sistema.erp.service.ReconciliacaoObjetosJob;
+import br.com.seplag.sistema.storage.MinioStorageService;
+import br.com.seplag.sistema.storage.ObjetoListado;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReconciliacaoObjetosJobTest {
+
+    private static final Instant ANTIGO = Instant.now().minus(Duration.ofDays(2));
+
+    @Mock MinioStorageService storage;
+    @Mock ObjetoPendenteRepository pendentes;
+
+    ReconciliacaoObjetosJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new ReconciliacaoObjetosJob(storage, pendentes, List.of("albuns/"), Duration.ofHours(24), 2, 1_000_000);
+    }
+
+    @Test
+    void reconciliar_deveApagarEmLoteSoObjetosAntigosSemReferencia() throws Exception {
+        when(storage.listarPagina("albuns/", null, 2)).thenReturn(List.of(
+                new ObjetoListado("albuns/1/a.png", ANTIGO),
+                new ObjetoListado("albuns/1/b.png", ANTIGO)));
+        when(storage.listarPagina("albuns/", "albuns/1/b.png", 2)).thenReturn(List.of(
+                new ObjetoListado("albuns/2/c.png", Instant.now())));
+        when(pendentes.chavesReferenciadas(List.of("albuns/1/a.png", "albuns/1/b.png")))
+                .thenReturn(List.of("albuns/1/b.png"));
+
+        int removidos = job.reconciliar();
+
+        assertThat(removidos).isEqualTo(1);
+        verify(storage).deleteTodos(List.of("albuns/1/a.png"));
+        // a página parcial é a última, e o objeto recente nem chega ao banco
+        verify(pendentes, times(1)).chavesReferenciadas(any());
+        verify(storage, times(2)).listarPagina(anyString(), any(), anyInt());
+    }
+
+    @Test
+    void reconciliar_quandoRemocaoFalhar_deveSeguirParaProximaPagina() throws Exception {
+        when(storage.listarPagina("albuns/", null, 2)).thenReturn(List.of(
+                new ObjetoListado("albuns/1/a.png", ANTIGO),
+                new ObjetoListado("albuns/1/b.png", ANTIGO)));
+        when(storage.listarPagina("albuns/", "albuns/1/b.png", 2)).thenReturn(List.of(
+                new ObjetoListado("albuns/3/d.png", ANTIGO)));
+        when(pendentes.chavesReferenciadas(anyList())).thenReturn(List.of());
+        doThrow(new IllegalStateException("minio fora")).when(storage).deleteTodos(List.of("albuns/1/a.png", "albuns/1/b.png"));
+
+        int removidos = job.reconciliar();
+
+        assertThat(removidos).isEqualTo(1);
+        verify(storage).deleteTodos(List.of("albuns/3/d.png"));
+    }
+
+    @Test
+    void reconciliar_quandoRemocaoFalharEmParte_deveContarSoAsRemovidas() throws Exception {
+        when(storage.listarPagina("albuns/", null, 2)).thenReturn(List.of(
+                new ObjetoListado("albuns/1/a.png", ANTIGO),
+                new ObjetoListado("albuns/1/b.png", ANTIGO)));
+        when(storage.listarPagina("albuns/", "albuns/1/b.png", 2)).thenReturn(List.of());
+        when(pendentes.chavesReferenciadas(anyList())).thenReturn(List.of());
+        when(storage.deleteTodos(List.of("albuns/1/a.png", "albuns/1/b.png"))).thenReturn(List.of("albuns/1/b.png"));
+
+        assertThat(job.reconciliar()).isEqualTo(1);
+    }
+
+    @Test
+    void reconciliar_quandoBucketVazio_naoDeveConsultarBanco() throws Exception {
+        when(storage.listarPagina("albuns/", null, 2)).thenReturn(List.of());
+
+        assertThat(job.reconciliar()).isZero();
+
+        verifyNoInteractions(pendentes);
+        verify(storage, never()).deleteTodos(any());
+    }
+}
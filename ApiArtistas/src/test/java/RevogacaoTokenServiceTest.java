@@ -0,0 +1,67 @@
+import br.com.seplag.sistema.erp.repository.TokenRevogadoRepository;
+import br.com.seplag.sistema.security.JwtService;
+import br.com.seplag.sistema.security.ListaNegraTokens;
+import br.com.seplag.sistema.security.RevogacaoTokenService;
+import io.jsonwebtoken.ExpiredJwtException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RevogacaoTokenServiceTest {
+
+    @Mock JwtService jwtService;
+    @Mock TokenRevogadoRepository repo;
+
+    ListaNegraTokens listaNegra = new ListaNegraTokens(1024);
+
+    private RevogacaoTokenService service() {
+        return new RevogacaoTokenService(jwtService, listaNegra, repo);
+    }
+
+    private static JwtService.TokenValidado token(UUID jti, long expiraEmMillis) {
+        return new JwtService.TokenValidado(jti, "admin", "ADMIN", List.of(), expiraEmMillis);
+    }
+
+    @Test
+    void revogar_quandoTokenValido_deveGravarTempoRestanteEBloquearLocalmente() {
+        UUID jti = UUID.randomUUID();
+        when(jwtService.autenticar("t")).thenReturn(token(jti, System.currentTimeMillis() + 60_000));
+
+        service().revogar("t");
+
+        // grava o restante, não o instante: o banco soma ao próprio now()
+        verify(repo).registrar(eq(jti), longThat(ms -> ms > 55_000 && ms <= 60_000));
+        assertThat(listaNegra.revogado(jti)).isTrue();
+    }
+
+    @Test
+    void revogar_quandoTokenInvalido_naoDeveGravar() {
+        when(jwtService.autenticar("t")).thenThrow(new ExpiredJwtException(null, null, "expirado"));
+
+        service().revogar("t");
+
+        verifyNoInteractions(repo);
+        assertThat(listaNegra.tamanho()).isZero();
+    }
+
+    @Test
+    void revogar_quandoSemJtiOuJaExpirado_naoDeveGravar() {
+        when(jwtService.autenticar("sem-jti")).thenReturn(token(null, System.currentTimeMillis() + 60_000));
+        when(jwtService.autenticar("expirado")).thenReturn(token(UUID.randomUUID(), System.currentTimeMillis() - 1));
+
+        service().revogar("sem-jti");
+        service().revogar("expirado");
+
+        verifyNoInteractions(repo);
+        assertThat(listaNegra.tamanho()).isZero();
+    }
+}
@@ -0,0 +1,104 @@
+import br.com.seplag.sistema.infra.LeituraAposEscritaGuard;
+import br.com.seplag.sistema.infra.PoolReplicas;
+import br.com.seplag.sistema.infra.RoteamentoDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoteamentoDataSourceTest {
+
+    @Mock DataSource primario;
+    @Mock DataSource replicaA;
+    @Mock DataSource replicaB;
+
+    @Mock Connection conPrimario;
+    @Mock Connection conA;
+    @Mock Connection conB;
+
+    PoolReplicas pool;
+    RoteamentoDataSource ds;
+
+    @BeforeEach
+    void setUp() {
+        pool = new PoolReplicas(List.of(
+                new PoolReplicas.Replica("a", replicaA),
+                new PoolReplicas.Replica("b", replicaB)
+        ), 10);
+        ds = new RoteamentoDataSource(primario, pool, new LeituraAposEscritaGuard(Duration.ofSeconds(5)));
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("ana@x.com", null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void transacao(boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    @Test
+    void getConnection_quandoReadOnly_deveAlternarEntreReplicas() throws SQLException {
+        when(replicaA.getConnection()).thenReturn(conA);
+        when(replicaB.getConnection()).thenReturn(conB);
+        transacao(true);
+
+        assertThat(List.of(ds.getConnection(), ds.getConnection(), ds.getConnection()))
+                .containsExactly(conA, conB, conA);
+        verifyNoInteractions(primario);
+    }
+
+    @Test
+    void getConnection_quandoEscritaOuSemTransacao_deveUsarPrimario() throws SQLException {
+        when(primario.getConnection()).thenReturn(conPrimario);
+
+        assertThat(ds.getConnection()).isSameAs(conPrimario);
+        transacao(false);
+        assertThat(ds.getConnection()).isSameAs(conPrimario);
+
+        verifyNoInteractions(replicaA, replicaB);
+    }
+
+    @Test
+    void getConnection_quandoReplicaFalha_deveEjetarETentarAProxima() throws SQLException {
+        when(replicaA.getConnection()).thenThrow(new SQLException("down"));
+        when(replicaB.getConnection()).thenReturn(conB);
+        transacao(true);
+
+        assertThat(ds.getConnection()).isSameAs(conB);
+        assertThat(ds.getConnection()).isSameAs(conB);
+        verify(replicaA, times(1)).getConnection();
+    }
+
+    @Test
+    void getConnection_quandoUsuarioAcabouDeEscrever_deveLerDoPrimario() throws SQLException {
+        when(primario.getConnection()).thenReturn(conPrimario);
+
+        transacao(false);
+        ds.getConnection();
+
+        transacao(true);
+        assertThat(ds.getConnection()).isSameAs(conPrimario);
+        verifyNoInteractions(replicaA, replicaB);
+    }
+}
@@ -0,0 +1,84 @@
+import br.com.seplag.sistema.erp.repository.TokenRevogadoRepository;
+import br.com.seplag.sistema.erp.service.SincronizacaoRevogacoesJob;
+import br.com.seplag.sistema.security.ListaNegraTokens;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SincronizacaoRevogacoesJobTest {
+
+    @Mock TokenRevogadoRepository repo;
+
+    ListaNegraTokens listaNegra = new ListaNegraTokens(1024);
+
+    private SincronizacaoRevogacoesJob job() {
+        return new SincronizacaoRevogacoesJob(repo, listaNegra, Duration.ofSeconds(30));
+    }
+
+    private static TokenRevogadoRepository.Revogacao revogacao(UUID jti, long restanteMillis, long revogadoEmMillis) {
+        return new TokenRevogadoRepository.Revogacao() {
+            @Override public UUID getJti() { return jti; }
+            @Override public long getRestanteMillis() { return restanteMillis; }
+            @Override public long getRevogadoEmMillis() { return revogadoEmMillis; }
+        };
+    }
+
+    @Test
+    void sincronizar_primeiraRodada_deveCarregarTodasAsValidas() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        when(repo.ativasDesde(0L)).thenReturn(List.of(revogacao(a, 60_000, 1_000_000), revogacao(b, 60_000, 2_000_000)));
+
+        int lidas = job().sincronizar();
+
+        assertThat(lidas).isEqualTo(2);
+        assertThat(listaNegra.revogado(a)).isTrue();
+        assertThat(listaNegra.revogado(b)).isTrue();
+    }
+
+    @Test
+    void sincronizar_rodadasSeguintes_devemRecuarAJanelaAPartirDaMaisRecente() {
+        UUID a = UUID.randomUUID();
+        when(repo.ativasDesde(0L)).thenReturn(List.of(revogacao(a, 60_000, 5_000_000)));
+        when(repo.ativasDesde(5_000_000L - 30_000)).thenReturn(List.of(revogacao(a, 59_000, 5_000_000)));
+        var job = job();
+
+        job.sincronizar();
+        int relidas = job.sincronizar();
+
+        // a releitura dentro da janela é esperada e não duplica a revogação
+        assertThat(relidas).isEqualTo(1);
+        assertThat(listaNegra.tamanho()).isEqualTo(1);
+    }
+
+    @Test
+    void sincronizar_quandoNadaNovo_naoDeveRecuarAlemDaUltimaLida() {
+        when(repo.ativasDesde(0L)).thenReturn(List.of(revogacao(UUID.randomUUID(), 60_000, 5_000_000)));
+        when(repo.ativasDesde(4_970_000L)).thenReturn(List.of());
+        var job = job();
+
+        job.sincronizar();
+        job.sincronizar();
+        job.sincronizar();
+
+        verify(repo, times(2)).ativasDesde(4_970_000L);
+    }
+
+    @Test
+    void removerExpiradas_deveApagarPeloRelogioDoBanco() {
+        when(repo.removerExpiradas()).thenReturn(3);
+
+        job().removerExpiradas();
+
+        verify(repo).removerExpiradas();
+    }
+}
@@ -0,0 +1,101 @@
+import br.com.seplag.sistema.exception.ServicoSobrecarregadoException;
+import br.com.seplag.sistema.storage.UploadParaleloExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class UploadParaleloExecutorTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void executar_deveDevolverResultadosNaOrdemDosItens() throws Exception {
+        var uploads = new UploadParaleloExecutor(4, 4, 16, registry);
+
+        // o primeiro item é o mais lento: termina por último, mas continua em primeiro no resultado
+        List<String> resultados = uploads.executar(List.of(30, 20, 10, 0), i -> 1L, i -> {
+            Thread.sleep(i);
+            return "r" + i;
+        });
+
+        assertThat(resultados).containsExactly("r30", "r20", "r10", "r0");
+        uploads.destroy();
+    }
+
+    @Test
+    void executar_quandoItemFalha_naoDeveIniciarOsSeguintes() {
+        var uploads = new UploadParaleloExecutor(4, 1, 16, registry);
+        List<String> executados = new CopyOnWriteArrayList<>();
+
+        assertThatThrownBy(() -> uploads.executar(List.of("a", "b", "c"), i -> 1L, item -> {
+            executados.add(item);
+            throw new IllegalStateException("falhou " + item);
+        })).isInstanceOf(IllegalStateException.class).hasMessage("falhou a");
+
+        assertThat(executados).containsExactly("a");
+        uploads.destroy();
+    }
+
+    @Test
+    void executar_quandoItemFalha_deveEsperarOsEmAndamentoAntesDeRelancar() {
+        var uploads = new UploadParaleloExecutor(4, 2, 16, registry);
+        AtomicInteger iniciados = new AtomicInteger();
+        AtomicInteger terminados = new AtomicInteger();
+
+        assertThatThrownBy(() -> uploads.executar(List.of("falha", "lento"), i -> 1L, item -> {
+            if (item.equals("falha")) {
+                throw new IllegalStateException("falhou");
+            }
+            iniciados.incrementAndGet();
+            Thread.sleep(50);
+            terminados.incrementAndGet();
+            return item;
+        })).isInstanceOf(IllegalStateException.class);
+
+        // o que já tinha começado terminou (e pode ser compensado); o que não começou foi pulado
+        assertThat(terminados.get()).isEqualTo(iniciados.get());
+        uploads.destroy();
+    }
+
+    @Test
+    void executar_quandoFilaGlobalCheia_deveRecusarComSobrecarga() throws Exception {
+        var uploads = new UploadParaleloExecutor(1, 2, 1, registry);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        // outra requisição ocupa a única thread e a única vaga da fila
+        CompletableFuture<List<String>> ocupando = CompletableFuture.supplyAsync(() -> {
+            try {
+                return uploads.executar(List.of("x", "y"), i -> 1L, item -> {
+                    liberar.await(5, TimeUnit.SECONDS);
+                    return item;
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("upload.imagem.fila").gauge().value() < 1 && System.nanoTime() < limite) {
+            Thread.sleep(5);
+        }
+        List<String> executados = new CopyOnWriteArrayList<>();
+
+        assertThatThrownBy(() -> uploads.executar(List.of("z"), i -> 1L, item -> {
+            executados.add(item);
+            return item;
+        })).isInstanceOf(ServicoSobrecarregadoException.class);
+
+        assertThat(executados).isEmpty();
+        assertThat(registry.get("upload.imagem.recusadas").counter().count()).isEqualTo(1.0);
+        liberar.countDown();
+        assertThat(ocupando.get(5, TimeUnit.SECONDS)).containsExactly("x", "y");
+        uploads.destroy();
+    }
+}
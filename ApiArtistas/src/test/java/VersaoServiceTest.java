@@ -0,0 +1,52 @@
+import br.com.seplag.sistema.erp.repository.VersaoRepository;
+import br.com.seplag.sistema.erp.service.VersaoService;
+import br.com.seplag.sistema.exception.RecursoNaoEncontradoException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VersaoServiceTest {
+
+    @Mock VersaoRepository versaoRepository;
+
+    @InjectMocks VersaoService service;
+
+    @Test
+    void album_deveMudarEtagQuandoAtualizadoEmMuda() {
+        var t1 = LocalDateTime.of(2024, 1, 1, 10, 0, 0, 1_000);
+        var t2 = t1.plusNanos(1_000);
+
+        when(versaoRepository.ultimaAlteracaoAlbum(5L)).thenReturn(Optional.of(t1), Optional.of(t2));
+
+        var v1 = service.album(5L);
+        var v2 = service.album(5L);
+
+        assertThat(v1.etag()).startsWith("album-5-");
+        assertThat(v1.etag()).isNotEqualTo(v2.etag());
+    }
+
+    @Test
+    void artista_quandoNaoExiste_deveLancar404() {
+        when(versaoRepository.ultimaAlteracaoArtista(9L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.artista(9L))
+                .isInstanceOf(RecursoNaoEncontradoException.class);
+    }
+
+    @Test
+    void albuns_deveUsarVersaoDaColecao() {
+        when(versaoRepository.colecao("albuns"))
+                .thenReturn(Optional.of(new VersaoRepository.VersaoColecao(42, LocalDateTime.of(2024, 1, 1, 0, 0))));
+
+        assertThat(service.albuns().etag()).isEqualTo("albuns-v42");
+    }
+}